@@ -0,0 +1,116 @@
+package benchmark;
+
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.CompilationUnit;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import recursionCheck.CompactCallGraph;
+import recursionCheck.MethodCallGraph;
+import recursionCheck.RecursionCheck;
+import recursionCheck.StronglyConnectedComponents;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the method call graph from parsed CompilationUnits, and the queries of the recursion check on a built
+ * graph. The CompilationUnits are parsed once per trial, so the symbol solver caches of their parser stay warm
+ * across invocations, like in a session which checks several rules.
+ * <p>
+ * {@link #findRecursiveComponents()} measures the search which {@code RecursionCheck.checkCycle} runs on the
+ * snapshot of the graph, and {@link #createMethodCallGraph()} the streaming construction which parses the files
+ * itself. {@link #createGraphDetectingCycles()} adds the cost of keeping the topological order up to date to
+ * {@link #createGraph()}, and {@link #findFirstCycle()} parses the files until the first cycle is found.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CallGraphBenchmark {
+
+    @Param({"SimpleRecursion", "ComplexNoRecursion", "DynamicDispatch", "AnonymousFunc", "scaled-200", "scaled-2000"})
+    public String corpus;
+
+    private Path sourceRoot;
+
+    private List<CompilationUnit> compilationUnits;
+
+    private CompactCallGraph compactGraph;
+
+    private MethodCallGraph methodCallGraph;
+
+    private String startVertex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sourceRoot = Corpora.resolve(corpus);
+        compilationUnits = RecursionCheck.parseFromSourceRoot(sourceRoot, LanguageLevel.JAVA_17).stream()
+                .flatMap(Optional::stream).toList();
+        methodCallGraph = createGraph();
+        compactGraph = methodCallGraph.getCompactGraph();
+        if (compactGraph.vertexCount() == 0) {
+            throw new IllegalStateException("The corpus " + corpus + " has no methods"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        startVertex = compactGraph.vertexOf(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Corpora.delete(sourceRoot);
+    }
+
+    @Benchmark
+    public MethodCallGraph createGraph() {
+        MethodCallGraph graph = new MethodCallGraph();
+        compilationUnits.forEach(graph::createGraph);
+        // Includes the snapshot, which every query of the graph needs
+        graph.getCompactGraph();
+        return graph;
+    }
+
+    @Benchmark
+    public List<String> createGraphDetectingCycles() {
+        MethodCallGraph graph = new MethodCallGraph();
+        graph.detectCyclesWhileBuilding(null);
+        compilationUnits.forEach(graph::createGraph);
+        graph.completeCycleDetection();
+        return graph.getFirstCycle();
+    }
+
+    @Benchmark
+    public CompactCallGraph createMethodCallGraph() {
+        return RecursionCheck.createMethodCallGraph(sourceRoot, LanguageLevel.JAVA_17).getCompactGraph();
+    }
+
+    @Benchmark
+    public List<String> findFirstCycle() {
+        return RecursionCheck.findFirstCycle(sourceRoot, LanguageLevel.JAVA_17, null);
+    }
+
+    @Benchmark
+    public List<int[]> findRecursiveComponents() {
+        return StronglyConnectedComponents.findRecursiveComponents(compactGraph);
+    }
+
+    @Benchmark
+    public Graph<String, DefaultEdge> extractSubgraph() {
+        return methodCallGraph.extractSubgraph(startVertex);
+    }
+}
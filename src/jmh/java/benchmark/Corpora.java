@@ -0,0 +1,90 @@
+package benchmark;
+
+import corpus.CorpusGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Source roots the benchmarks run on.
+ * <p>
+ * A corpus is either the name of a package below {@code src/main/java/org/example}, like {@code SimpleRecursion}, or
+ * {@code scaled-<n>} for a source root with n classes written by the {@link CorpusGenerator}. The fixture directory
+ * can be moved with {@code astRecursion.benchmark.fixtures}. Generated corpora are written to a temporary directory,
+ * which is deleted by {@link #delete(Path)} once the benchmark is done.
+ */
+final class Corpora {
+
+    private static final Path FIXTURES = Path.of(System.getProperty("astRecursion.benchmark.fixtures", "src/main/java/org/example")); //$NON-NLS-1$ //$NON-NLS-2$
+
+    private static final String SCALED_PREFIX = "scaled-"; //$NON-NLS-1$
+
+    private static final int CLASSES_PER_PACKAGE = 100;
+
+    private static final long SEED = 42;
+
+    private Corpora() {
+    }
+
+    /**
+     * @param corpus Name of the corpus
+     * @return Source root of the corpus
+     */
+    static Path resolve(String corpus) {
+        if (corpus.startsWith(SCALED_PREFIX)) {
+            return generate(Integer.parseInt(corpus.substring(SCALED_PREFIX.length())));
+        }
+        Path fixture = FIXTURES.resolve(corpus);
+        if (!Files.isDirectory(fixture)) {
+            throw new IllegalArgumentException("There is no fixture package " + fixture.toAbsolutePath()); //$NON-NLS-1$
+        }
+        return fixture;
+    }
+
+    /**
+     * Deletes a generated corpus, fixtures are left untouched
+     *
+     * @param sourceRoot Source root returned by {@link #resolve(String)}
+     */
+    static void delete(Path sourceRoot) {
+        if (sourceRoot.startsWith(FIXTURES)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(sourceRoot)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generates packages of up to 100 classes with a fixed seed, so that every trial sees the same files, with
+     * loops, conditionals and lambdas for the node scans and with planted cycles for the recursion check
+     */
+    private static Path generate(int classCount) {
+        int packages = Math.max(1, classCount / CLASSES_PER_PACKAGE);
+        try {
+            Path sourceRoot = Files.createTempDirectory("astRecursion-corpus"); //$NON-NLS-1$
+            return new CorpusGenerator(SEED)
+                    .setPackages(packages)
+                    .setClassesPerPackage(Math.max(1, classCount / packages))
+                    .setMethodsPerClass(3)
+                    .setHierarchyDepth(3)
+                    .setOverloadRatio(0.3)
+                    .setLambdaRatio(0.1)
+                    .setLoopDensity(0.3)
+                    .setConditionalDensity(0.5)
+                    .setCycleSizes(1, 3, 10)
+                    .generate(sourceRoot)
+                    .sourceRoot();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import ast.model.JavaFile;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import recursionCheck.RecursionCheck;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a whole source root, with the symbol resolver of the recursion check and with the static configuration
+ * of the node scans
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"SimpleRecursion", "ComplexNoRecursion", "DynamicDispatch", "AnonymousFunc", "scaled-200", "scaled-2000"})
+    public String corpus;
+
+    private Path sourceRoot;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sourceRoot = Corpora.resolve(corpus);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Corpora.delete(sourceRoot);
+    }
+
+    @Benchmark
+    public List<Optional<CompilationUnit>> parseFromSourceRoot() {
+        return RecursionCheck.parseFromSourceRoot(sourceRoot, LanguageLevel.JAVA_17);
+    }
+
+    @Benchmark
+    public List<JavaFile> readFromDirectory() {
+        return JavaFile.readFromDirectory(sourceRoot);
+    }
+}
@@ -0,0 +1,94 @@
+package benchmark;
+
+import analysis.BatchGrader.Outcome;
+import analysis.BatchGrader.Submission;
+import analysis.BatchGrader.Verdict;
+import analysis.ReportWriter;
+import analysis.Violation;
+import ast.model.JavaFile;
+import ast.model.UnwantedNode;
+import ast.model.UnwantedNodeReport;
+import ast.model.UnwantedNodeTable;
+import ast.type.ConditionalType;
+import ast.type.LoopType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering the unwanted loops and conditionals of a source root as an error message, as JSON and as SARIF, without
+ * parsing
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    @Param({"StudentExample", "scaled-200", "scaled-2000"})
+    public String corpus;
+
+    private Path sourceRoot;
+
+    private UnwantedNodeReport report;
+
+    private List<Submission> submissions;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sourceRoot = Corpora.resolve(corpus);
+        Map<Path, List<UnwantedNode>> unwantedNodes = new TreeMap<>();
+        UnwantedNode.scanAllFilesBelow(sourceRoot, JavaFile::copyOfStaticParserConfiguration,
+                UnwantedNodeTable.merge(LoopType.ANY, ConditionalType.ANY), false, (path, nodes) -> {
+                    unwantedNodes.put(path, nodes);
+                    return true;
+                });
+        report = UnwantedNodeReport.of(unwantedNodes);
+        Verdict verdict = new Verdict("hasNo", Outcome.FAILED, report.getMessage().orElse(null), Violation.of(report)); //$NON-NLS-1$
+        submissions = List.of(new Submission(sourceRoot, List.of(verdict)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Corpora.delete(sourceRoot);
+    }
+
+    @Benchmark
+    public Optional<String> getMessage() {
+        return report.getMessage();
+    }
+
+    @Benchmark
+    public int writeJson() throws IOException {
+        StringBuilder out = new StringBuilder();
+        ReportWriter.writeJson(submissions, out);
+        return out.length();
+    }
+
+    @Benchmark
+    public int writeSarif() throws IOException {
+        StringBuilder out = new StringBuilder();
+        ReportWriter.writeSarif(submissions, out);
+        return out.length();
+    }
+}
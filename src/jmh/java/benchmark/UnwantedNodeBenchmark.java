@@ -0,0 +1,77 @@
+package benchmark;
+
+import ast.model.JavaFile;
+import ast.model.UnwantedNode;
+import ast.model.UnwantedNodeTable;
+import ast.type.ConditionalType;
+import ast.type.LoopType;
+import com.github.javaparser.ast.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scanning the files of a source root for loops and conditionals, including parsing, either completely or up to
+ * the first file with a match
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UnwantedNodeBenchmark {
+
+    @Param({"SimpleRecursion", "ComplexNoRecursion", "StudentExample", "scaled-200", "scaled-2000"})
+    public String corpus;
+
+    @Param({"false", "true"})
+    public boolean excludeMainMethod;
+
+    private Path sourceRoot;
+
+    private Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sourceRoot = Corpora.resolve(corpus);
+        nodeNameUnwantedNodeMap = UnwantedNodeTable.merge(LoopType.ANY, ConditionalType.ANY);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Corpora.delete(sourceRoot);
+    }
+
+    @Benchmark
+    public Optional<String> getMessageForUnwantedNodesForAllFilesBelow() {
+        return UnwantedNode.getMessageForUnwantedNodesForAllFilesBelow(sourceRoot, nodeNameUnwantedNodeMap, excludeMainMethod);
+    }
+
+    @Benchmark
+    public Optional<String> getMessageForFirstFileWithUnwantedNodesBelow() {
+        return UnwantedNode.getMessageForFirstFileWithUnwantedNodesBelow(sourceRoot, JavaFile::copyOfStaticParserConfiguration,
+                nodeNameUnwantedNodeMap, excludeMainMethod);
+    }
+
+    @Benchmark
+    public boolean hasUnwantedNodesBelow() {
+        return UnwantedNode.hasUnwantedNodesBelow(sourceRoot, JavaFile::copyOfStaticParserConfiguration,
+                nodeNameUnwantedNodeMap, excludeMainMethod);
+    }
+}
@@ -0,0 +1,103 @@
+package analysis;
+
+import analysis.Deadline.Phase;
+import org.apiguardian.api.API;
+
+/**
+ * Listener for the work done by the analyses of the recursion check and of the unwanted node assertions.
+ * <p>
+ * The phases are reported as nested start and end events on the thread which runs the analysis, e.g. the
+ * resolution of a call while the call graph is built, so an implementation can attribute the time of the inner phase
+ * to it alone. Counters and latencies are also reported by the parser threads, so implementations must be
+ * thread-safe. All methods do nothing by default, so an implementation only overrides what it is interested in.
+ * <p>
+ * The listener of all analyses is installed with {@link AnalysisSession#setMetrics(AnalysisMetrics)}.
+ *
+ * @see InMemoryAnalysisMetrics
+ */
+@API(status = API.Status.INTERNAL)
+public interface AnalysisMetrics {
+
+    /**
+     * Listener which ignores all events
+     */
+    AnalysisMetrics NONE = new AnalysisMetrics() {
+    };
+
+    /**
+     * Counted quantities
+     */
+    enum Counter {
+        FILES("files"), //$NON-NLS-1$
+        AST_NODES("AST nodes"), //$NON-NLS-1$
+        RESOLVE_CALLS("resolve() calls"), //$NON-NLS-1$
+        RESOLUTION_FAILURES("resolution failures"), //$NON-NLS-1$
+        CALL_SITE_MEMO_HITS("call site memo hits"), //$NON-NLS-1$
+        CALL_SITE_MEMO_MISSES("call site memo misses"), //$NON-NLS-1$
+        SUMMARY_CACHE_HITS("summary cache hits"), //$NON-NLS-1$
+        SUMMARY_CACHE_MISSES("summary cache misses"), //$NON-NLS-1$
+        VERTICES("vertices"), //$NON-NLS-1$
+        EDGES("edges"); //$NON-NLS-1$
+
+        private final String description;
+
+        Counter(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * Operations whose latency is recorded one by one
+     */
+    enum Operation {
+        PARSE_FILE("parse a file"), //$NON-NLS-1$
+        RESOLVE_CALL("resolve a call"), //$NON-NLS-1$
+        CHECK("run a check"); //$NON-NLS-1$
+
+        private final String description;
+
+        Operation(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    /**
+     * Called when the analyzing thread enters a phase
+     *
+     * @param phase Phase which is entered
+     */
+    default void phaseStarted(Phase phase) {
+    }
+
+    /**
+     * Called when the analyzing thread leaves the phase it entered last, also if the phase failed
+     *
+     * @param phase Phase which is left
+     */
+    default void phaseFinished(Phase phase) {
+    }
+
+    /**
+     * @param counter Counted quantity
+     * @param amount  Amount to add
+     */
+    default void increment(Counter counter, long amount) {
+    }
+
+    /**
+     * @param operation   Completed operation
+     * @param nanoseconds Time the operation took
+     */
+    default void recordLatency(Operation operation, long nanoseconds) {
+    }
+}
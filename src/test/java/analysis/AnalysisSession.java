@@ -0,0 +1,459 @@
+package analysis;
+
+import ast.model.JavaFile;
+import ast.model.UnwantedNode;
+import ast.model.UnwantedNodeReport;
+import ast.model.UnwantedNodeTable;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import org.apiguardian.api.API;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import recursionCheck.FunctionalInterfaceIndex;
+import recursionCheck.HierarchyIndex;
+import recursionCheck.MethodCallGraph;
+import recursionCheck.NameCallGraph;
+import recursionCheck.RecursionCheck;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Holds everything that is derived from one source root, so that all assertions on the same sources share a
+ * single parse.
+ * <p>
+ * Sessions are keyed by source root and language level and are only reused as long as the size and the last
+ * modification time of every Java file below the root are unchanged. The cache is bounded by the number of syntax
+ * tree nodes its sessions hold ({@code astRecursion.session.maxRetainedNodes}) and by the number of sessions
+ * ({@code astRecursion.session.maxSessions}), and evicts the least recently used session first.
+ * <p>
+ * The call graph and the unwanted nodes are derived from per-file {@link Summaries summaries}, and the graphs are
+ * built by {@link CallGraphs}. Files which are parsed only to be summarized are streamed without keeping their
+ * syntax trees. Only the graph of the method names, the demand-driven graph and the scans for unwanted nodes which
+ * are not covered by the node summaries keep the {@link SyntaxTrees syntax trees} of the files they parse, and once
+ * the calls of all files have been summarized, the session releases every syntax tree it holds. A later caller which
+ * needs them parses the files again.
+ * <p>
+ * A session which is {@link #open(Path, LanguageLevel, Deadline) opened} for a single analysis may have a
+ * {@link Deadline}, which is checked while its sources are parsed, resolved and turned into graphs. Shared sessions
+ * have none, since an expired deadline would stop every later caller.
+ * <p>
+ * Every session reports its phases, counters and latencies to the {@link AnalysisMetrics} which were installed with
+ * {@link #setMetrics(AnalysisMetrics)} when it was created. If {@code astRecursion.metrics} is set to {@code true},
+ * {@link InMemoryAnalysisMetrics} are installed from the start and their summary is printed when the JVM exits.
+ */
+@API(status = API.Status.INTERNAL)
+public class AnalysisSession {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnalysisSession.class);
+
+    private static final PathMatcher JAVA_FILE_MATCHER = FileSystems.getDefault().getPathMatcher("glob:*.java"); //$NON-NLS-1$
+
+    /**
+     * Upper bound for the summed up nodes of the syntax trees held by all cached sessions
+     */
+    private static final long MAX_RETAINED_NODES = Long.getLong("astRecursion.session.maxRetainedNodes", 4_000_000); //$NON-NLS-1$
+
+    /**
+     * Upper bound for the number of cached sessions, which still hold their summaries and graphs once their syntax
+     * trees are released
+     */
+    private static final int MAX_SESSIONS = Integer.getInteger("astRecursion.session.maxSessions", 64); //$NON-NLS-1$
+
+    private static final Map<Key, AnalysisSession> SESSIONS = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static volatile AnalysisMetrics installedMetrics = metricsFromSystemProperties();
+
+    private final Path sourceRoot;
+
+    private final LanguageLevel level;
+
+    private final Map<Path, Fingerprint> fingerprints;
+
+    private final Deadline deadline;
+
+    private final AnalysisMetrics metrics;
+
+    private final SyntaxTrees syntaxTrees;
+
+    private final Summaries summaries;
+
+    private final CallGraphs callGraphs;
+
+    private final Map<NodeScanKey, UnwantedNodeReport> unwantedNodeReports = new HashMap<>();
+
+    private AnalysisSession(Path sourceRoot, LanguageLevel level, Map<Path, Fingerprint> fingerprints, Deadline deadline,
+                            AnalysisMetrics metrics) {
+        this.sourceRoot = sourceRoot;
+        this.level = level;
+        this.fingerprints = fingerprints;
+        this.deadline = deadline;
+        this.metrics = metrics;
+        this.syntaxTrees = new SyntaxTrees(sourceRoot, level, deadline, metrics, AnalysisSession::evictLeastRecentlyUsed);
+        this.summaries = new Summaries(sourceRoot, level, fingerprints.keySet(), deadline, metrics, syntaxTrees);
+        this.callGraphs = new CallGraphs(sourceRoot, fingerprints.keySet(), deadline, metrics, syntaxTrees, summaries);
+    }
+
+    /**
+     * Returns the session for the given source root, creating a new one if there is none yet or if any Java file
+     * below the root has changed since the cached session was created
+     *
+     * @param sourceRoot Path to the source root
+     * @param level      JavaParser Language Level
+     * @return Session for the current state of the source root
+     */
+    public static AnalysisSession of(Path sourceRoot, LanguageLevel level) {
+        Path root = sourceRoot.toAbsolutePath().normalize();
+        AnalysisMetrics metrics = installedMetrics;
+        Map<Path, Fingerprint> fingerprints = discover(root, metrics);
+        Key key = new Key(root, level);
+        synchronized (SESSIONS) {
+            AnalysisSession session = SESSIONS.get(key);
+            if (session != null && session.fingerprints.equals(fingerprints)) {
+                return session;
+            }
+            session = new AnalysisSession(root, level, fingerprints, Deadline.none(), metrics);
+            SESSIONS.put(key, session);
+            evictLeastRecentlyUsed();
+            return session;
+        }
+    }
+
+    /**
+     * Creates a session for the current state of the source root, which is not shared with other callers
+     *
+     * @param sourceRoot Path to the source root
+     * @param level      JavaParser Language Level
+     * @return New session
+     */
+    static AnalysisSession open(Path sourceRoot, LanguageLevel level) {
+        return open(sourceRoot, level, Deadline.none());
+    }
+
+    /**
+     * Creates a session for the current state of the source root, which is not shared with other callers and stops
+     * with an {@link AnalysisTimeoutException} once the given deadline has expired, e.g. for
+     * {@link RecursionCheck#hasNoCycle(AnalysisSession, Method, Method...)}
+     *
+     * @param sourceRoot Path to the source root
+     * @param level      JavaParser Language Level
+     * @param deadline   Deadline of all analyses of the session
+     * @return New session
+     */
+    public static AnalysisSession open(Path sourceRoot, LanguageLevel level, Deadline deadline) {
+        Path root = sourceRoot.toAbsolutePath().normalize();
+        AnalysisMetrics metrics = installedMetrics;
+        return new AnalysisSession(root, level, discover(root, metrics), deadline, metrics);
+    }
+
+    /**
+     * Installs the listener of all sessions which are created from now on. The cached sessions are dropped, so that
+     * the work of every later analysis is reported.
+     *
+     * @param metrics Listener for the phases, counters and latencies of the analyses
+     */
+    public static void setMetrics(AnalysisMetrics metrics) {
+        installedMetrics = Objects.requireNonNull(metrics);
+        clear();
+    }
+
+    /**
+     * @return Listener of all sessions which are created from now on
+     */
+    public static AnalysisMetrics getInstalledMetrics() {
+        return installedMetrics;
+    }
+
+    private static AnalysisMetrics metricsFromSystemProperties() {
+        if (!Boolean.getBoolean("astRecursion.metrics")) { //$NON-NLS-1$
+            return AnalysisMetrics.NONE;
+        }
+        InMemoryAnalysisMetrics metrics = new InMemoryAnalysisMetrics();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> metrics.printSummary(System.err), "analysis-metrics")); //$NON-NLS-1$
+        return metrics;
+    }
+
+    /**
+     * Drops all cached sessions
+     */
+    public static void clear() {
+        synchronized (SESSIONS) {
+            SESSIONS.clear();
+        }
+    }
+
+    /**
+     * Called whenever a session holds more syntax trees, which may happen long after it was taken from the cache
+     */
+    private static void evictLeastRecentlyUsed() {
+        evictLeastRecentlyUsed(MAX_RETAINED_NODES, MAX_SESSIONS);
+    }
+
+    static void evictLeastRecentlyUsed(long maxRetainedNodes, int maxSessions) {
+        synchronized (SESSIONS) {
+            long retainedNodes = SESSIONS.values().stream().mapToLong(AnalysisSession::getRetainedNodes).sum();
+            Iterator<AnalysisSession> iterator = SESSIONS.values().iterator();
+            // The most recently used session is always kept, even if it exceeds the bound on its own
+            while ((retainedNodes > maxRetainedNodes || SESSIONS.size() > maxSessions) && SESSIONS.size() > 1) {
+                AnalysisSession eldest = iterator.next();
+                iterator.remove();
+                retainedNodes -= eldest.getRetainedNodes();
+                LOG.debug("Evicted analysis session for '{}'", eldest.sourceRoot); //$NON-NLS-1$
+            }
+        }
+    }
+
+    /**
+     * @return True if the given session is still returned by {@link #of(Path, LanguageLevel)}
+     */
+    static boolean isCached(AnalysisSession session) {
+        synchronized (SESSIONS) {
+            return SESSIONS.containsValue(session);
+        }
+    }
+
+    private static Map<Path, Fingerprint> discover(Path root, AnalysisMetrics metrics) {
+        metrics.phaseStarted(Deadline.Phase.DISCOVERY);
+        try {
+            return fingerprintsBelow(root);
+        } finally {
+            metrics.phaseFinished(Deadline.Phase.DISCOVERY);
+        }
+    }
+
+    static Map<Path, Fingerprint> fingerprintsBelow(Path root) {
+        Map<Path, Fingerprint> fingerprints = new TreeMap<>();
+        if (!Files.isDirectory(root)) {
+            return fingerprints;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (!JAVA_FILE_MATCHER.matches(path.getFileName())) {
+                    continue;
+                }
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    fingerprints.put(path, new Fingerprint(attributes.size(), attributes.lastModifiedTime().toMillis()));
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Error reading Java files in '{}'", root, e); //$NON-NLS-1$
+            throw new AssertionError(String.format("The files in %s could not be read: %s", root, e));
+        }
+        return fingerprints;
+    }
+
+    public Path getSourceRoot() {
+        return sourceRoot;
+    }
+
+    public LanguageLevel getLevel() {
+        return level;
+    }
+
+    public Deadline getDeadline() {
+        return deadline;
+    }
+
+    public AnalysisMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Parses all Java files in the source root on first use
+     *
+     * @return Parse results of all Java files in the source root
+     */
+    public synchronized List<ParseResult<CompilationUnit>> getParseResults() {
+        return List.copyOf(syntaxTrees.parse(fingerprints.keySet()).values());
+    }
+
+    /**
+     * Get all successfully parsed CompilationUnits of the source root
+     *
+     * @return List of CompilationUnit
+     */
+    public List<CompilationUnit> getCompilationUnits() {
+        return getParseResults().stream().map(ParseResult::getResult).flatMap(Optional::stream).toList();
+    }
+
+    /**
+     * Get the method call graph of the source root, which is created once per set of excluded methods
+     *
+     * @param excludedMethods Methods to exclude from the graph
+     * @return Method call graph
+     */
+    public synchronized MethodCallGraph getMethodCallGraph(Method... excludedMethods) {
+        return callGraphs.getMethodCallGraph(excludedMethods);
+    }
+
+    /**
+     * Get a method call graph which contains the starting method and every method reachable from it, which is created
+     * once per starting method and set of excluded methods. Only the files of the reachable methods are resolved, see
+     * {@link CallGraphWorklist}. If the calls of all files have been summarized already, or
+     * {@code astRecursion.demandDriven} is set to {@code false}, the graph of the whole source root is returned.
+     *
+     * @param startingMethod  Method to start from
+     * @param excludedMethods Methods to exclude from the graph
+     * @return Method call graph
+     */
+    public synchronized MethodCallGraph getReachableCallGraph(Method startingMethod, Method... excludedMethods) {
+        return callGraphs.getReachableCallGraph(startingMethod, excludedMethods);
+    }
+
+    /**
+     * @return True if the calls of all files have been summarized already, so that the method call graph of the whole
+     * source root is built without parsing or resolving any file
+     */
+    public synchronized boolean hasCallSummaries() {
+        return callGraphs.hasCallSummaries();
+    }
+
+    /**
+     * Get the graph of the method names of the source root, which is created once without resolving any symbol
+     *
+     * @return Conservative method call graph
+     */
+    public synchronized NameCallGraph getNameCallGraph() {
+        return callGraphs.getNameCallGraph();
+    }
+
+    /**
+     * Get a method call graph which contains every cycle of the source root, which is created once per set of
+     * excluded methods. Only the calls of the files which declare a {@link NameCallGraph#getSuspectCallables()
+     * callable} that may be part of a cycle are summarized, and they are dispatched in the class hierarchy of all
+     * files. If the calls of all files have been summarized already, the graph of the whole source root is returned.
+     *
+     * @param excludedMethods Methods to exclude from the graph
+     * @return Method call graph
+     */
+    public synchronized MethodCallGraph getSuspectCallGraph(Method... excludedMethods) {
+        return callGraphs.getSuspectCallGraph(excludedMethods);
+    }
+
+    /**
+     * Get the class hierarchy of the source root, which is created once and shared by all method call graphs
+     *
+     * @return Hierarchy of all types of the source root
+     */
+    public synchronized HierarchyIndex getHierarchyIndex() {
+        return callGraphs.getHierarchyIndex();
+    }
+
+    /**
+     * Get the lambdas and method references of the source root, which are indexed once and shared by all method call
+     * graphs
+     *
+     * @return Implementations of the functional interface methods
+     */
+    public synchronized FunctionalInterfaceIndex getFunctionalInterfaceIndex() {
+        return callGraphs.getFunctionalInterfaceIndex();
+    }
+
+    /**
+     * Creates an error message in case unwanted nodes are detected in any Java file of the source root. The unwanted
+     * nodes are detected once per set of unwanted nodes, and the message is only rendered if any were detected.
+     *
+     * @param nodeNameUnwantedNodeMap List of unwanted nodes
+     * @param excludeMainMethod       Whether the main method is excluded from the check
+     * @return Error message
+     */
+    public synchronized Optional<String> getMessageForUnwantedNodes(Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap,
+                                                                    boolean excludeMainMethod) {
+        UnwantedNodeReport report = getUnwantedNodeReport(nodeNameUnwantedNodeMap, excludeMainMethod);
+        return report.isEmpty() ? Optional.empty() : inPhase(metrics, Deadline.Phase.REPORTING, report::getMessage);
+    }
+
+    /**
+     * Detects unwanted nodes in every Java file of the source root, which is done once per set of unwanted nodes
+     *
+     * @param nodeNameUnwantedNodeMap List of unwanted nodes
+     * @param excludeMainMethod       Whether the main method is excluded from the check
+     * @return Unwanted nodes grouped by file, in the order of the paths
+     */
+    public synchronized UnwantedNodeReport getUnwantedNodeReport(Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap,
+                                                                 boolean excludeMainMethod) {
+        NodeScanKey key = new NodeScanKey(Map.copyOf(nodeNameUnwantedNodeMap), excludeMainMethod);
+        UnwantedNodeReport report = unwantedNodeReports.get(key);
+        if (report == null) {
+            if (NodeSummary.covers(nodeNameUnwantedNodeMap.values())) {
+                report = inPhase(metrics, Deadline.Phase.NODE_SCAN, () -> {
+                    UnwantedNodeTable unwantedNodeTable = new UnwantedNodeTable(nodeNameUnwantedNodeMap);
+                    Map<Path, List<UnwantedNode>> unwantedNodesByPath = new TreeMap<>();
+                    summaries.getNodeSummaries().forEach((path, nodeSummary) -> unwantedNodesByPath.put(path,
+                            nodeSummary.getUnwantedNodes(unwantedNodeTable, excludeMainMethod)));
+                    return UnwantedNodeReport.of(unwantedNodesByPath);
+                });
+            } else {
+                List<JavaFile> javaFiles = getJavaFiles(excludeMainMethod);
+                report = inPhase(metrics, Deadline.Phase.NODE_SCAN,
+                        () -> UnwantedNode.getReportForUnwantedNodesInFiles(javaFiles, nodeNameUnwantedNodeMap));
+            }
+            unwantedNodeReports.put(key, report);
+        }
+        return report;
+    }
+
+    private List<JavaFile> getJavaFiles(boolean excludeMainMethod) {
+        List<JavaFile> javaFiles = new ArrayList<>();
+        syntaxTrees.parse(fingerprints.keySet()).forEach((path, parseResult) -> {
+            JavaFile javaFile = JavaFile.fromParseResult(path, parseResult, false);
+            // Excluding the main method removes it from the tree, so the shared tree must not be touched
+            javaFiles.add(excludeMainMethod ? new JavaFile(path, javaFile.getJavaFileAST().clone(), true) : javaFile);
+        });
+        return javaFiles;
+    }
+
+    /**
+     * @return Number of files whose syntax trees are held by the session
+     */
+    synchronized int getRetainedSyntaxTrees() {
+        return syntaxTrees.getRetainedFiles();
+    }
+
+    /**
+     * @return Number of nodes of the syntax trees held by the session, which may be read while it is analyzing
+     */
+    long getRetainedNodes() {
+        return syntaxTrees.getRetainedNodes();
+    }
+
+    /**
+     * Runs the given work as the given phase of the analysis
+     */
+    static <T> T inPhase(AnalysisMetrics metrics, Deadline.Phase phase, Supplier<T> work) {
+        metrics.phaseStarted(phase);
+        try {
+            return work.get();
+        } finally {
+            metrics.phaseFinished(phase);
+        }
+    }
+
+    private record Key(Path sourceRoot, LanguageLevel level) {
+    }
+
+    record Fingerprint(long size, long lastModified) {
+    }
+
+    private record NodeScanKey(Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap, boolean excludeMainMethod) {
+    }
+}
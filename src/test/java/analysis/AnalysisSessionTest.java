@@ -0,0 +1,128 @@
+package analysis;
+
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnalysisSessionTest {
+
+    private static final String RECURSIVE = """
+            package p;
+
+            public class Solution {
+                public int sum(int n) {
+                    return n == 0 ? 0 : n + sum(n - 1);
+                }
+            }
+            """;
+
+    private static final String CALLER = """
+            package p;
+
+            public class Caller {
+                public int call() {
+                    return new Solution().sum(3);
+                }
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testMethodCallGraphReleasesTheSyntaxTrees() throws IOException {
+        write("Solution.java", RECURSIVE);
+        write("Caller.java", CALLER);
+        AnalysisSession session = AnalysisSession.open(directory, LanguageLevel.JAVA_17, Deadline.none());
+
+        assertThat(session.getNameCallGraph().getSuspectCallables()).isNotEmpty();
+        assertThat(session.getRetainedSyntaxTrees()).isEqualTo(2);
+
+        assertThat(session.getMethodCallGraph().getGraph().containsEdge("p.Caller.call()", "p.Solution.sum(int)")).isTrue();
+        assertThat(session.getRetainedSyntaxTrees()).isZero();
+        assertThat(session.getSuspectCallGraph().getGraph().containsEdge("p.Solution.sum(int)", "p.Solution.sum(int)")).isTrue();
+        assertThat(session.getRetainedSyntaxTrees()).isZero();
+    }
+
+    @Test
+    void testSummarizedFilesAreNotRetained() throws IOException {
+        write("Solution.java", RECURSIVE);
+        write("Caller.java", CALLER);
+        AnalysisSession session = AnalysisSession.open(directory, LanguageLevel.JAVA_17, Deadline.none());
+
+        assertThat(session.getHierarchyIndex()).isNotNull();
+
+        assertThat(session.hasCallSummaries()).isTrue();
+        assertThat(session.getRetainedSyntaxTrees()).isZero();
+        assertThat(session.getCompilationUnits()).hasSize(2);
+        assertThat(session.getRetainedSyntaxTrees()).isEqualTo(2);
+    }
+
+    @Test
+    void testChangedFileInvalidatesTheCachedSession() throws IOException {
+        Path solution = write("Solution.java", RECURSIVE);
+        AnalysisSession session = AnalysisSession.of(directory, LanguageLevel.JAVA_17);
+
+        assertThat(AnalysisSession.of(directory, LanguageLevel.JAVA_17)).isSameAs(session);
+
+        Files.setLastModifiedTime(solution, FileTime.fromMillis(Files.getLastModifiedTime(solution).toMillis() + 1000));
+        AnalysisSession touched = AnalysisSession.of(directory, LanguageLevel.JAVA_17);
+        assertThat(touched).isNotSameAs(session);
+        assertThat(AnalysisSession.isCached(session)).isFalse();
+
+        write("Caller.java", CALLER);
+        AnalysisSession extended = AnalysisSession.of(directory, LanguageLevel.JAVA_17);
+        assertThat(extended).isNotSameAs(touched);
+        assertThat(extended.getMethodCallGraph().getGraph().containsVertex("p.Caller.call()")).isTrue();
+        assertThat(AnalysisSession.of(directory, LanguageLevel.JAVA_17)).isSameAs(extended);
+    }
+
+    @Test
+    void testSessionsAreEvictedByTheirSyntaxTrees() throws IOException {
+        AnalysisSession.clear();
+        Path first = directory.resolve("first");
+        Path second = directory.resolve("second");
+        write(first, "Solution.java", RECURSIVE);
+        write(second, "Solution.java", RECURSIVE);
+        AnalysisSession firstSession = AnalysisSession.of(first, LanguageLevel.JAVA_17);
+        AnalysisSession secondSession = AnalysisSession.of(second, LanguageLevel.JAVA_17);
+        firstSession.getCompilationUnits();
+        secondSession.getCompilationUnits();
+        long retainedNodes = firstSession.getRetainedNodes();
+        assertThat(retainedNodes).isPositive().isEqualTo(secondSession.getRetainedNodes());
+
+        AnalysisSession.evictLeastRecentlyUsed(2 * retainedNodes, 64);
+        assertThat(AnalysisSession.isCached(firstSession)).isTrue();
+
+        AnalysisSession.evictLeastRecentlyUsed(retainedNodes, 64);
+        assertThat(AnalysisSession.isCached(firstSession)).isFalse();
+        assertThat(AnalysisSession.isCached(secondSession)).isTrue();
+
+        // Released trees do not count, but the number of sessions is still bounded
+        AnalysisSession firstAgain = AnalysisSession.of(first, LanguageLevel.JAVA_17);
+        secondSession.getMethodCallGraph();
+        assertThat(secondSession.getRetainedNodes()).isZero();
+        AnalysisSession.evictLeastRecentlyUsed(0, 64);
+        assertThat(AnalysisSession.isCached(secondSession)).isTrue();
+        AnalysisSession.evictLeastRecentlyUsed(0, 1);
+        assertThat(AnalysisSession.isCached(secondSession)).isFalse();
+        assertThat(AnalysisSession.isCached(firstAgain)).isTrue();
+    }
+
+    private Path write(String fileName, String content) throws IOException {
+        return write(directory, fileName, content);
+    }
+
+    private static Path write(Path sourceRoot, String fileName, String content) throws IOException {
+        Path file = sourceRoot.resolve("p").resolve(fileName);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
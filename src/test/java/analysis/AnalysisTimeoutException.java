@@ -0,0 +1,47 @@
+package analysis;
+
+import analysis.Deadline.Phase;
+import org.apiguardian.api.API;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an analysis is stopped by its {@link Deadline}
+ */
+@API(status = API.Status.INTERNAL)
+public class AnalysisTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Phase phase;
+
+    private final int completedFiles;
+
+    private final Duration elapsed;
+
+    /**
+     * @param phase          Phase in which the analysis was stopped
+     * @param completedFiles Number of files which were completed in that phase
+     * @param elapsed        Time the analysis took until it was stopped
+     * @param cancelled      Whether the analysis was cancelled rather than running out of time
+     */
+    public AnalysisTimeoutException(Phase phase, int completedFiles, Duration elapsed, boolean cancelled) {
+        super(String.format("The analysis %s in phase %s after %d files and %d ms", //$NON-NLS-1$
+                cancelled ? "was cancelled" : "timed out", phase, completedFiles, elapsed.toMillis())); //$NON-NLS-1$ //$NON-NLS-2$
+        this.phase = phase;
+        this.completedFiles = completedFiles;
+        this.elapsed = elapsed;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public int getCompletedFiles() {
+        return completedFiles;
+    }
+
+    public Duration getElapsed() {
+        return elapsed;
+    }
+}
@@ -0,0 +1,281 @@
+package analysis;
+
+import ast.model.UnwantedNodeTable;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.Node;
+import de.tum.in.test.api.ast.type.Type;
+import org.apiguardian.api.API;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import recursionCheck.RecursionCheck;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Grades many submissions with the same rules in one JVM.
+ * <p>
+ * Submissions are analyzed concurrently on a bounded number of threads, each in its own {@link AnalysisSession}
+ * which is released as soon as the submission is graded. The types of the JDK and of the class path are resolved
+ * once for all submissions. A failing analysis of one submission, including errors like a StackOverflowError, is
+ * reported as an {@link Outcome#ERROR} of its rules and does not affect the other submissions.
+ * <p>
+ * If a time limit is given, every submission is analyzed with a {@link Deadline}. A submission which exceeds it is
+ * stopped at the next file or method, its remaining rules are reported as {@link Outcome#TIMED_OUT} and its thread
+ * moves on to the next submission.
+ * <p>
+ * Every failed verdict lists the {@link Violation}s of its rule, which are collected only for failed rules. The
+ * results can be written as JSON or SARIF with the {@link ReportWriter}.
+ */
+@API(status = API.Status.INTERNAL)
+public final class BatchGrader implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchGrader.class);
+
+    private final ExecutorService executor;
+
+    private final Duration timeout;
+
+    /**
+     * Creates a grader which uses one thread per available processor
+     */
+    public BatchGrader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism Maximum number of submissions which are graded at the same time
+     */
+    public BatchGrader(int parallelism) {
+        this(parallelism, null);
+    }
+
+    /**
+     * @param parallelism Maximum number of submissions which are graded at the same time
+     * @param timeout     Time limit for the analysis of one submission, or null for no limit
+     */
+    public BatchGrader(int parallelism, Duration timeout) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be positive: " + parallelism); //$NON-NLS-1$
+        }
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("The timeout must be positive: " + timeout); //$NON-NLS-1$
+        }
+        this.timeout = timeout;
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "batch-grader-" + count.incrementAndGet()); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Grades all submissions
+     *
+     * @param submissions Source roots of the submissions
+     * @param level       JavaParser Language Level
+     * @param rules       Rules every submission is graded with
+     * @return Results in the order of the given submissions
+     * @throws InterruptedException If the thread is interrupted while waiting for the results, in which case all
+     *                              submissions which are not graded yet are cancelled
+     */
+    public List<Submission> grade(List<Path> submissions, LanguageLevel level, List<Rule> rules) throws InterruptedException {
+        List<Future<Submission>> futures = new ArrayList<>(submissions.size());
+        for (Path submission : submissions) {
+            futures.add(executor.submit(() -> grade(submission, level, rules)));
+        }
+        List<Submission> results = new ArrayList<>(submissions.size());
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    // Failures of the rules are already turned into verdicts, so only the setup of the submission remains
+                    results.add(failed(submissions.get(i), rules, e.getCause()));
+                }
+            }
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+
+    private static Submission failed(Path submission, List<Rule> rules, Throwable failure) {
+        LOG.debug("Could not grade '{}'", submission, failure); //$NON-NLS-1$
+        return new Submission(submission, rules.stream()
+                .map(rule -> new Verdict(rule.name(), Outcome.ERROR, describe(failure))).toList());
+    }
+
+    /**
+     * Errors like StackOverflowError usually have no message, so they are described by their type
+     */
+    private static String describe(Throwable failure) {
+        return Objects.toString(failure.getMessage(), failure.getClass().getName());
+    }
+
+    private Submission grade(Path submission, LanguageLevel level, List<Rule> rules) {
+        Deadline deadline = timeout != null ? Deadline.after(timeout) : Deadline.none();
+        AnalysisSession session = AnalysisSession.open(submission, level, deadline);
+        List<Verdict> verdicts = new ArrayList<>(rules.size());
+        Verdict timedOut = null;
+        for (Rule rule : rules) {
+            Verdict verdict = timedOut != null ? new Verdict(rule.name(), Outcome.TIMED_OUT, timedOut.message()) : rule.evaluate(session);
+            if (verdict.outcome() == Outcome.TIMED_OUT) {
+                timedOut = verdict;
+            }
+            verdicts.add(verdict);
+        }
+        return new Submission(submission, verdicts);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Result of a single rule
+     */
+    public enum Outcome {
+        /**
+         * The submission satisfies the rule
+         */
+        PASSED,
+        /**
+         * The submission violates the rule
+         */
+        FAILED,
+        /**
+         * The submission could not be analyzed, e.g. because it does not compile
+         */
+        ERROR,
+        /**
+         * The analysis of the submission exceeded its time limit or was cancelled
+         */
+        TIMED_OUT
+    }
+
+    /**
+     * A check which is applied to every submission
+     *
+     * @param name       Name of the rule in the verdicts
+     * @param check      Returns Optional.empty() if the submission satisfies the rule, otherwise an error message
+     * @param violations Returns the places which violate the rule, which is only called if the check failed
+     */
+    public record Rule(String name, Function<AnalysisSession, Optional<String>> check,
+                       Function<AnalysisSession, List<Violation>> violations) {
+
+        /**
+         * Creates a rule whose failed verdicts do not list any violations
+         *
+         * @param name  Name of the rule in the verdicts
+         * @param check Returns Optional.empty() if the submission satisfies the rule, otherwise an error message
+         */
+        public Rule(String name, Function<AnalysisSession, Optional<String>> check) {
+            this(name, check, session -> List.of());
+        }
+
+        /**
+         * @see recursionCheck.RecursionCheckAssert#hasNoRecursion()
+         */
+        public static Rule hasNoRecursion(Method startingMethod, Method... excludedMethods) {
+            return new Rule("hasNoRecursion", //$NON-NLS-1$
+                    session -> RecursionCheck.hasNoCycle(session, startingMethod, excludedMethods),
+                    // The call graph is cached by the session, so only the cycle detection is repeated
+                    session -> Violation.ofRecursiveMethods(RecursionCheck.getRecursiveMethods(session, startingMethod, excludedMethods)));
+        }
+
+        /**
+         * @see recursionCheck.RecursionCheckAssert#hasRecursion()
+         */
+        public static Rule hasRecursion(Method startingMethod, Method... excludedMethods) {
+            return new Rule("hasRecursion", //$NON-NLS-1$
+                    session -> RecursionCheck.hasCycle(session, startingMethod, excludedMethods));
+        }
+
+        /**
+         * @see ast.asserting.UnwantedNodesAssert#hasNo(Type, Type...)
+         */
+        public static Rule hasNo(boolean excludeMainMethod, Type type, Type... moreTypes) {
+            Type[] types = Stream.concat(Stream.of(type), Arrays.stream(moreTypes)).toArray(Type[]::new);
+            Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap = UnwantedNodeTable.merge(types);
+            String typeNames = Arrays.stream(types)
+                    .map(unwanted -> unwanted.getClass().getSimpleName() + "." + unwanted) //$NON-NLS-1$
+                    .collect(Collectors.joining(", ")); //$NON-NLS-1$
+            return new Rule("hasNo(" + typeNames + ")", //$NON-NLS-1$ //$NON-NLS-2$
+                    session -> session.getMessageForUnwantedNodes(nodeNameUnwantedNodeMap, excludeMainMethod),
+                    session -> Violation.of(session.getUnwantedNodeReport(nodeNameUnwantedNodeMap, excludeMainMethod)));
+        }
+
+        Verdict evaluate(AnalysisSession session) {
+            try {
+                Optional<String> message = check.apply(session);
+                if (message.isEmpty()) {
+                    return new Verdict(name, Outcome.PASSED, null);
+                }
+                return new Verdict(name, Outcome.FAILED, message.get(), List.copyOf(violations.apply(session)));
+            } catch (AnalysisTimeoutException e) {
+                LOG.warn("Stopped rule '{}' for '{}': {}", name, session.getSourceRoot(), e.getMessage()); //$NON-NLS-1$
+                return new Verdict(name, Outcome.TIMED_OUT, e.getMessage());
+            } catch (RuntimeException | Error e) {
+                // Includes StackOverflowError and ExceptionInInitializerError, which must only fail this submission
+                LOG.debug("Could not evaluate rule '{}' for '{}'", name, session.getSourceRoot(), e); //$NON-NLS-1$
+                return new Verdict(name, Outcome.ERROR, describe(e));
+            }
+        }
+    }
+
+    /**
+     * Result of one rule for one submission
+     *
+     * @param rule       Name of the rule
+     * @param outcome    Outcome of the rule
+     * @param message    Error message of a failed or erroneous rule, null if the rule passed
+     * @param violations Places which violate the rule, empty unless the rule failed
+     */
+    public record Verdict(String rule, Outcome outcome, String message, List<Violation> violations) {
+
+        /**
+         * Creates a verdict without violations
+         *
+         * @param rule    Name of the rule
+         * @param outcome Outcome of the rule
+         * @param message Error message of a failed or erroneous rule, null if the rule passed
+         */
+        public Verdict(String rule, Outcome outcome, String message) {
+            this(rule, outcome, message, List.of());
+        }
+    }
+
+    /**
+     * Results of all rules for one submission
+     *
+     * @param sourceRoot Source root of the submission
+     * @param verdicts   Verdicts in the order of the rules
+     */
+    public record Submission(Path sourceRoot, List<Verdict> verdicts) {
+
+        /**
+         * @return True if the submission satisfies all rules
+         */
+        public boolean passed() {
+            return verdicts.stream().allMatch(verdict -> verdict.outcome() == Outcome.PASSED);
+        }
+    }
+}
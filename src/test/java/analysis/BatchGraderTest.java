@@ -0,0 +1,136 @@
+package analysis;
+
+import analysis.BatchGrader.Outcome;
+import analysis.BatchGrader.Rule;
+import analysis.BatchGrader.Submission;
+import analysis.BatchGrader.Verdict;
+import ast.type.LoopType;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchGraderTest {
+
+    private static final String RECURSIVE = """
+            package p;
+
+            public class Solution {
+                public int sum(int n) {
+                    return n == 0 ? 0 : n + sum(n - 1);
+                }
+            }
+            """;
+
+    private static final String ITERATIVE = """
+            package p;
+
+            public class Solution {
+                public int sum(int n) {
+                    int sum = 0;
+                    for (int i = 1; i <= n; i++) {
+                        sum += i;
+                    }
+                    return sum;
+                }
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPassedAndFailedVerdicts() throws IOException, InterruptedException {
+        Path recursive = writeSubmission("recursive", RECURSIVE);
+        Path iterative = writeSubmission("iterative", ITERATIVE);
+        List<Rule> rules = List.of(Rule.hasNoRecursion(null), Rule.hasNo(false, LoopType.ANY));
+
+        List<Submission> submissions;
+        try (BatchGrader grader = new BatchGrader(2)) {
+            submissions = grader.grade(List.of(recursive, iterative), LanguageLevel.JAVA_17, rules);
+        }
+
+        assertThat(submissions).extracting(Submission::sourceRoot).containsExactly(recursive, iterative);
+        assertThat(submissions.get(0).verdicts()).extracting(Verdict::outcome).containsExactly(Outcome.FAILED, Outcome.PASSED);
+        assertThat(submissions.get(0).verdicts().get(0).violations()).extracting(Violation::method).containsExactly("p.Solution.sum(int)");
+        assertThat(submissions.get(1).verdicts()).extracting(Verdict::outcome).containsExactly(Outcome.PASSED, Outcome.FAILED);
+        assertThat(submissions.get(1).verdicts().get(1).violations()).extracting(Violation::file)
+                .containsExactly(iterative.resolve("p").resolve("Solution.java"));
+        assertThat(submissions).extracting(Submission::passed).containsExactly(false, false);
+    }
+
+    @Test
+    void testErrorOfOneSubmissionDoesNotStopTheOthers() throws IOException, InterruptedException {
+        Path failing = writeSubmission("failing", RECURSIVE);
+        Path passing = writeSubmission("passing", ITERATIVE);
+        // Fails like a submission whose analysis recurses too deeply or whose class cannot be initialized
+        Rule stackOverflow = new Rule("stackOverflow", session -> {
+            if (session.getSourceRoot().endsWith("failing")) {
+                throw new StackOverflowError();
+            }
+            return Optional.empty();
+        });
+        Rule initializer = new Rule("initializer", session -> {
+            if (session.getSourceRoot().endsWith("failing")) {
+                throw new ExceptionInInitializerError("static initializer failed");
+            }
+            return Optional.empty();
+        });
+
+        List<Submission> submissions;
+        try (BatchGrader grader = new BatchGrader(1)) {
+            submissions = grader.grade(List.of(failing, passing), LanguageLevel.JAVA_17,
+                    List.of(stackOverflow, initializer, Rule.hasNoRecursion(null)));
+        }
+
+        assertThat(submissions.get(0).verdicts()).extracting(Verdict::outcome)
+                .containsExactly(Outcome.ERROR, Outcome.ERROR, Outcome.FAILED);
+        assertThat(submissions.get(0).verdicts()).extracting(Verdict::message)
+                .startsWith("java.lang.StackOverflowError", "static initializer failed");
+        assertThat(submissions.get(1).verdicts()).extracting(Verdict::outcome)
+                .containsExactly(Outcome.PASSED, Outcome.PASSED, Outcome.PASSED);
+        assertThat(submissions.get(1).passed()).isTrue();
+    }
+
+    @Test
+    void testTimedOutSubmission() throws IOException, InterruptedException {
+        Path slow = writeSubmission("slow", ITERATIVE);
+        Path fast = writeSubmission("fast", ITERATIVE);
+        Rule waitForDeadline = new Rule("waitForDeadline", session -> {
+            if (session.getSourceRoot().endsWith("slow")) {
+                while (true) {
+                    session.getDeadline().check(Deadline.Phase.CYCLE_DETECTION);
+                    Thread.onSpinWait();
+                }
+            }
+            return Optional.empty();
+        });
+
+        List<Submission> submissions;
+        try (BatchGrader grader = new BatchGrader(2, Duration.ofMillis(200))) {
+            submissions = grader.grade(List.of(slow, fast), LanguageLevel.JAVA_17,
+                    List.of(waitForDeadline, Rule.hasNo(false, LoopType.ANY)));
+        }
+
+        assertThat(submissions.get(0).verdicts()).extracting(Verdict::outcome)
+                .containsExactly(Outcome.TIMED_OUT, Outcome.TIMED_OUT);
+        assertThat(submissions.get(0).verdicts().get(0).message()).startsWith("The analysis timed out in phase cycle detection");
+        assertThat(submissions.get(1).verdicts()).extracting(Verdict::outcome)
+                .containsExactly(Outcome.PASSED, Outcome.FAILED);
+    }
+
+    private Path writeSubmission(String name, String solution) throws IOException {
+        Path file = directory.resolve(name).resolve("p").resolve("Solution.java");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, solution);
+        return directory.resolve(name);
+    }
+}
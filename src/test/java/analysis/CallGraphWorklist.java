@@ -0,0 +1,305 @@
+package analysis;
+
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import recursionCheck.CallSiteResolver;
+import recursionCheck.FunctionalInterfaceIndex;
+import recursionCheck.HierarchyIndex;
+import recursionCheck.MethodCallGraph;
+import recursionCheck.RecursionCheck;
+import recursionCheck.Signatures;
+import recursionCheck.VisitorAdapter;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the part of the method call graph which is reachable from a starting method, resolving only the call sites
+ * of the methods on the worklist.
+ * <p>
+ * A file is parsed when a reachable method is declared in it, and only the methods of the file which are reached are
+ * resolved. The overrides of a virtually called method are found by indexing the files whose {@code extends},
+ * {@code implements} or {@code new} clauses mention its declaring type, and for methods of {@link Object} all files.
+ * Lambdas and method references are only known if they are created in a reached method or in a constructor or
+ * initializer of a parsed file, since the starting method cannot call lambdas created anywhere else.
+ */
+final class CallGraphWorklist {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CallGraphWorklist.class);
+
+    private static final Pattern SUPERTYPE_CLAUSE = Pattern.compile("\\b(?:extends|implements)\\b([^{;]*)|\\bnew\\s+([\\w$.]+)"); //$NON-NLS-1$
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_$][\\w$]*"); //$NON-NLS-1$
+
+    private final Path sourceRoot;
+
+    private final Collection<Path> javaFiles;
+
+    private final Function<Collection<Path>, Map<Path, ParseResult<CompilationUnit>>> parser;
+
+    private final CallSiteResolver callSiteResolver;
+
+    private final Deadline deadline;
+
+    private final Set<String> excludedMethodIdentifiers = new HashSet<>();
+
+    private final HierarchyIndex hierarchyIndex = new HierarchyIndex();
+
+    private final FunctionalInterfaceIndex functionalInterfaceIndex = new FunctionalInterfaceIndex();
+
+    private final MethodCallGraph methodCallGraph;
+
+    private final Map<String, Path> fileOfType = new HashMap<>();
+
+    /**
+     * Types which are not declared in the source root, like the types of the JDK
+     */
+    private final Set<String> unknownTypes = new HashSet<>();
+
+    private final Set<Path> registeredFiles = new HashSet<>();
+
+    private final Set<Path> hierarchyFiles = new HashSet<>();
+
+    private final Map<Path, Map<String, MethodDeclaration>> methodsOfFile = new HashMap<>();
+
+    private Map<String, Set<Path>> filesBySupertypeName;
+
+    private final Set<String> typesWithIndexedSubtypes = new HashSet<>();
+
+    private final Map<String, CallSummary.MethodCalls> visitedMethods = new HashMap<>();
+
+    private final Set<String> demanded = new HashSet<>();
+
+    private final Deque<String> pending = new ArrayDeque<>();
+
+    private final Set<String> virtualCallees = new LinkedHashSet<>();
+
+    /**
+     * @param sourceRoot       Path to the source root
+     * @param javaFiles        All Java files of the source root
+     * @param parser           Parses Java files with a symbol resolver
+     * @param callSiteResolver Resolver shared by all files of the source root
+     * @param deadline         Deadline of the analysis, which is checked before every method is visited
+     * @param excludedMethods  Methods to exclude from the graph
+     */
+    CallGraphWorklist(Path sourceRoot, Collection<Path> javaFiles,
+                      Function<Collection<Path>, Map<Path, ParseResult<CompilationUnit>>> parser,
+                      CallSiteResolver callSiteResolver, Deadline deadline, Method... excludedMethods) {
+        this.sourceRoot = sourceRoot;
+        this.javaFiles = javaFiles;
+        this.parser = parser;
+        this.callSiteResolver = callSiteResolver;
+        this.deadline = deadline;
+        Arrays.stream(excludedMethods).filter(Objects::nonNull)
+                .map(RecursionCheck::getIdentifierOfMethod).forEach(excludedMethodIdentifiers::add);
+        this.methodCallGraph = new MethodCallGraph(hierarchyIndex, functionalInterfaceIndex, excludedMethods);
+    }
+
+    /**
+     * Resolve every method which is reachable from the starting method
+     *
+     * @param startingVertex Vertex of the method to start from
+     * @return Graph which contains every reachable method with all of its calls
+     * @throws AnalysisTimeoutException If the deadline expires before all reachable methods are visited
+     */
+    MethodCallGraph build(String startingVertex) {
+        demand(startingVertex);
+        do {
+            while (!pending.isEmpty()) {
+                deadline.check(Deadline.Phase.GRAPH_CONSTRUCTION);
+                visit(pending.poll());
+            }
+            // New overrides and lambdas may have been found for methods which were called before
+            for (String virtualCallee : List.copyOf(virtualCallees)) {
+                indexSubtypesOf(CallSummary.getDeclaringType(virtualCallee));
+                hierarchyIndex.getDispatchTargets(virtualCallee).forEach(this::demand);
+                functionalInterfaceIndex.getImplementations(virtualCallee).forEach(this::demand);
+            }
+        } while (!pending.isEmpty());
+        LOG.debug("Resolved {} methods in {} of {} files", visitedMethods.size(), methodsOfFile.size(), javaFiles.size()); //$NON-NLS-1$
+        return methodCallGraph;
+    }
+
+    private void demand(String vertex) {
+        if (demanded.add(vertex)) {
+            pending.add(vertex);
+        }
+    }
+
+    private void visit(String vertex) {
+        if (!visitedMethods.containsKey(vertex)) {
+            findMethod(vertex).ifPresent(method -> method.accept(newVisitor(), null));
+        }
+        CallSummary.MethodCalls calls = visitedMethods.get(vertex);
+        if (calls != null && !excludedMethodIdentifiers.contains(vertex)) {
+            calls.callees().forEach(this::demand);
+            virtualCallees.addAll(calls.virtualCallees());
+        }
+    }
+
+    /**
+     * Methods of anonymous and local classes and lambda bodies are visited together with their enclosing node, but
+     * their calls are only followed once they are reached themselves
+     */
+    private VisitorAdapter newVisitor() {
+        return new VisitorAdapter(callSiteResolver, (method, callees, virtualCallees) -> {
+            if (visitedMethods.putIfAbsent(method, new CallSummary.MethodCalls(method, callees, virtualCallees)) == null) {
+                methodCallGraph.addMethodCalls(method, callees, virtualCallees);
+            }
+        }, functionalInterfaceIndex::add);
+    }
+
+    /**
+     * Find the declaration of a method of the source root, parsing the file which declares its type if necessary
+     */
+    private Optional<MethodDeclaration> findMethod(String vertex) {
+        String declaringType = CallSummary.getDeclaringType(vertex);
+        int anonymousClassStart = declaringType.indexOf('$', declaringType.lastIndexOf('.') + 1);
+        String namedType = anonymousClassStart < 0 ? declaringType : declaringType.substring(0, anonymousClassStart);
+        return findFile(namedType).map(this::getMethods).map(methods -> methods.get(vertex));
+    }
+
+    /**
+     * Looks for the file like the symbol solver does: first by the name of the type and its enclosing types, then
+     * among all files of the packages it may belong to
+     */
+    private Optional<Path> findFile(String type) {
+        Path file = fileOfType.get(type);
+        if (file != null || unknownTypes.contains(type)) {
+            return Optional.ofNullable(file);
+        }
+        String[] segments = type.split("\\."); //$NON-NLS-1$
+        for (int length = segments.length; length > 0 && !fileOfType.containsKey(type); length--) {
+            Path candidate = sourceRoot.resolve(Path.of("", Arrays.copyOf(segments, length))).resolveSibling(segments[length - 1] + ".java"); //$NON-NLS-1$
+            if (javaFiles.contains(candidate)) {
+                registerTypes(List.of(candidate));
+            }
+        }
+        for (int length = segments.length - 1; length >= 0 && !fileOfType.containsKey(type); length--) {
+            Path directory = sourceRoot.resolve(Path.of("", Arrays.copyOf(segments, length))); //$NON-NLS-1$
+            registerTypes(javaFiles.stream().filter(path -> directory.equals(path.getParent())).toList());
+        }
+        file = fileOfType.get(type);
+        if (file == null) {
+            unknownTypes.add(type);
+        }
+        return Optional.ofNullable(file);
+    }
+
+    private void registerTypes(List<Path> paths) {
+        List<Path> unregistered = paths.stream().filter(registeredFiles::add).toList();
+        parser.apply(unregistered).forEach((path, parseResult) -> parseResult.getResult().ifPresent(compilationUnit -> {
+            for (TypeDeclaration<?> typeDeclaration : compilationUnit.findAll(TypeDeclaration.class)) {
+                typeDeclaration.getFullyQualifiedName().ifPresent(name -> fileOfType.putIfAbsent(name, path));
+            }
+        }));
+    }
+
+    /**
+     * Resolve the vertices of all methods of a file once its first method is reached. Constructors and initializers
+     * are visited right away, since they create the lambdas stored in fields.
+     */
+    private Map<String, MethodDeclaration> getMethods(Path file) {
+        Map<String, MethodDeclaration> methods = methodsOfFile.get(file);
+        if (methods == null) {
+            methods = new HashMap<>();
+            Optional<CompilationUnit> compilationUnit = parser.apply(List.of(file)).get(file).getResult();
+            if (compilationUnit.isPresent()) {
+                for (MethodDeclaration method : compilationUnit.get().findAll(MethodDeclaration.class)) {
+                    methods.put(Signatures.of(method.resolve()), method);
+                }
+                for (TypeDeclaration<?> typeDeclaration : compilationUnit.get().findAll(TypeDeclaration.class)) {
+                    if (typeDeclaration.isTopLevelType() || typeDeclaration.isNestedType()) {
+                        typeDeclaration.getMembers().stream()
+                                .filter(member -> member.isConstructorDeclaration() || member.isFieldDeclaration() || member.isInitializerDeclaration())
+                                .forEach(member -> member.accept(newVisitor(), null));
+                    }
+                }
+            }
+            methodsOfFile.put(file, methods);
+        }
+        return methods;
+    }
+
+    /**
+     * Add every subtype of the given type to the hierarchy, following the subtypes transitively
+     */
+    private void indexSubtypesOf(String type) {
+        Deque<String> types = new ArrayDeque<>(List.of(type));
+        while (!types.isEmpty()) {
+            String supertype = types.poll();
+            if (!typesWithIndexedSubtypes.add(supertype)) {
+                continue;
+            }
+            List<Path> candidates = (Object.class.getName().equals(supertype) ? javaFiles : getFilesMentioningSupertype(supertype))
+                    .stream().filter(hierarchyFiles::add).toList();
+            List<HierarchyIndex.DeclaredType> declaredTypes = new ArrayList<>();
+            List<String> instantiatedTypes = new ArrayList<>();
+            parser.apply(candidates).values().forEach(parseResult -> parseResult.getResult().ifPresent(compilationUnit -> {
+                declaredTypes.addAll(HierarchyIndex.declaredTypesOf(compilationUnit));
+                instantiatedTypes.addAll(HierarchyIndex.instantiatedTypesOf(compilationUnit));
+            }));
+            hierarchyIndex.add(declaredTypes, instantiatedTypes);
+            declaredTypes.stream().filter(declaredType -> declaredType.supertypes().contains(supertype))
+                    .forEach(declaredType -> types.add(declaredType.name()));
+        }
+    }
+
+    private Collection<Path> getFilesMentioningSupertype(String type) {
+        if (filesBySupertypeName == null) {
+            filesBySupertypeName = new HashMap<>();
+            for (Path path : javaFiles) {
+                for (String name : getSupertypeNames(path)) {
+                    filesBySupertypeName.computeIfAbsent(name, n -> new HashSet<>()).add(path);
+                }
+            }
+        }
+        return filesBySupertypeName.getOrDefault(type.substring(type.lastIndexOf('.') + 1), Set.of());
+    }
+
+    /**
+     * Collect the identifiers of the {@code extends}, {@code implements} and {@code new} clauses of a file without
+     * parsing it, which include the simple names of all supertypes of its classes
+     */
+    private static Set<String> getSupertypeNames(Path path) {
+        String content;
+        try {
+            content = new String(Files.readAllBytes(path), StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            LOG.error("Error reading Java file '{}'", path, e); //$NON-NLS-1$
+            throw new AssertionError(String.format("The file %s could not be read: %s", path, e));
+        }
+        Set<String> names = new HashSet<>();
+        Matcher clause = SUPERTYPE_CLAUSE.matcher(content);
+        while (clause.find()) {
+            Matcher identifier = IDENTIFIER.matcher(clause.group(1) != null ? clause.group(1) : clause.group(2));
+            while (identifier.find()) {
+                names.add(identifier.group());
+            }
+        }
+        return names;
+    }
+}
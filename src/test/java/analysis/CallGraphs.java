@@ -0,0 +1,213 @@
+package analysis;
+
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import recursionCheck.FunctionalInterfaceIndex;
+import recursionCheck.HierarchyIndex;
+import recursionCheck.MethodCallGraph;
+import recursionCheck.NameCallGraph;
+import recursionCheck.RecursionCheck;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Builds the call graphs of one session from the {@link Summaries} of its files, each of which is created once per
+ * starting method and set of excluded methods.
+ * <p>
+ * Once the calls of all files have been summarized, every graph is built from the summaries, so the syntax trees and
+ * the graph of the method names, whose callables are nodes of the trees, are released.
+ */
+final class CallGraphs {
+
+    private static final boolean DEMAND_DRIVEN = Boolean.parseBoolean(System.getProperty("astRecursion.demandDriven", "true")); //$NON-NLS-1$ //$NON-NLS-2$
+
+    private final Path sourceRoot;
+
+    private final Set<Path> javaFiles;
+
+    private final Deadline deadline;
+
+    private final AnalysisMetrics metrics;
+
+    private final SyntaxTrees syntaxTrees;
+
+    private final Summaries summaries;
+
+    private Map<Path, CallSummary> callSummaries;
+
+    private HierarchyIndex hierarchyIndex;
+
+    private FunctionalInterfaceIndex functionalInterfaceIndex;
+
+    private final Map<List<String>, MethodCallGraph> methodCallGraphs = new HashMap<>();
+
+    private final Map<List<String>, MethodCallGraph> reachableCallGraphs = new HashMap<>();
+
+    private NameCallGraph nameCallGraph;
+
+    private final Map<List<String>, MethodCallGraph> suspectCallGraphs = new HashMap<>();
+
+    /**
+     * @param javaFiles All Java files of the source root
+     */
+    CallGraphs(Path sourceRoot, Set<Path> javaFiles, Deadline deadline, AnalysisMetrics metrics, SyntaxTrees syntaxTrees,
+               Summaries summaries) {
+        this.sourceRoot = sourceRoot;
+        this.javaFiles = javaFiles;
+        this.deadline = deadline;
+        this.metrics = metrics;
+        this.syntaxTrees = syntaxTrees;
+        this.summaries = summaries;
+    }
+
+    /**
+     * @see AnalysisSession#getMethodCallGraph(Method...)
+     */
+    MethodCallGraph getMethodCallGraph(Method... excludedMethods) {
+        List<String> key = keyOf(Arrays.stream(excludedMethods));
+        MethodCallGraph methodCallGraph = methodCallGraphs.get(key);
+        if (methodCallGraph == null) {
+            methodCallGraph = AnalysisSession.inPhase(metrics, Deadline.Phase.GRAPH_CONSTRUCTION, () -> {
+                MethodCallGraph graph = new MethodCallGraph(getHierarchyIndex(), getFunctionalInterfaceIndex(), excludedMethods);
+                for (CallSummary callSummary : getCallSummaries().values()) {
+                    callSummary.addTo(graph);
+                    deadline.completeFile(Deadline.Phase.GRAPH_CONSTRUCTION);
+                }
+                return graph;
+            });
+            methodCallGraphs.put(key, methodCallGraph);
+        }
+        return methodCallGraph;
+    }
+
+    /**
+     * @see AnalysisSession#getReachableCallGraph(Method, Method...)
+     */
+    MethodCallGraph getReachableCallGraph(Method startingMethod, Method... excludedMethods) {
+        if (callSummaries != null || !DEMAND_DRIVEN) {
+            return getMethodCallGraph(excludedMethods);
+        }
+        List<String> key = keyOf(Stream.concat(Stream.of(startingMethod), Arrays.stream(excludedMethods)));
+        MethodCallGraph methodCallGraph = reachableCallGraphs.get(key);
+        if (methodCallGraph == null) {
+            methodCallGraph = AnalysisSession.inPhase(metrics, Deadline.Phase.GRAPH_CONSTRUCTION, () -> new CallGraphWorklist(sourceRoot,
+                    javaFiles, syntaxTrees::parse, summaries.getCallSiteResolver(), deadline, excludedMethods)
+                    .build(RecursionCheck.getIdentifierOfMethod(startingMethod)));
+            reachableCallGraphs.put(key, methodCallGraph);
+        }
+        return methodCallGraph;
+    }
+
+    /**
+     * @return True if the calls of all files have been summarized already
+     */
+    boolean hasCallSummaries() {
+        return callSummaries != null;
+    }
+
+    /**
+     * @see AnalysisSession#getNameCallGraph()
+     */
+    NameCallGraph getNameCallGraph() {
+        if (nameCallGraph == null) {
+            nameCallGraph = AnalysisSession.inPhase(metrics, Deadline.Phase.GRAPH_CONSTRUCTION,
+                    () -> NameCallGraph.of(syntaxTrees.parse(javaFiles).values().stream()
+                            .map(ParseResult::getResult).flatMap(Optional::stream).toList()));
+        }
+        return nameCallGraph;
+    }
+
+    /**
+     * @see AnalysisSession#getSuspectCallGraph(Method...)
+     */
+    MethodCallGraph getSuspectCallGraph(Method... excludedMethods) {
+        if (callSummaries != null) {
+            return getMethodCallGraph(excludedMethods);
+        }
+        List<String> key = keyOf(Arrays.stream(excludedMethods));
+        MethodCallGraph methodCallGraph = suspectCallGraphs.get(key);
+        if (methodCallGraph == null) {
+            methodCallGraph = AnalysisSession.inPhase(metrics, Deadline.Phase.GRAPH_CONSTRUCTION, () -> createSuspectCallGraph(excludedMethods));
+            suspectCallGraphs.put(key, methodCallGraph);
+        }
+        return methodCallGraph;
+    }
+
+    /**
+     * Every cycle of the resolved graph only consists of suspect callables, so the calls of their files contain every
+     * cycle, while the calls of the other files are never resolved. The summaries of the files are shared with the
+     * graph of the whole source root and with the summary cache.
+     */
+    private MethodCallGraph createSuspectCallGraph(Method... excludedMethods) {
+        Map<CompilationUnit, Path> pathsByCompilationUnit = new IdentityHashMap<>();
+        HierarchyIndex suspectHierarchy = new HierarchyIndex();
+        syntaxTrees.parse(javaFiles).forEach((path, parseResult) -> parseResult.getResult().ifPresent(compilationUnit -> {
+            pathsByCompilationUnit.put(compilationUnit, path);
+            suspectHierarchy.add(HierarchyIndex.declaredTypesOf(compilationUnit), HierarchyIndex.instantiatedTypesOf(compilationUnit));
+        }));
+        Set<Path> suspectFiles = new TreeSet<>();
+        for (Node callable : getNameCallGraph().getSuspectCallables()) {
+            callable.findCompilationUnit().map(pathsByCompilationUnit::get).ifPresent(suspectFiles::add);
+        }
+        Collection<CallSummary> suspectCallSummaries = summaries.getCallSummaries(suspectFiles).values();
+        FunctionalInterfaceIndex suspectImplementations = new FunctionalInterfaceIndex();
+        suspectCallSummaries.forEach(callSummary -> callSummary.addTo(suspectImplementations));
+        MethodCallGraph methodCallGraph = new MethodCallGraph(suspectHierarchy, suspectImplementations, excludedMethods);
+        for (CallSummary callSummary : suspectCallSummaries) {
+            callSummary.addTo(methodCallGraph);
+            deadline.completeFile(Deadline.Phase.GRAPH_CONSTRUCTION);
+        }
+        return methodCallGraph;
+    }
+
+    /**
+     * @see AnalysisSession#getHierarchyIndex()
+     */
+    HierarchyIndex getHierarchyIndex() {
+        if (hierarchyIndex == null) {
+            hierarchyIndex = new HierarchyIndex();
+            getCallSummaries().values().forEach(callSummary -> callSummary.addTo(hierarchyIndex));
+        }
+        return hierarchyIndex;
+    }
+
+    /**
+     * @see AnalysisSession#getFunctionalInterfaceIndex()
+     */
+    FunctionalInterfaceIndex getFunctionalInterfaceIndex() {
+        if (functionalInterfaceIndex == null) {
+            functionalInterfaceIndex = new FunctionalInterfaceIndex();
+            getCallSummaries().values().forEach(callSummary -> callSummary.addTo(functionalInterfaceIndex));
+        }
+        return functionalInterfaceIndex;
+    }
+
+    /**
+     * Summarizes the method calls of every Java file which could be parsed and releases the syntax trees, which are
+     * not needed for any graph from then on
+     */
+    private Map<Path, CallSummary> getCallSummaries() {
+        if (callSummaries == null) {
+            callSummaries = summaries.getCallSummaries(javaFiles);
+            syntaxTrees.release();
+            nameCallGraph = null;
+        }
+        return callSummaries;
+    }
+
+    private static List<String> keyOf(Stream<Method> methods) {
+        return methods.map(m -> m != null ? RecursionCheck.getIdentifierOfMethod(m) : null).toList();
+    }
+}
@@ -0,0 +1,195 @@
+package analysis;
+
+import com.github.javaparser.ast.CompilationUnit;
+import org.apiguardian.api.API;
+import recursionCheck.CallSiteResolver;
+import recursionCheck.FunctionalInterfaceIndex;
+import recursionCheck.HierarchyIndex;
+import recursionCheck.HierarchyIndex.DeclaredType;
+import recursionCheck.MethodCallGraph;
+import recursionCheck.VisitorAdapter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Method calls of one Java file in the order in which they are added to the method call graph
+ *
+ * @param types             All named types and anonymous classes declared in the file, with their supertypes and
+ *                          overridable methods
+ * @param instantiatedTypes Fully qualified names of the types created in the file
+ * @param methodCalls       Every method and lambda body declared in the file together with the methods it calls
+ * @param implementations   Every lambda body and method reference of the file with the functional interface method
+ *                          it implements
+ */
+@API(status = API.Status.INTERNAL)
+public record CallSummary(List<DeclaredType> types, List<String> instantiatedTypes, List<MethodCalls> methodCalls,
+                          List<Implementation> implementations) {
+
+    /**
+     * A method and the methods it calls
+     *
+     * @param method         Vertex of the method
+     * @param callees        Vertices of the called methods
+     * @param virtualCallees Vertices of the methods which are called virtually, a subset of the callees
+     */
+    public record MethodCalls(String method, List<String> callees, List<String> virtualCallees) {
+    }
+
+    /**
+     * A lambda body or method reference and the functional interface method it implements
+     *
+     * @param functionalMethod Vertex of the method of the functional interface
+     * @param implementation   Vertex of the lambda body or of the referenced method
+     */
+    public record Implementation(String functionalMethod, String implementation) {
+    }
+
+    /**
+     * Resolves all method calls of a CompilationUnit, which has to be parsed with a symbol resolver
+     *
+     * @param compilationUnit  CompilationUnit to summarize
+     * @param callSiteResolver Resolver shared by all files of the source root
+     * @return Summary of the method calls
+     */
+    public static CallSummary of(CompilationUnit compilationUnit, CallSiteResolver callSiteResolver) {
+        List<MethodCalls> methodCalls = new ArrayList<>();
+        List<Implementation> implementations = new ArrayList<>();
+        compilationUnit.accept(new VisitorAdapter(callSiteResolver,
+                (method, callees, virtualCallees) -> methodCalls.add(new MethodCalls(method, callees, virtualCallees)),
+                (functionalMethod, implementation) -> implementations.add(new Implementation(functionalMethod, implementation))), null);
+        return new CallSummary(HierarchyIndex.declaredTypesOf(compilationUnit), HierarchyIndex.instantiatedTypesOf(compilationUnit),
+                methodCalls, implementations);
+    }
+
+    /**
+     * @return Fully qualified names of all named types and names of all anonymous classes declared in the file
+     */
+    public List<String> declaredTypes() {
+        return types.stream().map(DeclaredType::name).toList();
+    }
+
+    /**
+     * Add all method calls of the file to the graph
+     *
+     * @param methodCallGraph Graph to add the method calls to
+     */
+    public void addTo(MethodCallGraph methodCallGraph) {
+        methodCalls.forEach(calls -> methodCallGraph.addMethodCalls(calls.method(), calls.callees(), calls.virtualCallees()));
+    }
+
+    /**
+     * Add all types of the file to the hierarchy
+     *
+     * @param hierarchyIndex Hierarchy of the source root
+     */
+    public void addTo(HierarchyIndex hierarchyIndex) {
+        hierarchyIndex.add(types, instantiatedTypes);
+    }
+
+    /**
+     * Add all lambda bodies and method references of the file to the index
+     *
+     * @param functionalInterfaceIndex Implementations of the functional interfaces of the source root
+     */
+    public void addTo(FunctionalInterfaceIndex functionalInterfaceIndex) {
+        implementations.forEach(i -> functionalInterfaceIndex.add(i.functionalMethod(), i.implementation()));
+    }
+
+    /**
+     * Get the methods called by every method of the file
+     *
+     * @return Vertices of the called methods by the vertex of the calling method, in the order of the declarations
+     */
+    public Map<String, List<String>> calleesByMethod() {
+        Map<String, List<String>> calleesByMethod = new LinkedHashMap<>();
+        for (MethodCalls calls : methodCalls) {
+            calleesByMethod.computeIfAbsent(calls.method(), method -> new ArrayList<>()).addAll(calls.callees());
+        }
+        return calleesByMethod;
+    }
+
+    /**
+     * Get the qualified name of the method of the given vertex, without its parameter types
+     *
+     * @param vertex Vertex of a method
+     * @return Fully qualified name of the method
+     */
+    public static String getQualifiedMethodName(String vertex) {
+        int parameterStart = vertex.indexOf('(');
+        return parameterStart >= 0 ? vertex.substring(0, parameterStart) : vertex;
+    }
+
+    /**
+     * Get the type which declares the method of the given vertex
+     *
+     * @param vertex Vertex of a method
+     * @return Fully qualified name of the declaring type
+     */
+    public static String getDeclaringType(String vertex) {
+        String qualifiedMethodName = getQualifiedMethodName(vertex);
+        return qualifiedMethodName.substring(0, Math.max(0, qualifiedMethodName.lastIndexOf('.')));
+    }
+
+    void write(DataOutput output) throws IOException {
+        output.writeInt(types.size());
+        for (DeclaredType type : types) {
+            output.writeUTF(type.name());
+            writeStrings(output, type.supertypes());
+            writeStrings(output, type.overridableMethods());
+        }
+        writeStrings(output, instantiatedTypes);
+        output.writeInt(methodCalls.size());
+        for (MethodCalls calls : methodCalls) {
+            output.writeUTF(calls.method());
+            writeStrings(output, calls.callees());
+            writeStrings(output, calls.virtualCallees());
+        }
+        output.writeInt(implementations.size());
+        for (Implementation implementation : implementations) {
+            output.writeUTF(implementation.functionalMethod());
+            output.writeUTF(implementation.implementation());
+        }
+    }
+
+    static CallSummary read(DataInput input) throws IOException {
+        int typeCount = input.readInt();
+        List<DeclaredType> types = new ArrayList<>(typeCount);
+        for (int i = 0; i < typeCount; i++) {
+            types.add(new DeclaredType(input.readUTF(), readStrings(input), readStrings(input)));
+        }
+        List<String> instantiatedTypes = readStrings(input);
+        int methodCount = input.readInt();
+        List<MethodCalls> methodCalls = new ArrayList<>(methodCount);
+        for (int i = 0; i < methodCount; i++) {
+            methodCalls.add(new MethodCalls(input.readUTF(), readStrings(input), readStrings(input)));
+        }
+        int implementationCount = input.readInt();
+        List<Implementation> implementations = new ArrayList<>(implementationCount);
+        for (int i = 0; i < implementationCount; i++) {
+            implementations.add(new Implementation(input.readUTF(), input.readUTF()));
+        }
+        return new CallSummary(types, instantiatedTypes, methodCalls, implementations);
+    }
+
+    private static void writeStrings(DataOutput output, List<String> strings) throws IOException {
+        output.writeInt(strings.size());
+        for (String string : strings) {
+            output.writeUTF(string);
+        }
+    }
+
+    private static List<String> readStrings(DataInput input) throws IOException {
+        int count = input.readInt();
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(input.readUTF());
+        }
+        return strings;
+    }
+}
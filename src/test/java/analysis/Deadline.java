@@ -0,0 +1,139 @@
+package analysis;
+
+import org.apiguardian.api.API;
+
+import java.time.Duration;
+
+/**
+ * Time budget and cancellation token of one analysis, which is checked cooperatively between files and methods.
+ * <p>
+ * Parsing, resolution, graph construction and cycle detection check the deadline once per file, method or batch of
+ * vertices, which costs a read of the clock and of a flag. While files are parsed in parallel, the analysis also
+ * checks it while it waits for the next file. Once the budget is used up, the deadline is cancelled or
+ * the analyzing thread is interrupted, the next check throws an {@link AnalysisTimeoutException}, which names the
+ * phase and the number of files which were completed in it. A single call into JavaParser cannot be stopped, so the
+ * analysis stops at the first check after it.
+ * <p>
+ * A deadline is checked by the thread which runs the analysis, but may be cancelled from any thread.
+ */
+@API(status = API.Status.INTERNAL)
+public final class Deadline {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final long budgetNanos;
+
+    private final long startNanos;
+
+    private volatile boolean cancelled;
+
+    /**
+     * Number of completed files per phase, which are counted separately since the phases of a demand-driven
+     * analysis alternate
+     */
+    private final int[] completedFiles = new int[Phase.values().length];
+
+    /**
+     * Phases of an analysis, which are also reported to the {@link AnalysisMetrics}. The deadline is checked while
+     * parsing, resolving, building graphs and detecting cycles.
+     */
+    public enum Phase {
+        DISCOVERY("file discovery"), //$NON-NLS-1$
+        PARSING("parsing"), //$NON-NLS-1$
+        RESOLUTION("resolution"), //$NON-NLS-1$
+        GRAPH_CONSTRUCTION("graph construction"), //$NON-NLS-1$
+        CYCLE_DETECTION("cycle detection"), //$NON-NLS-1$
+        NODE_SCAN("node scan"), //$NON-NLS-1$
+        REPORTING("message formatting"); //$NON-NLS-1$
+
+        private final String description;
+
+        Phase(String description) {
+            this.description = description;
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    private Deadline(long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * @return Deadline without a time budget, which only expires if it is cancelled or the thread is interrupted
+     */
+    public static Deadline none() {
+        return new Deadline(NO_DEADLINE);
+    }
+
+    /**
+     * @param budget Time the analysis may take from now on
+     * @return Deadline which expires after the given time
+     */
+    public static Deadline after(Duration budget) {
+        if (budget.isNegative()) {
+            throw new IllegalArgumentException("The budget must not be negative: " + budget); //$NON-NLS-1$
+        }
+        return new Deadline(budget.toNanos());
+    }
+
+    /**
+     * Stops the analysis at its next check
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return True if the deadline is cancelled, the analyzing thread is interrupted or the time budget is used up
+     */
+    public boolean isExpired() {
+        return cancelled || Thread.currentThread().isInterrupted()
+                || budgetNanos != NO_DEADLINE && System.nanoTime() - startNanos > budgetNanos;
+    }
+
+    /**
+     * Check the deadline within the given phase
+     *
+     * @param phase Current phase of the analysis
+     * @throws AnalysisTimeoutException If the deadline is expired
+     */
+    public void check(Phase phase) {
+        if (isExpired()) {
+            throw new AnalysisTimeoutException(phase, completedFiles[phase.ordinal()], getElapsed(), cancelled);
+        }
+    }
+
+    /**
+     * Count a file which has been completed in the given phase and check the deadline
+     *
+     * @param phase Current phase of the analysis
+     * @throws AnalysisTimeoutException If the deadline is expired
+     */
+    public void completeFile(Phase phase) {
+        completedFiles[phase.ordinal()]++;
+        check(phase);
+    }
+
+    /**
+     * @return Nanoseconds until the time budget is used up, which is zero once it is, or {@link Long#MAX_VALUE} if
+     * there is no time budget
+     */
+    public long remainingNanos() {
+        if (budgetNanos == NO_DEADLINE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, budgetNanos - (System.nanoTime() - startNanos));
+    }
+
+    /**
+     * @return Time since the deadline was created
+     */
+    public Duration getElapsed() {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,246 @@
+package analysis;
+
+import analysis.Deadline.Phase;
+import org.apiguardian.api.API;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics which are summed up in memory, until they are {@link #reset()}.
+ * <p>
+ * The time of a phase excludes the time of the phases which are nested in it, so the times of all phases add up to
+ * the time spent in the analysis. Latencies are kept in histograms with power-of-two buckets, so a percentile is
+ * reported as the upper bound of its bucket, which overestimates it by less than a factor of two.
+ */
+@API(status = API.Status.INTERNAL)
+public final class InMemoryAnalysisMetrics implements AnalysisMetrics {
+
+    private final LongAdder[] phaseNanos = adders(Phase.values().length);
+
+    private final LongAdder[] counters = adders(Counter.values().length);
+
+    private final Histogram[] histograms = new Histogram[Operation.values().length];
+
+    private final ThreadLocal<Deque<Frame>> openPhases = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public InMemoryAnalysisMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Count, total, maximum and percentiles of the latencies of an operation
+     *
+     * @param count Number of recorded operations
+     * @param total Summed up latency
+     * @param max   Highest latency
+     * @param p50   Median latency
+     * @param p90   90th percentile
+     * @param p99   99th percentile
+     */
+    public record Latency(long count, Duration total, Duration max, Duration p50, Duration p90, Duration p99) {
+
+        /**
+         * @return Average latency, which is zero if no operation has been recorded
+         */
+        public Duration mean() {
+            return count == 0 ? Duration.ZERO : total.dividedBy(count);
+        }
+    }
+
+    @Override
+    public void phaseStarted(Phase phase) {
+        openPhases.get().push(new Frame(phase, System.nanoTime()));
+    }
+
+    @Override
+    public void phaseFinished(Phase phase) {
+        Deque<Frame> frames = openPhases.get();
+        Frame frame = frames.pop();
+        if (frame.phase != phase) {
+            throw new IllegalStateException("Finished phase " + phase + " while in phase " + frame.phase); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        long elapsed = System.nanoTime() - frame.start;
+        phaseNanos[phase.ordinal()].add(elapsed - frame.nestedNanos);
+        Frame enclosing = frames.peek();
+        if (enclosing != null) {
+            enclosing.nestedNanos += elapsed;
+        }
+    }
+
+    @Override
+    public void increment(Counter counter, long amount) {
+        counters[counter.ordinal()].add(amount);
+    }
+
+    @Override
+    public void recordLatency(Operation operation, long nanoseconds) {
+        histograms[operation.ordinal()].record(nanoseconds);
+    }
+
+    /**
+     * @param phase Phase of the analysis
+     * @return Time spent in the phase, without the time of the phases nested in it
+     */
+    public Duration getTime(Phase phase) {
+        return Duration.ofNanos(phaseNanos[phase.ordinal()].sum());
+    }
+
+    /**
+     * @param counter Counted quantity
+     * @return Current count
+     */
+    public long getCount(Counter counter) {
+        return counters[counter.ordinal()].sum();
+    }
+
+    /**
+     * @param operation Operation
+     * @return Summary of the recorded latencies
+     */
+    public Latency getLatency(Operation operation) {
+        return histograms[operation.ordinal()].summarize();
+    }
+
+    /**
+     * Drops everything recorded so far. Phases which are open on some thread are still attributed when they finish.
+     */
+    public void reset() {
+        for (LongAdder adder : phaseNanos) {
+            adder.reset();
+        }
+        for (LongAdder adder : counters) {
+            adder.reset();
+        }
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Print a summary of all phases, counters and latencies
+     *
+     * @param out Stream to print to
+     */
+    public void printSummary(PrintStream out) {
+        out.print(getSummary());
+    }
+
+    /**
+     * @return Table of all phases, counters and latencies, one per line
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder("Analysis metrics").append(System.lineSeparator()); //$NON-NLS-1$
+        summary.append("  Phases").append(System.lineSeparator()); //$NON-NLS-1$
+        for (Phase phase : Phase.values()) {
+            appendLine(summary, phase.toString(), format(getTime(phase)));
+        }
+        summary.append("  Counters").append(System.lineSeparator()); //$NON-NLS-1$
+        for (Counter counter : Counter.values()) {
+            appendLine(summary, counter.toString(), Long.toString(getCount(counter)));
+        }
+        summary.append("  Latencies (count, mean, p50, p90, p99, max)").append(System.lineSeparator()); //$NON-NLS-1$
+        for (Operation operation : Operation.values()) {
+            Latency latency = getLatency(operation);
+            appendLine(summary, operation.toString(), String.join(", ", Long.toString(latency.count()), //$NON-NLS-1$
+                    format(latency.mean()), format(latency.p50()), format(latency.p90()), format(latency.p99()), format(latency.max())));
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+
+    private static void appendLine(StringBuilder summary, String name, String value) {
+        summary.append(String.format("    %-24s %s%n", name, value)); //$NON-NLS-1$
+    }
+
+    private static String format(Duration duration) {
+        return String.format(Locale.ROOT, "%.3f ms", duration.toNanos() / 1_000_000.0); //$NON-NLS-1$
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * A phase which is open on the current thread
+     */
+    private static final class Frame {
+
+        private final Phase phase;
+
+        private final long start;
+
+        private long nestedNanos;
+
+        Frame(Phase phase, long start) {
+            this.phase = phase;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Bucket {@code i} counts the latencies below {@code 2^i} nanoseconds which are not counted by a lower bucket
+     */
+    private static final class Histogram {
+
+        private final AtomicLongArray buckets = new AtomicLongArray(Long.SIZE);
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder total = new LongAdder();
+
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long nanoseconds) {
+            long latency = Math.max(0, nanoseconds);
+            buckets.incrementAndGet(Math.min(Long.SIZE - Long.numberOfLeadingZeros(latency), Long.SIZE - 1));
+            count.increment();
+            total.add(latency);
+            max.accumulate(latency);
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            total.reset();
+            max.reset();
+        }
+
+        Latency summarize() {
+            long recorded = count.sum();
+            long highest = max.get();
+            return new Latency(recorded, Duration.ofNanos(total.sum()), Duration.ofNanos(highest),
+                    percentile(recorded, highest, 0.5), percentile(recorded, highest, 0.9), percentile(recorded, highest, 0.99));
+        }
+
+        private Duration percentile(long recorded, long highest, double quantile) {
+            long rank = (long) Math.ceil(quantile * recorded);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank && seen > 0) {
+                    return Duration.ofNanos(i < Long.SIZE - 1 ? Math.min(highest, (1L << i) - 1) : highest);
+                }
+            }
+            return Duration.ZERO;
+        }
+    }
+}
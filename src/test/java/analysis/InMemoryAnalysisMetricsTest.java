@@ -0,0 +1,127 @@
+package analysis;
+
+import analysis.AnalysisMetrics.Counter;
+import analysis.AnalysisMetrics.Operation;
+import analysis.Deadline.Phase;
+import analysis.InMemoryAnalysisMetrics.Latency;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import recursionCheck.RecursionCheck;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InMemoryAnalysisMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testNestedPhaseIsOnlyAttributedToItself() throws InterruptedException {
+        InMemoryAnalysisMetrics metrics = new InMemoryAnalysisMetrics();
+
+        long start = System.nanoTime();
+        metrics.phaseStarted(Phase.GRAPH_CONSTRUCTION);
+        Thread.sleep(10);
+        metrics.phaseStarted(Phase.RESOLUTION);
+        Thread.sleep(20);
+        metrics.phaseFinished(Phase.RESOLUTION);
+        metrics.phaseFinished(Phase.GRAPH_CONSTRUCTION);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertThat(metrics.getTime(Phase.RESOLUTION)).isGreaterThanOrEqualTo(Duration.ofMillis(20));
+        assertThat(metrics.getTime(Phase.GRAPH_CONSTRUCTION)).isGreaterThanOrEqualTo(Duration.ofMillis(10));
+        assertThat(metrics.getTime(Phase.GRAPH_CONSTRUCTION).plus(metrics.getTime(Phase.RESOLUTION))).isLessThanOrEqualTo(elapsed);
+    }
+
+    @Test
+    void testFinishingAnotherPhaseFails() {
+        InMemoryAnalysisMetrics metrics = new InMemoryAnalysisMetrics();
+        metrics.phaseStarted(Phase.PARSING);
+
+        assertThatThrownBy(() -> metrics.phaseFinished(Phase.RESOLUTION))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Finished phase resolution while in phase parsing");
+    }
+
+    @Test
+    void testLatencyPercentilesAreBoundedByTheirBucket() {
+        InMemoryAnalysisMetrics metrics = new InMemoryAnalysisMetrics();
+        for (long nanoseconds = 1; nanoseconds <= 100; nanoseconds++) {
+            metrics.recordLatency(Operation.RESOLVE_CALL, nanoseconds);
+        }
+
+        Latency latency = metrics.getLatency(Operation.RESOLVE_CALL);
+
+        assertThat(latency.count()).isEqualTo(100);
+        assertThat(latency.total()).isEqualTo(Duration.ofNanos(5050));
+        assertThat(latency.max()).isEqualTo(Duration.ofNanos(100));
+        assertThat(latency.mean()).isEqualTo(Duration.ofNanos(50));
+        assertThat(latency.p50().toNanos()).isBetween(50L, 2 * 50L);
+        assertThat(latency.p90().toNanos()).isBetween(90L, 100L);
+        assertThat(latency.p99()).isEqualTo(Duration.ofNanos(100));
+        assertThat(metrics.getLatency(Operation.PARSE_FILE).count()).isZero();
+        assertThat(metrics.getLatency(Operation.PARSE_FILE).mean()).isEqualTo(Duration.ZERO);
+
+        metrics.reset();
+
+        assertThat(metrics.getLatency(Operation.RESOLVE_CALL).count()).isZero();
+    }
+
+    @Test
+    void testRecursionCheckReportsItsPhasesAndCounters() throws IOException {
+        write("Even.java", """
+                package p;
+
+                public class Even {
+                    public boolean isEven(int n) {
+                        return n == 0 || new Odd().isOdd(n - 1);
+                    }
+                }
+                """);
+        write("Odd.java", """
+                package p;
+
+                public class Odd {
+                    public boolean isOdd(int n) {
+                        return n != 0 && new Even().isEven(n - 1);
+                    }
+                }
+                """);
+        InMemoryAnalysisMetrics metrics = new InMemoryAnalysisMetrics();
+        AnalysisMetrics installedMetrics = AnalysisSession.getInstalledMetrics();
+        AnalysisSession.setMetrics(metrics);
+        Optional<String> cycle;
+        try {
+            cycle = RecursionCheck.hasNoCycle(AnalysisSession.of(directory, LanguageLevel.JAVA_17), null);
+        } finally {
+            AnalysisSession.setMetrics(installedMetrics);
+        }
+
+        assertThat(cycle).isPresent();
+        for (Phase phase : new Phase[]{Phase.DISCOVERY, Phase.PARSING, Phase.RESOLUTION, Phase.GRAPH_CONSTRUCTION, Phase.CYCLE_DETECTION}) {
+            assertThat(metrics.getTime(phase)).as(phase.toString()).isPositive();
+        }
+        assertThat(metrics.getCount(Counter.FILES)).isEqualTo(2);
+        assertThat(metrics.getCount(Counter.AST_NODES)).isPositive();
+        assertThat(metrics.getCount(Counter.RESOLVE_CALLS)).isEqualTo(2);
+        assertThat(metrics.getCount(Counter.VERTICES)).isEqualTo(2);
+        assertThat(metrics.getCount(Counter.EDGES)).isEqualTo(2);
+        assertThat(metrics.getLatency(Operation.PARSE_FILE).count()).isEqualTo(2);
+        assertThat(metrics.getLatency(Operation.RESOLVE_CALL).count()).isEqualTo(2);
+        assertThat(metrics.getLatency(Operation.CHECK).count()).isEqualTo(1);
+    }
+
+    private void write(String fileName, String content) throws IOException {
+        Path file = directory.resolve("p").resolve(fileName);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,323 @@
+package analysis;
+
+import analysis.AnalysisSession.Fingerprint;
+import ast.model.UnwantedNode;
+import ast.model.UnwantedNodeTable;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.Problem;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.cache.Cache;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+import com.github.javaparser.symbolsolver.cache.InMemoryCache;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import org.apiguardian.api.API;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import recursionCheck.CallSiteResolver;
+import recursionCheck.FunctionalInterfaceIndex;
+import recursionCheck.HierarchyIndex;
+import recursionCheck.IncrementalCallGraph;
+import recursionCheck.RecursionCheck;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the analysis of one source root up to date while its files are edited.
+ * <p>
+ * Every {@link #update()} compares the size and the last modification time of the Java files with the previous
+ * update and only parses the files which were added or changed. Files which call methods of the types declared in
+ * those files, or of their supertypes, are resolved again, since their calls may now resolve to other methods. The
+ * calls of all these files replace their previous calls in an {@link IncrementalCallGraph}, which recomputes only the
+ * recursive components touched by the changed calls. The edges of virtual dispatch are looked up in the hierarchy of
+ * the current files after every update. Unwanted nodes are cached per file and rule, so only the changed
+ * files are scanned again.
+ */
+@API(status = API.Status.INTERNAL)
+public class IncrementalAnalysis {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IncrementalAnalysis.class);
+
+    private final Path sourceRoot;
+
+    private final LanguageLevel level;
+
+    private final IncrementalCallGraph callGraph;
+
+    private final Cache<Path, Optional<CompilationUnit>> parsedFiles = InMemoryCache.create();
+
+    private final Cache<Path, List<CompilationUnit>> parsedDirectories = InMemoryCache.create();
+
+    private final Cache<String, SymbolReference<ResolvedReferenceTypeDeclaration>> foundTypes = InMemoryCache.create();
+
+    private final Map<Path, FileState> files = new TreeMap<>();
+
+    private final Map<NodeScanKey, Map<Path, List<UnwantedNode>>> unwantedNodes = new HashMap<>();
+
+    private Set<String> recursiveMethods = Set.of();
+
+    /**
+     * Creates an analysis without any files, which are added by the first {@link #update()}
+     *
+     * @param sourceRoot      Path to the source root
+     * @param level           JavaParser Language Level
+     * @param excludedMethods Methods to exclude from the call graph
+     */
+    public IncrementalAnalysis(Path sourceRoot, LanguageLevel level, Method... excludedMethods) {
+        this.sourceRoot = sourceRoot.toAbsolutePath().normalize();
+        this.level = level;
+        this.callGraph = new IncrementalCallGraph(excludedMethods);
+    }
+
+    public Path getSourceRoot() {
+        return sourceRoot;
+    }
+
+    /**
+     * Analyzes the files which were added, changed or removed since the last update. If a call cannot be resolved,
+     * the analysis is left unchanged and the files are analyzed again by the next update.
+     *
+     * @return Files which were analyzed again and whether the recursive methods changed
+     */
+    public synchronized Changes update() {
+        Map<Path, Fingerprint> fingerprints = AnalysisSession.fingerprintsBelow(sourceRoot);
+        List<Path> changedFiles = new ArrayList<>();
+        fingerprints.forEach((path, fingerprint) -> {
+            FileState state = files.get(path);
+            if (state == null || !state.fingerprint().equals(fingerprint)) {
+                changedFiles.add(path);
+            }
+        });
+        List<Path> removedFiles = files.keySet().stream().filter(path -> !fingerprints.containsKey(path)).toList();
+        if (changedFiles.isEmpty() && removedFiles.isEmpty()) {
+            return new Changes(List.of(), List.of(), List.of(), false);
+        }
+        Supplier<ParserConfiguration> parserConfigurationFactory = createParserConfigurationFactory(changedFiles, removedFiles);
+        Map<Path, ParseResult<CompilationUnit>> parseResults = parse(changedFiles, parserConfigurationFactory);
+        List<Path> dependentFiles = findDependentFiles(changedFiles, removedFiles, parseResults);
+        parseResults.putAll(parse(dependentFiles, parserConfigurationFactory));
+
+        CallSiteResolver callSiteResolver = new CallSiteResolver();
+        Map<Path, FileState> updatedFiles = new LinkedHashMap<>();
+        for (Path path : changedFiles) {
+            ParseResult<CompilationUnit> parseResult = parseResults.get(path);
+            updatedFiles.put(path, parseResult.getResult().filter(compilationUnit -> parseResult.isSuccessful())
+                    .map(compilationUnit -> new FileState(fingerprints.get(path), CallSummary.of(compilationUnit, callSiteResolver),
+                            NodeSummary.of(compilationUnit), List.of()))
+                    .orElseGet(() -> new FileState(fingerprints.get(path), null, null, parseResult.getProblems())));
+        }
+        for (Path path : dependentFiles) {
+            FileState state = files.get(path);
+            parseResults.get(path).getResult().ifPresent(compilationUnit -> updatedFiles.put(path,
+                    new FileState(state.fingerprint(), CallSummary.of(compilationUnit, callSiteResolver), state.nodeSummary(), state.problems())));
+        }
+
+        for (Path path : removedFiles) {
+            files.remove(path);
+            callGraph.replaceMethodCalls(path, Map.of());
+        }
+        updatedFiles.forEach((path, state) -> {
+            files.put(path, state);
+            callGraph.replaceMethodCalls(path, state.callSummary() != null ? state.callSummary().calleesByMethod() : Map.of());
+        });
+        callGraph.replaceDispatchCalls(findDispatchCalls());
+        for (Map<Path, List<UnwantedNode>> unwantedNodesOfFiles : unwantedNodes.values()) {
+            unwantedNodesOfFiles.keySet().removeAll(changedFiles);
+            unwantedNodesOfFiles.keySet().removeAll(removedFiles);
+        }
+        Set<String> previousRecursiveMethods = recursiveMethods;
+        recursiveMethods = callGraph.getRecursiveMethods();
+        LOG.debug("Updated {} changed, {} removed and {} dependent files of '{}'", changedFiles.size(), removedFiles.size(), //$NON-NLS-1$
+                dependentFiles.size(), sourceRoot);
+        return new Changes(List.copyOf(changedFiles), removedFiles, dependentFiles, !previousRecursiveMethods.equals(recursiveMethods));
+    }
+
+    /**
+     * Every update gets a new symbol solver, since the symbol solver caches the declarations of the types it has
+     * solved. The files parsed by the type solver of the source root are shared between the updates, except for the
+     * changed files and their directories, so that solving a type does not parse the whole package again.
+     */
+    private Supplier<ParserConfiguration> createParserConfigurationFactory(List<Path> changedFiles, List<Path> removedFiles) {
+        for (Path path : (Iterable<Path>) Stream.concat(changedFiles.stream(), removedFiles.stream())::iterator) {
+            parsedFiles.remove(path);
+            parsedDirectories.remove(path.getParent());
+        }
+        foundTypes.removeAll();
+        return RecursionCheck.parserConfigurationFactory(
+                new JavaParserTypeSolver(sourceRoot, new JavaParser(), parsedFiles, parsedDirectories, foundTypes), level);
+    }
+
+    /**
+     * The overrides and lambdas implementing a virtually called method may be declared in any file, so the edges of
+     * virtual dispatch are looked up again in the indexes of all current files
+     */
+    private Map<String, List<String>> findDispatchCalls() {
+        HierarchyIndex hierarchyIndex = new HierarchyIndex();
+        FunctionalInterfaceIndex functionalInterfaceIndex = new FunctionalInterfaceIndex();
+        List<CallSummary> callSummaries = files.values().stream().map(FileState::callSummary).filter(Objects::nonNull).toList();
+        for (CallSummary callSummary : callSummaries) {
+            callSummary.addTo(hierarchyIndex);
+            callSummary.addTo(functionalInterfaceIndex);
+        }
+        Map<String, List<String>> overridesByMethod = new HashMap<>();
+        for (CallSummary callSummary : callSummaries) {
+            for (CallSummary.MethodCalls calls : callSummary.methodCalls()) {
+                for (String virtualCallee : calls.virtualCallees()) {
+                    List<String> targets = new ArrayList<>(hierarchyIndex.getDispatchTargets(virtualCallee));
+                    targets.addAll(functionalInterfaceIndex.getImplementations(virtualCallee));
+                    if (!targets.isEmpty()) {
+                        overridesByMethod.computeIfAbsent(calls.method(), method -> new ArrayList<>()).addAll(targets);
+                    }
+                }
+            }
+        }
+        return overridesByMethod;
+    }
+
+    /**
+     * Finds the unchanged files which call a method of a type that is declared in a changed or removed file, or of a
+     * supertype of such a type, since a changed type may now declare or override the called method
+     */
+    private List<Path> findDependentFiles(List<Path> changedFiles, List<Path> removedFiles,
+                                          Map<Path, ParseResult<CompilationUnit>> parseResults) {
+        Set<Path> modifiedFiles = new HashSet<>(changedFiles);
+        modifiedFiles.addAll(removedFiles);
+        List<Path> unchangedFiles = files.keySet().stream()
+                .filter(path -> !modifiedFiles.contains(path) && files.get(path).callSummary() != null).toList();
+        if (unchangedFiles.isEmpty()) {
+            return List.of();
+        }
+        Set<String> modifiedTypes = new HashSet<>();
+        for (Path path : modifiedFiles) {
+            Optional.ofNullable(files.get(path)).map(FileState::callSummary)
+                    .ifPresent(callSummary -> modifiedTypes.addAll(callSummary.declaredTypes()));
+        }
+        for (ParseResult<CompilationUnit> parseResult : parseResults.values()) {
+            parseResult.getResult().ifPresent(compilationUnit -> {
+                for (TypeDeclaration<?> typeDeclaration : compilationUnit.findAll(TypeDeclaration.class)) {
+                    typeDeclaration.getFullyQualifiedName().ifPresent(modifiedTypes::add);
+                    modifiedTypes.addAll(getAncestors(typeDeclaration));
+                }
+            });
+        }
+        return unchangedFiles.stream()
+                .filter(path -> files.get(path).callSummary().methodCalls().stream()
+                        .flatMap(methodCalls -> methodCalls.callees().stream())
+                        .anyMatch(callee -> modifiedTypes.contains(CallSummary.getDeclaringType(callee))))
+                .toList();
+    }
+
+    private static List<String> getAncestors(TypeDeclaration<?> typeDeclaration) {
+        try {
+            ResolvedReferenceTypeDeclaration type = typeDeclaration.resolve();
+            return type.getAllAncestors().stream().map(ResolvedReferenceType::getQualifiedName).toList();
+        } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
+            // Calls of methods of unresolvable supertypes cannot be resolved either
+            return List.of();
+        }
+    }
+
+    private static Map<Path, ParseResult<CompilationUnit>> parse(List<Path> paths, Supplier<ParserConfiguration> parserConfigurationFactory) {
+        Map<Path, ParseResult<CompilationUnit>> results = new LinkedHashMap<>();
+        try {
+            List<ParseResult<CompilationUnit>> parseResults = SourceLoader.parseAll(paths, parserConfigurationFactory);
+            for (int i = 0; i < paths.size(); i++) {
+                results.put(paths.get(i), parseResults.get(i));
+            }
+        } catch (IOException e) {
+            LOG.error("Error reading Java file", e); //$NON-NLS-1$
+            throw new AssertionError(String.format("The file %s could not be read:", e));
+        }
+        return results;
+    }
+
+    /**
+     * Get all methods of the source root which are part of a cycle, as of the last update
+     *
+     * @return Vertices of the recursive methods
+     */
+    public synchronized Set<String> getRecursiveMethods() {
+        return recursiveMethods;
+    }
+
+    /**
+     * Creates an error message in case unwanted nodes are detected in any Java file of the source root, as of the
+     * last update. Only files which changed since the previous call with the same nodes are scanned.
+     *
+     * @param nodeNameUnwantedNodeMap List of unwanted nodes, which have to be {@link NodeSummary#covers covered}
+     * @param excludeMainMethod       Whether the main method is excluded from the check
+     * @return Error message
+     * @throws ParseProblemException If any Java file could not be parsed
+     */
+    public synchronized Optional<String> getMessageForUnwantedNodes(Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap,
+                                                                    boolean excludeMainMethod) {
+        if (!NodeSummary.covers(nodeNameUnwantedNodeMap.values())) {
+            throw new IllegalArgumentException("Unwanted nodes must be tracked by the node summaries: " + nodeNameUnwantedNodeMap.keySet()); //$NON-NLS-1$
+        }
+        Map<Path, List<UnwantedNode>> unwantedNodesOfFiles = unwantedNodes.computeIfAbsent(
+                new NodeScanKey(Map.copyOf(nodeNameUnwantedNodeMap), excludeMainMethod), key -> new HashMap<>());
+        UnwantedNodeTable unwantedNodeTable = new UnwantedNodeTable(nodeNameUnwantedNodeMap);
+        Map<Path, List<UnwantedNode>> result = new TreeMap<>();
+        files.forEach((path, state) -> {
+            if (state.nodeSummary() == null) {
+                throw new ParseProblemException(state.problems());
+            }
+            result.put(path, unwantedNodesOfFiles.computeIfAbsent(path,
+                    p -> state.nodeSummary().getUnwantedNodes(unwantedNodeTable, excludeMainMethod)));
+        });
+        return UnwantedNode.getMessageForUnwantedNodes(result);
+    }
+
+    /**
+     * Outcome of an update
+     *
+     * @param changedFiles      Files which were added or changed
+     * @param removedFiles      Files which were removed
+     * @param dependentFiles    Unchanged files whose calls were resolved again
+     * @param recursionChanged  Whether the set of recursive methods changed
+     */
+    public record Changes(List<Path> changedFiles, List<Path> removedFiles, List<Path> dependentFiles, boolean recursionChanged) {
+
+        /**
+         * @return True if no file was added, changed or removed
+         */
+        public boolean isEmpty() {
+            return changedFiles.isEmpty() && removedFiles.isEmpty();
+        }
+    }
+
+    /**
+     * Analysis results of one file
+     *
+     * @param callSummary Method calls of the file (null if it could not be parsed)
+     * @param nodeSummary Nodes of the file (null if it could not be parsed)
+     * @param problems    Problems which prevented parsing the file
+     */
+    private record FileState(Fingerprint fingerprint, CallSummary callSummary, NodeSummary nodeSummary, List<Problem> problems) {
+    }
+
+    private record NodeScanKey(Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap, boolean excludeMainMethod) {
+    }
+}
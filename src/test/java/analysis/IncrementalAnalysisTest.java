@@ -0,0 +1,120 @@
+package analysis;
+
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.jgrapht.alg.cycle.CycleDetector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IncrementalAnalysisTest {
+
+    private static final String CALLER = """
+            package p;
+
+            public class Caller {
+                public void call(Callee callee) {
+                    callee.run();
+                }
+            }
+            """;
+
+    private static final String CALLEE = """
+            package p;
+
+            public class Callee {
+                public void run() {
+                }
+            }
+            """;
+
+    private static final String RECURSIVE_CALLEE = """
+            package p;
+
+            public class Callee {
+                public void run() {
+                    new Caller().call(this);
+                }
+            }
+            """;
+
+    private static final String OVERRIDE = """
+            package p;
+
+            public class Override extends Callee {
+                @java.lang.Override
+                public void run() {
+                    new Caller().call(this);
+                }
+            }
+            """;
+
+    @TempDir
+    Path sourceRoot;
+
+    private int modification;
+
+    @Test
+    void testEditAddAndDeleteFiles() throws IOException {
+        write("Caller.java", CALLER);
+        write("Callee.java", CALLEE);
+        IncrementalAnalysis analysis = new IncrementalAnalysis(sourceRoot, LanguageLevel.JAVA_17);
+
+        assertThat(analysis.update().changedFiles()).hasSize(2);
+        assertSameRecursiveMethodsAsFullRebuild(analysis);
+        assertThat(analysis.getRecursiveMethods()).isEmpty();
+
+        write("Callee.java", RECURSIVE_CALLEE);
+        IncrementalAnalysis.Changes edit = analysis.update();
+        assertThat(edit.changedFiles()).containsExactly(file("Callee.java"));
+        assertThat(edit.recursionChanged()).isTrue();
+        assertSameRecursiveMethodsAsFullRebuild(analysis);
+        assertThat(analysis.getRecursiveMethods()).containsExactlyInAnyOrder("p.Caller.call(p.Callee)", "p.Callee.run()");
+
+        write("Callee.java", CALLEE);
+        write("Override.java", OVERRIDE);
+        IncrementalAnalysis.Changes addition = analysis.update();
+        assertThat(addition.changedFiles()).containsExactlyInAnyOrder(file("Callee.java"), file("Override.java"));
+        assertThat(addition.dependentFiles()).containsExactly(file("Caller.java"));
+        assertSameRecursiveMethodsAsFullRebuild(analysis);
+        assertThat(analysis.getRecursiveMethods()).containsExactlyInAnyOrder("p.Caller.call(p.Callee)", "p.Override.run()");
+
+        Files.delete(file("Override.java"));
+        IncrementalAnalysis.Changes deletion = analysis.update();
+        assertThat(deletion.removedFiles()).containsExactly(file("Override.java"));
+        assertThat(deletion.recursionChanged()).isTrue();
+        assertSameRecursiveMethodsAsFullRebuild(analysis);
+        assertThat(analysis.getRecursiveMethods()).isEmpty();
+
+        assertThat(analysis.update().isEmpty()).isTrue();
+    }
+
+    private void assertSameRecursiveMethodsAsFullRebuild(IncrementalAnalysis analysis) {
+        AnalysisSession session = AnalysisSession.open(sourceRoot, LanguageLevel.JAVA_17);
+        Set<String> recursiveMethods = new CycleDetector<>(session.getMethodCallGraph().getGraph()).findCycles();
+
+        assertThat(analysis.getRecursiveMethods()).isEqualTo(recursiveMethods);
+    }
+
+    /**
+     * Every write gets a later modification time, since an edit which keeps the size of a file within the same
+     * millisecond would go unnoticed
+     */
+    private void write(String fileName, String content) throws IOException {
+        Path path = file(fileName);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content);
+        Files.setLastModifiedTime(path, FileTime.from(Instant.parse("2024-01-01T00:00:00Z").plusSeconds(++modification)));
+    }
+
+    private Path file(String fileName) {
+        return sourceRoot.toAbsolutePath().normalize().resolve("p").resolve(fileName);
+    }
+}
@@ -0,0 +1,162 @@
+package analysis;
+
+import ast.model.JavaFile;
+import ast.model.NodePosition;
+import ast.model.UnwantedNode;
+import ast.model.UnwantedNodeTable;
+import ast.type.ClassType;
+import ast.type.ConditionalType;
+import ast.type.ExceptionHandlingType;
+import ast.type.LoopType;
+import com.github.javaparser.Position;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import de.tum.in.test.api.ast.type.Type;
+import org.apiguardian.api.API;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Kinds and positions of all nodes of one Java file that can be checked using the {@link LoopType},
+ * {@link ConditionalType}, {@link ExceptionHandlingType} and {@link ClassType} rules
+ *
+ * @param entries Every node of a tracked kind in the order of a pre-order traversal
+ */
+@API(status = API.Status.INTERNAL)
+public record NodeSummary(List<Entry> entries) {
+
+    /**
+     * Node kinds which are recorded in a summary
+     */
+    public static final Set<Class<? extends Node>> TRACKED_NODE_TYPES = Stream.<Type[]>of(LoopType.values(),
+                    ConditionalType.values(), ExceptionHandlingType.values(), ClassType.values())
+            .flatMap(Stream::of)
+            .map(Type::getNodeNameNodeMap)
+            .flatMap(nodeNameNodeMap -> nodeNameNodeMap.values().stream())
+            .collect(Collectors.toUnmodifiableSet());
+
+    /**
+     * Whether a concrete node class is an instance of any tracked kind, which is looked up once per class
+     */
+    private static final Map<Class<?>, Boolean> TRACKED_BY_NODE_CLASS = new ConcurrentHashMap<>();
+
+    /**
+     * A node of a tracked kind
+     *
+     * @param type         Class of the node
+     * @param begin        Beginning of the node (null if unknown)
+     * @param end          End of the node (null if unknown)
+     * @param inMainMethod Whether the node is part of the main method which is excluded from the AST if requested
+     */
+    public record Entry(Class<? extends Node> type, Position begin, Position end, boolean inMainMethod) {
+    }
+
+    /**
+     * Records all nodes of a tracked kind of a CompilationUnit
+     *
+     * @param compilationUnit CompilationUnit to summarize
+     * @return Summary of the nodes
+     */
+    public static NodeSummary of(CompilationUnit compilationUnit) {
+        MethodDeclaration mainMethod = JavaFile.findMainMethod(compilationUnit).orElse(null);
+        List<Entry> entries = new ArrayList<>();
+        // Pre-order traversal, in which the subtree of the main method is visited as a whole once it is reached
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(compilationUnit);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node == mainMethod) {
+                mainMethod.walk(mainMethodNode -> addIfTracked(mainMethodNode, true, entries));
+                continue;
+            }
+            addIfTracked(node, false, entries);
+            List<Node> children = node.getChildNodes();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
+        return new NodeSummary(entries);
+    }
+
+    private static void addIfTracked(Node node, boolean inMainMethod, List<Entry> entries) {
+        if (TRACKED_BY_NODE_CLASS.computeIfAbsent(node.getClass(), NodeSummary::isTracked)) {
+            entries.add(new Entry(node.getClass(), node.getBegin().orElse(null), node.getEnd().orElse(null), inMainMethod));
+        }
+    }
+
+    private static boolean isTracked(Class<?> nodeClass) {
+        return TRACKED_NODE_TYPES.stream().anyMatch(trackedType -> trackedType.isAssignableFrom(nodeClass));
+    }
+
+    /**
+     * Check if the summary contains enough information to detect the given unwanted nodes
+     *
+     * @param nodesDefinedAsUnwanted Node kinds to detect
+     * @return True if all node kinds are tracked, false otherwise
+     */
+    public static boolean covers(Collection<Class<? extends Node>> nodesDefinedAsUnwanted) {
+        return TRACKED_NODE_TYPES.containsAll(nodesDefinedAsUnwanted);
+    }
+
+    /**
+     * Finds all unwanted nodes in the summarized Java-file
+     *
+     * @param unwantedNodeTable Dispatch table of the unwanted nodes, which have to be {@link #covers(Collection) covered}
+     * @param excludeMainMethod Whether the nodes of the main method are left out
+     * @return Unwanted node information in the same order as {@link UnwantedNodeTable#findUnwantedNodes}
+     */
+    public List<UnwantedNode> getUnwantedNodes(UnwantedNodeTable unwantedNodeTable, boolean excludeMainMethod) {
+        return unwantedNodeTable.collectUnwantedNodes(entries.stream().filter(entry -> !(excludeMainMethod && entry.inMainMethod())),
+                Entry::type, entry -> new NodePosition(entry.begin(), entry.end()));
+    }
+
+    void write(DataOutput output) throws IOException {
+        output.writeInt(entries.size());
+        for (Entry entry : entries) {
+            output.writeUTF(entry.type().getName());
+            writePosition(output, entry.begin());
+            writePosition(output, entry.end());
+            output.writeBoolean(entry.inMainMethod());
+        }
+    }
+
+    static NodeSummary read(DataInput input) throws IOException {
+        int entryCount = input.readInt();
+        List<Entry> entries = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            String typeName = input.readUTF();
+            Class<? extends Node> type;
+            try {
+                type = Class.forName(typeName).asSubclass(Node.class);
+            } catch (ClassNotFoundException | ClassCastException e) {
+                throw new IOException("Unknown node type " + typeName, e); //$NON-NLS-1$
+            }
+            entries.add(new Entry(type, readPosition(input), readPosition(input), input.readBoolean()));
+        }
+        return new NodeSummary(entries);
+    }
+
+    private static void writePosition(DataOutput output, Position position) throws IOException {
+        output.writeInt(position != null ? position.line : -1);
+        output.writeInt(position != null ? position.column : -1);
+    }
+
+    private static Position readPosition(DataInput input) throws IOException {
+        int line = input.readInt();
+        int column = input.readInt();
+        return line >= 0 ? new Position(line, column) : null;
+    }
+}
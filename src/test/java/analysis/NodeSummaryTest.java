@@ -0,0 +1,79 @@
+package analysis;
+
+import ast.model.JavaFile;
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.ForStmt;
+import com.github.javaparser.ast.stmt.IfStmt;
+import com.github.javaparser.ast.stmt.WhileStmt;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NodeSummaryTest {
+
+    private static final Path EXAMPLES = Path.of("src/main/java/org/example");
+
+    @Test
+    void testNodesOfTheMainMethodAreMarked() {
+        CompilationUnit compilationUnit = StaticJavaParser.parse("""
+                class Main {
+                    public static void main(String[] args) {
+                        for (int i = 0; i < 3; i++) {
+                            if (i > 1) {
+                                new Runnable() {
+                                    public void run() {
+                                        while (true) {
+                                        }
+                                    }
+                                };
+                            }
+                        }
+                    }
+
+                    void helper() {
+                        while (true) {
+                        }
+                    }
+                }
+                """);
+
+        List<NodeSummary.Entry> entries = NodeSummary.of(compilationUnit).entries();
+
+        assertThat(entries).extracting(NodeSummary.Entry::type)
+                .containsExactly(ForStmt.class, IfStmt.class, WhileStmt.class, WhileStmt.class);
+        assertThat(entries).extracting(NodeSummary.Entry::inMainMethod).containsExactly(true, true, true, false);
+    }
+
+    @Test
+    void testEntriesAreInPreOrder() throws IOException {
+        for (Path path : JavaFile.findJavaFilesBelow(EXAMPLES)) {
+            CompilationUnit compilationUnit = StaticJavaParser.parse(path);
+
+            assertThat(NodeSummary.of(compilationUnit).entries()).as(path.toString())
+                    .isEqualTo(summarizeByAncestry(compilationUnit));
+        }
+    }
+
+    /**
+     * Checks every node of a pre-order traversal on its own
+     */
+    private static List<NodeSummary.Entry> summarizeByAncestry(CompilationUnit compilationUnit) {
+        Optional<MethodDeclaration> mainMethod = JavaFile.findMainMethod(compilationUnit);
+        List<NodeSummary.Entry> entries = new ArrayList<>();
+        compilationUnit.walk(node -> {
+            if (NodeSummary.TRACKED_NODE_TYPES.stream().anyMatch(trackedType -> trackedType.isInstance(node))) {
+                entries.add(new NodeSummary.Entry(node.getClass(), node.getBegin().orElse(null), node.getEnd().orElse(null),
+                        mainMethod.isPresent() && node.isDescendantOf(mainMethod.get())));
+            }
+        });
+        return entries;
+    }
+}
@@ -0,0 +1,52 @@
+package analysis;
+
+import com.github.javaparser.ast.CompilationUnit;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.apiguardian.api.API;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Flight recorder event for parsing one Java file. JFR adds the thread and the duration.
+ * <p>
+ * Unless a recording is running, beginning and completing the event costs next to nothing and the nodes of the file
+ * are not counted.
+ */
+@Name("astRecursion.ParseFile") //$NON-NLS-1$
+@Label("Parse Java File") //$NON-NLS-1$
+@Category({"astRecursion", "Parsing"}) //$NON-NLS-1$ //$NON-NLS-2$
+@Description("Parsing of one Java file of a source root") //$NON-NLS-1$
+@StackTrace(false)
+@API(status = API.Status.INTERNAL)
+public final class ParseFileEvent extends Event {
+
+    @Label("Path") //$NON-NLS-1$
+    String path;
+
+    @Label("Successful") //$NON-NLS-1$
+    boolean successful;
+
+    @Label("AST Nodes") //$NON-NLS-1$
+    long nodes;
+
+    /**
+     * Commits the event if it is recorded
+     *
+     * @param path            Path of the parsed file
+     * @param compilationUnit Syntax tree of the file, which is empty if it could not be parsed
+     */
+    public void complete(Path path, Optional<CompilationUnit> compilationUnit) {
+        if (shouldCommit()) {
+            this.path = path.toString();
+            this.successful = compilationUnit.isPresent();
+            this.nodes = compilationUnit.map(unit -> unit.stream().count()).orElse(0L);
+            commit();
+        }
+    }
+}
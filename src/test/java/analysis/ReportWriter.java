@@ -0,0 +1,262 @@
+package analysis;
+
+import analysis.BatchGrader.Outcome;
+import analysis.BatchGrader.Submission;
+import analysis.BatchGrader.Verdict;
+import ast.model.NodePosition;
+import org.apiguardian.api.API;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the results of a {@link BatchGrader} as JSON or as SARIF 2.1.0, e.g. for a grading backend or a code
+ * scanning tool.
+ * <p>
+ * Both formats are streamed to the output in one pass over the results, so no intermediate document is built.
+ * Properties without a value, e.g. the message of a passed verdict or an unknown position, are left out.
+ */
+@API(status = API.Status.INTERNAL)
+public final class ReportWriter {
+
+    private static final String TOOL_NAME = "astRecursion"; //$NON-NLS-1$
+
+    private static final String SARIF_SCHEMA = "https://json.schemastore.org/sarif-2.1.0.json"; //$NON-NLS-1$
+
+    private static final String SARIF_VERSION = "2.1.0"; //$NON-NLS-1$
+
+    private ReportWriter() {
+    }
+
+    /**
+     * Writes every verdict with its violations, e.g.
+     * <pre>
+     * {"submissions":[{"sourceRoot":"...","passed":false,"verdicts":[{"rule":"hasNoRecursion","outcome":"FAILED",
+     * "message":"...","violations":[{"description":"Recursive method","method":"p0.C1.m2(int)"}]}]}]}
+     * </pre>
+     *
+     * @param submissions Results of the grader
+     * @param out         Output to write to
+     * @throws IOException If the output cannot be written
+     */
+    public static void writeJson(List<Submission> submissions, Appendable out) throws IOException {
+        out.append("{\"submissions\":["); //$NON-NLS-1$
+        for (int i = 0; i < submissions.size(); i++) {
+            Submission submission = submissions.get(i);
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append("{\"sourceRoot\":"); //$NON-NLS-1$
+            appendString(out, submission.sourceRoot().toString());
+            out.append(",\"passed\":").append(String.valueOf(submission.passed())); //$NON-NLS-1$
+            out.append(",\"verdicts\":["); //$NON-NLS-1$
+            List<Verdict> verdicts = submission.verdicts();
+            for (int j = 0; j < verdicts.size(); j++) {
+                Verdict verdict = verdicts.get(j);
+                if (j > 0) {
+                    out.append(',');
+                }
+                out.append("{\"rule\":"); //$NON-NLS-1$
+                appendString(out, verdict.rule());
+                out.append(",\"outcome\":"); //$NON-NLS-1$
+                appendString(out, verdict.outcome().name());
+                if (verdict.message() != null) {
+                    out.append(",\"message\":"); //$NON-NLS-1$
+                    appendString(out, verdict.message());
+                }
+                out.append(",\"violations\":["); //$NON-NLS-1$
+                List<Violation> violations = verdict.violations();
+                for (int k = 0; k < violations.size(); k++) {
+                    if (k > 0) {
+                        out.append(',');
+                    }
+                    appendViolation(out, violations.get(k));
+                }
+                out.append("]}"); //$NON-NLS-1$
+            }
+            out.append("]}"); //$NON-NLS-1$
+        }
+        out.append("]}"); //$NON-NLS-1$
+    }
+
+    /**
+     * Writes one SARIF run with a result per violation of a failed verdict. A failed verdict without violations is
+     * reported as one result for the source root of its submission. Verdicts which could not be evaluated or timed
+     * out are reported as notifications of the invocation, which is then marked as unsuccessful.
+     *
+     * @param submissions Results of the grader
+     * @param out         Output to write to
+     * @throws IOException If the output cannot be written
+     */
+    public static void writeSarif(List<Submission> submissions, Appendable out) throws IOException {
+        Map<String, Integer> ruleIndices = new LinkedHashMap<>();
+        List<Verdict> notifications = new ArrayList<>();
+        List<Submission> notificationSubmissions = new ArrayList<>();
+        for (Submission submission : submissions) {
+            for (Verdict verdict : submission.verdicts()) {
+                ruleIndices.putIfAbsent(verdict.rule(), ruleIndices.size());
+                if (verdict.outcome() == Outcome.ERROR || verdict.outcome() == Outcome.TIMED_OUT) {
+                    notifications.add(verdict);
+                    notificationSubmissions.add(submission);
+                }
+            }
+        }
+
+        out.append("{\"$schema\":"); //$NON-NLS-1$
+        appendString(out, SARIF_SCHEMA);
+        out.append(",\"version\":"); //$NON-NLS-1$
+        appendString(out, SARIF_VERSION);
+        out.append(",\"runs\":[{\"tool\":{\"driver\":{\"name\":"); //$NON-NLS-1$
+        appendString(out, TOOL_NAME);
+        out.append(",\"rules\":["); //$NON-NLS-1$
+        boolean first = true;
+        for (String rule : ruleIndices.keySet()) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append("{\"id\":"); //$NON-NLS-1$
+            appendString(out, rule);
+            out.append('}');
+        }
+        out.append("]}},\"invocations\":[{\"executionSuccessful\":").append(String.valueOf(notifications.isEmpty())); //$NON-NLS-1$
+        out.append(",\"toolExecutionNotifications\":["); //$NON-NLS-1$
+        for (int i = 0; i < notifications.size(); i++) {
+            Verdict verdict = notifications.get(i);
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append("{\"level\":\"error\",\"message\":{\"text\":"); //$NON-NLS-1$
+            appendString(out, verdict.outcome() + ": " + verdict.message()); //$NON-NLS-1$
+            out.append("},\"associatedRule\":{\"id\":"); //$NON-NLS-1$
+            appendString(out, verdict.rule());
+            out.append(",\"index\":").append(String.valueOf(ruleIndices.get(verdict.rule()))); //$NON-NLS-1$
+            out.append("},\"properties\":{\"submission\":"); //$NON-NLS-1$
+            appendString(out, notificationSubmissions.get(i).sourceRoot().toString());
+            out.append("}}"); //$NON-NLS-1$
+        }
+        out.append("]}],\"results\":["); //$NON-NLS-1$
+        first = true;
+        for (Submission submission : submissions) {
+            for (Verdict verdict : submission.verdicts()) {
+                if (verdict.outcome() != Outcome.FAILED) {
+                    continue;
+                }
+                int ruleIndex = ruleIndices.get(verdict.rule());
+                if (verdict.violations().isEmpty()) {
+                    if (!first) {
+                        out.append(',');
+                    }
+                    first = false;
+                    appendResultStart(out, verdict.rule(), ruleIndex, verdict.message());
+                    out.append(",\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":"); //$NON-NLS-1$
+                    appendString(out, submission.sourceRoot().toUri().toString());
+                    out.append("}}}]"); //$NON-NLS-1$
+                    appendResultEnd(out, submission);
+                }
+                for (Violation violation : verdict.violations()) {
+                    if (!first) {
+                        out.append(',');
+                    }
+                    first = false;
+                    appendResultStart(out, verdict.rule(), ruleIndex, violation.description());
+                    appendLocation(out, violation);
+                    appendResultEnd(out, submission);
+                }
+            }
+        }
+        out.append("]}]}"); //$NON-NLS-1$
+    }
+
+    private static void appendViolation(Appendable out, Violation violation) throws IOException {
+        out.append("{\"description\":"); //$NON-NLS-1$
+        appendString(out, violation.description());
+        if (violation.file() != null) {
+            out.append(",\"file\":"); //$NON-NLS-1$
+            appendString(out, violation.file().toString());
+        }
+        NodePosition position = violation.position();
+        if (position != null && position.hasBegin()) {
+            out.append(",\"startLine\":").append(String.valueOf(position.getBeginLine())); //$NON-NLS-1$
+            out.append(",\"startColumn\":").append(String.valueOf(position.getBeginColumn())); //$NON-NLS-1$
+        }
+        if (position != null && position.hasEnd()) {
+            out.append(",\"endLine\":").append(String.valueOf(position.getEndLine())); //$NON-NLS-1$
+            out.append(",\"endColumn\":").append(String.valueOf(position.getEndColumn())); //$NON-NLS-1$
+        }
+        if (violation.method() != null) {
+            out.append(",\"method\":"); //$NON-NLS-1$
+            appendString(out, violation.method());
+        }
+        out.append('}');
+    }
+
+    private static void appendResultStart(Appendable out, String rule, int ruleIndex, String message) throws IOException {
+        out.append("{\"ruleId\":"); //$NON-NLS-1$
+        appendString(out, rule);
+        out.append(",\"ruleIndex\":").append(String.valueOf(ruleIndex)); //$NON-NLS-1$
+        out.append(",\"level\":\"error\",\"message\":{\"text\":"); //$NON-NLS-1$
+        appendString(out, message);
+        out.append('}');
+    }
+
+    private static void appendResultEnd(Appendable out, Submission submission) throws IOException {
+        out.append(",\"properties\":{\"submission\":"); //$NON-NLS-1$
+        appendString(out, submission.sourceRoot().toString());
+        out.append("}}"); //$NON-NLS-1$
+    }
+
+    /**
+     * SARIF columns start at 1 like the columns of JavaParser, but the end column is exclusive
+     */
+    private static void appendLocation(Appendable out, Violation violation) throws IOException {
+        if (violation.file() != null) {
+            out.append(",\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":"); //$NON-NLS-1$
+            appendString(out, violation.file().toUri().toString());
+            out.append('}');
+            NodePosition position = violation.position();
+            if (position != null && position.hasBegin()) {
+                out.append(",\"region\":{\"startLine\":").append(String.valueOf(position.getBeginLine())); //$NON-NLS-1$
+                out.append(",\"startColumn\":").append(String.valueOf(position.getBeginColumn())); //$NON-NLS-1$
+                if (position.hasEnd()) {
+                    out.append(",\"endLine\":").append(String.valueOf(position.getEndLine())); //$NON-NLS-1$
+                    out.append(",\"endColumn\":").append(String.valueOf(position.getEndColumn() + 1)); //$NON-NLS-1$
+                }
+                out.append('}');
+            }
+            out.append("}}]"); //$NON-NLS-1$
+        } else if (violation.method() != null) {
+            out.append(",\"locations\":[{\"logicalLocations\":[{\"fullyQualifiedName\":"); //$NON-NLS-1$
+            appendString(out, violation.method());
+            out.append(",\"kind\":\"function\"}]}]"); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Appends a JSON string literal, escaping quotes, backslashes and control characters
+     */
+    private static void appendString(Appendable out, String value) throws IOException {
+        out.append('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c != '"' && c != '\\' && c >= ' ') {
+                continue;
+            }
+            out.append(value, start, i);
+            start = i + 1;
+            switch (c) {
+                case '"' -> out.append("\\\""); //$NON-NLS-1$
+                case '\\' -> out.append("\\\\"); //$NON-NLS-1$
+                case '\n' -> out.append("\\n"); //$NON-NLS-1$
+                case '\r' -> out.append("\\r"); //$NON-NLS-1$
+                case '\t' -> out.append("\\t"); //$NON-NLS-1$
+                default -> out.append(String.format("\\u%04x", (int) c)); //$NON-NLS-1$
+            }
+        }
+        out.append(value, start, value.length()).append('"');
+    }
+}
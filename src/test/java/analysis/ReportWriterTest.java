@@ -0,0 +1,285 @@
+package analysis;
+
+import analysis.BatchGrader.Outcome;
+import analysis.BatchGrader.Submission;
+import analysis.BatchGrader.Verdict;
+import ast.model.NodePosition;
+import com.github.javaparser.Position;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReportWriterTest {
+
+    private static final Path FAILED_ROOT = Path.of("/submissions/a \"quoted\" \\ dir");
+
+    private static final Path FAILED_FILE = FAILED_ROOT.resolve("p").resolve("C\t1.java");
+
+    private static final Path ERROR_ROOT = Path.of("/submissions/b");
+
+    private static final String RECURSION_MESSAGE = "Recursion in:\n\tp.C.m(int)\r\n\"x\" \\ \u0001\u001f";
+
+    private static final List<Submission> SUBMISSIONS = List.of(
+            new Submission(FAILED_ROOT, List.of(
+                    new Verdict("hasNoRecursion", Outcome.FAILED, RECURSION_MESSAGE,
+                            List.of(Violation.inMethod("Recursive method", "p.C.m(int)"))),
+                    new Verdict("hasNo(LoopType.ANY)", Outcome.FAILED, "Unwanted nodes",
+                            List.of(Violation.inFile("For\"Stmt\"", FAILED_FILE, new NodePosition(new Position(3, 5), new Position(4, 9))),
+                                    Violation.inFile("WhileStmt", FAILED_FILE, new NodePosition(null, null)))),
+                    new Verdict("hasRecursion", Outcome.PASSED, null))),
+            new Submission(ERROR_ROOT, List.of(
+                    new Verdict("hasNoRecursion", Outcome.ERROR, "Cannot parse \"B.java\"\u0000"),
+                    new Verdict("hasNo(LoopType.ANY)", Outcome.FAILED, "Unwanted\\nodes"),
+                    new Verdict("hasRecursion", Outcome.TIMED_OUT, "Stopped after 1 ms"))));
+
+    @Test
+    void testJson() throws IOException {
+        StringBuilder out = new StringBuilder();
+
+        ReportWriter.writeJson(SUBMISSIONS, out);
+
+        assertThat(out.toString()).isEqualTo("{\"submissions\":["
+                + "{\"sourceRoot\":\"/submissions/a \\\"quoted\\\" \\\\ dir\",\"passed\":false,\"verdicts\":["
+                + "{\"rule\":\"hasNoRecursion\",\"outcome\":\"FAILED\",\"message\":\"Recursion in:\\n\\tp.C.m(int)\\r\\n\\\"x\\\" \\\\ \\u0001\\u001f\","
+                + "\"violations\":[{\"description\":\"Recursive method\",\"method\":\"p.C.m(int)\"}]},"
+                + "{\"rule\":\"hasNo(LoopType.ANY)\",\"outcome\":\"FAILED\",\"message\":\"Unwanted nodes\",\"violations\":["
+                + "{\"description\":\"For\\\"Stmt\\\"\",\"file\":\"/submissions/a \\\"quoted\\\" \\\\ dir/p/C\\t1.java\","
+                + "\"startLine\":3,\"startColumn\":5,\"endLine\":4,\"endColumn\":9},"
+                + "{\"description\":\"WhileStmt\",\"file\":\"/submissions/a \\\"quoted\\\" \\\\ dir/p/C\\t1.java\"}]},"
+                + "{\"rule\":\"hasRecursion\",\"outcome\":\"PASSED\",\"violations\":[]}]},"
+                + "{\"sourceRoot\":\"/submissions/b\",\"passed\":false,\"verdicts\":["
+                + "{\"rule\":\"hasNoRecursion\",\"outcome\":\"ERROR\",\"message\":\"Cannot parse \\\"B.java\\\"\\u0000\",\"violations\":[]},"
+                + "{\"rule\":\"hasNo(LoopType.ANY)\",\"outcome\":\"FAILED\",\"message\":\"Unwanted\\\\nodes\",\"violations\":[]},"
+                + "{\"rule\":\"hasRecursion\",\"outcome\":\"TIMED_OUT\",\"message\":\"Stopped after 1 ms\",\"violations\":[]}]}]}");
+    }
+
+    @Test
+    void testSarif() throws IOException {
+        StringBuilder out = new StringBuilder();
+
+        ReportWriter.writeSarif(SUBMISSIONS, out);
+
+        assertThat(out.toString()).isEqualTo("{\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",\"version\":\"2.1.0\",\"runs\":[{\"tool\":{\"driver\":{\"name\":\"astRecursion\","
+                + "\"rules\":[{\"id\":\"hasNoRecursion\"},{\"id\":\"hasNo(LoopType.ANY)\"},{\"id\":\"hasRecursion\"}]}},"
+                + "\"invocations\":[{\"executionSuccessful\":false,\"toolExecutionNotifications\":["
+                + "{\"level\":\"error\",\"message\":{\"text\":\"ERROR: Cannot parse \\\"B.java\\\"\\u0000\"},"
+                + "\"associatedRule\":{\"id\":\"hasNoRecursion\",\"index\":0},\"properties\":{\"submission\":\"/submissions/b\"}},"
+                + "{\"level\":\"error\",\"message\":{\"text\":\"TIMED_OUT: Stopped after 1 ms\"},"
+                + "\"associatedRule\":{\"id\":\"hasRecursion\",\"index\":2},\"properties\":{\"submission\":\"/submissions/b\"}}]}],"
+                + "\"results\":["
+                + "{\"ruleId\":\"hasNoRecursion\",\"ruleIndex\":0,\"level\":\"error\",\"message\":{\"text\":\"Recursive method\"},"
+                + "\"locations\":[{\"logicalLocations\":[{\"fullyQualifiedName\":\"p.C.m(int)\",\"kind\":\"function\"}]}],"
+                + "\"properties\":{\"submission\":\"/submissions/a \\\"quoted\\\" \\\\ dir\"}},"
+                + "{\"ruleId\":\"hasNo(LoopType.ANY)\",\"ruleIndex\":1,\"level\":\"error\",\"message\":{\"text\":\"For\\\"Stmt\\\"\"},"
+                + "\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"file:///submissions/a%20%22quoted%22%20%5C%20dir/p/C%091.java\"},"
+                + "\"region\":{\"startLine\":3,\"startColumn\":5,\"endLine\":4,\"endColumn\":10}}}],"
+                + "\"properties\":{\"submission\":\"/submissions/a \\\"quoted\\\" \\\\ dir\"}},"
+                + "{\"ruleId\":\"hasNo(LoopType.ANY)\",\"ruleIndex\":1,\"level\":\"error\",\"message\":{\"text\":\"WhileStmt\"},"
+                + "\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"file:///submissions/a%20%22quoted%22%20%5C%20dir/p/C%091.java\"}}}],"
+                + "\"properties\":{\"submission\":\"/submissions/a \\\"quoted\\\" \\\\ dir\"}},"
+                + "{\"ruleId\":\"hasNo(LoopType.ANY)\",\"ruleIndex\":1,\"level\":\"error\",\"message\":{\"text\":\"Unwanted\\\\nodes\"},"
+                + "\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":\"file:///submissions/b\"}}}],"
+                + "\"properties\":{\"submission\":\"/submissions/b\"}}]}]}");
+    }
+
+    @Test
+    void testEscapedStringsAreReadBack() throws IOException {
+        StringBuilder out = new StringBuilder();
+
+        ReportWriter.writeJson(SUBMISSIONS, out);
+
+        Map<?, ?> report = (Map<?, ?>) new JsonReader(out.toString()).read();
+        Map<?, ?> submission = (Map<?, ?>) ((List<?>) report.get("submissions")).get(0);
+        Map<?, ?> verdict = (Map<?, ?>) ((List<?>) submission.get("verdicts")).get(0);
+        assertThat(submission.get("sourceRoot")).isEqualTo(FAILED_ROOT.toString());
+        assertThat(verdict.get("message")).isEqualTo(RECURSION_MESSAGE);
+    }
+
+    /**
+     * Checks the properties which SARIF 2.1.0 requires and the references between them
+     */
+    @Test
+    void testSarifIsValid() throws IOException {
+        StringBuilder out = new StringBuilder();
+
+        ReportWriter.writeSarif(SUBMISSIONS, out);
+
+        Map<?, ?> log = (Map<?, ?>) new JsonReader(out.toString()).read();
+        assertThat(log.get("version")).isEqualTo("2.1.0");
+        assertThat(log.get("$schema")).isInstanceOf(String.class);
+        List<?> runs = (List<?>) log.get("runs");
+        assertThat(runs).hasSize(1);
+        Map<?, ?> run = (Map<?, ?>) runs.get(0);
+        Map<?, ?> driver = (Map<?, ?>) ((Map<?, ?>) run.get("tool")).get("driver");
+        assertThat(driver.get("name")).isInstanceOf(String.class);
+        List<String> ruleIds = ((List<?>) driver.get("rules")).stream().map(rule -> (String) ((Map<?, ?>) rule).get("id")).toList();
+        assertThat(ruleIds).doesNotHaveDuplicates();
+
+        for (Object invocation : (List<?>) run.get("invocations")) {
+            assertThat(((Map<?, ?>) invocation).get("executionSuccessful")).isEqualTo(false);
+            for (Object notification : (List<?>) ((Map<?, ?>) invocation).get("toolExecutionNotifications")) {
+                assertHasText((Map<?, ?>) notification);
+                Map<?, ?> rule = (Map<?, ?>) ((Map<?, ?>) notification).get("associatedRule");
+                assertThat(ruleIds.get(((Number) rule.get("index")).intValue())).isEqualTo(rule.get("id"));
+            }
+        }
+
+        List<?> results = (List<?>) run.get("results");
+        assertThat(results).hasSize(4);
+        for (Object element : results) {
+            Map<?, ?> result = (Map<?, ?>) element;
+            assertHasText(result);
+            assertThat(ruleIds.get(((Number) result.get("ruleIndex")).intValue())).isEqualTo(result.get("ruleId"));
+            assertThat(result.get("level")).isIn("none", "note", "warning", "error");
+            for (Object location : (List<?>) result.get("locations")) {
+                assertValidLocation((Map<?, ?>) location);
+            }
+        }
+    }
+
+    private static void assertHasText(Map<?, ?> object) {
+        assertThat(((Map<?, ?>) object.get("message")).get("text")).isInstanceOf(String.class);
+    }
+
+    private static void assertValidLocation(Map<?, ?> location) {
+        Map<?, ?> physicalLocation = (Map<?, ?>) location.get("physicalLocation");
+        if (physicalLocation == null) {
+            for (Object logicalLocation : (List<?>) location.get("logicalLocations")) {
+                assertThat(((Map<?, ?>) logicalLocation).get("fullyQualifiedName")).isInstanceOf(String.class);
+            }
+            return;
+        }
+        URI uri = URI.create((String) ((Map<?, ?>) physicalLocation.get("artifactLocation")).get("uri"));
+        assertThat(Path.of(uri)).isIn(FAILED_FILE, ERROR_ROOT);
+        Map<?, ?> region = (Map<?, ?>) physicalLocation.get("region");
+        if (region != null) {
+            assertThat(((Number) region.get("startLine")).intValue()).isPositive();
+            assertThat(((Number) region.get("startColumn")).intValue()).isPositive();
+            assertThat(((Number) region.get("endLine")).intValue()).isGreaterThanOrEqualTo(((Number) region.get("startLine")).intValue());
+            assertThat(((Number) region.get("endColumn")).intValue()).isPositive();
+        }
+    }
+
+    /**
+     * Reads JSON into maps, lists, strings, numbers, booleans and null, failing on anything which is not valid JSON
+     */
+    private static final class JsonReader {
+
+        private static final Set<Character> ESCAPES = Set.of('"', '\\', '/', 'b', 'f', 'n', 'r', 't', 'u');
+
+        private final String json;
+
+        private int index;
+
+        JsonReader(String json) {
+            this.json = json;
+        }
+
+        Object read() {
+            Object value = readValue();
+            skipWhitespace();
+            assertThat(index).as("end of JSON").isEqualTo(json.length());
+            return value;
+        }
+
+        private Object readValue() {
+            skipWhitespace();
+            char c = json.charAt(index);
+            if (c == '{') {
+                Map<String, Object> object = new LinkedHashMap<>();
+                index++;
+                if (!consume('}')) {
+                    do {
+                        skipWhitespace();
+                        String key = readString();
+                        expect(':');
+                        assertThat(object.put(key, readValue())).as("duplicate key %s", key).isNull();
+                    } while (consume(','));
+                    expect('}');
+                }
+                return object;
+            }
+            if (c == '[') {
+                List<Object> array = new ArrayList<>();
+                index++;
+                if (!consume(']')) {
+                    do {
+                        array.add(readValue());
+                    } while (consume(','));
+                    expect(']');
+                }
+                return array;
+            }
+            if (c == '"') {
+                return readString();
+            }
+            for (String literal : List.of("true", "false", "null")) {
+                if (json.startsWith(literal, index)) {
+                    index += literal.length();
+                    return literal.equals("null") ? null : Boolean.valueOf(literal);
+                }
+            }
+            int start = index;
+            while (index < json.length() && "+-.0123456789eE".indexOf(json.charAt(index)) >= 0) {
+                index++;
+            }
+            assertThat(index).as("value at %d", start).isGreaterThan(start);
+            return Double.valueOf(json.substring(start, index));
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            for (char c = json.charAt(index++); c != '"'; c = json.charAt(index++)) {
+                assertThat(c).as("unescaped control character at %d", index - 1).isGreaterThanOrEqualTo(' ');
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escape = json.charAt(index++);
+                assertThat(ESCAPES).as("escape at %d", index - 1).contains(escape);
+                switch (escape) {
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        value.append((char) Integer.parseInt(json.substring(index, index + 4), 16));
+                        index += 4;
+                    }
+                    default -> value.append(escape);
+                }
+            }
+            return value.toString();
+        }
+
+        private boolean consume(char c) {
+            skipWhitespace();
+            if (index < json.length() && json.charAt(index) == c) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            assertThat(consume(c)).as("'%s' at %d", c, index).isTrue();
+        }
+
+        private void skipWhitespace() {
+            while (index < json.length() && " \t\n\r".indexOf(json.charAt(index)) >= 0) {
+                index++;
+            }
+        }
+    }
+}
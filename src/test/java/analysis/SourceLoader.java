@@ -0,0 +1,403 @@
+package analysis;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import org.apiguardian.api.API;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Loads and parses Java files in stages which are connected by bounded queues: the files are read on I/O threads,
+ * parsed on a pool sized to the number of processors and handed to the analysis on the calling thread.
+ * <p>
+ * Every parser thread gets its own {@link ParserConfiguration} from the given factory, since neither
+ * {@link JavaParser} nor its configuration may be shared between threads. Inputs with fewer files than
+ * {@code astRecursion.loader.sequentialThreshold} are parsed sequentially on the calling thread, because handing
+ * them between threads costs more than it saves.
+ * <p>
+ * A file whose reading or parsing throws, e.g. because it is nested so deeply that the parser overflows its stack,
+ * makes the loader throw the failure of that file on the calling thread, the same as when parsing sequentially.
+ * <p>
+ * The {@link Deadline} of the analysis is checked after every file and, while files are parsed in parallel, also while
+ * the analysis waits for the next file, so a file which takes too long to parse cannot hold up the analysis beyond its
+ * deadline. The stages which are still running are cancelled once it has expired. The {@link AnalysisMetrics} are told the latency and the number of nodes of every
+ * file on the thread which parsed it, and a {@link ParseFileEvent} is emitted for every file.
+ */
+@API(status = API.Status.INTERNAL)
+public final class SourceLoader {
+
+    private static final int SEQUENTIAL_THRESHOLD = Integer.getInteger("astRecursion.loader.sequentialThreshold", 32); //$NON-NLS-1$
+
+    private static final int PARSER_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static final int READER_THREADS = 4;
+
+    private static final int QUEUE_CAPACITY = 2 * PARSER_THREADS;
+
+    /**
+     * Longest wait for the next parsed file before the deadline is checked again, which bounds the delay until a
+     * cancellation from another thread is noticed
+     */
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final ExecutorService READERS = Executors.newCachedThreadPool(daemonThreads("source-reader")); //$NON-NLS-1$
+
+    private static final ExecutorService PARSERS = Executors.newFixedThreadPool(PARSER_THREADS, daemonThreads("source-parser")); //$NON-NLS-1$
+
+    private SourceLoader() {
+    }
+
+    /**
+     * Parses all given Java files
+     *
+     * @param javaFiles            Paths to the Java files
+     * @param configurationFactory Creates the configuration for each parser thread
+     * @return Parse results in the order of the given paths
+     * @throws IOException If any of the files could not be read
+     */
+    public static List<ParseResult<CompilationUnit>> parseAll(List<Path> javaFiles, Supplier<ParserConfiguration> configurationFactory) throws IOException {
+        return parseAll(javaFiles, configurationFactory, Deadline.none());
+    }
+
+    /**
+     * Parses all given Java files within the given deadline
+     *
+     * @param javaFiles            Paths to the Java files
+     * @param configurationFactory Creates the configuration for each parser thread
+     * @param deadline             Deadline of the analysis
+     * @return Parse results in the order of the given paths
+     * @throws IOException              If any of the files could not be read
+     * @throws AnalysisTimeoutException If the deadline expires before all files are parsed
+     */
+    public static List<ParseResult<CompilationUnit>> parseAll(List<Path> javaFiles, Supplier<ParserConfiguration> configurationFactory,
+                                                              Deadline deadline) throws IOException {
+        return parseAll(javaFiles, configurationFactory, deadline, AnalysisMetrics.NONE);
+    }
+
+    /**
+     * Parses all given Java files within the given deadline and reports every file to the given metrics
+     *
+     * @param javaFiles            Paths to the Java files
+     * @param configurationFactory Creates the configuration for each parser thread
+     * @param deadline             Deadline of the analysis
+     * @param metrics              Listener for the parsed files
+     * @return Parse results in the order of the given paths
+     * @throws IOException              If any of the files could not be read
+     * @throws AnalysisTimeoutException If the deadline expires before all files are parsed
+     */
+    public static List<ParseResult<CompilationUnit>> parseAll(List<Path> javaFiles, Supplier<ParserConfiguration> configurationFactory,
+                                                              Deadline deadline, AnalysisMetrics metrics) throws IOException {
+        ParseResult<?>[] parseResults = new ParseResult<?>[javaFiles.size()];
+        parse(javaFiles, configurationFactory, deadline, metrics, (index, path, parseResult) -> {
+            parseResults[index] = parseResult;
+            return true;
+        });
+        @SuppressWarnings("unchecked")
+        List<ParseResult<CompilationUnit>> result = (List<ParseResult<CompilationUnit>>) (List<?>) Arrays.asList(parseResults);
+        return result;
+    }
+
+    /**
+     * Parses all given Java files and passes each result to the analysis as soon as it is available, so that a
+     * syntax tree can be released right after it has been analyzed
+     *
+     * @param javaFiles            Paths to the Java files
+     * @param configurationFactory Creates the configuration for each parser thread
+     * @param analysis             Analysis of a single parse result, always called on the calling thread but not
+     *                             necessarily in the order of the given paths
+     * @throws IOException If any of the files could not be read
+     */
+    public static void parseEach(List<Path> javaFiles, Supplier<ParserConfiguration> configurationFactory,
+                                 BiConsumer<Path, ParseResult<CompilationUnit>> analysis) throws IOException {
+        parseEach(javaFiles, configurationFactory, Deadline.none(), AnalysisMetrics.NONE, analysis);
+    }
+
+    /**
+     * Parses all given Java files within the given deadline and passes each result to the analysis as soon as it is
+     * available, so that a syntax tree can be released right after it has been analyzed
+     *
+     * @param javaFiles            Paths to the Java files
+     * @param configurationFactory Creates the configuration for each parser thread
+     * @param deadline             Deadline of the analysis
+     * @param metrics              Listener for the parsed files
+     * @param analysis             Analysis of a single parse result, always called on the calling thread but not
+     *                             necessarily in the order of the given paths
+     * @throws IOException              If any of the files could not be read
+     * @throws AnalysisTimeoutException If the deadline expires before all files are analyzed
+     */
+    public static void parseEach(List<Path> javaFiles, Supplier<ParserConfiguration> configurationFactory, Deadline deadline,
+                                 AnalysisMetrics metrics, BiConsumer<Path, ParseResult<CompilationUnit>> analysis) throws IOException {
+        parse(javaFiles, configurationFactory, deadline, metrics, (index, path, parseResult) -> {
+            analysis.accept(path, parseResult);
+            return true;
+        });
+    }
+
+    /**
+     * Parses the given Java files and passes each result to the analysis as soon as it is available, until the
+     * analysis asks to stop. The files which are still being read or parsed at that point are dropped.
+     *
+     * @param javaFiles            Paths to the Java files
+     * @param configurationFactory Creates the configuration for each parser thread
+     * @param analysis             Analysis of a single parse result, which returns false to stop, always called on
+     *                             the calling thread but not necessarily in the order of the given paths
+     * @return True if every file has been analyzed, false if the analysis stopped early
+     * @throws IOException If any of the files could not be read
+     */
+    public static boolean parseWhile(List<Path> javaFiles, Supplier<ParserConfiguration> configurationFactory,
+                                     BiPredicate<Path, ParseResult<CompilationUnit>> analysis) throws IOException {
+        return parseWhile(javaFiles, configurationFactory, Deadline.none(), analysis);
+    }
+
+    /**
+     * Parses the given Java files within the given deadline and passes each result to the analysis as soon as it is
+     * available, until the analysis asks to stop
+     *
+     * @param javaFiles            Paths to the Java files
+     * @param configurationFactory Creates the configuration for each parser thread
+     * @param deadline             Deadline of the analysis
+     * @param analysis             Analysis of a single parse result, which returns false to stop, always called on
+     *                             the calling thread but not necessarily in the order of the given paths
+     * @return True if every file has been analyzed, false if the analysis stopped early
+     * @throws IOException              If any of the files could not be read
+     * @throws AnalysisTimeoutException If the deadline expires before all files are analyzed
+     */
+    public static boolean parseWhile(List<Path> javaFiles, Supplier<ParserConfiguration> configurationFactory, Deadline deadline,
+                                     BiPredicate<Path, ParseResult<CompilationUnit>> analysis) throws IOException {
+        return parse(javaFiles, configurationFactory, deadline, AnalysisMetrics.NONE,
+                (index, path, parseResult) -> analysis.test(path, parseResult));
+    }
+
+    private static boolean parse(List<Path> javaFiles, Supplier<ParserConfiguration> configurationFactory, Deadline deadline,
+                                 AnalysisMetrics metrics, Analysis analysis) throws IOException {
+        deadline.check(Deadline.Phase.PARSING);
+        if (javaFiles.size() < SEQUENTIAL_THRESHOLD || PARSER_THREADS == 1) {
+            JavaParser parser = new JavaParser(configurationFactory.get());
+            for (int i = 0; i < javaFiles.size(); i++) {
+                Path path = javaFiles.get(i);
+                if (!analysis.accept(i, path, parse(parser, path, Files.readAllBytes(path), metrics))) {
+                    return false;
+                }
+                deadline.completeFile(Deadline.Phase.PARSING);
+            }
+            return true;
+        }
+        return new Pipeline(javaFiles, configurationFactory, metrics).run(deadline, (index, path, parseResult) -> {
+            if (!analysis.accept(index, path, parseResult)) {
+                return false;
+            }
+            deadline.completeFile(Deadline.Phase.PARSING);
+            return true;
+        });
+    }
+
+    private static ParseResult<CompilationUnit> parse(JavaParser parser, Path path, byte[] content, AnalysisMetrics metrics) {
+        ParseFileEvent event = new ParseFileEvent();
+        event.begin();
+        long start = System.nanoTime();
+        ParserConfiguration configuration = parser.getParserConfiguration();
+        ParseResult<CompilationUnit> parseResult = parser.parse(new ByteArrayInputStream(content), configuration.getCharacterEncoding());
+        parseResult.getResult().ifPresent(compilationUnit -> compilationUnit.setStorage(path, configuration.getCharacterEncoding()));
+        event.complete(path, parseResult.getResult());
+        metrics.recordLatency(AnalysisMetrics.Operation.PARSE_FILE, System.nanoTime() - start);
+        metrics.increment(AnalysisMetrics.Counter.FILES, 1);
+        // Counting the nodes walks the whole tree, which is only worth it if anybody listens
+        if (metrics != AnalysisMetrics.NONE) {
+            parseResult.getResult().ifPresent(compilationUnit -> metrics.increment(AnalysisMetrics.Counter.AST_NODES, compilationUnit.stream().count()));
+        }
+        return parseResult;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet()); //$NON-NLS-1$
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    private interface Analysis {
+        /**
+         * @return False to stop parsing
+         */
+        boolean accept(int index, Path path, ParseResult<CompilationUnit> parseResult);
+    }
+
+    /**
+     * One run of the reading and parsing stages for a fixed list of files
+     */
+    private static final class Pipeline {
+
+        private static final Item END_OF_INPUT = new Item(-1, null, null, null, null);
+
+        private final List<Path> javaFiles;
+
+        private final Supplier<ParserConfiguration> configurationFactory;
+
+        private final AnalysisMetrics metrics;
+
+        private final AtomicInteger nextFile = new AtomicInteger();
+
+        private final AtomicInteger activeReaders = new AtomicInteger();
+
+        private final BlockingQueue<Item> read = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        private final BlockingQueue<Item> parsed = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        private final List<Future<?>> stages = new ArrayList<>();
+
+        private final int parserCount;
+
+        Pipeline(List<Path> javaFiles, Supplier<ParserConfiguration> configurationFactory, AnalysisMetrics metrics) {
+            this.javaFiles = javaFiles;
+            this.configurationFactory = configurationFactory;
+            this.metrics = metrics;
+            this.parserCount = Math.min(PARSER_THREADS, javaFiles.size());
+        }
+
+        boolean run(Deadline deadline, Analysis analysis) throws IOException {
+            int readerCount = Math.min(READER_THREADS, javaFiles.size());
+            activeReaders.set(readerCount);
+            try {
+                for (int i = 0; i < readerCount; i++) {
+                    stages.add(READERS.submit(this::read));
+                }
+                for (int i = 0; i < parserCount; i++) {
+                    stages.add(PARSERS.submit(this::parse));
+                }
+                for (int i = 0; i < javaFiles.size(); i++) {
+                    Item item = next(deadline);
+                    if (item.failure() != null) {
+                        throw propagate(item.failure());
+                    }
+                    if (!analysis.accept(item.index(), item.path(), item.parseResult())) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while loading Java files"); //$NON-NLS-1$
+            } finally {
+                // Stops all stages that are still blocked after a failure or an early stop of the analysis
+                stages.forEach(stage -> stage.cancel(true));
+            }
+        }
+
+        /**
+         * Waits for the next parsed file until the deadline expires, since a parser may be stuck on a single file
+         */
+        private Item next(Deadline deadline) throws InterruptedException {
+            Item item = parsed.poll(Math.min(deadline.remainingNanos(), MAX_WAIT_NANOS), TimeUnit.NANOSECONDS);
+            while (item == null) {
+                deadline.check(Deadline.Phase.PARSING);
+                item = parsed.poll(Math.min(deadline.remainingNanos(), MAX_WAIT_NANOS), TimeUnit.NANOSECONDS);
+            }
+            return item;
+        }
+
+        private void read() {
+            try {
+                for (int index = nextFile.getAndIncrement(); index < javaFiles.size(); index = nextFile.getAndIncrement()) {
+                    Path path = javaFiles.get(index);
+                    Item item;
+                    try {
+                        item = new Item(index, path, Files.readAllBytes(path), null, null);
+                    } catch (Throwable e) {
+                        // Every file must reach the analysis, otherwise it waits for it forever
+                        item = new Item(index, path, null, null, e);
+                    }
+                    read.put(item);
+                }
+                if (activeReaders.decrementAndGet() == 0) {
+                    for (int i = 0; i < parserCount; i++) {
+                        read.put(END_OF_INPUT);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void parse() {
+            JavaParser parser = null;
+            Throwable setupFailure = null;
+            try {
+                parser = new JavaParser(configurationFactory.get());
+            } catch (Throwable e) {
+                setupFailure = e;
+            }
+            try {
+                for (Item item = read.take(); item != END_OF_INPUT; item = read.take()) {
+                    if (item.failure() != null) {
+                        parsed.put(item);
+                        continue;
+                    }
+                    if (setupFailure != null) {
+                        parsed.put(item.withFailure(setupFailure));
+                        continue;
+                    }
+                    Item result;
+                    try {
+                        result = item.withParseResult(SourceLoader.parse(parser, item.path(), item.content(), metrics));
+                    } catch (Throwable e) {
+                        // E.g. a StackOverflowError on a deeply nested file, which must not kill the parser thread
+                        result = item.withFailure(e);
+                    }
+                    parsed.put(result);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Rethrows the failure of a stage on the calling thread, keeping unchecked exceptions and errors as they are
+     */
+    private static IOException propagate(Throwable failure) {
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        }
+        if (failure instanceof Error e) {
+            throw e;
+        }
+        return failure instanceof IOException e ? e : new IOException(failure);
+    }
+
+    /**
+     * A file on its way through the stages, which carries the failure of the stage that could not handle it
+     */
+    private record Item(int index, Path path, byte[] content, ParseResult<CompilationUnit> parseResult, Throwable failure) {
+
+        Item withParseResult(ParseResult<CompilationUnit> parseResult) {
+            return new Item(index, path, null, parseResult, null);
+        }
+
+        Item withFailure(Throwable failure) {
+            return new Item(index, path, null, null, failure);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package analysis;
+
+import ast.model.JavaFile;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.CompilationUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class SourceLoaderTest {
+
+    private static final Supplier<ParserConfiguration> PARSER_CONFIGURATION =
+            () -> JavaFile.copyOfStaticParserConfiguration().setLanguageLevel(LanguageLevel.JAVA_17);
+
+    /**
+     * More files than the sequential threshold of the loader, so they are parsed in parallel
+     */
+    private static final int FILE_COUNT = 41;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testParseAllInOrder() throws IOException {
+        List<Path> files = writeFiles(-1);
+
+        List<ParseResult<CompilationUnit>> parseResults = SourceLoader.parseAll(files, PARSER_CONFIGURATION);
+
+        assertThat(parseResults).hasSize(FILE_COUNT);
+        for (int i = 0; i < FILE_COUNT; i++) {
+            assertThat(parseResults.get(i).getResult().flatMap(CompilationUnit::getStorage).map(CompilationUnit.Storage::getPath))
+                    .hasValue(files.get(i));
+        }
+    }
+
+    @Test
+    void testErrorWhileParsingIsThrown() throws IOException {
+        List<Path> files = writeFiles(17);
+
+        assertTimeoutPreemptively(Duration.ofMinutes(1), () -> assertThatThrownBy(() -> SourceLoader.parseAll(files, PARSER_CONFIGURATION))
+                .isInstanceOf(StackOverflowError.class));
+    }
+
+    @Test
+    void testMissingFileIsThrown() throws IOException {
+        List<Path> files = writeFiles(-1);
+        Files.delete(files.get(23));
+
+        assertTimeoutPreemptively(Duration.ofMinutes(1), () -> assertThatThrownBy(() -> SourceLoader.parseAll(files, PARSER_CONFIGURATION))
+                .isInstanceOf(IOException.class));
+    }
+
+    @Test
+    void testDeadlineStopsWaitingForParsers() throws IOException {
+        assumeTrue(Runtime.getRuntime().availableProcessors() > 1, "files are only parsed in parallel on several processors");
+        List<Path> files = writeFiles(-1);
+        CountDownLatch stuck = new CountDownLatch(1);
+        Supplier<ParserConfiguration> stuckParsers = () -> {
+            try {
+                stuck.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return PARSER_CONFIGURATION.get();
+        };
+
+        try {
+            assertTimeoutPreemptively(Duration.ofMinutes(1), () -> assertThatThrownBy(
+                    () -> SourceLoader.parseAll(files, stuckParsers, Deadline.after(Duration.ofMillis(200))))
+                    .isInstanceOfSatisfying(AnalysisTimeoutException.class, e -> {
+                        assertThat(e.getPhase()).isEqualTo(Deadline.Phase.PARSING);
+                        assertThat(e.getCompletedFiles()).isZero();
+                    })
+                    .hasMessageStartingWith("The analysis timed out in phase parsing after 0 files"));
+        } finally {
+            stuck.countDown();
+        }
+    }
+
+    @Test
+    void testCancelledDeadlineReportsTheCompletedFiles() throws IOException {
+        List<Path> files = writeFiles(-1).subList(0, 5);
+        Deadline deadline = Deadline.none();
+        AnalysisMetrics cancelAfterThreeFiles = new AnalysisMetrics() {
+            private int files;
+
+            @Override
+            public void increment(Counter counter, long amount) {
+                if (counter == Counter.FILES && (files += amount) == 3) {
+                    deadline.cancel();
+                }
+            }
+        };
+
+        assertThatThrownBy(() -> SourceLoader.parseAll(files, PARSER_CONFIGURATION, deadline, cancelAfterThreeFiles))
+                .isInstanceOfSatisfying(AnalysisTimeoutException.class, e -> assertThat(e.getCompletedFiles()).isEqualTo(3))
+                .hasMessageStartingWith("The analysis was cancelled in phase parsing after 3 files");
+    }
+
+    /**
+     * Writes classes {@code F00}, {@code F01}, ..., of which the given one nests its expression so deeply that the
+     * parser overflows its stack
+     */
+    private List<Path> writeFiles(int deeplyNested) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            Path file = directory.resolve("F%02d.java".formatted(i));
+            String expression = i == deeplyNested ? "(".repeat(200_000) + "1" + ")".repeat(200_000) : "1";
+            Files.writeString(file, "class F%02d { int value = %s; }".formatted(i, expression));
+            files.add(file);
+        }
+        return files;
+    }
+}
@@ -0,0 +1,180 @@
+package analysis;
+
+import ast.model.JavaFile;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import recursionCheck.CallSiteResolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Summarizes the Java files of one session, of which every file is summarized at most once.
+ * <p>
+ * If the {@link SummaryCache} is enabled, only files whose content has not been analyzed before are parsed, and only
+ * files which have not been resolved against the same declarations of the source root before are resolved. The
+ * files which are parsed only to be summarized are streamed, see {@link SyntaxTrees#analyzeEach(Collection,
+ * java.util.function.BiConsumer)}.
+ */
+final class Summaries {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Summaries.class);
+
+    private final Path sourceRoot;
+
+    private final LanguageLevel level;
+
+    private final Set<Path> javaFiles;
+
+    private final Deadline deadline;
+
+    private final AnalysisMetrics metrics;
+
+    private final SyntaxTrees syntaxTrees;
+
+    private final Optional<SummaryCache> summaryCache = SummaryCache.fromSystemProperties();
+
+    private final CallSiteResolver callSiteResolver;
+
+    private final Map<Path, String> contentHashes = new HashMap<>();
+
+    /**
+     * Call summaries of all files which have been summarized so far
+     */
+    private final Map<Path, CallSummary> summarizedFiles = new HashMap<>();
+
+    private String declarationsHash;
+
+    private Map<Path, NodeSummary> nodeSummaries;
+
+    /**
+     * @param javaFiles All Java files of the source root
+     */
+    Summaries(Path sourceRoot, LanguageLevel level, Set<Path> javaFiles, Deadline deadline, AnalysisMetrics metrics,
+              SyntaxTrees syntaxTrees) {
+        this.sourceRoot = sourceRoot;
+        this.level = level;
+        this.javaFiles = javaFiles;
+        this.deadline = deadline;
+        this.metrics = metrics;
+        this.syntaxTrees = syntaxTrees;
+        this.callSiteResolver = new CallSiteResolver(deadline, metrics);
+    }
+
+    /**
+     * @return Resolver for the calls of the source root, which is shared by all summaries and graphs of the session
+     */
+    CallSiteResolver getCallSiteResolver() {
+        return callSiteResolver;
+    }
+
+    /**
+     * Summarizes the method calls of the given Java files which could be parsed
+     *
+     * @return Call summaries in the order of the paths
+     */
+    Map<Path, CallSummary> getCallSummaries(Collection<Path> paths) {
+        List<Path> unsummarized = paths.stream().filter(path -> !summarizedFiles.containsKey(path)).toList();
+        if (!unsummarized.isEmpty()) {
+            List<Path> missing = new ArrayList<>();
+            String declarationsHash = summaryCache.map(this::getDeclarationsHash).orElse(null);
+            for (Path path : unsummarized) {
+                summaryCache.flatMap(cache -> cache.loadCallSummary(getContentHash(path), declarationsHash, level))
+                        .ifPresentOrElse(callSummary -> summarizedFiles.put(path, callSummary), () -> missing.add(path));
+            }
+            countSummaryCacheLookups(unsummarized.size() - missing.size(), missing.size());
+            syntaxTrees.analyzeEach(missing, (path, parseResult) -> parseResult.getResult().ifPresent(compilationUnit -> {
+                CallSummary callSummary = AnalysisSession.inPhase(metrics, Deadline.Phase.RESOLUTION,
+                        () -> CallSummary.of(compilationUnit, callSiteResolver));
+                summarizedFiles.put(path, callSummary);
+                summaryCache.ifPresent(cache -> cache.storeCallSummary(getContentHash(path), declarationsHash, level, callSummary));
+                deadline.completeFile(Deadline.Phase.RESOLUTION);
+            }));
+        }
+        Map<Path, CallSummary> summaries = new TreeMap<>();
+        for (Path path : paths) {
+            Optional.ofNullable(summarizedFiles.get(path)).ifPresent(callSummary -> summaries.put(path, callSummary));
+        }
+        return summaries;
+    }
+
+    /**
+     * Summarizes the nodes of every Java file
+     *
+     * @throws ParseProblemException If any Java file could not be parsed
+     */
+    Map<Path, NodeSummary> getNodeSummaries() {
+        if (nodeSummaries == null) {
+            Map<Path, NodeSummary> summaries = new TreeMap<>();
+            List<Path> missing = new ArrayList<>();
+            for (Path path : javaFiles) {
+                summaryCache.flatMap(cache -> cache.loadNodeSummary(getContentHash(path), level))
+                        .ifPresentOrElse(nodeSummary -> summaries.put(path, nodeSummary), () -> missing.add(path));
+            }
+            countSummaryCacheLookups(summaries.size(), missing.size());
+            syntaxTrees.analyzeEach(missing, (path, parseResult) -> {
+                NodeSummary nodeSummary = NodeSummary.of(JavaFile.fromParseResult(path, parseResult, false).getJavaFileAST());
+                summaries.put(path, nodeSummary);
+                summaryCache.ifPresent(cache -> cache.storeNodeSummary(getContentHash(path), level, nodeSummary));
+            });
+            nodeSummaries = summaries;
+        }
+        return nodeSummaries;
+    }
+
+    /**
+     * Hashes the declarations of every Java file of the source root together with its path relative to the root,
+     * since the calls of a file are resolved against the declarations of all files and the type solver finds the
+     * files by their path. The declaration hash of a file only depends on its content, so it is cached as well.
+     */
+    private String getDeclarationsHash(SummaryCache cache) {
+        if (declarationsHash == null) {
+            Map<Path, String> declarationHashes = new TreeMap<>();
+            List<Path> missing = new ArrayList<>();
+            for (Path path : javaFiles) {
+                cache.loadDeclarationHash(getContentHash(path), level)
+                        .ifPresentOrElse(hash -> declarationHashes.put(path, hash), () -> missing.add(path));
+            }
+            syntaxTrees.analyzeEach(missing, (path, parseResult) -> {
+                Optional<String> hash = parseResult.getResult().map(SummaryCache::declarationHash);
+                hash.ifPresent(declarationHash -> cache.storeDeclarationHash(getContentHash(path), level, declarationHash));
+                // A file which cannot be parsed declares nothing, but it is still only equal to itself
+                declarationHashes.put(path, hash.orElseGet(() -> getContentHash(path)));
+            });
+            StringBuilder declarations = new StringBuilder();
+            declarationHashes.forEach((path, hash) -> declarations.append(sourceRoot.relativize(path)).append('\0').append(hash).append('\n'));
+            declarationsHash = SummaryCache.contentHash(declarations.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return declarationsHash;
+    }
+
+    private void countSummaryCacheLookups(int hits, int misses) {
+        if (summaryCache.isPresent()) {
+            metrics.increment(AnalysisMetrics.Counter.SUMMARY_CACHE_HITS, hits);
+            metrics.increment(AnalysisMetrics.Counter.SUMMARY_CACHE_MISSES, misses);
+        }
+    }
+
+    private String getContentHash(Path path) {
+        return contentHashes.computeIfAbsent(path, p -> {
+            try {
+                return SummaryCache.contentHash(Files.readAllBytes(p));
+            } catch (IOException e) {
+                LOG.error("Error reading Java file '{}'", p, e); //$NON-NLS-1$
+                throw new AssertionError(String.format("The file %s could not be read: %s", p, e));
+            }
+        });
+    }
+}
@@ -0,0 +1,182 @@
+package analysis;
+
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CompactConstructorDeclaration;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.InitializerDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import org.apiguardian.api.API;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Persistent cache of the {@link CallSummary call summaries} and {@link NodeSummary node summaries} of Java files.
+ * <p>
+ * Entries are keyed by the SHA-256 hash of the file content, the language level and {@link #ANALYZER_VERSION}, so
+ * byte-identical files share their node summaries across resubmissions and across submissions. The calls of a file
+ * are resolved against the declarations of every file of its source root, so call summaries are additionally keyed
+ * by the {@link #declarationHash(CompilationUnit) declaration hashes} of the whole source root. They are only shared
+ * by source roots which declare the same types and members at the same paths, e.g. resubmissions which only change
+ * method bodies. The cache is enabled by setting the system property {@code astRecursion.cache.dir} to a writable
+ * directory. Failing to read or write an entry is never an error, the file is analyzed again instead.
+ */
+@API(status = API.Status.INTERNAL)
+public final class SummaryCache {
+
+    /**
+     * Has to be increased whenever the summary of an unchanged file changes, e.g. due to a new vertex format
+     */
+    public static final int ANALYZER_VERSION = 7;
+
+    private static final Logger LOG = LoggerFactory.getLogger(SummaryCache.class);
+
+    private static final String CACHE_DIRECTORY_PROPERTY = "astRecursion.cache.dir"; //$NON-NLS-1$
+
+    private static final String CALLS = "calls"; //$NON-NLS-1$
+
+    private static final String NODES = "nodes"; //$NON-NLS-1$
+
+    private static final String DECLARATIONS = "declarations"; //$NON-NLS-1$
+
+    private final Path directory;
+
+    public SummaryCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Creates the cache configured by the system property {@code astRecursion.cache.dir}
+     *
+     * @return The cache, or Optional.empty() if caching is not enabled
+     */
+    public static Optional<SummaryCache> fromSystemProperties() {
+        return Optional.ofNullable(System.getProperty(CACHE_DIRECTORY_PROPERTY)).map(Path::of).map(SummaryCache::new);
+    }
+
+    /**
+     * Hash the content of a file
+     *
+     * @param content Content of the file
+     * @return Hex encoded SHA-256 hash
+     */
+    public static String contentHash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)); //$NON-NLS-1$
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Hash the declarations of a file, i.e. everything the calls of other files can be resolved against. Comments,
+     * initializer blocks, the initial values of fields and the bodies of methods and constructors are left out, so
+     * the hash only changes if a declaration does.
+     *
+     * @param compilationUnit Parsed file
+     * @return Hex encoded SHA-256 hash
+     */
+    public static String declarationHash(CompilationUnit compilationUnit) {
+        CompilationUnit declarations = compilationUnit.clone();
+        declarations.getAllContainedComments().forEach(Comment::remove);
+        declarations.findAll(InitializerDeclaration.class).forEach(Node::remove);
+        declarations.findAll(FieldDeclaration.class)
+                .forEach(field -> field.getVariables().forEach(VariableDeclarator::removeInitializer));
+        declarations.findAll(MethodDeclaration.class).forEach(MethodDeclaration::removeBody);
+        declarations.findAll(ConstructorDeclaration.class).forEach(constructor -> constructor.setBody(new BlockStmt()));
+        declarations.findAll(CompactConstructorDeclaration.class).forEach(constructor -> constructor.setBody(new BlockStmt()));
+        return contentHash(declarations.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param contentHash      Hash of the file content
+     * @param declarationsHash Hash of the declarations of every file of the source root, see
+     *                         {@link #declarationHash(CompilationUnit)}
+     * @param level            JavaParser Language Level
+     * @return Call summary of the file, if it has been resolved against the same declarations before
+     */
+    public Optional<CallSummary> loadCallSummary(String contentHash, String declarationsHash, LanguageLevel level) {
+        return load(entry(contentHash + "-" + declarationsHash, level, CALLS), CallSummary::read); //$NON-NLS-1$
+    }
+
+    public void storeCallSummary(String contentHash, String declarationsHash, LanguageLevel level, CallSummary callSummary) {
+        store(entry(contentHash + "-" + declarationsHash, level, CALLS), callSummary::write); //$NON-NLS-1$
+    }
+
+    public Optional<String> loadDeclarationHash(String contentHash, LanguageLevel level) {
+        return load(entry(contentHash, level, DECLARATIONS), input -> input.readUTF());
+    }
+
+    public void storeDeclarationHash(String contentHash, LanguageLevel level, String declarationHash) {
+        store(entry(contentHash, level, DECLARATIONS), output -> output.writeUTF(declarationHash));
+    }
+
+    public Optional<NodeSummary> loadNodeSummary(String contentHash, LanguageLevel level) {
+        return load(entry(contentHash, level, NODES), NodeSummary::read);
+    }
+
+    public void storeNodeSummary(String contentHash, LanguageLevel level, NodeSummary nodeSummary) {
+        store(entry(contentHash, level, NODES), nodeSummary::write);
+    }
+
+    private Path entry(String key, LanguageLevel level, String kind) {
+        // Spread the entries over subdirectories to keep the directories small for large cohorts
+        return directory.resolve(key.substring(0, 2))
+                .resolve(key + "-" + level + "-" + ANALYZER_VERSION + "." + kind); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    private static <T> Optional<T> load(Path entry, Reader<T> reader) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            return Optional.of(reader.read(input));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            LOG.warn("Ignoring unreadable cache entry '{}'", entry, e); //$NON-NLS-1$
+            return Optional.empty();
+        }
+    }
+
+    private static void store(Path entry, Writer writer) {
+        try {
+            Files.createDirectories(entry.getParent());
+            Path temporaryFile = Files.createTempFile(entry.getParent(), entry.getFileName().toString(), ".tmp"); //$NON-NLS-1$
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                writer.write(output);
+            }
+            // Concurrent graders either see the complete entry or none at all
+            Files.move(temporaryFile, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOG.warn("Could not write cache entry '{}'", entry, e); //$NON-NLS-1$
+        }
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(DataInputStream input) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream output) throws IOException;
+    }
+}
@@ -0,0 +1,192 @@
+package analysis;
+
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.jgrapht.alg.cycle.CycleDetector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import recursionCheck.RecursionCheck;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SummaryCacheTest {
+
+    private static final String CACHE_DIRECTORY_PROPERTY = "astRecursion.cache.dir";
+
+    private static final String TEMPLATE = """
+            package p;
+
+            public class Template {
+                public void run(Solution solution) {
+                    solution.solve();
+                }
+            }
+            """;
+
+    private static final String BASE = """
+            package p;
+
+            public class Base {
+                public void solve() {
+                }
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    private String cacheDirectory;
+
+    private AnalysisMetrics metrics;
+
+    @BeforeEach
+    void enableCache() {
+        cacheDirectory = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+        System.setProperty(CACHE_DIRECTORY_PROPERTY, directory.resolve("cache").toString());
+        metrics = AnalysisSession.getInstalledMetrics();
+    }
+
+    @AfterEach
+    void restoreCache() {
+        if (cacheDirectory == null) {
+            System.clearProperty(CACHE_DIRECTORY_PROPERTY);
+        } else {
+            System.setProperty(CACHE_DIRECTORY_PROPERTY, cacheDirectory);
+        }
+        AnalysisSession.setMetrics(metrics);
+    }
+
+    @Test
+    void testSharedFileIsResolvedAgainstItsOwnSourceRoot() throws IOException {
+        Path inherited = directory.resolve("inherited");
+        write(inherited, "Template.java", TEMPLATE);
+        write(inherited, "Base.java", BASE);
+        write(inherited, "Solution.java", """
+                package p;
+
+                public class Solution extends Base {
+                }
+                """);
+        Path recursive = directory.resolve("recursive");
+        write(recursive, "Template.java", TEMPLATE);
+        write(recursive, "Base.java", BASE);
+        write(recursive, "Solution.java", """
+                package p;
+
+                public class Solution {
+                    public void solve() {
+                        new Template().run(this);
+                    }
+                }
+                """);
+
+        assertThat(findCycles(inherited)).isEmpty();
+        assertThat(findCycles(recursive)).containsExactlyInAnyOrder("p.Solution.solve()", "p.Template.run(p.Solution)");
+    }
+
+    @Test
+    void testCallSummariesAreReusedIfOnlyBodiesChange() throws IOException {
+        Path root = directory.resolve("root");
+        write(root, "Template.java", TEMPLATE);
+        write(root, "Base.java", BASE);
+        write(root, "Solution.java", """
+                package p;
+
+                public class Solution {
+                    public void solve() {
+                    }
+                }
+                """);
+        assertThat(findCycles(root)).isEmpty();
+
+        write(root, "Solution.java", """
+                package p;
+
+                public class Solution {
+                    public void solve() {
+                        // Calls the template again
+                        new Template().run(this);
+                    }
+                }
+                """);
+        InMemoryAnalysisMetrics resubmission = new InMemoryAnalysisMetrics();
+        AnalysisSession.setMetrics(resubmission);
+
+        assertThat(findCycles(root)).containsExactlyInAnyOrder("p.Solution.solve()", "p.Template.run(p.Solution)");
+        assertThat(resubmission.getCount(AnalysisMetrics.Counter.SUMMARY_CACHE_HITS)).isEqualTo(2);
+        assertThat(resubmission.getCount(AnalysisMetrics.Counter.SUMMARY_CACHE_MISSES)).isEqualTo(1);
+    }
+
+    @Test
+    void testCallSummariesAreResolvedAgainIfADeclarationChanges() throws IOException {
+        Path root = directory.resolve("root");
+        write(root, "Template.java", TEMPLATE);
+        write(root, "Base.java", BASE);
+        write(root, "Solution.java", """
+                package p;
+
+                public class Solution extends Base {
+                }
+                """);
+        assertThat(findCycles(root)).isEmpty();
+
+        write(root, "Solution.java", """
+                package p;
+
+                public class Solution extends Base {
+                    @Override
+                    public void solve() {
+                        new Template().run(this);
+                    }
+                }
+                """);
+        InMemoryAnalysisMetrics resubmission = new InMemoryAnalysisMetrics();
+        AnalysisSession.setMetrics(resubmission);
+
+        assertThat(findCycles(root)).containsExactlyInAnyOrder("p.Solution.solve()", "p.Template.run(p.Solution)");
+        assertThat(resubmission.getCount(AnalysisMetrics.Counter.SUMMARY_CACHE_HITS)).isZero();
+    }
+
+    @Test
+    void testSuspectCallGraphUsesCallSummaries() throws IOException {
+        Path root = directory.resolve("root");
+        write(root, "Template.java", TEMPLATE);
+        write(root, "Base.java", BASE);
+        write(root, "Solution.java", """
+                package p;
+
+                public class Solution {
+                    public void solve() {
+                        new Template().run(this);
+                    }
+                }
+                """);
+        Set<String> recursiveMethods = RecursionCheck.getRecursiveMethods(AnalysisSession.open(root, LanguageLevel.JAVA_17), null);
+        assertThat(recursiveMethods).containsExactlyInAnyOrder("p.Solution.solve()", "p.Template.run(p.Solution)");
+
+        InMemoryAnalysisMetrics resubmission = new InMemoryAnalysisMetrics();
+        AnalysisSession.setMetrics(resubmission);
+
+        assertThat(RecursionCheck.getRecursiveMethods(AnalysisSession.open(root, LanguageLevel.JAVA_17), null))
+                .isEqualTo(recursiveMethods);
+        assertThat(resubmission.getCount(AnalysisMetrics.Counter.SUMMARY_CACHE_HITS)).isPositive();
+        assertThat(resubmission.getCount(AnalysisMetrics.Counter.SUMMARY_CACHE_MISSES)).isZero();
+    }
+
+    private static Set<String> findCycles(Path sourceRoot) {
+        AnalysisSession session = AnalysisSession.open(sourceRoot, LanguageLevel.JAVA_17);
+        return new CycleDetector<>(session.getMethodCallGraph().getGraph()).findCycles();
+    }
+
+    private static void write(Path sourceRoot, String fileName, String content) throws IOException {
+        Path file = sourceRoot.resolve("p").resolve(fileName);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,186 @@
+package analysis;
+
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.CompilationUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import recursionCheck.RecursionCheck;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Parses the Java files of one session.
+ * <p>
+ * The trees of the files which are {@link #parse(Collection) parsed} are held until they are {@link #release()
+ * released}, and every file is parsed at most once while its tree is held. The files which are only
+ * {@link #analyzeEach(Collection, BiConsumer) analyzed} are streamed, see
+ * {@link RecursionCheck#streamingParserConfigurationFactory(Path, LanguageLevel)}, and their trees are dropped right
+ * after. The held trees are measured by their number of nodes, and the given listener is notified whenever more
+ * trees are held, so that the cache of sessions can be bounded by what its sessions hold.
+ */
+final class SyntaxTrees {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SyntaxTrees.class);
+
+    private final Path sourceRoot;
+
+    private final LanguageLevel level;
+
+    private final Deadline deadline;
+
+    private final AnalysisMetrics metrics;
+
+    private final Runnable retainedListener;
+
+    private final Map<Path, ParseResult<CompilationUnit>> parseResults = new HashMap<>();
+
+    /**
+     * Nodes of the held trees, which is read without holding the lock of the session
+     */
+    private final AtomicLong retainedNodes = new AtomicLong();
+
+    private Supplier<ParserConfiguration> parserConfigurationFactory;
+
+    private Supplier<ParserConfiguration> streamingConfigurationFactory;
+
+    /**
+     * @param retainedListener Called after more trees are held
+     */
+    SyntaxTrees(Path sourceRoot, LanguageLevel level, Deadline deadline, AnalysisMetrics metrics, Runnable retainedListener) {
+        this.sourceRoot = sourceRoot;
+        this.level = level;
+        this.deadline = deadline;
+        this.metrics = metrics;
+        this.retainedListener = retainedListener;
+    }
+
+    /**
+     * Parses the given Java files and holds their trees
+     *
+     * @return Parse results in the order of the given paths
+     */
+    Map<Path, ParseResult<CompilationUnit>> parse(Collection<Path> paths) {
+        List<Path> unparsed = paths.stream().filter(path -> !parseResults.containsKey(path)).toList();
+        if (!unparsed.isEmpty()) {
+            if (parserConfigurationFactory == null) {
+                parserConfigurationFactory = RecursionCheck.parserConfigurationFactory(sourceRoot, level);
+            }
+            metrics.phaseStarted(Deadline.Phase.PARSING);
+            try {
+                CountingMetrics countingMetrics = new CountingMetrics();
+                List<ParseResult<CompilationUnit>> results = SourceLoader.parseAll(unparsed, parserConfigurationFactory, deadline,
+                        countingMetrics);
+                for (int i = 0; i < unparsed.size(); i++) {
+                    parseResults.put(unparsed.get(i), results.get(i));
+                }
+                retainedNodes.addAndGet(countingMetrics.nodes.get());
+            } catch (IOException e) {
+                LOG.error("Error reading Java file", e); //$NON-NLS-1$
+                throw new AssertionError(String.format("The file %s could not be read:", e));
+            } finally {
+                metrics.phaseFinished(Deadline.Phase.PARSING);
+            }
+            retainedListener.run();
+        }
+        Map<Path, ParseResult<CompilationUnit>> results = new LinkedHashMap<>();
+        paths.forEach(path -> results.put(path, parseResults.get(path)));
+        return results;
+    }
+
+    /**
+     * Passes the parse result of every given Java file to the analysis. The held trees are reused, and the other
+     * files are streamed without holding their trees, in the order in which they are parsed.
+     */
+    void analyzeEach(Collection<Path> paths, BiConsumer<Path, ParseResult<CompilationUnit>> analysis) {
+        List<Path> unparsed = new ArrayList<>();
+        for (Path path : paths) {
+            ParseResult<CompilationUnit> parseResult = parseResults.get(path);
+            if (parseResult != null) {
+                analysis.accept(path, parseResult);
+            } else {
+                unparsed.add(path);
+            }
+        }
+        if (unparsed.isEmpty()) {
+            return;
+        }
+        if (streamingConfigurationFactory == null) {
+            streamingConfigurationFactory = RecursionCheck.streamingParserConfigurationFactory(sourceRoot, level);
+        }
+        metrics.phaseStarted(Deadline.Phase.PARSING);
+        try {
+            SourceLoader.parseEach(unparsed, streamingConfigurationFactory, deadline, metrics, analysis);
+        } catch (IOException e) {
+            LOG.error("Error reading Java file", e); //$NON-NLS-1$
+            throw new AssertionError(String.format("The file %s could not be read:", e));
+        } finally {
+            metrics.phaseFinished(Deadline.Phase.PARSING);
+        }
+    }
+
+    /**
+     * Drops all held trees, which are parsed again if they are needed later
+     */
+    void release() {
+        parseResults.clear();
+        retainedNodes.set(0);
+    }
+
+    /**
+     * @return Number of files whose trees are held
+     */
+    int getRetainedFiles() {
+        return parseResults.size();
+    }
+
+    /**
+     * @return Number of nodes of all held trees
+     */
+    long getRetainedNodes() {
+        return retainedNodes.get();
+    }
+
+    /**
+     * Forwards everything to the metrics of the session and sums up the nodes of the parsed trees, which are counted
+     * by the parser threads
+     */
+    private final class CountingMetrics implements AnalysisMetrics {
+
+        private final AtomicLong nodes = new AtomicLong();
+
+        @Override
+        public void phaseStarted(Deadline.Phase phase) {
+            metrics.phaseStarted(phase);
+        }
+
+        @Override
+        public void phaseFinished(Deadline.Phase phase) {
+            metrics.phaseFinished(phase);
+        }
+
+        @Override
+        public void increment(Counter counter, long amount) {
+            if (counter == Counter.AST_NODES) {
+                nodes.addAndGet(amount);
+            }
+            metrics.increment(counter, amount);
+        }
+
+        @Override
+        public void recordLatency(Operation operation, long nanoseconds) {
+            metrics.recordLatency(operation, nanoseconds);
+        }
+    }
+}
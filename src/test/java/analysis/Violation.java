@@ -0,0 +1,72 @@
+package analysis;
+
+import ast.model.NodePosition;
+import ast.model.UnwantedNode;
+import ast.model.UnwantedNodeReport;
+import org.apiguardian.api.API;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A single place in a submission which violates a rule, kept apart from the rendered error message so that it can be
+ * written by a {@link ReportWriter}.
+ * <p>
+ * A violation is either found in a file, e.g. an unwanted node, or in a method of the call graph, e.g. a recursive
+ * method.
+ *
+ * @param description What was found, e.g. the name of the unwanted node
+ * @param file        File of the violation, null if it is not found in a file
+ * @param position    Position in the file, null if it is not found in a file
+ * @param method      Vertex of the method in the call graph, null if it is not found in a method
+ */
+@API(status = API.Status.INTERNAL)
+public record Violation(String description, Path file, NodePosition position, String method) {
+
+    private static final String RECURSIVE_METHOD = "Recursive method"; //$NON-NLS-1$
+
+    /**
+     * @param description What was found
+     * @param file        File of the violation
+     * @param position    Position in the file
+     * @return Violation in a file
+     */
+    public static Violation inFile(String description, Path file, NodePosition position) {
+        return new Violation(description, file, position, null);
+    }
+
+    /**
+     * @param description What was found
+     * @param method      Vertex of the method in the call graph
+     * @return Violation in a method
+     */
+    public static Violation inMethod(String description, String method) {
+        return new Violation(description, null, null, method);
+    }
+
+    /**
+     * @param report Unwanted nodes grouped by file
+     * @return One violation per position of an unwanted node, in the order of the report
+     */
+    public static List<Violation> of(UnwantedNodeReport report) {
+        List<Violation> violations = new ArrayList<>(report.getPositionCount());
+        report.getUnwantedNodesByFile().forEach((file, unwantedNodes) -> {
+            for (UnwantedNode unwantedNode : unwantedNodes) {
+                for (NodePosition position : unwantedNode.getUnwantedNodePositions()) {
+                    violations.add(inFile(unwantedNode.getUnwantedNodeName(), file, position));
+                }
+            }
+        });
+        return violations;
+    }
+
+    /**
+     * @param recursiveMethods Vertices of the recursive methods
+     * @return One violation per recursive method
+     */
+    public static List<Violation> ofRecursiveMethods(Collection<String> recursiveMethods) {
+        return recursiveMethods.stream().map(method -> inMethod(RECURSIVE_METHOD, method)).toList();
+    }
+}
@@ -0,0 +1,145 @@
+package analysis;
+
+import analysis.IncrementalAnalysis.Changes;
+import ast.model.UnwantedNodeTable;
+import ast.type.ClassType;
+import ast.type.ConditionalType;
+import ast.type.ExceptionHandlingType;
+import ast.type.LoopType;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.Node;
+import de.tum.in.test.api.ast.type.Type;
+import org.apiguardian.api.API;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches a source root and prints the verdicts of an {@link IncrementalAnalysis} whenever a Java file is saved.
+ * <p>
+ * Events which arrive within {@code astRecursion.watch.settleMillis} of each other, like the delete and create of an
+ * editor which saves by replacing the file, are handled by a single update.
+ * <p>
+ * Usage: {@code WatchMode <source root> [language level] [unwanted node type]...}, e.g.
+ * {@code WatchMode src/main/java JAVA_17 LoopType.ANY}
+ */
+@API(status = API.Status.INTERNAL)
+public final class WatchMode {
+
+    private static final long SETTLE_MILLIS = Long.getLong("astRecursion.watch.settleMillis", 50); //$NON-NLS-1$
+
+    private final IncrementalAnalysis analysis;
+
+    private final Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap;
+
+    private final PrintStream out;
+
+    /**
+     * @param analysis          Analysis of the watched source root
+     * @param unwantedNodeTypes Unwanted nodes which are reported after every update
+     * @param out               Stream the verdicts are printed to
+     */
+    public WatchMode(IncrementalAnalysis analysis, Type[] unwantedNodeTypes, PrintStream out) {
+        this.analysis = analysis;
+        this.nodeNameUnwantedNodeMap = UnwantedNodeTable.merge(unwantedNodeTypes);
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("Usage: WatchMode <source root> [language level] [unwanted node type]..."); //$NON-NLS-1$
+            System.exit(2);
+        }
+        LanguageLevel level = args.length > 1 ? LanguageLevel.valueOf(args[1]) : LanguageLevel.JAVA_17;
+        Type[] unwantedNodeTypes = Arrays.stream(args).skip(2).map(WatchMode::parseType).toArray(Type[]::new);
+        new WatchMode(new IncrementalAnalysis(Paths.get(args[0]), level), unwantedNodeTypes, System.out).watch();
+    }
+
+    private static Type parseType(String name) {
+        return Stream.<Type[]>of(LoopType.values(), ConditionalType.values(), ExceptionHandlingType.values(), ClassType.values())
+                .flatMap(Stream::of)
+                .filter(type -> name.equals(type.getClass().getSimpleName() + "." + ((Enum<?>) type).name())) //$NON-NLS-1$
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown node type " + name)); //$NON-NLS-1$
+    }
+
+    /**
+     * Analyzes the source root and updates the analysis after every change, until the thread is interrupted
+     *
+     * @throws IOException          If the source root cannot be watched
+     * @throws InterruptedException If the thread is interrupted
+     */
+    public void watch() throws IOException, InterruptedException {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            register(watchService, analysis.getSourceRoot());
+            update();
+            while (true) {
+                WatchKey key = watchService.take();
+                do {
+                    Path directory = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        // New directories are watched as well, files moved into them are found by the update
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                                && Files.isDirectory(directory.resolve((Path) event.context()))) {
+                            register(watchService, directory.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                    key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+                update();
+            }
+        }
+    }
+
+    private static void register(WatchService watchService, Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path directory : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        }
+    }
+
+    private void update() {
+        long start = System.nanoTime();
+        Changes changes;
+        try {
+            changes = analysis.update();
+        } catch (RuntimeException e) {
+            out.println("Analysis failed, retrying on the next change: " + e.getMessage()); //$NON-NLS-1$
+            return;
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        out.printf("Updated %d changed, %d removed and %d dependent files in %d ms%n", changes.changedFiles().size(), //$NON-NLS-1$
+                changes.removedFiles().size(), changes.dependentFiles().size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        Set<String> recursiveMethods = analysis.getRecursiveMethods();
+        out.println(recursiveMethods.isEmpty() ? "No recursive methods" //$NON-NLS-1$
+                : "Recursive methods: " + String.join(", ", recursiveMethods)); //$NON-NLS-1$ //$NON-NLS-2$
+        if (!nodeNameUnwantedNodeMap.isEmpty()) {
+            try {
+                Optional<String> message = analysis.getMessageForUnwantedNodes(nodeNameUnwantedNodeMap, false);
+                out.println(message.orElse("No unwanted nodes")); //$NON-NLS-1$
+            } catch (ParseProblemException e) {
+                out.println(e.getMessage());
+            }
+        }
+    }
+}
@@ -5,15 +5,22 @@ import static java.util.Objects.requireNonNull;
 import static org.assertj.core.api.Assertions.fail;
 
 import java.nio.file.*;
+import java.time.Duration;
 import java.util.*;
+import java.util.stream.Stream;
 
+import analysis.AnalysisMetrics;
+import analysis.AnalysisSession;
+import analysis.AnalysisTimeoutException;
+import analysis.Deadline;
+import ast.model.JavaFile;
 import ast.model.UnwantedNode;
+import ast.model.UnwantedNodeTable;
 import org.apiguardian.api.API;
 import org.apiguardian.api.API.Status;
 import org.assertj.core.api.AbstractAssert;
 
 import com.github.javaparser.ParserConfiguration.LanguageLevel;
-import com.github.javaparser.StaticJavaParser;
 
 import de.tum.in.test.api.AresConfiguration;
 import de.tum.in.test.api.ast.type.*;
@@ -40,13 +47,26 @@ public class UnwantedNodesAssert extends AbstractAssert<UnwantedNodesAssert, Pat
      */
     private final boolean excludeMainMethod;
 
+    /**
+     * Whether to stop at the first file with unwanted nodes instead of reporting all of them
+     * Default is set to false
+     */
+    private final boolean failFast;
+
+    /**
+     * Time the check may take, null if it is not limited
+     */
+    private final Duration timeout;
+
     private UnwantedNodesAssert(Path path, LanguageLevel level) {
-        this(path, level, false);
+        this(path, level, false, false, null);
     }
 
-    private UnwantedNodesAssert(Path path, LanguageLevel level, boolean excludeMainMethod) {
+    private UnwantedNodesAssert(Path path, LanguageLevel level, boolean excludeMainMethod, boolean failFast, Duration timeout) {
         super(requireNonNull(path), UnwantedNodesAssert.class);
         this.excludeMainMethod = excludeMainMethod;
+        this.failFast = failFast;
+        this.timeout = timeout;
         this.level = level;
         if (!Files.isDirectory(path)) {
             fail("The source directory %s does not exist", path); //$NON-NLS-1$
@@ -77,7 +97,18 @@ public class UnwantedNodesAssert extends AbstractAssert<UnwantedNodesAssert, Pat
      * @return An unwanted node assertion object (for chaining)
      */
     public UnwantedNodesAssert excludeMainMethod() {
-        return new UnwantedNodesAssert(actual, level, true);
+        return new UnwantedNodesAssert(actual, level, true, failFast, timeout);
+    }
+
+    /**
+     * Stops the check at the first file by path which contains unwanted nodes, so the failure message only lists that
+     * file. The files after it are neither parsed nor scanned, every file is only scanned up to its first unwanted node
+     * and nothing is cached for later checks, which makes this the faster choice when only the verdict is needed.
+     *
+     * @return An unwanted node assertion object (for chaining)
+     */
+    public UnwantedNodesAssert failFast() {
+        return new UnwantedNodesAssert(actual, level, excludeMainMethod, true, timeout);
     }
 
     /**
@@ -109,7 +140,7 @@ public class UnwantedNodesAssert extends AbstractAssert<UnwantedNodesAssert, Pat
     public UnwantedNodesAssert withinPackage(String packageName) {
         Objects.requireNonNull(packageName, "The package name must not be null."); //$NON-NLS-1$
         var newPath = actual.resolve(Path.of("", packageName.split("\\."))); //$NON-NLS-1$ //$NON-NLS-2$
-        return new UnwantedNodesAssert(newPath, level, excludeMainMethod);
+        return new UnwantedNodesAssert(newPath, level, excludeMainMethod, failFast, timeout);
     }
 
     /**
@@ -119,27 +150,66 @@ public class UnwantedNodesAssert extends AbstractAssert<UnwantedNodesAssert, Pat
      * @return An unwanted node assertion object (for chaining)
      */
     public UnwantedNodesAssert withLanguageLevel(LanguageLevel level) {
-        return new UnwantedNodesAssert(actual, level, excludeMainMethod);
+        return new UnwantedNodesAssert(actual, level, excludeMainMethod, failFast, timeout);
+    }
+
+    /**
+     * Limits the time the check may take. Once it is used up, the check stops at its next file and fails with a
+     * message naming the phase of the analysis and the number of files completed in it. The sources are analyzed in a
+     * session of their own, which is not shared with other assertions.
+     *
+     * @param timeout Time the check may take
+     * @return An unwanted node assertion object (for chaining)
+     */
+    public UnwantedNodesAssert withTimeout(Duration timeout) {
+        Objects.requireNonNull(timeout, "The timeout must not be null."); //$NON-NLS-1$
+        return new UnwantedNodesAssert(actual, level, excludeMainMethod, failFast, timeout);
     }
 
     /**
      * Verifies that the selected Java files do not contain any syntax tree nodes
-     * (statements, expressions, ...) of the given type.
+     * (statements, expressions, ...) of the given types.
+     * <p>
+     * All types are checked together in a single traversal of every file, so
+     * checking several types costs about the same as checking one. The work is
+     * reported to the metrics installed with
+     * {@link AnalysisSession#setMetrics(AnalysisMetrics)}. With {@link #failFast()}, only the first file by path with
+     * unwanted nodes is reported.
      *
-     * @param type Unwanted statements
+     * @param type      Unwanted statements
+     * @param moreTypes Further unwanted statements
      * @return This unwanted node assertion object (for chaining)
      * @see ClassType
      * @see ConditionalType
      * @see ExceptionHandlingType
      * @see LoopType
      */
-    public UnwantedNodesAssert hasNo(Type type) {
+    public UnwantedNodesAssert hasNo(Type type, Type... moreTypes) {
         if (level == null) {
             failWithMessage("The 'level' is not set. Please use UnwantedNodesAssert.withLanguageLevel(LanguageLevel)."); //$NON-NLS-1$
         }
-        StaticJavaParser.getParserConfiguration().setLanguageLevel(level);
-        Optional<String> errorMessage = UnwantedNode.getMessageForUnwantedNodesForAllFilesBelow(actual,
-                type.getNodeNameNodeMap(), excludeMainMethod);
+        Type[] types = Stream.concat(Stream.of(type), Arrays.stream(moreTypes)).toArray(Type[]::new);
+        long start = System.nanoTime();
+        Deadline deadline = timeout != null ? Deadline.after(timeout) : Deadline.none();
+        Optional<String> errorMessage;
+        AnalysisMetrics metrics;
+        try {
+            if (failFast) {
+                errorMessage = UnwantedNode.getMessageForFirstFileWithUnwantedNodesBelow(actual,
+                        () -> JavaFile.copyOfStaticParserConfiguration().setLanguageLevel(level),
+                        UnwantedNodeTable.merge(types), excludeMainMethod, deadline);
+                metrics = AnalysisSession.getInstalledMetrics();
+            } else {
+                // Shared sessions have no deadline, since an expired deadline would stop every later assertion
+                AnalysisSession session = timeout != null ? AnalysisSession.open(actual, level, deadline) : AnalysisSession.of(actual, level);
+                errorMessage = session.getMessageForUnwantedNodes(UnwantedNodeTable.merge(types), excludeMainMethod);
+                metrics = session.getMetrics();
+            }
+        } catch (AnalysisTimeoutException e) {
+            failWithMessage(e.getMessage());
+            return this;
+        }
+        metrics.recordLatency(AnalysisMetrics.Operation.CHECK, System.nanoTime() - start);
         errorMessage.ifPresent(unwantedNodeMessageForAllJavaFiles -> failWithMessage(
                 localized("ast.method.has_no") + System.lineSeparator() + unwantedNodeMessageForAllJavaFiles)); //$NON-NLS-1$
         return this;
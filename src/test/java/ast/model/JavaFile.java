@@ -5,6 +5,7 @@ import static de.tum.in.test.api.localization.Messages.localized;
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.*;
 
 import com.github.javaparser.ast.Node;
@@ -14,6 +15,12 @@ import org.apiguardian.api.API;
 import org.apiguardian.api.API.Status;
 import org.slf4j.*;
 
+import analysis.ParseFileEvent;
+import analysis.SourceLoader;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Processor;
 import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 
@@ -25,6 +32,7 @@ public class JavaFile {
 
 	private static final PathMatcher JAVAFILEMATCHER = FileSystems.getDefault().getPathMatcher("glob:*.java"); //$NON-NLS-1$
 	private static final Logger LOG = LoggerFactory.getLogger(JavaFile.class);
+	private static final int DEFAULT_PROCESSOR_COUNT = new ParserConfiguration().getProcessors().size();
 
 	private final Path javaFilePath;
 	private final CompilationUnit javaFileAST;
@@ -42,11 +50,20 @@ public class JavaFile {
 	}
 
 	private static void excludeMainMethod(CompilationUnit javaFileAST) {
-		javaFileAST.findAll(MethodDeclaration.class)
+		findMainMethod(javaFileAST).ifPresent(Node::remove);
+	}
+
+	/**
+	 * Finds the main method which is excluded from the AST if requested
+	 *
+	 * @param javaFileAST AST of the Java-file
+	 * @return The main method, if the Java-file declares one
+	 */
+	public static Optional<MethodDeclaration> findMainMethod(CompilationUnit javaFileAST) {
+		return javaFileAST.findAll(MethodDeclaration.class)
 				.stream()
 				.filter(method -> method.isStatic() && method.getNameAsString().equals("main") && method.getParameters().size() == 1 && method.getType().isVoidType() && method.getParameter(0).getTypeAsString().equals("String[]"))
-				.findAny()
-				.ifPresent(Node::remove);
+				.findAny();
 	}
 
 	public Path getJavaFilePath() {
@@ -74,11 +91,17 @@ public class JavaFile {
 		if (!JAVAFILEMATCHER.matches(pathOfFile.getFileName())) {
 			return null;
 		}
+		ParseFileEvent event = new ParseFileEvent();
+		event.begin();
+		Optional<CompilationUnit> compilationUnit = Optional.empty();
 		try {
-			return new JavaFile(pathOfFile, StaticJavaParser.parse(pathOfFile), excludeMainMethod);
+			compilationUnit = Optional.of(StaticJavaParser.parse(pathOfFile));
+			return new JavaFile(pathOfFile, compilationUnit.get(), excludeMainMethod);
 		} catch (IOException e) {
 			LOG.error("Error reading Java file '{}'", pathOfFile.toAbsolutePath(), e); //$NON-NLS-1$
 			throw new AssertionError(localized("ast.method.convert_from_file", pathOfFile.toAbsolutePath()));
+		} finally {
+			event.complete(pathOfFile, compilationUnit);
 		}
 	}
 
@@ -91,8 +114,78 @@ public class JavaFile {
 	 *         directory or its subdirectories is a Java-file)
 	 */
 	public static List<JavaFile> readFromDirectory(Path pathOfDirectory) {
+		List<Path> javaFilePaths = findJavaFilesBelow(pathOfDirectory);
+		List<ParseResult<CompilationUnit>> parseResults;
+		try {
+			parseResults = SourceLoader.parseAll(javaFilePaths, JavaFile::copyOfStaticParserConfiguration);
+		} catch (IOException e) {
+			LOG.error("Error reading Java files in '{}'", pathOfDirectory.toAbsolutePath(), e); //$NON-NLS-1$
+			throw new AssertionError(localized("ast.method.read_from_directory", pathOfDirectory.toAbsolutePath()));
+		}
+		List<JavaFile> javaFiles = new ArrayList<>(javaFilePaths.size());
+		for (int i = 0; i < javaFilePaths.size(); i++) {
+			javaFiles.add(fromParseResult(javaFilePaths.get(i), parseResults.get(i), false));
+		}
+		return javaFiles;
+	}
+
+	/**
+	 * Turns the result of parsing a Java-file into a JavaFile object, failing the
+	 * same way as {@link StaticJavaParser#parse(Path)} if the file has syntax
+	 * errors
+	 *
+	 * @param pathOfFile        Path to the Java-file
+	 * @param parseResult       Result of parsing the Java-file
+	 * @param excludeMainMethod Whether the main method is removed from the AST
+	 * @return The information of the Java-file packed into a JavaFile object
+	 */
+	public static JavaFile fromParseResult(Path pathOfFile, ParseResult<CompilationUnit> parseResult,
+			boolean excludeMainMethod) {
+		if (!parseResult.isSuccessful() || parseResult.getResult().isEmpty()) {
+			throw new ParseProblemException(parseResult.getProblems());
+		}
+		return new JavaFile(pathOfFile, parseResult.getResult().get(), excludeMainMethod);
+	}
+
+	/**
+	 * Creates a configuration for a parser thread with the settings of
+	 * {@link StaticJavaParser}, which itself must not be shared between threads
+	 * <p>
+	 * Every setting is copied. The processors of a new configuration refer to the
+	 * configuration they belong to, so only the processors which were added to the
+	 * static configuration after its own are shared with the copy.
+	 *
+	 * @return Copy of the static parser configuration
+	 */
+	public static ParserConfiguration copyOfStaticParserConfiguration() {
+		ParserConfiguration configuration = StaticJavaParser.getParserConfiguration();
+		ParserConfiguration copy = new ParserConfiguration().setLanguageLevel(configuration.getLanguageLevel())
+				.setCharacterEncoding(configuration.getCharacterEncoding())
+				.setSymbolResolver(configuration.getSymbolResolver().orElse(null))
+				.setAttributeComments(configuration.isAttributeComments())
+				.setDoNotAssignCommentsPrecedingEmptyLines(configuration.isDoNotAssignCommentsPrecedingEmptyLines())
+				.setIgnoreAnnotationsWhenAttributingComments(
+						configuration.isIgnoreAnnotationsWhenAttributingComments())
+				.setStoreTokens(configuration.isStoreTokens()).setTabSize(configuration.getTabSize())
+				.setLexicalPreservationEnabled(configuration.isLexicalPreservationEnabled())
+				.setPreprocessUnicodeEscapes(configuration.isPreprocessUnicodeEscapes())
+				.setDetectOriginalLineSeparator(configuration.isDetectOriginalLineSeparator());
+		List<Supplier<Processor>> processors = configuration.getProcessors();
+		copy.getProcessors().addAll(processors.subList(Math.min(DEFAULT_PROCESSOR_COUNT, processors.size()),
+				processors.size()));
+		return copy;
+	}
+
+	/**
+	 * Finds all Java-files below a certain path without parsing them
+	 *
+	 * @param pathOfDirectory Path to the highest analysis level
+	 * @return Sorted list of paths to Java-files (empty list if none of the files
+	 *         in the directory or its subdirectories is a Java-file)
+	 */
+	public static List<Path> findJavaFilesBelow(Path pathOfDirectory) {
 		try (Stream<Path> directoryContentStream = Files.walk(pathOfDirectory)) {
-			return directoryContentStream.map(JavaFile::convertFromFile).filter(Objects::nonNull)
+			return directoryContentStream.filter(path -> JAVAFILEMATCHER.matches(path.getFileName())).sorted()
 					.collect(Collectors.toList());
 		} catch (IOException e) {
 			LOG.error("Error reading Java files in '{}'", pathOfDirectory.toAbsolutePath(), e); //$NON-NLS-1$
@@ -0,0 +1,67 @@
+package ast.model;
+
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Processor;
+import com.github.javaparser.StaticJavaParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JavaFileTest {
+
+    private ParserConfiguration staticConfiguration;
+
+    @BeforeEach
+    void saveStaticConfiguration() {
+        staticConfiguration = StaticJavaParser.getParserConfiguration();
+        StaticJavaParser.setConfiguration(new ParserConfiguration());
+    }
+
+    @AfterEach
+    void restoreStaticConfiguration() {
+        StaticJavaParser.setConfiguration(staticConfiguration);
+    }
+
+    @Test
+    void testCopyOfStaticParserConfigurationKeepsAllSettings() {
+        Supplier<Processor> processor = () -> new Processor() {
+        };
+        ParserConfiguration configuration = StaticJavaParser.getParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_11)
+                .setAttributeComments(false)
+                .setDoNotAssignCommentsPrecedingEmptyLines(false)
+                .setIgnoreAnnotationsWhenAttributingComments(true)
+                .setStoreTokens(false)
+                .setTabSize(4)
+                .setLexicalPreservationEnabled(true)
+                .setPreprocessUnicodeEscapes(true)
+                .setDetectOriginalLineSeparator(false);
+        configuration.getProcessors().add(processor);
+
+        ParserConfiguration copy = JavaFile.copyOfStaticParserConfiguration();
+
+        assertThat(copy).isNotSameAs(configuration);
+        assertThat(copy.getLanguageLevel()).isEqualTo(ParserConfiguration.LanguageLevel.JAVA_11);
+        assertThat(copy.isAttributeComments()).isFalse();
+        assertThat(copy.isDoNotAssignCommentsPrecedingEmptyLines()).isFalse();
+        assertThat(copy.isIgnoreAnnotationsWhenAttributingComments()).isTrue();
+        assertThat(copy.isStoreTokens()).isFalse();
+        assertThat(copy.getTabSize()).isEqualTo(4);
+        assertThat(copy.isLexicalPreservationEnabled()).isTrue();
+        assertThat(copy.isPreprocessUnicodeEscapes()).isTrue();
+        assertThat(copy.isDetectOriginalLineSeparator()).isFalse();
+        assertThat(copy.getProcessors()).hasSameSizeAs(configuration.getProcessors()).endsWith(processor);
+    }
+
+    @Test
+    void testCopyOfStaticParserConfigurationDoesNotShareDefaultProcessors() {
+        ParserConfiguration copy = JavaFile.copyOfStaticParserConfiguration();
+
+        assertThat(copy.getProcessors()).hasSameSizeAs(new ParserConfiguration().getProcessors())
+                .doesNotContainAnyElementsOf(StaticJavaParser.getParserConfiguration().getProcessors());
+    }
+}
@@ -2,60 +2,100 @@ package ast.model;
 
 import static de.tum.in.test.api.localization.Messages.localized;
 
-import java.util.*;
-
 import org.apiguardian.api.API;
 import org.apiguardian.api.API.Status;
 
 import com.github.javaparser.Position;
 import com.github.javaparser.ast.Node;
-import com.github.javaparser.utils.Pair;
 
 /**
- * Stores information about the beginning and the end of a node
+ * Stores information about the beginning and the end of a node, each packed
+ * into a single long, and is only turned into a localized text when a message
+ * is rendered
  */
 @API(status = Status.INTERNAL)
 public class NodePosition implements Comparable<NodePosition> {
 
-	private static final Comparator<NodePosition> COMPARATOR = Comparator.comparing(NodePosition::getBeginLine)
-			.thenComparing(NodePosition::getBeginColumn);
+	private static final long UNKNOWN = -1;
 
-	private final boolean hasBegin;
-	private final Pair<Integer, Integer> begin;
-	private final boolean hasEnd;
-	private final Pair<Integer, Integer> end;
+	/**
+	 * Line in the upper and column in the lower 32 bits, or {@link #UNKNOWN}
+	 */
+	private final long begin;
+	private final long end;
 
 	public NodePosition(Node node) {
-		Optional<Position> nodeBegin = node.getBegin();
-		hasBegin = nodeBegin.isPresent();
-		begin = hasBegin ? new Pair<>(nodeBegin.get().line, nodeBegin.get().column) : null;
-		Optional<Position> nodeEnd = node.getEnd();
-		hasEnd = nodeEnd.isPresent();
-		end = hasEnd ? new Pair<>(nodeEnd.get().line, nodeEnd.get().column) : null;
+		this(node.getBegin().orElse(null), node.getEnd().orElse(null));
+	}
+
+	/**
+	 * @param nodeBegin Beginning of the node (null if unknown)
+	 * @param nodeEnd   End of the node (null if unknown)
+	 */
+	public NodePosition(Position nodeBegin, Position nodeEnd) {
+		begin = pack(nodeBegin);
+		end = pack(nodeEnd);
+	}
+
+	private static long pack(Position position) {
+		return position != null ? (long) position.line << 32 | position.column : UNKNOWN;
+	}
+
+	public boolean hasBegin() {
+		return begin != UNKNOWN;
 	}
 
+	public boolean hasEnd() {
+		return end != UNKNOWN;
+	}
+
+	/**
+	 * @return Line of the beginning (-1 if unknown)
+	 */
 	public int getBeginLine() {
-		return begin.a;
+		return (int) (begin >> 32);
 	}
 
+	/**
+	 * @return Column of the beginning (-1 if unknown)
+	 */
 	public int getBeginColumn() {
-		return begin.b;
+		return (int) begin;
+	}
+
+	/**
+	 * @return Line of the end (-1 if unknown)
+	 */
+	public int getEndLine() {
+		return (int) (end >> 32);
+	}
+
+	/**
+	 * @return Column of the end, inclusive (-1 if unknown)
+	 */
+	public int getEndColumn() {
+		return (int) end;
 	}
 
 	@Override
 	public String toString() {
 		return localized("ast.method.to_string",
-				(hasBegin ? localized("ast.check.has_begin_end", begin.a, begin.b)
+				(hasBegin() ? localized("ast.check.has_begin_end", getBeginLine(), getBeginColumn())
 						: localized("ast.check.not_has_begin")),
-				(hasEnd ? localized("ast.check.has_begin_end", end.a, end.b) : localized("ast.check.not_has_end")));
+				(hasEnd() ? localized("ast.check.has_begin_end", getEndLine(), getEndColumn())
+						: localized("ast.check.not_has_end")));
 	}
 
 	public static NodePosition getPositionOf(Node node) {
 		return new NodePosition(node);
 	}
 
+	/**
+	 * Orders by line and then by column of the beginning, positions without a
+	 * beginning first
+	 */
 	@Override
 	public int compareTo(NodePosition o) {
-		return COMPARATOR.compare(this, o);
+		return Long.compare(begin, o.begin);
 	}
 }
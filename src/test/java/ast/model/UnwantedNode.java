@@ -1,15 +1,28 @@
 package ast.model;
 
+import analysis.AnalysisTimeoutException;
+import analysis.Deadline;
+import analysis.SourceLoader;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.Node;
 import org.apiguardian.api.API;
 import org.apiguardian.api.API.Status;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static de.tum.in.test.api.localization.Messages.localized;
 
@@ -29,6 +42,12 @@ public class UnwantedNode {
 		this.unwantedNodePositions.sort(NodePosition::compareTo);
 	}
 
+	public UnwantedNode(String unwantedNodeName, List<NodePosition> unwantedNodePositions) {
+		this.unwantedNodeName = unwantedNodeName;
+		this.unwantedNodePositions = new ArrayList<>(unwantedNodePositions);
+		this.unwantedNodePositions.sort(NodePosition::compareTo);
+	}
+
 	public String getUnwantedNodeName() {
 		return unwantedNodeName;
 	}
@@ -46,10 +65,18 @@ public class UnwantedNode {
 	 */
 	public static List<UnwantedNode> getUnwantedNodesInJavaFile(JavaFile javaFile,
                                                                 Map<String, Class<? extends Node>> nodesDefinedAsUnwanted) {
-		return nodesDefinedAsUnwanted.keySet().stream()
-				.map(unwantedNodeName -> new UnwantedNode(javaFile, unwantedNodeName,
-						nodesDefinedAsUnwanted.get(unwantedNodeName)))
-				.filter(unwantedNode -> !unwantedNode.getUnwantedNodePositions().isEmpty())
+		return new UnwantedNodeTable(nodesDefinedAsUnwanted).findUnwantedNodes(javaFile);
+	}
+
+	/**
+	 * Drops all unwanted nodes without positions and sorts the remaining ones by
+	 * their first position
+	 *
+	 * @param unwantedNodes Unwanted node information of one Java-file
+	 * @return Sorted list of unwanted node information
+	 */
+	public static List<UnwantedNode> sortedByFirstPosition(Stream<UnwantedNode> unwantedNodes) {
+		return unwantedNodes.filter(unwantedNode -> !unwantedNode.getUnwantedNodePositions().isEmpty())
 				.sorted(Comparator.comparing(uwn -> uwn.getUnwantedNodePositions().get(0)))
 				.collect(Collectors.toList());
 	}
@@ -65,15 +92,45 @@ public class UnwantedNode {
 	 */
 	public static Map<Path, List<UnwantedNode>> getUnwantedNodesForFileAt(Path pathOfJavaFile,
 			Map<String, Class<? extends Node>> nodesDefinedAsUnwanted, boolean excludeMainMethod) {
-		JavaFile javaFile = JavaFile.convertFromFile(pathOfJavaFile, excludeMainMethod);
+		return getUnwantedNodesForFile(JavaFile.convertFromFile(pathOfJavaFile, excludeMainMethod),
+				nodesDefinedAsUnwanted);
+	}
+
+	/**
+	 * Detects a provided list of unwanted nodes in an already parsed Java-File
+	 *
+	 * @param javaFile               Java-File, where unwanted nodes shall be
+	 *                               detected (null if the file is not a
+	 *                               Java-file)
+	 * @param nodesDefinedAsUnwanted List of unwanted nodes
+	 * @return Map of File-Paths and their respective list of unwanted node
+	 *         information (packed into UnwantedNode objects)
+	 */
+	public static Map<Path, List<UnwantedNode>> getUnwantedNodesForFile(JavaFile javaFile,
+			Map<String, Class<? extends Node>> nodesDefinedAsUnwanted) {
+		return getUnwantedNodesForFile(javaFile, new UnwantedNodeTable(nodesDefinedAsUnwanted));
+	}
+
+	/**
+	 * Detects the unwanted nodes of a dispatch table in an already parsed
+	 * Java-File
+	 *
+	 * @param javaFile          Java-File, where unwanted nodes shall be detected
+	 *                          (null if the file is not a Java-file)
+	 * @param unwantedNodeTable Dispatch table of the unwanted nodes
+	 * @return Map of File-Paths and their respective list of unwanted node
+	 *         information (packed into UnwantedNode objects)
+	 */
+	public static Map<Path, List<UnwantedNode>> getUnwantedNodesForFile(JavaFile javaFile,
+			UnwantedNodeTable unwantedNodeTable) {
 		if (javaFile == null) {
 			return Map.of();
 		}
-		List<UnwantedNode> unwantedNodes = getUnwantedNodesInJavaFile(javaFile, nodesDefinedAsUnwanted);
+		List<UnwantedNode> unwantedNodes = unwantedNodeTable.findUnwantedNodes(javaFile);
 		if (unwantedNodes.isEmpty()) {
 			return Map.of();
 		}
-		return Map.of(pathOfJavaFile, unwantedNodes);
+		return Map.of(javaFile.getJavaFilePath(), unwantedNodes);
 	}
 
 	/**
@@ -90,20 +147,15 @@ public class UnwantedNode {
 	}
 
 	public static String getFormattedUnwantedNodeString(UnwantedNode unwantedNode) {
-		return unwantedNode
-				.getUnwantedNodePositions().stream().map(String::valueOf).map(
-						UnwantedNode::getFormattedPositionString)
-				.collect(Collectors.joining(System.lineSeparator(),
-						localized("ast.method.get_formatted_unwanted_node_string_prefix",
-								unwantedNode.getUnwantedNodeName()) + System.lineSeparator(),
-						""));
+		StringBuilder unwantedNodeString = new StringBuilder();
+		UnwantedNodeReport.appendUnwantedNode(unwantedNodeString, unwantedNode);
+		return unwantedNodeString.toString();
 	}
 
 	public static String getFormattedFileString(Path filePath, Map<Path, List<UnwantedNode>> unwantedNodes) {
-		return unwantedNodes.get(filePath).stream().map(UnwantedNode::getFormattedUnwantedNodeString)
-				.collect(Collectors.joining(System.lineSeparator(),
-						localized("ast.method.get_formatted_file_string_prefix", filePath) + System.lineSeparator(),
-						""));
+		StringBuilder fileString = new StringBuilder();
+		UnwantedNodeReport.appendFile(fileString, filePath, unwantedNodes.get(filePath));
+		return fileString.toString();
 	}
 
 	/**
@@ -116,17 +168,79 @@ public class UnwantedNode {
 	 */
 	public static Optional<String> getMessageForUnwantedNodesForFileAt(Path pathOfJavaFile,
 			Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap, boolean excludeMainMethod) {
-		Map<Path, List<UnwantedNode>> unwantedNodes = getUnwantedNodesForFileAt(pathOfJavaFile,
-				nodeNameUnwantedNodeMap, excludeMainMethod);
+		return getMessageForUnwantedNodesForFile(JavaFile.convertFromFile(pathOfJavaFile, excludeMainMethod),
+				nodeNameUnwantedNodeMap);
+	}
+
+	/**
+	 * Creates an error message in case unwanted nodes are detected in an already
+	 * parsed Java-File
+	 *
+	 * @param javaFile                Java-File, where unwanted nodes shall be
+	 *                                detected (null if the file is not a
+	 *                                Java-file)
+	 * @param nodeNameUnwantedNodeMap List of unwanted nodes
+	 * @return Error message
+	 */
+	public static Optional<String> getMessageForUnwantedNodesForFile(JavaFile javaFile,
+			Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap) {
+		return getMessageForUnwantedNodesForFile(javaFile, new UnwantedNodeTable(nodeNameUnwantedNodeMap));
+	}
+
+	/**
+	 * Creates an error message in case unwanted nodes of a dispatch table are
+	 * detected in an already parsed Java-File
+	 *
+	 * @param javaFile          Java-File, where unwanted nodes shall be detected
+	 *                          (null if the file is not a Java-file)
+	 * @param unwantedNodeTable Dispatch table of the unwanted nodes
+	 * @return Error message
+	 */
+	public static Optional<String> getMessageForUnwantedNodesForFile(JavaFile javaFile,
+			UnwantedNodeTable unwantedNodeTable) {
+		Map<Path, List<UnwantedNode>> unwantedNodes = getUnwantedNodesForFile(javaFile, unwantedNodeTable);
 		if (unwantedNodes.isEmpty()) {
 			return Optional.empty();
 		}
-		return Optional.of(unwantedNodes.keySet().stream()
-				.map(filePath -> getFormattedFileString(filePath, unwantedNodes)).reduce(String::concat).orElse(""));
+		return Optional.of(getFormattedFileString(javaFile.getJavaFilePath(), unwantedNodes));
+	}
+
+	/**
+	 * Creates an error message in case unwanted nodes are detected in any of the
+	 * given, already parsed Java-Files
+	 *
+	 * @param javaFiles               Java-Files sorted by their path
+	 * @param nodeNameUnwantedNodeMap List of unwanted nodes
+	 * @return Error message
+	 */
+	public static Optional<String> getMessageForUnwantedNodesInFiles(List<JavaFile> javaFiles,
+			Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap) {
+		return getReportForUnwantedNodesInFiles(javaFiles, nodeNameUnwantedNodeMap).getMessage();
+	}
+
+	/**
+	 * Detects unwanted nodes in the given, already parsed Java-Files, without
+	 * rendering an error message
+	 *
+	 * @param javaFiles               Java-Files in the order of the report
+	 * @param nodeNameUnwantedNodeMap List of unwanted nodes
+	 * @return Report of the unwanted nodes
+	 */
+	public static UnwantedNodeReport getReportForUnwantedNodesInFiles(List<JavaFile> javaFiles,
+			Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap) {
+		UnwantedNodeTable unwantedNodeTable = new UnwantedNodeTable(nodeNameUnwantedNodeMap);
+		Map<Path, List<UnwantedNode>> unwantedNodes = new LinkedHashMap<>();
+		for (JavaFile javaFile : javaFiles) {
+			unwantedNodes.putAll(getUnwantedNodesForFile(javaFile, unwantedNodeTable));
+		}
+		return UnwantedNodeReport.of(unwantedNodes);
 	}
 
 	/**
 	 * Creates an error message in case unwanted files are detected
+	 * <p>
+	 * Every Java-File is parsed exactly once, in parallel for larger directories,
+	 * and its syntax tree is released as soon as it has been scanned.
 	 *
 	 * @param pathOfDirectory         Path to the Directory, at and below where
 	 *                                unwanted nodes shall be detected
@@ -135,11 +249,178 @@ public class UnwantedNode {
 	 */
 	public static Optional<String> getMessageForUnwantedNodesForAllFilesBelow(Path pathOfDirectory,
 			Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap, boolean excludeMainMethod) {
-		return JavaFile.readFromDirectory(pathOfDirectory).stream()
-				.sorted(Comparator.comparing(JavaFile::getJavaFilePath))
-				.map(javaFile -> getMessageForUnwantedNodesForFileAt(javaFile.getJavaFilePath(),
-						nodeNameUnwantedNodeMap, excludeMainMethod))
-				.filter(Optional::isPresent).map(Optional::get).map(message -> message + System.lineSeparator())
-				.reduce(String::concat).map(String::trim).map(message -> " " + message);
+		Map<Path, List<UnwantedNode>> unwantedNodes = new TreeMap<>();
+		scanAllFilesBelow(pathOfDirectory, JavaFile::copyOfStaticParserConfiguration, nodeNameUnwantedNodeMap,
+				excludeMainMethod, (pathOfJavaFile, unwantedNodesOfFile) -> {
+					unwantedNodes.put(pathOfJavaFile, unwantedNodesOfFile);
+					return true;
+				});
+		return getMessageForUnwantedNodes(unwantedNodes);
+	}
+
+	/**
+	 * Creates an error message for the first Java-File below a given path, by
+	 * path, in which unwanted nodes are detected, without parsing or scanning the
+	 * files after it
+	 * <p>
+	 * Each syntax tree is only traversed up to its first unwanted node. The files
+	 * are scanned in parallel for larger directories, so the scan only stops once
+	 * every file before the first file with unwanted nodes has been scanned, and
+	 * the positions are only collected for that file.
+	 *
+	 * @param pathOfDirectory            Path to the Directory, at and below
+	 *                                   where unwanted nodes shall be detected
+	 * @param parserConfigurationFactory Creates the configuration for each
+	 *                                   parser thread
+	 * @param nodeNameUnwantedNodeMap    List of unwanted nodes
+	 * @return Error message for a single file
+	 */
+	public static Optional<String> getMessageForFirstFileWithUnwantedNodesBelow(Path pathOfDirectory,
+			Supplier<ParserConfiguration> parserConfigurationFactory,
+			Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap, boolean excludeMainMethod) {
+		return getMessageForFirstFileWithUnwantedNodesBelow(pathOfDirectory, parserConfigurationFactory,
+				nodeNameUnwantedNodeMap, excludeMainMethod, Deadline.none());
+	}
+
+	/**
+	 * Creates an error message for the first Java-File below a given path, by
+	 * path, in which unwanted nodes are detected, and stops once the given
+	 * deadline has expired
+	 *
+	 * @param pathOfDirectory            Path to the Directory, at and below
+	 *                                   where unwanted nodes shall be detected
+	 * @param parserConfigurationFactory Creates the configuration for each
+	 *                                   parser thread
+	 * @param nodeNameUnwantedNodeMap    List of unwanted nodes
+	 * @param deadline                   Deadline of the scan
+	 * @return Error message for a single file
+	 * @throws AnalysisTimeoutException If the deadline expires before the scan
+	 *                                  is done
+	 */
+	public static Optional<String> getMessageForFirstFileWithUnwantedNodesBelow(Path pathOfDirectory,
+			Supplier<ParserConfiguration> parserConfigurationFactory,
+			Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap, boolean excludeMainMethod, Deadline deadline) {
+		UnwantedNodeTable unwantedNodeTable = new UnwantedNodeTable(nodeNameUnwantedNodeMap);
+		List<Path> javaFilePaths = JavaFile.findJavaFilesBelow(pathOfDirectory);
+		FirstFileWithUnwantedNodes firstFile = new FirstFileWithUnwantedNodes(javaFilePaths, unwantedNodeTable);
+		parseAllFiles(pathOfDirectory, javaFilePaths, parserConfigurationFactory, excludeMainMethod, deadline, firstFile);
+		if (firstFile.javaFile == null) {
+			return Optional.empty();
+		}
+		return getMessageForUnwantedNodes(Map.of(firstFile.javaFile.getJavaFilePath(),
+				unwantedNodeTable.findUnwantedNodes(firstFile.javaFile)));
+	}
+
+	/**
+	 * Checks whether any Java-File below a given path contains an unwanted node.
+	 * Each syntax tree is only traversed up to its first unwanted node and no
+	 * further file is parsed once one has been found.
+	 *
+	 * @param pathOfDirectory            Path to the Directory, at and below
+	 *                                   where unwanted nodes shall be detected
+	 * @param parserConfigurationFactory Creates the configuration for each
+	 *                                   parser thread
+	 * @param nodeNameUnwantedNodeMap    List of unwanted nodes
+	 * @return True if at least one unwanted node is detected
+	 */
+	public static boolean hasUnwantedNodesBelow(Path pathOfDirectory,
+			Supplier<ParserConfiguration> parserConfigurationFactory,
+			Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap, boolean excludeMainMethod) {
+		UnwantedNodeTable unwantedNodeTable = new UnwantedNodeTable(nodeNameUnwantedNodeMap);
+		return !parseAllFilesBelow(pathOfDirectory, parserConfigurationFactory, excludeMainMethod,
+				(pathOfJavaFile, javaFile) -> !unwantedNodeTable.containsUnwantedNode(javaFile));
+	}
+
+	/**
+	 * Detects a provided list of unwanted nodes in Java-Files below a given path
+	 * and publishes the result of every file as soon as it has been scanned
+	 * <p>
+	 * The results are published on the calling thread, but not necessarily in the
+	 * order of the paths. Files without unwanted nodes are published with an
+	 * empty list.
+	 *
+	 * @param pathOfDirectory            Path to the Directory, at and below
+	 *                                   where unwanted nodes shall be detected
+	 * @param parserConfigurationFactory Creates the configuration for each
+	 *                                   parser thread
+	 * @param nodeNameUnwantedNodeMap    List of unwanted nodes
+	 * @param consumer                   Receives the path of a file and its
+	 *                                   unwanted node information, and returns
+	 *                                   false to stop the scan
+	 * @return True if all files have been scanned, false if the consumer stopped
+	 *         the scan
+	 */
+	public static boolean scanAllFilesBelow(Path pathOfDirectory,
+			Supplier<ParserConfiguration> parserConfigurationFactory,
+			Map<String, Class<? extends Node>> nodeNameUnwantedNodeMap, boolean excludeMainMethod,
+			BiPredicate<Path, List<UnwantedNode>> consumer) {
+		UnwantedNodeTable unwantedNodeTable = new UnwantedNodeTable(nodeNameUnwantedNodeMap);
+		return parseAllFilesBelow(pathOfDirectory, parserConfigurationFactory, excludeMainMethod,
+				(pathOfJavaFile, javaFile) -> consumer.test(pathOfJavaFile, unwantedNodeTable.findUnwantedNodes(javaFile)));
+	}
+
+	private static boolean parseAllFilesBelow(Path pathOfDirectory,
+			Supplier<ParserConfiguration> parserConfigurationFactory, boolean excludeMainMethod,
+			BiPredicate<Path, JavaFile> analysis) {
+		return parseAllFiles(pathOfDirectory, JavaFile.findJavaFilesBelow(pathOfDirectory), parserConfigurationFactory,
+				excludeMainMethod, Deadline.none(), analysis);
+	}
+
+	private static boolean parseAllFiles(Path pathOfDirectory, List<Path> javaFilePaths,
+			Supplier<ParserConfiguration> parserConfigurationFactory, boolean excludeMainMethod, Deadline deadline,
+			BiPredicate<Path, JavaFile> analysis) {
+		try {
+			return SourceLoader.parseWhile(javaFilePaths, parserConfigurationFactory, deadline,
+					(pathOfJavaFile, parseResult) -> analysis.test(pathOfJavaFile,
+							JavaFile.fromParseResult(pathOfJavaFile, parseResult, excludeMainMethod)));
+		} catch (IOException e) {
+			throw new AssertionError(localized("ast.method.read_from_directory", pathOfDirectory.toAbsolutePath()));
+		}
+	}
+
+	/**
+	 * Creates an error message in case unwanted nodes were detected
+	 *
+	 * @param unwantedNodes Map of File-Paths and their respective list of unwanted
+	 *                      node information, in the order of the message
+	 * @return Error message
+	 */
+	public static Optional<String> getMessageForUnwantedNodes(Map<Path, List<UnwantedNode>> unwantedNodes) {
+		return UnwantedNodeReport.of(unwantedNodes).getMessage();
+	}
+
+	/**
+	 * Remembers the Java-File with the lowest path among the scanned files with
+	 * unwanted nodes, and stops the scan as soon as every file before it has been
+	 * scanned
+	 */
+	private static final class FirstFileWithUnwantedNodes implements BiPredicate<Path, JavaFile> {
+
+		private final List<Path> javaFilePaths;
+		private final UnwantedNodeTable unwantedNodeTable;
+		private final BitSet scannedFiles = new BitSet();
+		private int index;
+		private JavaFile javaFile;
+
+		/**
+		 * @param javaFilePaths     Sorted paths of all Java-Files to be scanned
+		 * @param unwantedNodeTable Dispatch table of the unwanted nodes
+		 */
+		private FirstFileWithUnwantedNodes(List<Path> javaFilePaths, UnwantedNodeTable unwantedNodeTable) {
+			this.javaFilePaths = javaFilePaths;
+			this.unwantedNodeTable = unwantedNodeTable;
+			this.index = javaFilePaths.size();
+		}
+
+		@Override
+		public boolean test(Path pathOfJavaFile, JavaFile scannedJavaFile) {
+			int scannedIndex = Collections.binarySearch(javaFilePaths, pathOfJavaFile);
+			scannedFiles.set(scannedIndex);
+			if (scannedIndex < index && unwantedNodeTable.containsUnwantedNode(scannedJavaFile)) {
+				index = scannedIndex;
+				javaFile = scannedJavaFile;
+			}
+			return scannedFiles.nextClearBit(0) < index;
+		}
 	}
 }
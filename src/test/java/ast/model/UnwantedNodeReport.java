@@ -0,0 +1,136 @@
+package ast.model;
+
+import static de.tum.in.test.api.localization.Messages.localized;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.apiguardian.api.API;
+import org.apiguardian.api.API.Status;
+
+/**
+ * Unwanted nodes grouped by file and by the unwanted node they are an instance
+ * of, which is only rendered as an error message if the message is needed
+ * <p>
+ * The message is written in a single pass into one buffer, so rendering is
+ * linear in the length of the message.
+ */
+@API(status = Status.INTERNAL)
+public final class UnwantedNodeReport {
+
+	private static final String LINE_SEPARATOR = System.lineSeparator();
+
+	private final Map<Path, List<UnwantedNode>> unwantedNodesByFile;
+
+	private UnwantedNodeReport(Map<Path, List<UnwantedNode>> unwantedNodesByFile) {
+		this.unwantedNodesByFile = unwantedNodesByFile;
+	}
+
+	/**
+	 * @param unwantedNodes Map of File-Paths and their respective list of unwanted
+	 *                      node information, in the order of the report (files
+	 *                      without unwanted nodes are left out)
+	 * @return Report of the unwanted nodes
+	 */
+	public static UnwantedNodeReport of(Map<Path, List<UnwantedNode>> unwantedNodes) {
+		Map<Path, List<UnwantedNode>> unwantedNodesByFile = new LinkedHashMap<>();
+		unwantedNodes.forEach((filePath, unwantedNodesOfFile) -> {
+			if (!unwantedNodesOfFile.isEmpty()) {
+				unwantedNodesByFile.put(filePath, List.copyOf(unwantedNodesOfFile));
+			}
+		});
+		return new UnwantedNodeReport(Collections.unmodifiableMap(unwantedNodesByFile));
+	}
+
+	/**
+	 * @return True if no unwanted node was detected
+	 */
+	public boolean isEmpty() {
+		return unwantedNodesByFile.isEmpty();
+	}
+
+	/**
+	 * @return Files with unwanted nodes and their unwanted node information, in
+	 *         the order of the report
+	 */
+	public Map<Path, List<UnwantedNode>> getUnwantedNodesByFile() {
+		return unwantedNodesByFile;
+	}
+
+	/**
+	 * @return Number of detected unwanted nodes over all files
+	 */
+	public int getPositionCount() {
+		return unwantedNodesByFile.values().stream().flatMap(List::stream)
+				.mapToInt(unwantedNode -> unwantedNode.getUnwantedNodePositions().size()).sum();
+	}
+
+	/**
+	 * Renders the error message, which lists every file of the report
+	 *
+	 * @return Error message (empty if no unwanted node was detected)
+	 */
+	public Optional<String> getMessage() {
+		if (isEmpty()) {
+			return Optional.empty();
+		}
+		StringBuilder message = new StringBuilder(" ");
+		unwantedNodesByFile.forEach((filePath, unwantedNodes) -> {
+			if (message.length() > 1) {
+				message.append(LINE_SEPARATOR);
+			}
+			appendFile(message, filePath, unwantedNodes);
+		});
+		// Surrounding whitespace of the listed files is dropped, the leading space is kept
+		int start = 1;
+		int end = message.length();
+		while (start < end && message.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && message.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		message.setLength(end);
+		message.delete(1, start);
+		return Optional.of(message.toString());
+	}
+
+	/**
+	 * Appends the unwanted node information of one file
+	 *
+	 * @param message       Message to append to
+	 * @param filePath      Path of the file
+	 * @param unwantedNodes Unwanted node information of the file
+	 */
+	static void appendFile(StringBuilder message, Path filePath, List<UnwantedNode> unwantedNodes) {
+		message.append(localized("ast.method.get_formatted_file_string_prefix", filePath)).append(LINE_SEPARATOR);
+		for (int i = 0; i < unwantedNodes.size(); i++) {
+			if (i > 0) {
+				message.append(LINE_SEPARATOR);
+			}
+			appendUnwantedNode(message, unwantedNodes.get(i));
+		}
+	}
+
+	/**
+	 * Appends the positions of one unwanted node
+	 *
+	 * @param message      Message to append to
+	 * @param unwantedNode Unwanted node information
+	 */
+	static void appendUnwantedNode(StringBuilder message, UnwantedNode unwantedNode) {
+		message.append(localized("ast.method.get_formatted_unwanted_node_string_prefix",
+				unwantedNode.getUnwantedNodeName())).append(LINE_SEPARATOR);
+		List<NodePosition> positions = unwantedNode.getUnwantedNodePositions();
+		for (int i = 0; i < positions.size(); i++) {
+			if (i > 0) {
+				message.append(LINE_SEPARATOR);
+			}
+			message.append(UnwantedNode.getFormattedPositionString(String.valueOf(positions.get(i))));
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package ast.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.apiguardian.api.API;
+import org.apiguardian.api.API.Status;
+
+import com.github.javaparser.ast.Node;
+
+import de.tum.in.test.api.ast.type.Type;
+
+/**
+ * Dispatch table from the concrete class of a node to the names of all unwanted
+ * nodes it is an instance of, so that any number of rules is evaluated in a
+ * single traversal of the abstract syntax tree
+ */
+@API(status = Status.INTERNAL)
+public class UnwantedNodeTable {
+
+	private final Map<String, Class<? extends Node>> nodesDefinedAsUnwanted;
+	private final Map<Class<?>, List<String>> unwantedNodeNamesByNodeClass = new ConcurrentHashMap<>();
+
+	/**
+	 * @param nodesDefinedAsUnwanted List of unwanted nodes, whose order is kept
+	 *                               for nodes at the same position
+	 */
+	public UnwantedNodeTable(Map<String, Class<? extends Node>> nodesDefinedAsUnwanted) {
+		this.nodesDefinedAsUnwanted = nodesDefinedAsUnwanted;
+	}
+
+	/**
+	 * Merges the unwanted nodes of several types into one list
+	 *
+	 * @param types Unwanted statements
+	 * @return List of all unwanted nodes of the types
+	 */
+	public static Map<String, Class<? extends Node>> merge(Type... types) {
+		Map<String, Class<? extends Node>> nodesDefinedAsUnwanted = new LinkedHashMap<>();
+		for (Type type : types) {
+			nodesDefinedAsUnwanted.putAll(type.getNodeNameNodeMap());
+		}
+		return nodesDefinedAsUnwanted;
+	}
+
+	/**
+	 * Looks up the unwanted nodes a node of the given class is an instance of
+	 *
+	 * @param nodeClass Concrete class of a node
+	 * @return Names of all matching unwanted nodes (empty if the node is not
+	 *         unwanted)
+	 */
+	public List<String> getUnwantedNodeNames(Class<?> nodeClass) {
+		return unwantedNodeNamesByNodeClass.computeIfAbsent(nodeClass,
+				key -> nodesDefinedAsUnwanted.entrySet().stream()
+						.filter(unwantedNode -> unwantedNode.getValue().isAssignableFrom(key))
+						.map(Map.Entry::getKey).toList());
+	}
+
+	/**
+	 * Finds all unwanted nodes in an abstract syntax tree of a Java-file in one
+	 * traversal
+	 *
+	 * @param javaFile Abstract syntax tree of a Java-file
+	 * @return Unwanted node information sorted by the first position
+	 */
+	public List<UnwantedNode> findUnwantedNodes(JavaFile javaFile) {
+		return collectUnwantedNodes(javaFile.getJavaFileAST().stream(), Node::getClass, NodePosition::getPositionOf);
+	}
+
+	/**
+	 * Checks whether an abstract syntax tree of a Java-file contains any unwanted
+	 * node, stopping the traversal at the first one
+	 *
+	 * @param javaFile Abstract syntax tree of a Java-file
+	 * @return True if at least one node is unwanted
+	 */
+	public boolean containsUnwantedNode(JavaFile javaFile) {
+		return javaFile.getJavaFileAST().stream()
+				.anyMatch(node -> !getUnwantedNodeNames(node.getClass()).isEmpty());
+	}
+
+	/**
+	 * Groups the positions of nodes by the unwanted nodes they are an instance of
+	 *
+	 * @param nodes     Nodes of one Java-file
+	 * @param nodeClass Concrete class of a node
+	 * @param position  Position of a node
+	 * @return Unwanted node information sorted by the first position
+	 */
+	public <T> List<UnwantedNode> collectUnwantedNodes(Stream<T> nodes, Function<T, Class<?>> nodeClass,
+			Function<T, NodePosition> position) {
+		Map<String, List<NodePosition>> positionsByName = new LinkedHashMap<>();
+		nodesDefinedAsUnwanted.keySet().forEach(name -> positionsByName.put(name, new ArrayList<>()));
+		nodes.forEach(node -> {
+			List<String> names = getUnwantedNodeNames(nodeClass.apply(node));
+			if (!names.isEmpty()) {
+				NodePosition nodePosition = position.apply(node);
+				names.forEach(name -> positionsByName.get(name).add(nodePosition));
+			}
+		});
+		return UnwantedNode.sortedByFirstPosition(positionsByName.entrySet().stream()
+				.map(unwantedNode -> new UnwantedNode(unwantedNode.getKey(), unwantedNode.getValue())));
+	}
+}
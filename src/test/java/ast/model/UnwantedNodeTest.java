@@ -0,0 +1,137 @@
+package ast.model;
+
+import ast.asserting.UnwantedNodesAssert;
+import ast.type.ConditionalType;
+import ast.type.LoopType;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.Node;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class UnwantedNodeTest {
+
+    private static final Map<String, Class<? extends Node>> LOOPS = UnwantedNodeTable.merge(LoopType.ANY);
+
+    private static final Supplier<ParserConfiguration> PARSER_CONFIGURATION =
+            () -> JavaFile.copyOfStaticParserConfiguration().setLanguageLevel(LanguageLevel.JAVA_17);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testFailFastReportsTheFirstFileByPath() throws IOException {
+        // More files than the sequential threshold of the loader, so they are parsed in parallel
+        writeFiles(64, Set.of(9, 23, 31, 40, 63));
+        Optional<String> expectedMessage = messageForFile(9);
+
+        for (int run = 0; run < 10; run++) {
+            assertThat(UnwantedNode.getMessageForFirstFileWithUnwantedNodesBelow(directory, PARSER_CONFIGURATION, LOOPS, false))
+                    .as("run %d", run).isEqualTo(expectedMessage);
+        }
+    }
+
+    @Test
+    void testFailFastInFewFiles() throws IOException {
+        writeFiles(3, Set.of(1, 2));
+
+        assertThat(UnwantedNode.getMessageForFirstFileWithUnwantedNodesBelow(directory, PARSER_CONFIGURATION, LOOPS, false))
+                .isEqualTo(messageForFile(1));
+    }
+
+    @Test
+    void testFailFastWithoutUnwantedNodes() throws IOException {
+        writeFiles(40, Set.of());
+
+        assertThat(UnwantedNode.getMessageForFirstFileWithUnwantedNodesBelow(directory, PARSER_CONFIGURATION, LOOPS, false))
+                .isEmpty();
+    }
+
+    @Test
+    void testFailFastAssertion() throws IOException {
+        writeFiles(40, Set.of(17, 35));
+
+        assertThatThrownBy(() -> UnwantedNodesAssert.assertThatSourcesIn(directory).withLanguageLevel(LanguageLevel.JAVA_17)
+                .failFast().hasNo(LoopType.ANY))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining(file(17).getFileName().toString())
+                .hasMessageNotContaining(file(35).getFileName().toString());
+    }
+
+    @Test
+    void testAssertionChecksEveryGivenType() throws IOException {
+        writeFiles(3, Set.of(1));
+
+        UnwantedNodesAssert.assertThatSourcesIn(directory).withLanguageLevel(LanguageLevel.JAVA_17).hasNo(ConditionalType.ANY);
+        assertThatThrownBy(() -> UnwantedNodesAssert.assertThatSourcesIn(directory).withLanguageLevel(LanguageLevel.JAVA_17)
+                .hasNo(ConditionalType.ANY, LoopType.ANY))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining(file(1).getFileName().toString())
+                .hasMessageNotContaining(file(0).getFileName().toString());
+    }
+
+    @Test
+    void testTimeoutFailsTheAssertion() throws IOException {
+        writeFiles(3, Set.of(1));
+
+        assertThatThrownBy(() -> UnwantedNodesAssert.assertThatSourcesIn(directory).withLanguageLevel(LanguageLevel.JAVA_17)
+                .withTimeout(Duration.ZERO).hasNo(LoopType.ANY))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageStartingWith("The analysis timed out in phase parsing after 0 files");
+        assertThatThrownBy(() -> UnwantedNodesAssert.assertThatSourcesIn(directory).withLanguageLevel(LanguageLevel.JAVA_17)
+                .withTimeout(Duration.ZERO).failFast().hasNo(LoopType.ANY))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageStartingWith("The analysis timed out in phase parsing after 0 files");
+        assertThatThrownBy(() -> UnwantedNodesAssert.assertThatSourcesIn(directory).withLanguageLevel(LanguageLevel.JAVA_17)
+                .withTimeout(Duration.ofMinutes(1)).hasNo(LoopType.ANY))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining(file(1).getFileName().toString());
+    }
+
+    private Optional<String> messageForFile(int index) {
+        return UnwantedNode.getMessageForUnwantedNodes(UnwantedNode.getUnwantedNodesForFile(JavaFile.convertFromFile(file(index)), LOOPS));
+    }
+
+    /**
+     * Writes classes {@code F00}, {@code F01}, ..., of which the given ones contain two loops
+     */
+    private void writeFiles(int count, Set<Integer> withLoops) throws IOException {
+        Files.createDirectories(directory.resolve("p"));
+        for (int i = 0; i < count; i++) {
+            String body = withLoops.contains(i) ? """
+                    for (int i = 0; i < 3; i++) {
+                            }
+                            while (true) {
+                            }""" : "return;";
+            Files.writeString(file(i), """
+                    package p;
+
+                    public class %s {
+                        void run() {
+                            %s
+                        }
+                    }
+                    """.formatted(className(i), body));
+        }
+    }
+
+    private Path file(int index) {
+        return directory.resolve("p").resolve(className(index) + ".java");
+    }
+
+    private static String className(int index) {
+        return "F%02d".formatted(index);
+    }
+}
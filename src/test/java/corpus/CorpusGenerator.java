@@ -0,0 +1,453 @@
+package corpus;
+
+import org.apiguardian.api.API;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Writes synthetic source roots of any size, whose recursion and unwanted nodes are known in advance.
+ * <p>
+ * The generated classes {@code p<i>.C<j>} declare the methods {@code m<k>(int)} and, for a share of the method names,
+ * the overloads {@code m<k>(int, int)}. Within a package, classes extend their predecessor in chains of the
+ * configured hierarchy depth, and every class overrides all methods of its superclass. Each method calls a number of
+ * methods which are declared later in the source root, optionally inside a loop, a conditional or a lambda, so the
+ * generated methods never call each other in a cycle, not even through virtual dispatch. Cycles of the configured
+ * sizes are planted with additional methods {@code cycle<c>_<i>(int)}, each of which is called by one random method.
+ * <p>
+ * The same seed and configuration always produce the same files. The expected verdicts are returned as a
+ * {@link GeneratedCorpus} and written to {@value GeneratedCorpus#EXPECTATIONS_FILE} in the source root.
+ * <p>
+ * Usage: {@code CorpusGenerator <target directory> [option=value]...}, e.g.
+ * {@code CorpusGenerator /tmp/corpus seed=7 packages=100 classesPerPackage=100 cycleSizes=1,3,10}
+ */
+@API(status = API.Status.INTERNAL)
+public final class CorpusGenerator {
+
+    private final long seed;
+
+    private int packages = 1;
+
+    private int classesPerPackage = 10;
+
+    private int methodsPerClass = 3;
+
+    private int fanOut = 2;
+
+    private int hierarchyDepth = 1;
+
+    private double overloadRatio;
+
+    private double lambdaRatio;
+
+    private double loopDensity;
+
+    private double conditionalDensity;
+
+    private int[] cycleSizes = new int[0];
+
+    /**
+     * @param seed Seed of all random choices
+     */
+    public CorpusGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: CorpusGenerator <target directory> [option=value]..."); //$NON-NLS-1$
+            System.exit(2);
+        }
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String option : Arrays.copyOfRange(args, 1, args.length)) {
+            int separator = option.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Options are given as name=value: " + option); //$NON-NLS-1$
+            }
+            options.put(option.substring(0, separator), option.substring(separator + 1));
+        }
+        CorpusGenerator generator = new CorpusGenerator(Long.parseLong(options.getOrDefault("seed", "0"))); //$NON-NLS-1$ //$NON-NLS-2$
+        options.remove("seed"); //$NON-NLS-1$
+        options.forEach(generator::set);
+        GeneratedCorpus corpus = generator.generate(Paths.get(args[0]));
+        System.out.printf("Generated %d classes with %d methods and %d cycles in %s%n", //$NON-NLS-1$
+                corpus.classes(), corpus.methods(), corpus.cycles().size(), corpus.sourceRoot());
+    }
+
+    private void set(String name, String value) {
+        switch (name) {
+            case "packages" -> setPackages(Integer.parseInt(value)); //$NON-NLS-1$
+            case "classesPerPackage" -> setClassesPerPackage(Integer.parseInt(value)); //$NON-NLS-1$
+            case "methodsPerClass" -> setMethodsPerClass(Integer.parseInt(value)); //$NON-NLS-1$
+            case "fanOut" -> setFanOut(Integer.parseInt(value)); //$NON-NLS-1$
+            case "hierarchyDepth" -> setHierarchyDepth(Integer.parseInt(value)); //$NON-NLS-1$
+            case "overloadRatio" -> setOverloadRatio(Double.parseDouble(value)); //$NON-NLS-1$
+            case "lambdaRatio" -> setLambdaRatio(Double.parseDouble(value)); //$NON-NLS-1$
+            case "loopDensity" -> setLoopDensity(Double.parseDouble(value)); //$NON-NLS-1$
+            case "conditionalDensity" -> setConditionalDensity(Double.parseDouble(value)); //$NON-NLS-1$
+            case "cycleSizes" -> setCycleSizes(value.isEmpty() ? new int[0] //$NON-NLS-1$
+                    : Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray()); //$NON-NLS-1$
+            default -> throw new IllegalArgumentException("Unknown option " + name); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * @param packages Number of packages, at least 1
+     * @return This generator
+     */
+    public CorpusGenerator setPackages(int packages) {
+        this.packages = requireAtLeast(1, packages, "packages"); //$NON-NLS-1$
+        return this;
+    }
+
+    /**
+     * @param classesPerPackage Number of classes in every package, at least 1
+     * @return This generator
+     */
+    public CorpusGenerator setClassesPerPackage(int classesPerPackage) {
+        this.classesPerPackage = requireAtLeast(1, classesPerPackage, "classesPerPackage"); //$NON-NLS-1$
+        return this;
+    }
+
+    /**
+     * @param methodsPerClass Number of method names in every class, at least 1
+     * @return This generator
+     */
+    public CorpusGenerator setMethodsPerClass(int methodsPerClass) {
+        this.methodsPerClass = requireAtLeast(1, methodsPerClass, "methodsPerClass"); //$NON-NLS-1$
+        return this;
+    }
+
+    /**
+     * @param fanOut Number of calls in every method, fewer in the last methods which have no later methods to call
+     * @return This generator
+     */
+    public CorpusGenerator setFanOut(int fanOut) {
+        this.fanOut = requireAtLeast(0, fanOut, "fanOut"); //$NON-NLS-1$
+        return this;
+    }
+
+    /**
+     * @param hierarchyDepth Number of classes in every chain of subclasses, 1 for no inheritance
+     * @return This generator
+     */
+    public CorpusGenerator setHierarchyDepth(int hierarchyDepth) {
+        this.hierarchyDepth = requireAtLeast(1, hierarchyDepth, "hierarchyDepth"); //$NON-NLS-1$
+        return this;
+    }
+
+    /**
+     * @param overloadRatio Share of the method names which are overloaded with a second parameter
+     * @return This generator
+     */
+    public CorpusGenerator setOverloadRatio(double overloadRatio) {
+        this.overloadRatio = requireShare(overloadRatio, "overloadRatio"); //$NON-NLS-1$
+        return this;
+    }
+
+    /**
+     * @param lambdaRatio Share of the calls which are made in a lambda
+     * @return This generator
+     */
+    public CorpusGenerator setLambdaRatio(double lambdaRatio) {
+        this.lambdaRatio = requireShare(lambdaRatio, "lambdaRatio"); //$NON-NLS-1$
+        return this;
+    }
+
+    /**
+     * @param loopDensity Share of the calls which are made in a for loop
+     * @return This generator
+     */
+    public CorpusGenerator setLoopDensity(double loopDensity) {
+        this.loopDensity = requireShare(loopDensity, "loopDensity"); //$NON-NLS-1$
+        return this;
+    }
+
+    /**
+     * @param conditionalDensity Share of the calls which are made in an if statement
+     * @return This generator
+     */
+    public CorpusGenerator setConditionalDensity(double conditionalDensity) {
+        this.conditionalDensity = requireShare(conditionalDensity, "conditionalDensity"); //$NON-NLS-1$
+        return this;
+    }
+
+    /**
+     * @param cycleSizes Number of methods of every planted cycle, 1 for a method which calls itself
+     * @return This generator
+     */
+    public CorpusGenerator setCycleSizes(int... cycleSizes) {
+        for (int cycleSize : cycleSizes) {
+            requireAtLeast(1, cycleSize, "cycle size"); //$NON-NLS-1$
+        }
+        this.cycleSizes = cycleSizes.clone();
+        return this;
+    }
+
+    private static int requireAtLeast(int minimum, int value, String name) {
+        if (value < minimum) {
+            throw new IllegalArgumentException(String.format("The %s must be at least %d: %d", name, minimum, value)); //$NON-NLS-1$
+        }
+        return value;
+    }
+
+    private static double requireShare(double value, String name) {
+        if (!(value >= 0 && value <= 1)) {
+            throw new IllegalArgumentException(String.format("The %s must be between 0 and 1: %s", name, value)); //$NON-NLS-1$
+        }
+        return value;
+    }
+
+    /**
+     * Write the source root, replacing the files of an earlier run with the same names
+     *
+     * @param sourceRoot Directory to write the packages to, which is created if it does not exist
+     * @return Expected verdicts of the generated sources
+     * @throws IOException If a file cannot be written
+     */
+    public GeneratedCorpus generate(Path sourceRoot) throws IOException {
+        return new Generation(sourceRoot).run();
+    }
+
+    /**
+     * A method of a generated class, identified by its name and number of parameters
+     */
+    private record Slot(String name, int arity) {
+    }
+
+    /**
+     * A generated method
+     *
+     * @param classIndex Index of the declaring class, counting the classes of all packages
+     */
+    private record GeneratedMethod(int classIndex, Slot slot) {
+    }
+
+    /**
+     * State of one run, in which the vertices of the generated methods are numbered in the order of their
+     * declaration: all slots of the first class, all slots of the second class and so on, followed by the methods
+     * of the planted cycles
+     */
+    private final class Generation {
+
+        private final Path sourceRoot;
+
+        private final Random random = new Random(seed);
+
+        private final List<Slot> slots = new ArrayList<>();
+
+        private final int classCount = packages * classesPerPackage;
+
+        private final List<GeneratedMethod> methods = new ArrayList<>();
+
+        private final List<List<Integer>> edges = new ArrayList<>();
+
+        /**
+         * Statements of the methods by vertex
+         */
+        private final List<List<String>> statements = new ArrayList<>();
+
+        private final List<List<String>> cycles = new ArrayList<>();
+
+        private int backgroundVertices;
+
+        private int loops;
+
+        private int conditionals;
+
+        private int lambdas;
+
+        Generation(Path sourceRoot) {
+            this.sourceRoot = sourceRoot;
+        }
+
+        GeneratedCorpus run() throws IOException {
+            for (int k = 0; k < methodsPerClass; k++) {
+                slots.add(new Slot("m" + k, 1)); //$NON-NLS-1$
+                if (random.nextDouble() < overloadRatio) {
+                    slots.add(new Slot("m" + k, 2)); //$NON-NLS-1$
+                }
+            }
+            for (int classIndex = 0; classIndex < classCount; classIndex++) {
+                for (Slot slot : slots) {
+                    addMethod(classIndex, slot);
+                }
+            }
+            backgroundVertices = methods.size();
+            for (int vertex = 0; vertex < backgroundVertices; vertex++) {
+                for (int call = 0; call < fanOut && vertex + 1 < backgroundVertices; call++) {
+                    addCall(vertex, vertex + 1 + random.nextInt(backgroundVertices - vertex - 1));
+                }
+            }
+            plantCycles();
+            for (int classIndex = 0; classIndex < classCount; classIndex++) {
+                writeClass(classIndex);
+            }
+            GeneratedCorpus corpus = new GeneratedCorpus(sourceRoot, classCount, methods.size(), List.copyOf(cycles),
+                    findMethodsReachingCycles(), loops, conditionals, lambdas);
+            corpus.writeExpectations();
+            return corpus;
+        }
+
+        private void addMethod(int classIndex, Slot slot) {
+            methods.add(new GeneratedMethod(classIndex, slot));
+            edges.add(new ArrayList<>());
+            statements.add(new ArrayList<>());
+        }
+
+        private void plantCycles() {
+            for (int c = 0; c < cycleSizes.length; c++) {
+                int first = methods.size();
+                List<String> cycle = new ArrayList<>();
+                for (int i = 0; i < cycleSizes[c]; i++) {
+                    addMethod(random.nextInt(classCount), new Slot("cycle" + c + "_" + i, 1)); //$NON-NLS-1$ //$NON-NLS-2$
+                    cycle.add(getVertex(methods.size() - 1));
+                }
+                for (int i = 0; i < cycleSizes[c]; i++) {
+                    int next = first + (i + 1) % cycleSizes[c];
+                    edges.get(first + i).add(next);
+                    statements.get(first + i).add("return " + getCall(next, "n - 1") + ";"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                }
+                addCall(random.nextInt(backgroundVertices), first);
+                cycles.add(cycle);
+            }
+        }
+
+        /**
+         * Add a call, which may also dispatch to the overrides in the subclasses of the called class
+         */
+        private void addCall(int caller, int callee) {
+            edges.get(caller).add(callee);
+            if (callee < backgroundVertices) {
+                for (int subclass = callee / slots.size() + 1; isSubclass(subclass); subclass++) {
+                    edges.get(caller).add(subclass * slots.size() + callee % slots.size());
+                }
+            }
+            boolean inLambda = random.nextDouble() < lambdaRatio;
+            String statement = inLambda
+                    ? "total += java.util.stream.IntStream.range(0, n).map(x -> " + getCall(callee, "x") + ").sum();" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+                    : "total += " + getCall(callee, "n - 1") + ";"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            lambdas += inLambda ? 1 : 0;
+            if (random.nextDouble() < loopDensity) {
+                statement = "for (int i = 0; i < 2; i++) {\n    " + statement + "\n}"; //$NON-NLS-1$ //$NON-NLS-2$
+                loops++;
+            }
+            if (random.nextDouble() < conditionalDensity) {
+                statement = "if (n > 0) {\n    " + statement.replace("\n", "\n    ") + "\n}"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+                conditionals++;
+            }
+            statements.get(caller).add(statement);
+        }
+
+        /**
+         * Classes extend their predecessor unless they start a new chain or a new package
+         */
+        private boolean isSubclass(int classIndex) {
+            return classIndex < classCount && classIndex % classesPerPackage % hierarchyDepth != 0;
+        }
+
+        private String getCall(int callee, String argument) {
+            GeneratedMethod method = methods.get(callee);
+            String arguments = method.slot().arity() == 1 ? argument : argument + ", 1"; //$NON-NLS-1$
+            return "new " + getQualifiedName(method.classIndex()) + "()." + method.slot().name() + "(" + arguments + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+        }
+
+        /**
+         * Get the vertex of a method as used by the method call graph, e.g. {@code p0.C1.m2(int, int)}
+         */
+        private String getVertex(int vertex) {
+            GeneratedMethod method = methods.get(vertex);
+            String parameterTypes = method.slot().arity() == 1 ? "(int)" : "(int, int)"; //$NON-NLS-1$ //$NON-NLS-2$
+            return getQualifiedName(method.classIndex()) + "." + method.slot().name() + parameterTypes; //$NON-NLS-1$
+        }
+
+        private String getQualifiedName(int classIndex) {
+            return "p" + classIndex / classesPerPackage + ".C" + classIndex % classesPerPackage; //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        private void writeClass(int classIndex) throws IOException {
+            int packageIndex = classIndex / classesPerPackage;
+            int indexInPackage = classIndex % classesPerPackage;
+            StringBuilder source = new StringBuilder();
+            source.append("package p").append(packageIndex).append(";\n\n"); //$NON-NLS-1$ //$NON-NLS-2$
+            source.append("public class C").append(indexInPackage); //$NON-NLS-1$
+            if (isSubclass(classIndex)) {
+                source.append(" extends C").append(indexInPackage - 1); //$NON-NLS-1$
+            }
+            source.append(" {\n"); //$NON-NLS-1$
+            for (int vertex = 0; vertex < methods.size(); vertex++) {
+                GeneratedMethod method = methods.get(vertex);
+                if (method.classIndex() != classIndex) {
+                    continue;
+                }
+                if (vertex < backgroundVertices) {
+                    List<String> body = new ArrayList<>();
+                    body.add("int total = n;"); //$NON-NLS-1$
+                    body.addAll(statements.get(vertex));
+                    body.add("return total;"); //$NON-NLS-1$
+                    appendMethod(source, method.slot(), body);
+                } else {
+                    appendMethod(source, method.slot(), statements.get(vertex));
+                }
+            }
+            source.append("}\n"); //$NON-NLS-1$
+            Path packageDirectory = Files.createDirectories(sourceRoot.resolve("p" + packageIndex)); //$NON-NLS-1$
+            Files.writeString(packageDirectory.resolve("C" + indexInPackage + ".java"), source); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        private static void appendMethod(StringBuilder source, Slot slot, List<String> body) {
+            String parameters = slot.arity() == 1 ? "int n" : "int n, int step"; //$NON-NLS-1$ //$NON-NLS-2$
+            source.append("\n    public int ").append(slot.name()).append('(').append(parameters).append(") {\n"); //$NON-NLS-1$ //$NON-NLS-2$
+            for (String statement : body) {
+                source.append("        ").append(statement.replace("\n", "\n        ")).append('\n'); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+            }
+            source.append("    }\n"); //$NON-NLS-1$
+        }
+
+        /**
+         * Walk the calls backwards from the methods of the planted cycles
+         */
+        private Set<String> findMethodsReachingCycles() {
+            List<List<Integer>> callers = new ArrayList<>();
+            methods.forEach(method -> callers.add(new ArrayList<>()));
+            for (int caller = 0; caller < edges.size(); caller++) {
+                for (int callee : edges.get(caller)) {
+                    callers.get(callee).add(caller);
+                }
+            }
+            boolean[] reaches = new boolean[methods.size()];
+            Deque<Integer> pending = new ArrayDeque<>();
+            for (int member = backgroundVertices; member < methods.size(); member++) {
+                reaches[member] = true;
+                pending.push(member);
+            }
+            while (!pending.isEmpty()) {
+                for (int caller : callers.get(pending.pop())) {
+                    if (!reaches[caller]) {
+                        reaches[caller] = true;
+                        pending.push(caller);
+                    }
+                }
+            }
+            Set<String> methodsReachingCycles = new TreeSet<>();
+            for (int vertex = 0; vertex < methods.size(); vertex++) {
+                if (reaches[vertex]) {
+                    methodsReachingCycles.add(getVertex(vertex));
+                }
+            }
+            return methodsReachingCycles;
+        }
+    }
+}
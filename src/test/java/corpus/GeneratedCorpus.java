@@ -0,0 +1,108 @@
+package corpus;
+
+import org.apiguardian.api.API;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Expected verdicts for a source root written by the {@link CorpusGenerator}.
+ * <p>
+ * Methods are given as the vertices of the method call graph, e.g. {@code p0.C1.m2(int)}. The expectations are stored
+ * next to the sources in {@value #EXPECTATIONS_FILE}, one fact per line:
+ * <pre>
+ * classes 100
+ * methods 300
+ * loops 12
+ * conditionals 30
+ * lambdas 5
+ * cycle p0.C4.cycle0_0(int) -&gt; p0.C7.cycle0_1(int)
+ * reaches p0.C0.m1(int, int)
+ * </pre>
+ *
+ * @param sourceRoot            Source root of the generated files
+ * @param classes               Number of generated classes
+ * @param methods               Number of generated methods
+ * @param cycles                Methods of every planted cycle, in the order in which they call each other
+ * @param methodsReachingCycles Methods from which a planted cycle can be reached, including the methods of the cycles
+ * @param loops                 Number of for loops
+ * @param conditionals          Number of if statements
+ * @param lambdas               Number of lambda expressions
+ */
+@API(status = API.Status.INTERNAL)
+public record GeneratedCorpus(Path sourceRoot, int classes, int methods, List<List<String>> cycles,
+                              Set<String> methodsReachingCycles, int loops, int conditionals, int lambdas) {
+
+    /**
+     * Name of the file with the expectations in the source root
+     */
+    public static final String EXPECTATIONS_FILE = "expected-verdicts.txt"; //$NON-NLS-1$
+
+    private static final String CYCLE_SEPARATOR = " -> "; //$NON-NLS-1$
+
+    /**
+     * @return Methods which are part of a planted cycle, i.e. every method the recursion check reports for the
+     * whole source root
+     */
+    public Set<String> recursiveMethods() {
+        Set<String> recursiveMethods = new TreeSet<>();
+        cycles.forEach(recursiveMethods::addAll);
+        return recursiveMethods;
+    }
+
+    /**
+     * @param method Vertex of the starting method
+     * @return True if a recursive call is detected when starting from the given method
+     */
+    public boolean hasRecursion(String method) {
+        return methodsReachingCycles.contains(method);
+    }
+
+    /**
+     * Read the expectations of a source root which has been written before
+     *
+     * @param sourceRoot Source root of the generated files
+     * @return Expected verdicts
+     * @throws IOException If the expectations cannot be read
+     */
+    public static GeneratedCorpus read(Path sourceRoot) throws IOException {
+        int[] counts = new int[5];
+        List<String> countNames = List.of("classes", "methods", "loops", "conditionals", "lambdas"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        List<List<String>> cycles = new ArrayList<>();
+        Set<String> methodsReachingCycles = new TreeSet<>();
+        for (String line : Files.readAllLines(sourceRoot.resolve(EXPECTATIONS_FILE))) {
+            String key = line.substring(0, line.indexOf(' '));
+            String value = line.substring(key.length() + 1);
+            switch (key) {
+                case "cycle" -> cycles.add(List.of(value.split(CYCLE_SEPARATOR))); //$NON-NLS-1$
+                case "reaches" -> methodsReachingCycles.add(value); //$NON-NLS-1$
+                default -> counts[countNames.indexOf(key)] = Integer.parseInt(value);
+            }
+        }
+        return new GeneratedCorpus(sourceRoot, counts[0], counts[1], List.copyOf(cycles), methodsReachingCycles,
+                counts[2], counts[3], counts[4]);
+    }
+
+    /**
+     * Write the expectations to the source root
+     *
+     * @throws IOException If the expectations cannot be written
+     */
+    void writeExpectations() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("classes " + classes); //$NON-NLS-1$
+        lines.add("methods " + methods); //$NON-NLS-1$
+        lines.add("loops " + loops); //$NON-NLS-1$
+        lines.add("conditionals " + conditionals); //$NON-NLS-1$
+        lines.add("lambdas " + lambdas); //$NON-NLS-1$
+        cycles.forEach(cycle -> lines.add("cycle " + String.join(CYCLE_SEPARATOR, cycle))); //$NON-NLS-1$
+        methodsReachingCycles.forEach(method -> lines.add("reaches " + method)); //$NON-NLS-1$
+        Files.createDirectories(sourceRoot);
+        Files.write(sourceRoot.resolve(EXPECTATIONS_FILE), lines);
+    }
+}
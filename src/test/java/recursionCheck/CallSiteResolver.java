@@ -0,0 +1,173 @@
+package recursionCheck;
+
+import analysis.AnalysisMetrics;
+import analysis.Deadline;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.AccessSpecifier;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.resolution.MethodUsage;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import org.apiguardian.api.API;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves method calls to the vertices of the called methods and memoizes the result per call-site shape.
+ * <p>
+ * The shape of an unqualified call like {@code helper(a, b)} is the type it appears in, the name of the method and
+ * the number of arguments. If that type has exactly one method of this name and arity, which does not take
+ * variable arguments, every call of this shape calls the same method. Such calls are resolved once, without
+ * inferring the types of their arguments. All other calls are resolved individually. Calls of instance methods which
+ * are neither private nor called through {@code super} are virtual. A resolver is meant to be
+ * used for the sources of one session, since the memo assumes that the types do not change. The deadline of the
+ * session is checked before every call is resolved, and every call is reported to the metrics of the session and
+ * as a {@link ResolveCallEvent} to the flight recorder.
+ */
+@API(status = API.Status.INTERNAL)
+public class CallSiteResolver {
+
+    private final Map<Shape, Optional<Callee>> calleesByShape = new HashMap<>();
+
+    private final Deadline deadline;
+
+    private final AnalysisMetrics metrics;
+
+    /**
+     * Creates a resolver without a deadline
+     */
+    public CallSiteResolver() {
+        this(Deadline.none(), AnalysisMetrics.NONE);
+    }
+
+    /**
+     * @param deadline Deadline of the analysis
+     * @param metrics  Listener for the resolved calls
+     */
+    public CallSiteResolver(Deadline deadline, AnalysisMetrics metrics) {
+        this.deadline = deadline;
+        this.metrics = metrics;
+    }
+
+    /**
+     * A called method
+     *
+     * @param vertex  Vertex of the statically resolved method
+     * @param virtual Whether the call may dispatch to an override of the method at runtime
+     */
+    public record Callee(String vertex, boolean virtual) {
+    }
+
+    /**
+     * Get the method called by the given expression
+     *
+     * @param methodCall Method call
+     * @return The called method
+     * @throws analysis.AnalysisTimeoutException If the deadline is expired
+     */
+    public Callee resolve(MethodCallExpr methodCall) {
+        deadline.check(Deadline.Phase.RESOLUTION);
+        metrics.phaseStarted(Deadline.Phase.RESOLUTION);
+        ResolveCallEvent event = new ResolveCallEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            Callee callee = resolveShape(methodCall, event);
+            event.complete(methodCall, callee.vertex());
+            return callee;
+        } catch (RuntimeException e) {
+            metrics.increment(AnalysisMetrics.Counter.RESOLUTION_FAILURES, 1);
+            event.complete(methodCall, e.toString());
+            throw e;
+        } finally {
+            metrics.recordLatency(AnalysisMetrics.Operation.RESOLVE_CALL, System.nanoTime() - start);
+            metrics.increment(AnalysisMetrics.Counter.RESOLVE_CALLS, 1);
+            metrics.phaseFinished(Deadline.Phase.RESOLUTION);
+        }
+    }
+
+    private Callee resolveShape(MethodCallExpr methodCall, ResolveCallEvent event) {
+        Optional<TypeDeclaration<?>> type = getEnclosingTypeOfUnqualifiedCall(methodCall);
+        if (type.isEmpty() || type.get().getFullyQualifiedName().isEmpty()) {
+            return toCallee(methodCall.resolve(), !isSuperCall(methodCall));
+        }
+        Shape shape = new Shape(type.get().getFullyQualifiedName().get(), methodCall.getNameAsString(), methodCall.getArguments().size());
+        Optional<Callee> callee = calleesByShape.get(shape);
+        if (callee == null) {
+            metrics.increment(AnalysisMetrics.Counter.CALL_SITE_MEMO_MISSES, 1);
+            callee = findOnlyCandidate(type.get(), shape);
+            calleesByShape.put(shape, callee);
+        } else {
+            metrics.increment(AnalysisMetrics.Counter.CALL_SITE_MEMO_HITS, 1);
+            event.memoized = callee.isPresent();
+        }
+        return callee.orElseGet(() -> toCallee(methodCall.resolve(), true));
+    }
+
+    /**
+     * Calls with {@code super} as the scope always call the method of the superclass
+     */
+    private static boolean isSuperCall(MethodCallExpr methodCall) {
+        return methodCall.getScope().filter(Expression::isSuperExpr).isPresent();
+    }
+
+    private static Callee toCallee(ResolvedMethodDeclaration method, boolean dispatched) {
+        return new Callee(Signatures.of(method), dispatched && !method.isStatic() && method.accessSpecifier() != AccessSpecifier.PRIVATE);
+    }
+
+    /**
+     * Only unqualified calls, whose candidates are the methods of the type they appear in, have a shape. Calls in
+     * nested, local or anonymous classes and in lambdas may also call methods of the enclosing scopes, and
+     * unqualified calls in files with static imports may call imported methods.
+     */
+    private static Optional<TypeDeclaration<?>> getEnclosingTypeOfUnqualifiedCall(MethodCallExpr methodCall) {
+        if (methodCall.hasScope() || hasStaticImports(methodCall)) {
+            return Optional.empty();
+        }
+        Optional<Node> scope = methodCall.getParentNode();
+        while (scope.isPresent() && !(scope.get() instanceof TypeDeclaration<?>)) {
+            if (scope.get() instanceof LambdaExpr
+                    || (scope.get() instanceof ObjectCreationExpr objectCreation && objectCreation.getAnonymousClassBody().isPresent())) {
+                return Optional.empty();
+            }
+            scope = scope.get().getParentNode();
+        }
+        return scope.<TypeDeclaration<?>>map(node -> (TypeDeclaration<?>) node).filter(TypeDeclaration::isTopLevelType);
+    }
+
+    private static boolean hasStaticImports(MethodCallExpr methodCall) {
+        return methodCall.findCompilationUnit().map(CompilationUnit::getImports).stream()
+                .flatMap(List::stream)
+                .anyMatch(ImportDeclaration::isStatic);
+    }
+
+    private static Optional<Callee> findOnlyCandidate(TypeDeclaration<?> type, Shape shape) {
+        List<ResolvedMethodDeclaration> candidates;
+        try {
+            candidates = type.resolve().getAllMethods().stream()
+                    .map(MethodUsage::getDeclaration)
+                    .filter(method -> method.getName().equals(shape.name()))
+                    .filter(method -> method.getNumberOfParams() == shape.arity() || method.hasVariadicParameter())
+                    .toList();
+        } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
+            // Calls of this shape are resolved one by one, which fails for the calls that actually need the missing types
+            return Optional.empty();
+        }
+        if (candidates.size() != 1 || candidates.get(0).hasVariadicParameter()) {
+            return Optional.empty();
+        }
+        return Optional.of(toCallee(candidates.get(0), true));
+    }
+
+    private record Shape(String type, String name, int arity) {
+    }
+}
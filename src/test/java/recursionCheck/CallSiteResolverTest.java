@@ -0,0 +1,120 @@
+package recursionCheck;
+
+import analysis.AnalysisMetrics;
+import analysis.AnalysisSession;
+import analysis.Deadline;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CallSiteResolverTest {
+
+    private static final String CALLS = """
+            package p;
+
+            import java.util.ArrayList;
+            import java.util.List;
+
+            public class Calls {
+                private void boxed(Integer value) {
+                }
+
+                private void general(Object value) {
+                }
+
+                private <T> void generic(List<T> values) {
+                }
+
+                private void overloaded(int value) {
+                }
+
+                private void overloaded(String value) {
+                }
+
+                public void step() {
+                }
+
+                void run() {
+                    boxed(1);
+                    boxed(2);
+                    general("text");
+                    generic(new ArrayList<String>());
+                    overloaded(1);
+                    overloaded("text");
+                    step();
+                    new Calls().general(3);
+                }
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testCalleesAreKeyedByTheirDeclaration() throws IOException {
+        Map<AnalysisMetrics.Counter, Long> counters = new EnumMap<>(AnalysisMetrics.Counter.class);
+        CallSiteResolver resolver = new CallSiteResolver(Deadline.none(), new AnalysisMetrics() {
+            @Override
+            public void increment(Counter counter, long amount) {
+                counters.merge(counter, amount, Long::sum);
+            }
+        });
+
+        List<CallSiteResolver.Callee> callees = parse().findAll(MethodCallExpr.class).stream().map(resolver::resolve).toList();
+
+        assertThat(callees).containsExactly(
+                new CallSiteResolver.Callee("p.Calls.boxed(java.lang.Integer)", false),
+                new CallSiteResolver.Callee("p.Calls.boxed(java.lang.Integer)", false),
+                new CallSiteResolver.Callee("p.Calls.general(java.lang.Object)", false),
+                new CallSiteResolver.Callee("p.Calls.generic(java.util.List)", false),
+                new CallSiteResolver.Callee("p.Calls.overloaded(int)", false),
+                new CallSiteResolver.Callee("p.Calls.overloaded(java.lang.String)", false),
+                new CallSiteResolver.Callee("p.Calls.step()", true),
+                new CallSiteResolver.Callee("p.Calls.general(java.lang.Object)", false));
+        // The second call of boxed and of overloaded has a known shape, the qualified call has none
+        assertThat(counters).containsEntry(AnalysisMetrics.Counter.RESOLVE_CALLS, 8L)
+                .containsEntry(AnalysisMetrics.Counter.CALL_SITE_MEMO_HITS, 2L)
+                .containsEntry(AnalysisMetrics.Counter.CALL_SITE_MEMO_MISSES, 5L);
+    }
+
+    @Test
+    void testRecursionThroughABoxedArgumentIsDetected() throws IOException {
+        write("Boxed.java", """
+                package p;
+
+                public class Boxed {
+                    public int sum(Integer n) {
+                        int m = n;
+                        return m == 0 ? 0 : m + sum(m - 1);
+                    }
+                }
+                """);
+
+        assertThat(RecursionCheck.getRecursiveMethods(AnalysisSession.open(directory, LanguageLevel.JAVA_17, Deadline.none()), null))
+                .containsExactly("p.Boxed.sum(java.lang.Integer)");
+    }
+
+    private CompilationUnit parse() throws IOException {
+        Path file = write("Calls.java", CALLS);
+        JavaParser parser = new JavaParser(RecursionCheck.parserConfigurationFactory(directory, LanguageLevel.JAVA_17).get());
+        return parser.parse(file).getResult().orElseThrow();
+    }
+
+    private Path write(String fileName, String content) throws IOException {
+        Path file = directory.resolve("p").resolve(fileName);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
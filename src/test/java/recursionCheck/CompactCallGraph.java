@@ -0,0 +1,179 @@
+package recursionCheck;
+
+import org.apiguardian.api.API;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.AsUnmodifiableGraph;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * Immutable method call graph in compressed sparse row format: the vertices are numbered densely and the callees of
+ * vertex {@code v} are {@code targets[offsets[v]]} up to {@code targets[offsets[v + 1] - 1]}, in the order in which
+ * the calls were added.
+ * <p>
+ * Being immutable, the graph can be queried by any number of threads without locking. {@link #asGraph()} provides
+ * a jgrapht view for code written against the previous representation.
+ */
+@API(status = API.Status.INTERNAL)
+public final class CompactCallGraph {
+
+    private final String[] vertices;
+
+    private final Map<String, Integer> ids;
+
+    private final int[] offsets;
+
+    private final int[] targets;
+
+    private volatile Graph<String, DefaultEdge> graph;
+
+    private CompactCallGraph(String[] vertices, Map<String, Integer> ids, int[] offsets, int[] targets) {
+        this.vertices = vertices;
+        this.ids = ids;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Creates the graph from a list of edges, ignoring duplicate edges
+     *
+     * @param symbols     Vertices of the graph
+     * @param edgeSources Callers of the edges
+     * @param edgeTargets Callees of the edges
+     * @param edgeCount   Number of edges in the arrays
+     * @return The graph
+     */
+    static CompactCallGraph of(SymbolTable symbols, int[] edgeSources, int[] edgeTargets, int edgeCount) {
+        int vertexCount = symbols.size();
+        int[] offsets = new int[vertexCount + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            offsets[edgeSources[i] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        // Stable counting sort by caller, which keeps the order of the calls of every caller
+        int[] next = Arrays.copyOf(offsets, vertexCount);
+        int[] sortedTargets = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            sortedTargets[next[edgeSources[i]]++] = edgeTargets[i];
+        }
+        // Drop repeated calls of the same callee, keeping the first one
+        int[] lastCaller = new int[vertexCount];
+        Arrays.fill(lastCaller, -1);
+        int[] compactOffsets = new int[vertexCount + 1];
+        int size = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            compactOffsets[v] = size;
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                int target = sortedTargets[i];
+                if (lastCaller[target] != v) {
+                    lastCaller[target] = v;
+                    sortedTargets[size++] = target;
+                }
+            }
+        }
+        compactOffsets[vertexCount] = size;
+        return new CompactCallGraph(symbols.toArray(), symbols.copyOfIds(), compactOffsets, Arrays.copyOf(sortedTargets, size));
+    }
+
+    public int vertexCount() {
+        return vertices.length;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Get the id of a vertex
+     *
+     * @param vertex Vertex of a method
+     * @return Id of the vertex, or -1 if the graph does not contain the vertex
+     */
+    public int indexOf(String vertex) {
+        return ids.getOrDefault(vertex, -1);
+    }
+
+    public String vertexOf(int id) {
+        return vertices[id];
+    }
+
+    /**
+     * @return Number of methods called by the given vertex
+     */
+    public int outDegree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * @return The {@code index}-th method called by the given vertex
+     */
+    public int successor(int id, int index) {
+        return targets[offsets[id] + index];
+    }
+
+    /**
+     * Find all vertices reachable from the given vertex, including the vertex itself
+     *
+     * @param start Id of the vertex to start from
+     * @return Ids of the reachable vertices
+     */
+    public BitSet reachableFrom(int start) {
+        BitSet reachable = new BitSet(vertices.length);
+        int[] stack = new int[vertices.length];
+        int size = 0;
+        reachable.set(start);
+        stack[size++] = start;
+        while (size > 0) {
+            int vertex = stack[--size];
+            for (int i = offsets[vertex]; i < offsets[vertex + 1]; i++) {
+                int target = targets[i];
+                if (!reachable.get(target)) {
+                    reachable.set(target);
+                    stack[size++] = target;
+                }
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * Get the graph as an unmodifiable jgrapht graph, which is created on first use
+     *
+     * @return Vertices and edges of this graph
+     */
+    public Graph<String, DefaultEdge> asGraph() {
+        Graph<String, DefaultEdge> view = graph;
+        if (view == null) {
+            BitSet allVertices = new BitSet(vertices.length);
+            allVertices.set(0, vertices.length);
+            view = new AsUnmodifiableGraph<>(toGraph(allVertices));
+            graph = view;
+        }
+        return view;
+    }
+
+    /**
+     * Create the subgraph induced by the given vertices as a jgrapht graph
+     *
+     * @param ids Ids of the vertices of the subgraph
+     * @return New graph, which may be modified by the caller
+     */
+    public Graph<String, DefaultEdge> toGraph(BitSet ids) {
+        Graph<String, DefaultEdge> subgraph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        ids.stream().forEach(id -> subgraph.addVertex(vertices[id]));
+        ids.stream().forEach(id -> {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                if (ids.get(targets[i])) {
+                    subgraph.addEdge(vertices[id], vertices[targets[i]]);
+                }
+            }
+        });
+        return subgraph;
+    }
+}
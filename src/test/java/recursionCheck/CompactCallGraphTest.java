@@ -0,0 +1,111 @@
+package recursionCheck;
+
+import analysis.AnalysisSession;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.jgrapht.Graph;
+import org.jgrapht.Graphs;
+import org.jgrapht.alg.cycle.CycleDetector;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompactCallGraphTest {
+
+    @Test
+    void testCallsKeepTheirOrderWithoutRepetitions() {
+        MethodCallGraph graph = new MethodCallGraph();
+        graph.addMethodCalls("a", List.of("c", "b", "c"));
+        graph.addMethodCalls("b", List.of("a"));
+        graph.addMethodCalls("a", List.of("d", "b"));
+        CompactCallGraph compactGraph = graph.getCompactGraph();
+
+        assertThat(calleesOf(compactGraph, "a")).containsExactly("c", "b", "d");
+        assertThat(calleesOf(compactGraph, "b")).containsExactly("a");
+        assertThat(calleesOf(compactGraph, "c")).isEmpty();
+        assertThat(compactGraph.vertexCount()).isEqualTo(4);
+        assertThat(compactGraph.edgeCount()).isEqualTo(4);
+        assertThat(compactGraph.indexOf("e")).isEqualTo(-1);
+    }
+
+    @Test
+    void testReachableFrom() {
+        MethodCallGraph graph = new MethodCallGraph();
+        graph.addMethodCalls("a", List.of("b"));
+        graph.addMethodCalls("b", List.of("c", "a"));
+        graph.addMethodCalls("d", List.of("a"));
+        CompactCallGraph compactGraph = graph.getCompactGraph();
+
+        BitSet reachable = compactGraph.reachableFrom(compactGraph.indexOf("a"));
+
+        assertThat(reachable.stream().mapToObj(compactGraph::vertexOf)).containsExactlyInAnyOrder("a", "b", "c");
+    }
+
+    @Test
+    void testGraphViews() {
+        MethodCallGraph graph = new MethodCallGraph();
+        graph.addMethodCalls("a", List.of("b", "a"));
+        graph.addMethodCalls("b", List.of("c"));
+        CompactCallGraph compactGraph = graph.getCompactGraph();
+
+        Graph<String, DefaultEdge> view = compactGraph.asGraph();
+        assertThat(view.vertexSet()).containsExactlyInAnyOrder("a", "b", "c");
+        assertThat(view.edgeSet()).hasSize(3);
+        assertThat(view.containsEdge("a", "a")).isTrue();
+
+        BitSet ids = new BitSet();
+        ids.set(compactGraph.indexOf("a"));
+        ids.set(compactGraph.indexOf("c"));
+        Graph<String, DefaultEdge> subgraph = compactGraph.toGraph(ids);
+        assertThat(subgraph.vertexSet()).containsExactlyInAnyOrder("a", "c");
+        assertThat(subgraph.edgeSet()).hasSize(1);
+    }
+
+    @Test
+    void testSnapshotIsReplacedAfterAChange() {
+        MethodCallGraph graph = new MethodCallGraph();
+        graph.addMethodCalls("a", List.of("b"));
+        CompactCallGraph snapshot = graph.getCompactGraph();
+
+        graph.addMethodCalls("b", List.of("a"));
+
+        assertThat(graph.getCompactGraph()).isNotSameAs(snapshot);
+        assertThat(calleesOf(snapshot, "b")).isEmpty();
+        assertThat(calleesOf(graph.getCompactGraph(), "b")).containsExactly("a");
+    }
+
+    @Test
+    void testViewBehavesLikeACopyOnTheExamples() throws IOException {
+        for (Path example : StronglyConnectedComponentsTest.examples()) {
+            Graph<String, DefaultEdge> view = AnalysisSession.of(example, LanguageLevel.JAVA_17).getMethodCallGraph().getGraph();
+            Graph<String, DefaultEdge> copy = new DefaultDirectedGraph<>(DefaultEdge.class);
+            Graphs.addGraph(copy, view);
+
+            assertThat(view.vertexSet()).as(example.toString()).isEqualTo(copy.vertexSet());
+            assertThat(view.edgeSet()).as(example.toString()).hasSameSizeAs(copy.edgeSet());
+            for (String vertex : view.vertexSet()) {
+                assertThat(Graphs.successorListOf(view, vertex)).as("%s: %s", example, vertex)
+                        .containsExactlyInAnyOrderElementsOf(Graphs.successorListOf(copy, vertex));
+                assertThat(Graphs.predecessorListOf(view, vertex)).as("%s: %s", example, vertex)
+                        .containsExactlyInAnyOrderElementsOf(Graphs.predecessorListOf(copy, vertex));
+            }
+            assertThat(new CycleDetector<>(view).findCycles()).as(example.toString())
+                    .isEqualTo(new CycleDetector<>(copy).findCycles());
+        }
+    }
+
+    private static List<String> calleesOf(CompactCallGraph graph, String vertex) {
+        int id = graph.indexOf(vertex);
+        List<String> callees = new ArrayList<>();
+        IntStream.range(0, graph.outDegree(id)).forEach(i -> callees.add(graph.vertexOf(graph.successor(id, i))));
+        return callees;
+    }
+}
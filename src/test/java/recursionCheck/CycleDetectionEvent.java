@@ -0,0 +1,34 @@
+package recursionCheck;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for searching a method call graph for cycles. JFR adds the thread and the duration.
+ */
+@Name("astRecursion.CycleDetection") //$NON-NLS-1$
+@Label("Cycle Detection") //$NON-NLS-1$
+@Category({"astRecursion", "Cycle Detection"}) //$NON-NLS-1$ //$NON-NLS-2$
+@Description("Search for the recursive methods of a method call graph") //$NON-NLS-1$
+@StackTrace(false)
+final class CycleDetectionEvent extends Event {
+
+    @Label("Source Root") //$NON-NLS-1$
+    String sourceRoot;
+
+    @Label("Starting Method") //$NON-NLS-1$
+    String startingMethod;
+
+    @Label("Vertices") //$NON-NLS-1$
+    int vertices;
+
+    @Label("Edges") //$NON-NLS-1$
+    int edges;
+
+    @Label("Recursive Methods") //$NON-NLS-1$
+    int recursiveMethods;
+}
@@ -0,0 +1,81 @@
+package recursionCheck;
+
+import analysis.AnalysisSession;
+import analysis.Deadline;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlightRecorderEventsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecursionCheckRecordsItsFilesCallsAndCycles() throws IOException {
+        Path file = write("Solution.java", """
+                package p;
+
+                public class Solution {
+                    public int sum(int n) {
+                        return n == 0 ? 0 : n + sum(n - 1);
+                    }
+                }
+                """);
+        Path recordingFile = directory.resolve("recording.jfr");
+        Set<String> recursiveMethods;
+        try (Recording recording = new Recording()) {
+            recording.enable("astRecursion.ParseFile").withoutThreshold();
+            recording.enable("astRecursion.ResolveCall").withoutThreshold();
+            recording.enable("astRecursion.CycleDetection").withoutThreshold();
+            recording.start();
+            recursiveMethods = RecursionCheck.getRecursiveMethods(AnalysisSession.open(directory, LanguageLevel.JAVA_17, Deadline.none()), null);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+
+        assertThat(recursiveMethods).containsExactly("p.Solution.sum(int)");
+        List<RecordedEvent> parseEvents = eventsOf(events, "astRecursion.ParseFile");
+        assertThat(parseEvents).isNotEmpty().allSatisfy(event -> {
+            assertThat(event.getString("path")).isEqualTo(file.toString());
+            assertThat(event.getBoolean("successful")).isTrue();
+            assertThat(event.getLong("nodes")).isPositive();
+        });
+        List<RecordedEvent> resolveEvents = eventsOf(events, "astRecursion.ResolveCall");
+        assertThat(resolveEvents).hasSize(1);
+        assertThat(resolveEvents.get(0).getString("path")).isEqualTo(file.toString());
+        assertThat(resolveEvents.get(0).getInt("line")).isEqualTo(5);
+        assertThat(resolveEvents.get(0).getString("callSite")).isEqualTo("sum(n - 1)");
+        assertThat(resolveEvents.get(0).getString("outcome")).isEqualTo("p.Solution.sum(int)");
+        List<RecordedEvent> cycleEvents = eventsOf(events, "astRecursion.CycleDetection");
+        assertThat(cycleEvents).hasSize(1);
+        assertThat(cycleEvents.get(0).getString("sourceRoot")).isEqualTo(directory.toAbsolutePath().normalize().toString());
+        assertThat(cycleEvents.get(0).getString("startingMethod")).isNull();
+        assertThat(cycleEvents.get(0).getInt("vertices")).isEqualTo(1);
+        assertThat(cycleEvents.get(0).getInt("edges")).isEqualTo(1);
+        assertThat(cycleEvents.get(0).getInt("recursiveMethods")).isEqualTo(1);
+    }
+
+    private static List<RecordedEvent> eventsOf(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).toList();
+    }
+
+    private Path write(String fileName, String content) throws IOException {
+        Path file = directory.resolve("p").resolve(fileName);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        return file;
+    }
+}
@@ -0,0 +1,44 @@
+package recursionCheck;
+
+import org.apiguardian.api.API;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lambda bodies and method references of the source root by the method of the functional interface they implement.
+ * <p>
+ * A call of a functional interface method may call every lambda body and referenced method which implements it.
+ * Every implementation is added once while the files are visited, so building the index is linear in the size of the
+ * sources and finding the implementations of a call is a single lookup.
+ */
+@API(status = API.Status.INTERNAL)
+public class FunctionalInterfaceIndex {
+
+    private final Map<String, List<String>> implementations = new HashMap<>();
+
+    /**
+     * Add an implementation of a functional interface method
+     *
+     * @param functionalMethod Vertex of the method of the functional interface
+     * @param implementation   Vertex of the lambda body or of the referenced method
+     */
+    public synchronized void add(String functionalMethod, String implementation) {
+        List<String> implementationsOfMethod = implementations.computeIfAbsent(functionalMethod, method -> new ArrayList<>());
+        if (!implementationsOfMethod.contains(implementation)) {
+            implementationsOfMethod.add(implementation);
+        }
+    }
+
+    /**
+     * Get the implementations of a functional interface method
+     *
+     * @param functionalMethod Vertex of the method of the functional interface
+     * @return Vertices of the lambda bodies and referenced methods which implement the method
+     */
+    public synchronized List<String> getImplementations(String functionalMethod) {
+        return List.copyOf(implementations.getOrDefault(functionalMethod, List.of()));
+    }
+}
@@ -0,0 +1,120 @@
+package recursionCheck;
+
+import analysis.AnalysisSession;
+import analysis.Deadline;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FunctionalInterfaceIndexTest {
+
+    private static final String STEP = """
+            package p;
+
+            public interface Step {
+                void run(int n);
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testImplementationsAreAddedOnce() {
+        FunctionalInterfaceIndex functionalInterfaceIndex = new FunctionalInterfaceIndex();
+        functionalInterfaceIndex.add("p.Step.run(int)", "p.Loop.lambda$start$0(int)");
+        functionalInterfaceIndex.add("p.Step.run(int)", "p.Loop.start(int)");
+        functionalInterfaceIndex.add("p.Step.run(int)", "p.Loop.lambda$start$0(int)");
+
+        assertThat(functionalInterfaceIndex.getImplementations("p.Step.run(int)"))
+                .containsExactly("p.Loop.lambda$start$0(int)", "p.Loop.start(int)");
+        assertThat(functionalInterfaceIndex.getImplementations("p.Other.run(int)")).isEmpty();
+    }
+
+    @Test
+    void testRecursionThroughALambdaIsDetected() throws IOException {
+        write("Step.java", STEP);
+        write("Loop.java", """
+                package p;
+
+                public class Loop {
+                    public void start(int n) {
+                        Step step = k -> start(k - 1);
+                        step.run(n);
+                    }
+                }
+                """);
+
+        assertThat(recursiveMethods()).contains("p.Loop.start(int)", "p.Loop.lambda$start$0(int)");
+    }
+
+    @Test
+    void testRecursionThroughAMethodReferenceIsDetected() throws IOException {
+        write("Step.java", STEP);
+        write("Loop.java", """
+                package p;
+
+                public class Loop {
+                    public void start(int n) {
+                        Step step = this::start;
+                        step.run(n - 1);
+                    }
+                }
+                """);
+
+        assertThat(recursiveMethods()).contains("p.Loop.start(int)");
+    }
+
+    @Test
+    void testRecursionThroughALibraryFunctionalInterfaceIsDetected() throws IOException {
+        write("Loop.java", """
+                package p;
+
+                public class Loop {
+                    public void start() {
+                        Runnable again = () -> start();
+                        again.run();
+                    }
+                }
+                """);
+
+        assertThat(recursiveMethods()).contains("p.Loop.start()");
+    }
+
+    @Test
+    void testLambdaWhichIsNotCalledRecursivelyIsNoCycle() throws IOException {
+        write("Step.java", STEP);
+        write("Loop.java", """
+                package p;
+
+                public class Loop {
+                    public void start(int n) {
+                        Step step = k -> stop(k);
+                        step.run(n);
+                    }
+
+                    public void stop(int n) {
+                    }
+                }
+                """);
+
+        assertThat(recursiveMethods()).isEmpty();
+    }
+
+    private Set<String> recursiveMethods() {
+        return RecursionCheck.getRecursiveMethods(AnalysisSession.open(directory, LanguageLevel.JAVA_17, Deadline.none()), null);
+    }
+
+    private void write(String fileName, String content) throws IOException {
+        Path file = directory.resolve("p").resolve(fileName);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
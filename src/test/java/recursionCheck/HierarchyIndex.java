@@ -0,0 +1,192 @@
+package recursionCheck;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.types.ResolvedReferenceType;
+import org.apiguardian.api.API;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Class hierarchy of the source root, which finds the methods a virtual call may dispatch to. Anonymous classes are
+ * subtypes of the class or interface they implement.
+ * <p>
+ * A call of an overridable method may also call every method which overrides it in a subtype of its declaring type
+ * (class hierarchy analysis). If {@code astRecursion.dispatch.instantiatedTypesOnly} is set, an override is only a
+ * target if a type which inherits it is instantiated somewhere in the source root (rapid type analysis), which
+ * leaves out overrides of classes that are never created.
+ * <p>
+ * The subtypes are computed once, on the first lookup after the last type was added, and the targets of every
+ * called method are memoized, so an index can be shared by all method call graphs of a session.
+ */
+@API(status = API.Status.INTERNAL)
+public class HierarchyIndex {
+
+    private static final boolean INSTANTIATED_TYPES_ONLY = Boolean.getBoolean("astRecursion.dispatch.instantiatedTypesOnly"); //$NON-NLS-1$
+
+    private final Map<String, DeclaredType> types = new HashMap<>();
+
+    private final Set<String> instantiatedTypes = new HashSet<>();
+
+    private Map<String, List<String>> subtypes;
+
+    private final Map<String, List<String>> dispatchTargets = new HashMap<>();
+
+    /**
+     * A named type of the source root
+     *
+     * @param name                Fully qualified name of the type
+     * @param supertypes          Fully qualified names of the direct supertypes
+     * @param overridableMethods  Names and erased parameter types of the instance methods which are not private,
+     *                            e.g. {@code sum(int, java.util.List)}
+     */
+    public record DeclaredType(String name, List<String> supertypes, List<String> overridableMethods) {
+    }
+
+    /**
+     * Add types of the source root
+     *
+     * @param declaredTypes Declared types
+     * @param instantiated  Fully qualified names of the types created with {@code new}
+     */
+    public synchronized void add(Collection<DeclaredType> declaredTypes, Collection<String> instantiated) {
+        declaredTypes.forEach(type -> types.put(type.name(), type));
+        instantiatedTypes.addAll(instantiated);
+        subtypes = null;
+        dispatchTargets.clear();
+    }
+
+    /**
+     * Get the methods a virtual call of the given method may dispatch to, besides the method itself
+     *
+     * @param callee Vertex of the statically resolved method
+     * @return Vertices of the overriding methods
+     */
+    public synchronized List<String> getDispatchTargets(String callee) {
+        List<String> targets = dispatchTargets.get(callee);
+        if (targets == null) {
+            targets = findDispatchTargets(callee);
+            dispatchTargets.put(callee, targets);
+        }
+        return targets;
+    }
+
+    private List<String> findDispatchTargets(String callee) {
+        int parameterStart = callee.indexOf('(');
+        int nameStart = callee.lastIndexOf('.', parameterStart < 0 ? callee.length() : parameterStart);
+        if (nameStart < 0) {
+            return List.of();
+        }
+        if (subtypes == null) {
+            subtypes = new HashMap<>();
+            types.values().forEach(type -> type.supertypes().forEach(supertype ->
+                    subtypes.computeIfAbsent(supertype, s -> new ArrayList<>()).add(type.name())));
+        }
+        String declaringType = callee.substring(0, nameStart);
+        Set<String> targets = new LinkedHashSet<>();
+        collectDispatchTargets(declaringType, callee.substring(nameStart + 1), callee, new HashSet<>(), targets);
+        targets.remove(callee);
+        return List.copyOf(targets);
+    }
+
+    /**
+     * Walks the subtypes of the given type, keeping track of the most specific declaration of the method
+     */
+    private void collectDispatchTargets(String type, String method, String implementation, Set<String> visited, Set<String> targets) {
+        for (String subtype : subtypes.getOrDefault(type, List.of())) {
+            if (!visited.add(subtype)) {
+                continue;
+            }
+            String subtypeImplementation = types.get(subtype).overridableMethods().contains(method)
+                    ? subtype + "." + method : implementation; //$NON-NLS-1$
+            if (!INSTANTIATED_TYPES_ONLY || instantiatedTypes.contains(subtype)) {
+                targets.add(subtypeImplementation);
+            }
+            collectDispatchTargets(subtype, method, subtypeImplementation, visited, targets);
+        }
+    }
+
+    /**
+     * Get the named types and anonymous classes of a CompilationUnit, which has to be parsed with a symbol resolver
+     *
+     * @param compilationUnit CompilationUnit to index
+     * @return Named types in the order of their declarations, followed by the anonymous classes
+     */
+    public static List<DeclaredType> declaredTypesOf(CompilationUnit compilationUnit) {
+        List<DeclaredType> declaredTypes = new ArrayList<>();
+        for (TypeDeclaration<?> typeDeclaration : compilationUnit.findAll(TypeDeclaration.class)) {
+            typeDeclaration.getFullyQualifiedName().ifPresent(name -> declaredTypes.add(
+                    new DeclaredType(name, getSupertypes(typeDeclaration), getOverridableMethods(name, typeDeclaration.getMethods()))));
+        }
+        for (ObjectCreationExpr objectCreation : compilationUnit.findAll(ObjectCreationExpr.class)) {
+            objectCreation.getAnonymousClassBody().ifPresent(body -> {
+                String name = Signatures.ofAnonymousClass(objectCreation);
+                List<MethodDeclaration> methods = body.stream().filter(MethodDeclaration.class::isInstance)
+                        .map(MethodDeclaration.class::cast).toList();
+                declaredTypes.add(new DeclaredType(name, getSupertype(objectCreation).stream().toList(),
+                        getOverridableMethods(name, methods)));
+            });
+        }
+        return declaredTypes;
+    }
+
+    private static List<String> getOverridableMethods(String typeName, List<MethodDeclaration> methods) {
+        List<String> overridableMethods = new ArrayList<>();
+        for (MethodDeclaration method : methods) {
+            if (!method.isStatic() && !method.isPrivate()) {
+                overridableMethods.add(Signatures.of(method.resolve()).substring(typeName.length() + 1));
+            }
+        }
+        return overridableMethods;
+    }
+
+    private static List<String> getSupertypes(TypeDeclaration<?> typeDeclaration) {
+        try {
+            return typeDeclaration.resolve().getAncestors(true).stream().map(ResolvedReferenceType::getQualifiedName).toList();
+        } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
+            // Overrides in types with unknown supertypes cannot be told apart from unrelated methods
+            return List.of();
+        }
+    }
+
+    /**
+     * Get the class or interface which is implemented by an anonymous class or instantiated by {@code new}
+     */
+    private static Optional<String> getSupertype(ObjectCreationExpr objectCreation) {
+        try {
+            return Optional.of(objectCreation.getType().resolve().asReferenceType().getQualifiedName());
+        } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
+            // Types which cannot be resolved are not part of the source root
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Get the types which are instantiated in a CompilationUnit, which has to be parsed with a symbol resolver
+     *
+     * @param compilationUnit CompilationUnit to index
+     * @return Fully qualified names of the types created with {@code new}, or the names of the anonymous classes
+     */
+    public static List<String> instantiatedTypesOf(CompilationUnit compilationUnit) {
+        Set<String> instantiated = new LinkedHashSet<>();
+        for (ObjectCreationExpr objectCreation : compilationUnit.findAll(ObjectCreationExpr.class)) {
+            if (objectCreation.getAnonymousClassBody().isPresent()) {
+                instantiated.add(Signatures.ofAnonymousClass(objectCreation));
+            } else {
+                getSupertype(objectCreation).ifPresent(instantiated::add);
+            }
+        }
+        return List.copyOf(instantiated);
+    }
+}
@@ -0,0 +1,87 @@
+package recursionCheck;
+
+import analysis.AnalysisSession;
+import analysis.Deadline;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import recursionCheck.HierarchyIndex.DeclaredType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HierarchyIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testDispatchTargetsAreTheMostSpecificOverrides() {
+        HierarchyIndex hierarchyIndex = new HierarchyIndex();
+        hierarchyIndex.add(List.of(
+                new DeclaredType("p.Animal", List.of(), List.of("speak()")),
+                new DeclaredType("p.Dog", List.of("p.Animal"), List.of("speak()", "fetch()")),
+                new DeclaredType("p.Puppy", List.of("p.Dog"), List.of()),
+                new DeclaredType("p.Cat", List.of("p.Animal"), List.of("speak()")),
+                new DeclaredType("p.Rock", List.of(), List.of("speak()"))), List.of());
+
+        assertThat(hierarchyIndex.getDispatchTargets("p.Animal.speak()")).containsExactlyInAnyOrder("p.Dog.speak()", "p.Cat.speak()");
+        assertThat(hierarchyIndex.getDispatchTargets("p.Dog.speak()")).isEmpty();
+        assertThat(hierarchyIndex.getDispatchTargets("p.Dog.fetch()")).isEmpty();
+        assertThat(hierarchyIndex.getDispatchTargets("p.Rock.speak()")).isEmpty();
+    }
+
+    @Test
+    void testRecursionThroughAnOverrideIsDetected() throws IOException {
+        write("Animal.java", """
+                package p;
+
+                public interface Animal {
+                    void speak();
+                }
+                """);
+        write("Dog.java", """
+                package p;
+
+                public class Dog implements Animal {
+                    @Override
+                    public void speak() {
+                        new Trainer().train(this);
+                    }
+                }
+                """);
+        write("Cat.java", """
+                package p;
+
+                public class Cat implements Animal {
+                    @Override
+                    public void speak() {
+                    }
+                }
+                """);
+        write("Trainer.java", """
+                package p;
+
+                public class Trainer {
+                    public void train(Animal animal) {
+                        animal.speak();
+                    }
+                }
+                """);
+        AnalysisSession session = AnalysisSession.open(directory, LanguageLevel.JAVA_17, Deadline.none());
+
+        assertThat(RecursionCheck.getRecursiveMethods(session, null)).containsExactlyInAnyOrder("p.Dog.speak()", "p.Trainer.train(p.Animal)");
+        assertThat(session.getMethodCallGraph().getGraph().containsEdge("p.Trainer.train(p.Animal)", "p.Dog.speak()")).isTrue();
+        assertThat(session.getMethodCallGraph().getGraph().containsEdge("p.Trainer.train(p.Animal)", "p.Cat.speak()")).isTrue();
+    }
+
+    private void write(String fileName, String content) throws IOException {
+        Path file = directory.resolve("p").resolve(fileName);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,178 @@
+package recursionCheck;
+
+import org.apiguardian.api.API;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static recursionCheck.RecursionCheck.getIdentifierOfMethod;
+
+/**
+ * Method call graph whose edges are attributed to the files they were found in, so that the calls of a single file
+ * can be replaced without touching the rest of the graph.
+ * <p>
+ * Every edge is counted once per file that contains it and is only dropped when no file contains it anymore.
+ * Vertex ids are stable for the lifetime of the graph. The recursive methods are kept up to date incrementally:
+ * only the strongly connected components which contain an endpoint of an added or removed edge are computed again.
+ * Any component whose methods are not connected to a changed edge keeps its cycles, so its verdict cannot change.
+ */
+@API(status = API.Status.INTERNAL)
+public class IncrementalCallGraph {
+
+    private static final Object DISPATCH_EDGES = new Object();
+
+    private final SymbolTable symbols = new SymbolTable();
+
+    /**
+     * Edges by the file they were found in, or by {@link #DISPATCH_EDGES} for the edges of virtual dispatch
+     */
+    private final Map<Object, long[]> edgesByContributor = new HashMap<>();
+
+    private final Map<Long, Integer> edgeCounts = new LinkedHashMap<>();
+
+    /**
+     * Endpoints of the edges which were added or removed since the recursive components were last updated
+     */
+    private final BitSet touchedVertices = new BitSet();
+
+    private final Map<Integer, int[]> recursiveComponentOfVertex = new HashMap<>();
+
+    private final String[] excludedMethodIdentifiers;
+
+    private CompactCallGraph compactGraph;
+
+    public IncrementalCallGraph(Method... excludedMethods) {
+        this.excludedMethodIdentifiers = new String[excludedMethods.length];
+        for (int i = 0; i < excludedMethods.length; i++) {
+            Method m = excludedMethods[i];
+            this.excludedMethodIdentifiers[i] = m != null ? getIdentifierOfMethod(m) : null;
+        }
+    }
+
+    /**
+     * Replace all method calls of a file, unless the calling method is excluded
+     *
+     * @param file            File the calls were found in
+     * @param calleesByMethod Vertices of the methods declared in the file and the vertices of the methods they call,
+     *                        or an empty map if the file was removed
+     */
+    public synchronized void replaceMethodCalls(Path file, Map<String, List<String>> calleesByMethod) {
+        replaceEdges(file, calleesByMethod);
+    }
+
+    /**
+     * Replace the edges from the callers of virtual calls to the overrides of the called methods, which depend on the
+     * hierarchy of all files
+     *
+     * @param overridesByMethod Vertices of the calling methods and the vertices of the overrides they may call
+     */
+    public synchronized void replaceDispatchCalls(Map<String, List<String>> overridesByMethod) {
+        replaceEdges(DISPATCH_EDGES, overridesByMethod);
+    }
+
+    /**
+     * Edges which are contained both before and after the change are not touched, since their count never drops to 0
+     */
+    private void replaceEdges(Object contributor, Map<String, List<String>> calleesByMethod) {
+        Set<Long> edges = new LinkedHashSet<>();
+        calleesByMethod.forEach((method, callees) -> {
+            if (isExcluded(method)) {
+                return;
+            }
+            long source = symbols.intern(method);
+            for (String callee : callees) {
+                edges.add(source << 32 | symbols.intern(callee));
+            }
+        });
+        for (long edge : edges) {
+            if (edgeCounts.merge(edge, 1, Integer::sum) == 1) {
+                touch(edge);
+            }
+        }
+        long[] previousEdges = edges.isEmpty() ? edgesByContributor.remove(contributor)
+                : edgesByContributor.put(contributor, edges.stream().mapToLong(Long::longValue).toArray());
+        if (previousEdges != null) {
+            for (long edge : previousEdges) {
+                if (edgeCounts.merge(edge, -1, Integer::sum) == 0) {
+                    edgeCounts.remove(edge);
+                    touch(edge);
+                }
+            }
+        }
+    }
+
+    private void touch(long edge) {
+        touchedVertices.set((int) (edge >>> 32));
+        touchedVertices.set((int) edge);
+        compactGraph = null;
+    }
+
+    private boolean isExcluded(String vertex) {
+        for (String excludedIdentifier : excludedMethodIdentifiers) {
+            if (vertex.equals(excludedIdentifier)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the immutable snapshot of the graph
+     *
+     * @return Graph with the method calls of all current files
+     */
+    public synchronized CompactCallGraph getCompactGraph() {
+        if (compactGraph == null) {
+            int[] edgeSources = new int[edgeCounts.size()];
+            int[] edgeTargets = new int[edgeCounts.size()];
+            int edgeCount = 0;
+            for (long edge : edgeCounts.keySet()) {
+                edgeSources[edgeCount] = (int) (edge >>> 32);
+                edgeTargets[edgeCount] = (int) edge;
+                edgeCount++;
+            }
+            compactGraph = CompactCallGraph.of(symbols, edgeSources, edgeTargets, edgeCount);
+        }
+        return compactGraph;
+    }
+
+    /**
+     * Get all methods which are part of a cycle, updating only the components touched by the changes since the
+     * last call
+     *
+     * @return Vertices of the recursive methods in the order in which they were first added
+     */
+    public synchronized Set<String> getRecursiveMethods() {
+        if (!touchedVertices.isEmpty()) {
+            BitSet roots = new BitSet();
+            roots.or(touchedVertices);
+            // A touched component may have been split up, so all of its methods are checked again
+            touchedVertices.stream().forEach(vertex -> {
+                int[] component = recursiveComponentOfVertex.get(vertex);
+                if (component != null) {
+                    for (int member : component) {
+                        roots.set(member);
+                        recursiveComponentOfVertex.remove(member);
+                    }
+                }
+            });
+            for (int[] component : StronglyConnectedComponents.findRecursiveComponents(getCompactGraph(), roots.stream().toArray())) {
+                for (int member : component) {
+                    recursiveComponentOfVertex.put(member, component);
+                }
+            }
+            touchedVertices.clear();
+        }
+        Set<String> recursiveMethods = new LinkedHashSet<>();
+        new TreeSet<>(recursiveComponentOfVertex.keySet()).forEach(vertex -> recursiveMethods.add(symbols.symbolOf(vertex)));
+        return recursiveMethods;
+    }
+}
@@ -0,0 +1,135 @@
+package recursionCheck;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IncrementalCallGraphTest {
+
+    private static final Path FIRST = Path.of("First.java");
+
+    private static final Path SECOND = Path.of("Second.java");
+
+    @Test
+    void testEditAddAndDeleteFiles() {
+        IncrementalCallGraph graph = new IncrementalCallGraph();
+        graph.replaceMethodCalls(FIRST, Map.of("a", List.of("b")));
+        assertThat(graph.getRecursiveMethods()).isEmpty();
+
+        graph.replaceMethodCalls(SECOND, Map.of("b", List.of("a")));
+        assertThat(graph.getRecursiveMethods()).containsExactlyInAnyOrder("a", "b");
+
+        graph.replaceMethodCalls(FIRST, Map.of("a", List.of("c")));
+        assertThat(graph.getRecursiveMethods()).isEmpty();
+
+        graph.replaceMethodCalls(FIRST, Map.of("a", List.of("b", "a")));
+        assertThat(graph.getRecursiveMethods()).containsExactlyInAnyOrder("a", "b");
+
+        graph.replaceMethodCalls(SECOND, Map.of());
+        assertThat(graph.getRecursiveMethods()).containsExactly("a");
+    }
+
+    @Test
+    void testEdgeOfTwoFilesIsKeptUntilBothDropIt() {
+        IncrementalCallGraph graph = new IncrementalCallGraph();
+        graph.replaceMethodCalls(FIRST, Map.of("a", List.of("b"), "b", List.of("a")));
+        graph.replaceMethodCalls(SECOND, Map.of("b", List.of("a")));
+        assertThat(graph.getRecursiveMethods()).containsExactlyInAnyOrder("a", "b");
+
+        graph.replaceMethodCalls(FIRST, Map.of("a", List.of("b")));
+        assertThat(graph.getRecursiveMethods()).containsExactlyInAnyOrder("a", "b");
+
+        graph.replaceMethodCalls(SECOND, Map.of());
+        assertThat(graph.getRecursiveMethods()).isEmpty();
+    }
+
+    @Test
+    void testDispatchCallsAreReplacedOnTheirOwn() {
+        IncrementalCallGraph graph = new IncrementalCallGraph();
+        graph.replaceMethodCalls(FIRST, Map.of("a", List.of("b")));
+        graph.replaceDispatchCalls(Map.of("b", List.of("a")));
+        assertThat(graph.getRecursiveMethods()).containsExactlyInAnyOrder("a", "b");
+
+        graph.replaceMethodCalls(FIRST, Map.of("a", List.of("b")));
+        assertThat(graph.getRecursiveMethods()).containsExactlyInAnyOrder("a", "b");
+
+        graph.replaceDispatchCalls(Map.of());
+        assertThat(graph.getRecursiveMethods()).isEmpty();
+    }
+
+    @Test
+    void testCallsOfExcludedMethodsAreIgnored() throws NoSuchMethodException {
+        Method excludedMethod = IncrementalCallGraphTest.class.getDeclaredMethod("excluded");
+        String excluded = RecursionCheck.getIdentifierOfMethod(excludedMethod);
+        IncrementalCallGraph graph = new IncrementalCallGraph(excludedMethod);
+
+        graph.replaceMethodCalls(FIRST, Map.of("a", List.of(excluded), excluded, List.of("a")));
+
+        assertThat(graph.getRecursiveMethods()).isEmpty();
+    }
+
+    @Test
+    void testSameRecursiveMethodsAsFullRebuild() {
+        Random random = new Random(7);
+        for (int run = 0; run < 50; run++) {
+            IncrementalCallGraph graph = new IncrementalCallGraph();
+            Map<Path, Map<String, List<String>>> files = new HashMap<>();
+            for (int change = 0; change < 40; change++) {
+                Path file = Path.of("F" + random.nextInt(5) + ".java");
+                Map<String, List<String>> calleesByMethod = random.nextInt(4) == 0 ? Map.of() : randomCalls(random);
+                if (calleesByMethod.isEmpty()) {
+                    files.remove(file);
+                } else {
+                    files.put(file, calleesByMethod);
+                }
+
+                graph.replaceMethodCalls(file, calleesByMethod);
+
+                assertThat(graph.getRecursiveMethods()).as("run %d, change %d", run, change)
+                        .isEqualTo(rebuild(files));
+            }
+        }
+    }
+
+    @Test
+    void testRecursiveMethodsOfAllFiles() {
+        IncrementalCallGraph graph = new IncrementalCallGraph();
+        graph.replaceMethodCalls(FIRST, Map.of("a", List.of("b"), "c", List.of("c")));
+        graph.replaceMethodCalls(SECOND, Map.of("b", List.of("a", "d")));
+
+        Set<String> recursiveMethods = StronglyConnectedComponentsTest.recursiveMethods(graph.getCompactGraph());
+
+        assertThat(graph.getRecursiveMethods()).isEqualTo(recursiveMethods).containsExactlyInAnyOrder("a", "b", "c");
+    }
+
+    private static Map<String, List<String>> randomCalls(Random random) {
+        Map<String, List<String>> calleesByMethod = new HashMap<>();
+        for (int method = random.nextInt(3); method >= 0; method--) {
+            List<String> callees = new ArrayList<>();
+            for (int callee = random.nextInt(3); callee >= 0; callee--) {
+                callees.add("m" + random.nextInt(8));
+            }
+            calleesByMethod.put("m" + random.nextInt(8), callees);
+        }
+        return calleesByMethod;
+    }
+
+    private static Set<String> rebuild(Map<Path, Map<String, List<String>>> files) {
+        MethodCallGraph graph = new MethodCallGraph();
+        files.values().forEach(calleesByMethod -> calleesByMethod.forEach(graph::addMethodCalls));
+        return StronglyConnectedComponentsTest.recursiveMethods(graph.getCompactGraph());
+    }
+
+    @SuppressWarnings("unused")
+    private static void excluded() {
+    }
+}
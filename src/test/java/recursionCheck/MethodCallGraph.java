@@ -1,38 +1,101 @@
 package recursionCheck;
 
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.expr.MethodCallExpr;
-import com.github.javaparser.ast.nodeTypes.NodeWithType;
 import org.apiguardian.api.API;
 import org.jgrapht.Graph;
-import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.traverse.DepthFirstIterator;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
-import static recursionCheck.RecursionCheck.getParametersOfMethod;
+import static recursionCheck.RecursionCheck.getIdentifierOfMethod;
 
 /**
- * Create a graph of method calls from a CompilationUnit
+ * Create a graph of method calls from a CompilationUnit, in which a virtual call also calls every override of the
+ * called method found by the {@link HierarchyIndex} and every lambda body and method reference implementing it found by
+ * the {@link FunctionalInterfaceIndex}
  */
 @API(status = API.Status.INTERNAL)
 public class MethodCallGraph {
-    private final Graph<String, DefaultEdge> graph;
+    private final SymbolTable symbols = new SymbolTable();
+
+    private int[] edgeSources = new int[16];
+
+    private int[] edgeTargets = new int[16];
+
+    private int edgeCount;
+
+    private int[] virtualCallSources = new int[16];
+
+    private int[] virtualCallTargets = new int[16];
+
+    private int virtualCallCount;
+
+    /**
+     * Finds the overrides of virtually called methods, whose edges are added to the snapshot
+     */
+    private final HierarchyIndex hierarchyIndex;
+
+    /**
+     * Finds the implementations of virtually called functional interface methods
+     */
+    private final FunctionalInterfaceIndex functionalInterfaceIndex;
+
+    /**
+     * Whether the types and lambdas of the graph are added to its indexes by {@link #createGraph(CompilationUnit)}
+     */
+    private final boolean ownsIndexes;
+
+    /**
+     * Immutable snapshot of the graph, which is created on the first query after the last change
+     */
+    private volatile CompactCallGraph compactGraph;
 
     private final String[] excludedMethodIdentifiers;
 
+    private final CallSiteResolver callSiteResolver = new CallSiteResolver();
+
+    /**
+     * Detects cycles while the graph is built, once enabled by {@link #detectCyclesWhileBuilding(String)}
+     */
+    private OnlineCycleDetector cycleDetector;
+
+    /**
+     * Vertex of the starting method of the cycle detection, until it has been added to the graph
+     */
+    private String pendingStartVertex;
+
+    private final Set<Long> detectedDispatchEdges = new HashSet<>();
+
+    private int compilationUnitCount;
+
     public MethodCallGraph(Method... excludedMethods) {
-        this.graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        this(new HierarchyIndex(), new FunctionalInterfaceIndex(), true, excludedMethods);
+    }
+
+    /**
+     * @param hierarchyIndex           Hierarchy of all types of the source root, which may be shared with other graphs
+     * @param functionalInterfaceIndex Lambdas and method references of the source root, which may be shared with
+     *                                 other graphs
+     * @param excludedMethods          Methods to exclude from the graph
+     */
+    public MethodCallGraph(HierarchyIndex hierarchyIndex, FunctionalInterfaceIndex functionalInterfaceIndex, Method... excludedMethods) {
+        this(hierarchyIndex, functionalInterfaceIndex, false, excludedMethods);
+    }
+
+    private MethodCallGraph(HierarchyIndex hierarchyIndex, FunctionalInterfaceIndex functionalInterfaceIndex,
+                            boolean ownsIndexes, Method... excludedMethods) {
+        this.hierarchyIndex = hierarchyIndex;
+        this.functionalInterfaceIndex = functionalInterfaceIndex;
+        this.ownsIndexes = ownsIndexes;
         this.excludedMethodIdentifiers = new String[excludedMethods.length];
         for (int i = 0; i < excludedMethods.length; i++) {
             Method m = excludedMethods[i];
-            this.excludedMethodIdentifiers[i] = m != null ? m.getDeclaringClass().getName() + "." + m.getName() + getParametersOfMethod(m) : null;
+            this.excludedMethodIdentifiers[i] = m != null ? getIdentifierOfMethod(m) : null;
         }
     }
 
@@ -41,67 +104,219 @@ public class MethodCallGraph {
      * @param cu CompilationUnit to be parsed
      */
     public void createGraph(CompilationUnit cu) {
-        cu.accept(new VisitorAdapter(graph, excludedMethodIdentifiers), null);
+        if (ownsIndexes) {
+            hierarchyIndex.add(HierarchyIndex.declaredTypesOf(cu), HierarchyIndex.instantiatedTypesOf(cu));
+            cu.accept(new VisitorAdapter(callSiteResolver, this::addMethodCalls, functionalInterfaceIndex::add), null);
+        } else {
+            cu.accept(new VisitorAdapter(callSiteResolver, this::addMethodCalls), null);
+        }
+        compilationUnitAdded();
     }
 
     /**
-     * Extract a subgraph from the given graph starting from the given vertex
-     * @param startVertex Vertex to start the extraction from
-     * @return Subgraph of the given graph
+     * Detect cycles while the graph is built, so that a cycle is found as soon as the edge which closes it has been
+     * added. The edges of virtual calls depend on the hierarchy of all files, so they are only added after the 1st,
+     * 2nd, 4th, 8th, ... compilation unit and by {@link #completeCycleDetection()}, which keeps the work for them
+     * logarithmic in the number of files.
+     *
+     * @param startVertex Vertex of the method from which a cycle must be reachable, or {@code null} for any cycle
      */
-    public Graph<String, DefaultEdge> extractSubgraph(String startVertex) {
-        DefaultDirectedGraph<String, DefaultEdge> subgraph = new DefaultDirectedGraph<>(null, graph.getEdgeSupplier(), false);
+    public synchronized void detectCyclesWhileBuilding(String startVertex) {
+        cycleDetector = new OnlineCycleDetector(startVertex == null);
+        pendingStartVertex = startVertex;
+        for (int i = 0; i < edgeCount; i++) {
+            cycleDetector.addEdge(edgeSources[i], edgeTargets[i]);
+        }
+        addDispatchEdgesToCycleDetection();
+    }
+
+    /**
+     * Add the edges of all virtual calls to the cycle detection, after the last compilation unit has been added
+     *
+     * @throws IllegalArgumentException If the graph does not contain the starting method of the cycle detection
+     */
+    public synchronized void completeCycleDetection() {
+        addDispatchEdgesToCycleDetection();
+        if (pendingStartVertex != null) {
+            throw new IllegalArgumentException("graph must contain the start vertex"); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Get the first cycle found while the graph was built. Once {@link #completeCycleDetection()} has been called,
+     * no cycle is found if and only if the complete graph has no cycle (reachable from the starting method).
+     *
+     * @return Vertices of the methods of the cycle in the order in which they call each other, or an empty list if
+     * no cycle has been found
+     */
+    public synchronized List<String> getFirstCycle() {
+        int[] cycle = cycleDetector != null ? cycleDetector.getFirstCycle() : null;
+        return cycle == null ? List.of() : Arrays.stream(cycle).mapToObj(symbols::symbolOf).toList();
+    }
 
-        // Set to keep track of visited vertices
-        Set<String> visited = new HashSet<>();
+    private synchronized void compilationUnitAdded() {
+        compilationUnitCount++;
+        if (cycleDetector != null && Integer.bitCount(compilationUnitCount) == 1) {
+            addDispatchEdgesToCycleDetection();
+        }
+    }
+
+    private void addDispatchEdgesToCycleDetection() {
+        for (int i = 0; i < virtualCallCount; i++) {
+            for (String dispatchTarget : getDispatchTargets(symbols.symbolOf(virtualCallTargets[i]))) {
+                int target = symbols.intern(dispatchTarget);
+                if (detectedDispatchEdges.add((long) virtualCallSources[i] << 32 | target)) {
+                    cycleDetector.addEdge(virtualCallSources[i], target);
+                }
+            }
+        }
+        addStartVertexToCycleDetection();
+    }
+
+    private void addStartVertexToCycleDetection() {
+        if (pendingStartVertex != null) {
+            int start = symbols.indexOf(pendingStartVertex);
+            if (start >= 0) {
+                cycleDetector.addRoot(start);
+                pendingStartVertex = null;
+            }
+        }
+    }
+
+    /**
+     * Add a method and the methods it calls to the graph, unless the method is excluded
+     * @param vertexName Vertex of the calling method
+     * @param calleeVertexNames Vertices of the called methods
+     */
+    public void addMethodCalls(String vertexName, List<String> calleeVertexNames) {
+        addMethodCalls(vertexName, calleeVertexNames, List.of());
+    }
+
+    /**
+     * Add a method and the methods it calls to the graph, unless the method is excluded. The overrides of the
+     * virtually called methods are looked up when the snapshot is created, once the hierarchy is complete.
+     * @param vertexName Vertex of the calling method
+     * @param calleeVertexNames Vertices of the called methods
+     * @param virtualCalleeVertexNames Vertices of the virtually called methods
+     */
+    public synchronized void addMethodCalls(String vertexName, List<String> calleeVertexNames, List<String> virtualCalleeVertexNames) {
+        if (isExcluded(vertexName)) {
+            return;
+        }
+        int vertex = symbols.intern(vertexName);
+        for (String calleeVertexName : calleeVertexNames) {
+            addEdge(vertex, symbols.intern(calleeVertexName));
+        }
+        for (String virtualCalleeVertexName : virtualCalleeVertexNames) {
+            addVirtualCall(vertex, symbols.intern(virtualCalleeVertexName));
+        }
+        if (cycleDetector != null) {
+            addStartVertexToCycleDetection();
+        }
+        compactGraph = null;
+    }
 
-        // Initialize DepthFirstIterator
-        Iterator<String> iterator = new DepthFirstIterator<>(graph, startVertex);
+    private void addEdge(int source, int target) {
+        if (edgeCount == edgeSources.length) {
+            edgeSources = Arrays.copyOf(edgeSources, 2 * edgeCount);
+            edgeTargets = Arrays.copyOf(edgeTargets, 2 * edgeCount);
+        }
+        edgeSources[edgeCount] = source;
+        edgeTargets[edgeCount] = target;
+        edgeCount++;
+        if (cycleDetector != null) {
+            cycleDetector.addEdge(source, target);
+        }
+    }
 
-        // Add start vertex to subgraph
-        subgraph.addVertex(startVertex);
-        visited.add(startVertex);
+    private void addVirtualCall(int source, int target) {
+        if (virtualCallCount == virtualCallSources.length) {
+            virtualCallSources = Arrays.copyOf(virtualCallSources, 2 * virtualCallCount);
+            virtualCallTargets = Arrays.copyOf(virtualCallTargets, 2 * virtualCallCount);
+        }
+        virtualCallSources[virtualCallCount] = source;
+        virtualCallTargets[virtualCallCount] = target;
+        virtualCallCount++;
+    }
 
-        // Iterate through the graph
-        while (iterator.hasNext()) {
-            String vertex = iterator.next();
-            // Add vertex to subgraph if not already visited
-            if (!visited.contains(vertex)) {
-                subgraph.addVertex(vertex);
-                visited.add(vertex);
+    /**
+     * Check if the given vertex is excluded from the cycle check
+     * @param vertex Vertex to check
+     * @return True if the vertex is excluded, false otherwise
+     */
+    private boolean isExcluded(String vertex) {
+        for (String excludedIdentifier : excludedMethodIdentifiers) {
+            if (vertex.equals(excludedIdentifier)) {
+                return true;
             }
-            // Add edges to subgraph
-            graph.edgesOf(vertex).forEach(edge -> {
-                String source = graph.getEdgeSource(edge);
-                String target = graph.getEdgeTarget(edge);
-                if (visited.contains(source) && visited.contains(target)) {
-                    subgraph.addEdge(source, target);
-                }
-            });
         }
+        return false;
+    }
 
-        return subgraph;
+    /**
+     * Get the immutable snapshot of the graph
+     * @return Graph with all method calls added so far
+     */
+    public CompactCallGraph getCompactGraph() {
+        CompactCallGraph snapshot = compactGraph;
+        if (snapshot == null) {
+            synchronized (this) {
+                if (compactGraph == null) {
+                    compactGraph = createCompactGraph();
+                }
+                snapshot = compactGraph;
+            }
+        }
+        return snapshot;
     }
 
     /**
-     * Get the parameter types of a method
-     * @param md MethodDeclaration to get the parameter types from
-     * @return String of parameter types
+     * Adds an edge from the caller of every virtual call to every override and every implementing lambda body or
+     * method reference of the called method, after the edges of the calls themselves
      */
-    public static String getParameterTypes(MethodDeclaration md) {
-        return "(" + md.getParameters().stream().map(NodeWithType::getTypeAsString).collect(Collectors.joining(", ")) + ")";
+    private CompactCallGraph createCompactGraph() {
+        int[] sources = Arrays.copyOf(edgeSources, edgeCount);
+        int[] targets = Arrays.copyOf(edgeTargets, edgeCount);
+        int count = edgeCount;
+        for (int i = 0; i < virtualCallCount; i++) {
+            for (String dispatchTarget : getDispatchTargets(symbols.symbolOf(virtualCallTargets[i]))) {
+                if (count == sources.length) {
+                    sources = Arrays.copyOf(sources, Math.max(16, 2 * count));
+                    targets = Arrays.copyOf(targets, Math.max(16, 2 * count));
+                }
+                sources[count] = virtualCallSources[i];
+                targets[count] = symbols.intern(dispatchTarget);
+                count++;
+            }
+        }
+        return CompactCallGraph.of(symbols, sources, targets, count);
+    }
+
+    private List<String> getDispatchTargets(String callee) {
+        List<String> dispatchTargets = new ArrayList<>(hierarchyIndex.getDispatchTargets(callee));
+        dispatchTargets.addAll(functionalInterfaceIndex.getImplementations(callee));
+        return dispatchTargets;
     }
 
     /**
-     * Get the argument types of a method call
-     * @param mce MethodCallExpr to get the argument types from
-     * @return String of argument types
+     * Extract a subgraph from the given graph starting from the given vertex
+     * @param startVertex Vertex to start the extraction from
+     * @return Subgraph of all vertices reachable from the start vertex
      */
-    public static String getArgumentTypes(MethodCallExpr mce) {
-        return "(" + mce.getArguments().stream().map(argument -> argument.calculateResolvedType().describe()).collect(Collectors.joining(", ")) + ")";
+    public Graph<String, DefaultEdge> extractSubgraph(String startVertex) {
+        CompactCallGraph snapshot = getCompactGraph();
+        int start = snapshot.indexOf(startVertex);
+        if (start < 0) {
+            throw new IllegalArgumentException("graph must contain the start vertex"); //$NON-NLS-1$
+        }
+        return snapshot.toGraph(snapshot.reachableFrom(start));
     }
 
+    /**
+     * Get the graph as an unmodifiable jgrapht graph
+     * @return Graph with all method calls added so far
+     */
     public Graph<String, DefaultEdge> getGraph() {
-        return graph;
+        return getCompactGraph().asGraph();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,322 @@
+package recursionCheck;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.MethodReferenceExpr;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import org.apiguardian.api.API;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Conservative method call graph whose vertices are method names and numbers of parameters, built from the syntax
+ * trees alone without resolving any symbol.
+ * <p>
+ * A call is an edge to every method of the same name and arity, so every edge of the resolved graph, including the
+ * edges of virtual dispatch, is also an edge of this graph. Lambda bodies are vertices of their own, which are called
+ * by their enclosing callable and by a functional vertex per number of parameters. Every abstract method of the source
+ * root is an edge to the functional vertex of its arity, so a call of it reaches every lambda of the arity. A call may
+ * also invoke a functional interface method of a library, so a call with the name of a
+ * {@link #LIBRARY_FUNCTIONAL_METHODS known library functional method} is an edge to the functional vertex of its arity
+ * as well. Method references are called by the functional vertices of the arities they may implement. Functional
+ * interface methods of libraries are assumed to have no varargs.
+ * <p>
+ * If this graph has no cycle, the resolved graph has none either. Otherwise, only the
+ * {@link #getSuspectCallables() callables of its cycles} have to be resolved.
+ */
+@API(status = API.Status.INTERNAL)
+public class NameCallGraph {
+
+    private static final String FUNCTIONAL_METHODS = "<functional methods>"; //$NON-NLS-1$
+
+    /**
+     * Names of the methods of the functional interfaces of the JDK, which are implemented by the lambdas and method
+     * references passed to them
+     */
+    private static final Set<String> LIBRARY_FUNCTIONAL_METHODS = Set.of(
+            "accept", "apply", "applyAsDouble", "applyAsInt", "applyAsLong", "call", "close", "compare", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+            "compareTo", "execute", "get", "getAsBoolean", "getAsDouble", "getAsInt", "getAsLong", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+            "invoke", "iterator", "matches", "newThread", "read", "rejectedExecution", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+            "run", "test", "uncaughtException"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+    private static final int VARIABLE_ARITY = -1;
+
+    private static final int NO_CALLABLE = -1;
+
+    private final SymbolTable symbols = new SymbolTable();
+
+    private int[] edgeSources = new int[16];
+
+    private int[] edgeTargets = new int[16];
+
+    private int edgeCount;
+
+    /**
+     * Arities of the declared methods by their names, with {@link #VARIABLE_ARITY} for methods with varargs
+     */
+    private final Map<String, Set<Integer>> aritiesByName = new HashMap<>();
+
+    private final List<Call> calls = new ArrayList<>();
+
+    private final List<MethodReference> methodReferences = new ArrayList<>();
+
+    /**
+     * Arities of the functional vertices, which are the numbers of arguments of all calls of library functional
+     * methods and the numbers of parameters of all abstract methods and lambdas
+     */
+    private final Set<Integer> functionalArities = new TreeSet<>();
+
+    /**
+     * Method declarations, lambda expressions and method references in the order in which they appear
+     */
+    private final List<Node> callables = new ArrayList<>();
+
+    private final List<int[]> verticesOfCallables = new ArrayList<>();
+
+    private final CompactCallGraph compactGraph;
+
+    private final BitSet suspectVertices = new BitSet();
+
+    private NameCallGraph(Collection<CompilationUnit> compilationUnits) {
+        compilationUnits.forEach(compilationUnit -> compilationUnit.accept(new NameVisitor(), null));
+        for (Call call : calls) {
+            for (int target : getTargets(call.name(), call.arity())) {
+                addEdge(call.source(), target);
+            }
+        }
+        for (MethodReference methodReference : methodReferences) {
+            int[] targets = getTargets(methodReference.name(), VARIABLE_ARITY);
+            for (int target : targets) {
+                if (methodReference.source() != NO_CALLABLE) {
+                    addEdge(methodReference.source(), target);
+                }
+                addFunctionalEdges(target);
+            }
+            verticesOfCallables.set(methodReference.callable(), targets);
+        }
+        compactGraph = CompactCallGraph.of(symbols, edgeSources, edgeTargets, edgeCount);
+        for (int[] component : StronglyConnectedComponents.findRecursiveComponents(compactGraph)) {
+            Arrays.stream(component).forEach(suspectVertices::set);
+        }
+    }
+
+    /**
+     * Build the graph of the given CompilationUnits, which do not need a symbol resolver
+     *
+     * @param compilationUnits All CompilationUnits of the source root
+     * @return Graph of the method names
+     */
+    public static NameCallGraph of(Collection<CompilationUnit> compilationUnits) {
+        return new NameCallGraph(compilationUnits);
+    }
+
+    /**
+     * @return False if the resolved method call graph cannot have a cycle
+     */
+    public boolean mayHaveCycle() {
+        return !suspectVertices.isEmpty();
+    }
+
+    /**
+     * Check if a cycle may be reachable from the given method
+     *
+     * @param method Method to start from
+     * @return False if the resolved method call graph cannot have a cycle which is reachable from the method, true if
+     * it may have one or if no method of the name and arity is declared
+     */
+    public boolean mayReachCycle(Method method) {
+        int vertex = symbols.indexOf(getKey(method.getName(), method.isVarArgs() ? VARIABLE_ARITY : method.getParameterCount()));
+        return vertex < 0 || !StronglyConnectedComponents.findRecursiveComponents(compactGraph, vertex).isEmpty();
+    }
+
+    /**
+     * Get the method declarations, lambda expressions and method references which may be part of a cycle. Callables
+     * nested in another suspect callable are left out, since they are visited together with it.
+     *
+     * @return Callables in the order in which they appear in the CompilationUnits
+     */
+    public List<Node> getSuspectCallables() {
+        List<Node> suspectCallables = new ArrayList<>();
+        Set<Node> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < callables.size(); i++) {
+            Node callable = callables.get(i);
+            if (Arrays.stream(verticesOfCallables.get(i)).anyMatch(suspectVertices::get) && !hasAncestorIn(callable, selected)) {
+                selected.add(callable);
+                suspectCallables.add(callable);
+            }
+        }
+        return suspectCallables;
+    }
+
+    private static boolean hasAncestorIn(Node node, Set<Node> ancestors) {
+        for (Optional<Node> parent = node.getParentNode(); parent.isPresent(); parent = parent.get().getParentNode()) {
+            if (ancestors.contains(parent.get())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A call matches the methods of its arity and the methods with varargs, a method reference matches all methods of
+     * its name
+     */
+    private int[] getTargets(String name, int arity) {
+        Set<Integer> arities = aritiesByName.getOrDefault(name, Set.of());
+        return new TreeSet<>(arities).stream()
+                .filter(declaredArity -> arity == VARIABLE_ARITY || declaredArity == arity || declaredArity == VARIABLE_ARITY)
+                .mapToInt(declaredArity -> symbols.intern(getKey(name, declaredArity)))
+                .toArray();
+    }
+
+    /**
+     * A method of arity n implements functional interface methods of arity n, or n + 1 if it is an instance method
+     * whose receiver is passed as the first argument
+     */
+    private void addFunctionalEdges(int method) {
+        String key = symbols.symbolOf(method);
+        String arity = key.substring(key.lastIndexOf('(') + 1, key.length() - 1);
+        if ("...".equals(arity)) { //$NON-NLS-1$
+            functionalArities.forEach(functionalArity -> addEdge(getFunctionalVertex(functionalArity), method));
+        } else {
+            addEdge(getFunctionalVertex(Integer.parseInt(arity)), method);
+            addEdge(getFunctionalVertex(Integer.parseInt(arity) + 1), method);
+        }
+    }
+
+    private int getFunctionalVertex(int arity) {
+        return symbols.intern(getKey(FUNCTIONAL_METHODS, arity));
+    }
+
+    private static String getKey(String name, int arity) {
+        return name + (arity == VARIABLE_ARITY ? "(...)" : "(" + arity + ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    private void addEdge(int source, int target) {
+        if (edgeCount == edgeSources.length) {
+            edgeSources = Arrays.copyOf(edgeSources, 2 * edgeCount);
+            edgeTargets = Arrays.copyOf(edgeTargets, 2 * edgeCount);
+        }
+        edgeSources[edgeCount] = source;
+        edgeTargets[edgeCount] = target;
+        edgeCount++;
+    }
+
+    /**
+     * A call, whose targets are known once the methods of all files have been declared
+     *
+     * @param source Vertex of the enclosing callable
+     * @param arity  Number of arguments
+     */
+    private record Call(int source, String name, int arity) {
+    }
+
+    /**
+     * A method reference, which may refer to every method of its name
+     *
+     * @param source   Vertex of the enclosing callable, or {@link #NO_CALLABLE}
+     * @param callable Index of the method reference among the callables
+     */
+    private record MethodReference(int source, String name, int callable) {
+    }
+
+    /**
+     * Attributes every call to its innermost enclosing callable like the {@link VisitorAdapter}
+     */
+    private class NameVisitor extends VoidVisitorAdapter<Void> {
+
+        private final Deque<Integer> enclosingCallables = new ArrayDeque<>();
+
+        @Override
+        public void visit(MethodDeclaration md, Void arg) {
+            int arity = md.getParameters().stream().anyMatch(Parameter::isVarArgs) ? VARIABLE_ARITY : md.getParameters().size();
+            aritiesByName.computeIfAbsent(md.getNameAsString(), name -> new HashSet<>()).add(arity);
+            int vertex = symbols.intern(getKey(md.getNameAsString(), arity));
+            if (md.getBody().isEmpty()) {
+                addEdge(vertex, getFunctionalVertex(md.getParameters().size()));
+                functionalArities.add(md.getParameters().size());
+            }
+            addCallable(md, vertex);
+            visitCallable(vertex, () -> super.visit(md, arg));
+        }
+
+        @Override
+        public void visit(ConstructorDeclaration cd, Void arg) {
+            visitCallable(NO_CALLABLE, () -> super.visit(cd, arg));
+        }
+
+        @Override
+        public void visit(LambdaExpr le, Void arg) {
+            int vertex = symbols.intern("lambda$" + callables.size()); //$NON-NLS-1$
+            addEdge(getFunctionalVertex(le.getParameters().size()), vertex);
+            functionalArities.add(le.getParameters().size());
+            getEnclosingCallable().ifPresent(enclosing -> addEdge(enclosing, vertex));
+            addCallable(le, vertex);
+            visitCallable(vertex, () -> super.visit(le, arg));
+        }
+
+        @Override
+        public void visit(MethodReferenceExpr mre, Void arg) {
+            if (!"new".equals(mre.getIdentifier())) { //$NON-NLS-1$
+                methodReferences.add(new MethodReference(getEnclosingCallable().orElse(NO_CALLABLE), mre.getIdentifier(), callables.size()));
+                callables.add(mre);
+                verticesOfCallables.add(new int[0]);
+            }
+            super.visit(mre, arg);
+        }
+
+        @Override
+        public void visit(MethodCallExpr mce, Void arg) {
+            int arity = mce.getArguments().size();
+            boolean mayCallLibraryFunctionalMethod = LIBRARY_FUNCTIONAL_METHODS.contains(mce.getNameAsString());
+            getEnclosingCallable().ifPresent(enclosing -> {
+                calls.add(new Call(enclosing, mce.getNameAsString(), arity));
+                if (mayCallLibraryFunctionalMethod) {
+                    addEdge(enclosing, getFunctionalVertex(arity));
+                }
+            });
+            if (mayCallLibraryFunctionalMethod) {
+                functionalArities.add(arity);
+            }
+            super.visit(mce, arg);
+        }
+
+        private void addCallable(Node callable, int vertex) {
+            callables.add(callable);
+            verticesOfCallables.add(new int[]{vertex});
+        }
+
+        private Optional<Integer> getEnclosingCallable() {
+            return Optional.ofNullable(enclosingCallables.peek()).filter(vertex -> vertex != NO_CALLABLE);
+        }
+
+        private void visitCallable(int vertex, Runnable visitBody) {
+            enclosingCallables.push(vertex);
+            try {
+                visitBody.run();
+            } finally {
+                enclosingCallables.pop();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package recursionCheck;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NameCallGraphTest {
+
+    @Test
+    void testLambdaCallingAMethodIsNoCycle() {
+        NameCallGraph graph = NameCallGraph.of(List.of(StaticJavaParser.parse("""
+                import java.util.function.Function;
+
+                class Lambdas {
+                    Function<Integer, Integer> function = x -> foo(x);
+
+                    int foo(int x) {
+                        return x + 1;
+                    }
+                }
+                """)));
+
+        assertThat(graph.mayHaveCycle()).isFalse();
+        assertThat(graph.getSuspectCallables()).isEmpty();
+    }
+
+    @Test
+    void testLambdaCallingALibraryFunctionalMethodMayBeACycle() {
+        CompilationUnit compilationUnit = StaticJavaParser.parse("""
+                import java.util.function.Function;
+
+                class Lambdas {
+                    Function<Integer, Integer> function;
+
+                    void init() {
+                        function = x -> function.apply(x);
+                    }
+                }
+                """);
+
+        List<Node> suspectCallables = NameCallGraph.of(List.of(compilationUnit)).getSuspectCallables();
+
+        assertThat(suspectCallables).containsExactly(compilationUnit.findFirst(LambdaExpr.class).orElseThrow());
+    }
+
+    @Test
+    void testLambdaCallingAnAbstractMethodMayBeACycle() {
+        CompilationUnit compilationUnit = StaticJavaParser.parse("""
+                interface Operation {
+                    int operate(int x);
+                }
+
+                class Lambdas {
+                    Operation operation;
+
+                    void init() {
+                        operation = x -> operation.operate(x);
+                    }
+                }
+                """);
+
+        List<Node> suspectCallables = NameCallGraph.of(List.of(compilationUnit)).getSuspectCallables();
+
+        assertThat(suspectCallables).containsExactly(compilationUnit.findFirst(MethodDeclaration.class).orElseThrow(),
+                compilationUnit.findFirst(LambdaExpr.class).orElseThrow());
+    }
+
+    @Test
+    void testRecursionThroughAMethodOfTheSameNameAndArity() {
+        NameCallGraph graph = NameCallGraph.of(List.of(StaticJavaParser.parse("""
+                class A {
+                    void run(B b) {
+                        b.run(this);
+                    }
+                }
+
+                class B {
+                    void run(A a) {
+                    }
+
+                    void other() {
+                        run(null);
+                    }
+                }
+                """)));
+
+        assertThat(graph.mayHaveCycle()).isTrue();
+        assertThat(graph.getSuspectCallables()).hasSize(2);
+    }
+}
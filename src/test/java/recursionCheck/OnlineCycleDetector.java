@@ -0,0 +1,328 @@
+package recursionCheck;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Detects cycles while the edges of a graph are added, by keeping a topological order of its vertices up to date
+ * (Pearce and Kelly). An edge which agrees with the order costs nothing; otherwise only the vertices whose positions
+ * lie between the endpoints are searched and reordered.
+ * <p>
+ * An edge which closes a cycle is kept out of the order, so that the order stays valid, and the vertices of the cycle
+ * are remembered instead. Every later cycle through such an edge contains its endpoints, so a cycle is reachable from
+ * a root if and only if a remembered vertex is. Reachability is updated whenever an edge is added, so a cycle is
+ * reported as soon as the edge which closes it or makes it reachable has been added.
+ */
+final class OnlineCycleDetector {
+
+    private final boolean everyVertexIsRoot;
+
+    private int vertexCount;
+
+    private int[] position = new int[16];
+
+    private IntList[] successors = new IntList[16];
+
+    private IntList[] predecessors = new IntList[16];
+
+    /**
+     * Edges which were kept out of the order, by their source
+     */
+    private final Map<Integer, IntList> closingSuccessors = new HashMap<>();
+
+    private final BitSet reached = new BitSet();
+
+    private final BitSet onCycle = new BitSet();
+
+    /**
+     * First remembered cycle of every vertex on a cycle
+     */
+    private final Map<Integer, int[]> cycleOf = new HashMap<>();
+
+    private int[] firstCycle;
+
+    private final BitSet visitedForward = new BitSet();
+
+    private final BitSet visitedBackward = new BitSet();
+
+    private final IntList forward = new IntList();
+
+    private final IntList backward = new IntList();
+
+    private final IntList stack = new IntList();
+
+    private int[] parent = new int[16];
+
+    /**
+     * @param everyVertexIsRoot Whether every cycle is reported, or only the cycles reachable from the roots
+     */
+    OnlineCycleDetector(boolean everyVertexIsRoot) {
+        this.everyVertexIsRoot = everyVertexIsRoot;
+    }
+
+    /**
+     * @param vertex Vertex from which reachable cycles are reported
+     */
+    void addRoot(int vertex) {
+        ensureVertex(vertex);
+        if (firstCycle == null && !everyVertexIsRoot) {
+            reach(vertex);
+        }
+    }
+
+    /**
+     * Add an edge, which is ignored once a cycle has been found
+     *
+     * @param source Id of the calling method
+     * @param target Id of the called method
+     */
+    void addEdge(int source, int target) {
+        if (firstCycle != null) {
+            return;
+        }
+        ensureVertex(Math.max(source, target));
+        if (source == target) {
+            remember(new int[]{source});
+        } else if (!addToOrder(source, target)) {
+            closingSuccessors.computeIfAbsent(source, vertex -> new IntList()).add(target);
+        }
+        if (firstCycle == null && !everyVertexIsRoot && reached.get(source) && !reached.get(target)) {
+            reach(target);
+        }
+    }
+
+    /**
+     * @return Ids of the methods of the first reachable cycle in the order in which they call each other, or
+     * {@code null} if no cycle has been found yet
+     */
+    int[] getFirstCycle() {
+        return firstCycle;
+    }
+
+    /**
+     * @return False if the edge closes a cycle, which is remembered instead
+     */
+    private boolean addToOrder(int source, int target) {
+        int lowerBound = position[target];
+        int upperBound = position[source];
+        if (lowerBound > upperBound) {
+            link(source, target);
+            return true;
+        }
+        try {
+            if (searchForward(target, source, upperBound)) {
+                IntList cycle = new IntList();
+                for (int vertex = source; vertex != target; vertex = parent[vertex]) {
+                    cycle.add(vertex);
+                }
+                cycle.add(target);
+                int[] vertices = cycle.toArray();
+                reverse(vertices);
+                remember(vertices);
+                return false;
+            }
+            searchBackward(source, lowerBound);
+            reorder();
+            link(source, target);
+            return true;
+        } finally {
+            visitedForward.clear();
+            visitedBackward.clear();
+            forward.clear();
+            backward.clear();
+        }
+    }
+
+    /**
+     * Visits the successors of the target which are ordered before the source
+     *
+     * @return True if the source is reached, i.e. the edge closes a cycle
+     */
+    private boolean searchForward(int target, int source, int upperBound) {
+        stack.clear();
+        stack.add(target);
+        visitedForward.set(target);
+        forward.add(target);
+        while (stack.size > 0) {
+            int vertex = stack.pop();
+            IntList next = successors[vertex];
+            for (int i = 0; next != null && i < next.size; i++) {
+                int successor = next.values[i];
+                if (successor == source) {
+                    parent[source] = vertex;
+                    return true;
+                }
+                if (!visitedForward.get(successor) && position[successor] < upperBound) {
+                    visitedForward.set(successor);
+                    parent[successor] = vertex;
+                    forward.add(successor);
+                    stack.add(successor);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Visits the predecessors of the source which are ordered after the target
+     */
+    private void searchBackward(int source, int lowerBound) {
+        stack.clear();
+        stack.add(source);
+        visitedBackward.set(source);
+        backward.add(source);
+        while (stack.size > 0) {
+            int vertex = stack.pop();
+            IntList previous = predecessors[vertex];
+            for (int i = 0; previous != null && i < previous.size; i++) {
+                int predecessor = previous.values[i];
+                if (!visitedBackward.get(predecessor) && position[predecessor] > lowerBound) {
+                    visitedBackward.set(predecessor);
+                    backward.add(predecessor);
+                    stack.add(predecessor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the visited predecessors of the source before the visited successors of the target, reusing their
+     * positions and keeping the relative order within both groups
+     */
+    private void reorder() {
+        int[] backwardVertices = sortedByPosition(backward);
+        int[] forwardVertices = sortedByPosition(forward);
+        int[] positions = new int[backwardVertices.length + forwardVertices.length];
+        for (int i = 0; i < backwardVertices.length; i++) {
+            positions[i] = position[backwardVertices[i]];
+        }
+        for (int i = 0; i < forwardVertices.length; i++) {
+            positions[backwardVertices.length + i] = position[forwardVertices[i]];
+        }
+        Arrays.sort(positions);
+        int next = 0;
+        for (int vertex : backwardVertices) {
+            position[vertex] = positions[next++];
+        }
+        for (int vertex : forwardVertices) {
+            position[vertex] = positions[next++];
+        }
+    }
+
+    private int[] sortedByPosition(IntList vertices) {
+        long[] keyed = new long[vertices.size];
+        for (int i = 0; i < vertices.size; i++) {
+            keyed[i] = (long) position[vertices.values[i]] << 32 | vertices.values[i];
+        }
+        Arrays.sort(keyed);
+        int[] sorted = new int[keyed.length];
+        for (int i = 0; i < keyed.length; i++) {
+            sorted[i] = (int) keyed[i];
+        }
+        return sorted;
+    }
+
+    private void link(int source, int target) {
+        if (successors[source] == null) {
+            successors[source] = new IntList();
+        }
+        successors[source].add(target);
+        if (predecessors[target] == null) {
+            predecessors[target] = new IntList();
+        }
+        predecessors[target].add(source);
+    }
+
+    private void remember(int[] cycle) {
+        for (int vertex : cycle) {
+            onCycle.set(vertex);
+            cycleOf.putIfAbsent(vertex, cycle);
+            if (firstCycle == null && (everyVertexIsRoot || reached.get(vertex))) {
+                firstCycle = cycle;
+            }
+        }
+    }
+
+    /**
+     * Marks every vertex reachable from the given one over all edges, including the edges kept out of the order
+     */
+    private void reach(int start) {
+        if (reached.get(start)) {
+            return;
+        }
+        stack.clear();
+        stack.add(start);
+        reached.set(start);
+        while (stack.size > 0) {
+            int vertex = stack.pop();
+            if (firstCycle == null && onCycle.get(vertex)) {
+                firstCycle = cycleOf.get(vertex);
+            }
+            reachSuccessors(successors[vertex]);
+            reachSuccessors(closingSuccessors.get(vertex));
+        }
+    }
+
+    private void reachSuccessors(IntList next) {
+        for (int i = 0; next != null && i < next.size; i++) {
+            int successor = next.values[i];
+            if (!reached.get(successor)) {
+                reached.set(successor);
+                stack.add(successor);
+            }
+        }
+    }
+
+    /**
+     * New vertices are placed at the end of the order
+     */
+    private void ensureVertex(int vertex) {
+        if (vertex >= position.length) {
+            int capacity = Math.max(2 * position.length, vertex + 1);
+            position = Arrays.copyOf(position, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            successors = Arrays.copyOf(successors, capacity);
+            predecessors = Arrays.copyOf(predecessors, capacity);
+        }
+        while (vertexCount <= vertex) {
+            position[vertexCount] = vertexCount;
+            vertexCount++;
+        }
+    }
+
+    private static void reverse(int[] values) {
+        for (int i = 0, j = values.length - 1; i < j; i++, j--) {
+            int value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+        }
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[4];
+
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+
+        int pop() {
+            return values[--size];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
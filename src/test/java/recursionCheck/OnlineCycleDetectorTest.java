@@ -0,0 +1,115 @@
+package recursionCheck;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OnlineCycleDetectorTest {
+
+    @Test
+    void testSelfLoop() {
+        OnlineCycleDetector detector = new OnlineCycleDetector(true);
+        detector.addEdge(0, 1);
+        assertThat(detector.getFirstCycle()).isNull();
+
+        detector.addEdge(1, 1);
+
+        assertThat(detector.getFirstCycle()).containsExactly(1);
+    }
+
+    @Test
+    void testMutualRecursion() {
+        OnlineCycleDetector detector = new OnlineCycleDetector(true);
+        detector.addEdge(0, 1);
+        assertThat(detector.getFirstCycle()).isNull();
+
+        detector.addEdge(1, 0);
+
+        assertThat(detector.getFirstCycle()).containsExactly(0, 1);
+    }
+
+    @Test
+    void testEdgeClosesCycleAfterReorder() {
+        OnlineCycleDetector detector = new OnlineCycleDetector(true);
+        detector.addEdge(3, 2);
+        detector.addEdge(2, 1);
+        detector.addEdge(1, 0);
+        assertThat(detector.getFirstCycle()).isNull();
+
+        detector.addEdge(0, 3);
+
+        assertThat(detector.getFirstCycle()).containsExactly(3, 2, 1, 0);
+    }
+
+    @Test
+    void testCycleIsReportedOnceItBecomesReachable() {
+        OnlineCycleDetector detector = new OnlineCycleDetector(false);
+        detector.addRoot(0);
+        detector.addEdge(1, 2);
+        detector.addEdge(2, 1);
+        detector.addEdge(0, 3);
+        assertThat(detector.getFirstCycle()).isNull();
+
+        detector.addEdge(3, 1);
+
+        assertThat(detector.getFirstCycle()).containsExactly(1, 2);
+    }
+
+    @Test
+    void testCycleWhichBecomesReachableBeforeItIsClosed() {
+        OnlineCycleDetector detector = new OnlineCycleDetector(false);
+        detector.addRoot(0);
+        detector.addEdge(2, 1);
+        detector.addEdge(0, 1);
+        detector.addEdge(4, 5);
+        detector.addEdge(5, 4);
+        assertThat(detector.getFirstCycle()).isNull();
+
+        detector.addEdge(1, 2);
+
+        assertThat(detector.getFirstCycle()).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    void testSameVerdictsAsStronglyConnectedComponents() {
+        Random random = new Random(42);
+        for (int run = 0; run < 300; run++) {
+            int vertexCount = 2 + random.nextInt(12);
+            boolean everyVertexIsRoot = random.nextBoolean();
+            OnlineCycleDetector detector = new OnlineCycleDetector(everyVertexIsRoot);
+            MethodCallGraph graph = new MethodCallGraph();
+            Set<List<Integer>> edges = new HashSet<>();
+            if (!everyVertexIsRoot) {
+                detector.addRoot(0);
+                graph.addMethodCalls(nameOf(0), List.of());
+            }
+            for (int edge = 0; edge < 3 * vertexCount && detector.getFirstCycle() == null; edge++) {
+                int source = random.nextInt(vertexCount);
+                int target = random.nextInt(vertexCount);
+                detector.addEdge(source, target);
+                graph.addMethodCalls(nameOf(source), List.of(nameOf(target)));
+                edges.add(List.of(source, target));
+
+                CompactCallGraph compactGraph = graph.getCompactGraph();
+                boolean hasCycle = !(everyVertexIsRoot ? StronglyConnectedComponents.findRecursiveComponents(compactGraph)
+                        : StronglyConnectedComponents.findRecursiveComponents(compactGraph, compactGraph.indexOf(nameOf(0)))).isEmpty();
+                assertThat(detector.getFirstCycle() != null).as("run %d, edge %d", run, edge).isEqualTo(hasCycle);
+            }
+            int[] cycle = detector.getFirstCycle();
+            if (cycle != null) {
+                for (int i = 0; i < cycle.length; i++) {
+                    assertThat(edges).as("run %d", run).contains(List.of(cycle[i], cycle[(i + 1) % cycle.length]));
+                }
+            }
+        }
+    }
+
+    private static String nameOf(int vertex) {
+        return "v" + vertex;
+    }
+}
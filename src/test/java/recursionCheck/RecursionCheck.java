@@ -1,30 +1,34 @@
 package recursionCheck;
 
+import analysis.AnalysisMetrics;
+import analysis.AnalysisSession;
+import analysis.Deadline;
+import analysis.SourceLoader;
+import ast.model.JavaFile;
 import com.github.javaparser.ParseResult;
 import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.cache.Cache;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ClassLoaderTypeSolver;
+import com.github.javaparser.symbolsolver.cache.InMemoryCache;
+import com.github.javaparser.symbolsolver.cache.NoCache;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
-import com.github.javaparser.utils.SourceRoot;
 import org.apiguardian.api.API;
-import org.jgrapht.Graph;
-import org.jgrapht.alg.cycle.CycleDetector;
-import org.jgrapht.graph.DefaultEdge;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.ObjectUtils.isNotEmpty;
@@ -34,6 +38,8 @@ public class RecursionCheck {
 
     private static final Logger LOG = LoggerFactory.getLogger(RecursionCheck.class);
 
+    private static final long STREAMING_CACHED_FILES = Long.getLong("astRecursion.streaming.cachedFiles", 256); //$NON-NLS-1$
+
     /**
      * Check if the startingNode has a recursive call
      *
@@ -43,8 +49,27 @@ public class RecursionCheck {
      * @return Optional.empty() if recursive call is detected, otherwise an error message
      */
     public static Optional<String> hasCycle(Path pathToSrcRoot, ParserConfiguration.LanguageLevel level, Method startingNode, Method... excludedMethods) {
-        MethodCallGraph graph = createMethodCallGraph(pathToSrcRoot, level, excludedMethods);
-        return isNotEmpty(checkCycle(graph, startingNode)) ? Optional.empty() : Optional.of("No recursive call detected");
+        return hasCycle(AnalysisSession.of(pathToSrcRoot, level), startingNode, excludedMethods);
+    }
+
+    /**
+     * Check if the startingNode has a recursive call
+     *
+     * @param session      Analysis session of the source root
+     * @param startingNode Method to start the recursion check from, which may be {@code null}
+     * @return Optional.empty() if recursive call is detected, otherwise an error message
+     */
+    public static Optional<String> hasCycle(AnalysisSession session, Method startingNode, Method... excludedMethods) {
+        long start = System.nanoTime();
+        try {
+            if (!mayHaveCycle(session, startingNode)) {
+                return Optional.of("No recursive call detected");
+            }
+            MethodCallGraph graph = getMethodCallGraph(session, startingNode, excludedMethods);
+            return isNotEmpty(checkCycle(graph, startingNode, session)) ? Optional.empty() : Optional.of("No recursive call detected");
+        } finally {
+            session.getMetrics().recordLatency(AnalysisMetrics.Operation.CHECK, System.nanoTime() - start);
+        }
     }
 
     /**
@@ -56,8 +81,67 @@ public class RecursionCheck {
      * @return Optional.empty() if no recursive call is detected, otherwise an error message with methods in the detected cycle
      */
     public static Optional<String> hasNoCycle(Path pathToSrcRoot, ParserConfiguration.LanguageLevel level, Method startingNode, Method... excludedMethods) {
-        MethodCallGraph graph = createMethodCallGraph(pathToSrcRoot, level, excludedMethods);
-        return checkCycle(graph, startingNode).stream().reduce((s1, s2) -> String.join(", ", s1, s2));
+        return hasNoCycle(AnalysisSession.of(pathToSrcRoot, level), startingNode, excludedMethods);
+    }
+
+    /**
+     * Check if the startingNode has no recursive call
+     *
+     * @param session      Analysis session of the source root
+     * @param startingNode Method to start the recursion check from, which may be {@code null}
+     * @return Optional.empty() if no recursive call is detected, otherwise an error message with methods in the detected cycle
+     */
+    public static Optional<String> hasNoCycle(AnalysisSession session, Method startingNode, Method... excludedMethods) {
+        long start = System.nanoTime();
+        try {
+            return getRecursiveMethods(session, startingNode, excludedMethods).stream().reduce((s1, s2) -> String.join(", ", s1, s2));
+        } finally {
+            session.getMetrics().recordLatency(AnalysisMetrics.Operation.CHECK, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Get the methods which are part of a cycle, without rendering a message
+     *
+     * @param session      Analysis session of the source root
+     * @param startingNode Method to start the recursion check from, which may be {@code null}
+     * @return Vertices of the recursive methods in the order in which they were added to the graph, or an empty set if
+     * no recursive call is detected
+     */
+    public static Set<String> getRecursiveMethods(AnalysisSession session, Method startingNode, Method... excludedMethods) {
+        if (!mayHaveCycle(session, startingNode)) {
+            return Set.of();
+        }
+        MethodCallGraph graph = getMethodCallGraph(session, startingNode, excludedMethods);
+        return checkCycle(graph, startingNode, session);
+    }
+
+    /**
+     * Check the graph of the method names, which is built without resolving any symbol. Excluded methods are kept in
+     * it, which may only add cycles. If the calls of all files have been summarized already, the resolved graph is
+     * checked right away, since the graph of the method names would parse every file again.
+     *
+     * @return False if the resolved method call graph cannot have a cycle (reachable from the starting method)
+     */
+    private static boolean mayHaveCycle(AnalysisSession session, Method startingNode) {
+        if (session.hasCallSummaries()) {
+            return true;
+        }
+        NameCallGraph nameCallGraph = session.getNameCallGraph();
+        session.getMetrics().phaseStarted(Deadline.Phase.CYCLE_DETECTION);
+        try {
+            return startingNode != null ? nameCallGraph.mayReachCycle(startingNode) : nameCallGraph.mayHaveCycle();
+        } finally {
+            session.getMetrics().phaseFinished(Deadline.Phase.CYCLE_DETECTION);
+        }
+    }
+
+    /**
+     * Only the cycles reachable from the starting method are reported, so only the methods reachable from it have to
+     * be resolved. Without a starting method, only the methods which may be part of a cycle are resolved.
+     */
+    private static MethodCallGraph getMethodCallGraph(AnalysisSession session, Method startingNode, Method... excludedMethods) {
+        return startingNode != null ? session.getReachableCallGraph(startingNode, excludedMethods) : session.getSuspectCallGraph(excludedMethods);
     }
 
     /**
@@ -65,18 +149,61 @@ public class RecursionCheck {
      *
      * @param graph        Method call graph
      * @param startingNode Method to start the recursion check from, which may be {@code null}
-     * @return Set of methods in the detected cycle
+     * @param session      Analysis session with the deadline and the metrics of the analysis
+     * @return Set of methods in the detected cycle, in the order in which they were added to the graph
      */
-    private static Set<String> checkCycle(MethodCallGraph graph, Method startingNode) {
+    private static Set<String> checkCycle(MethodCallGraph graph, Method startingNode, AnalysisSession session) {
         // Convert Method to Node name
-        String nodeName = startingNode != null ? startingNode.getDeclaringClass().getName() + "." + startingNode.getName() + getParametersOfMethod(startingNode) : null;
+        String nodeName = startingNode != null ? getIdentifierOfMethod(startingNode) : null;
+        AnalysisMetrics metrics = session.getMetrics();
+        metrics.phaseStarted(Deadline.Phase.GRAPH_CONSTRUCTION);
+        CompactCallGraph compactGraph;
+        try {
+            compactGraph = graph.getCompactGraph();
+        } finally {
+            metrics.phaseFinished(Deadline.Phase.GRAPH_CONSTRUCTION);
+        }
+        metrics.increment(AnalysisMetrics.Counter.VERTICES, compactGraph.vertexCount());
+        metrics.increment(AnalysisMetrics.Counter.EDGES, compactGraph.edgeCount());
 
-        if (nodeName != null) {
-            Graph<String, DefaultEdge> subgraph = graph.extractSubgraph(nodeName);
-            return new CycleDetector<>(subgraph).findCycles();
-        } else {
-            return new CycleDetector<>(graph.getGraph()).findCycles();
+        List<int[]> recursiveComponents;
+        metrics.phaseStarted(Deadline.Phase.CYCLE_DETECTION);
+        CycleDetectionEvent event = new CycleDetectionEvent();
+        event.begin();
+        try {
+            if (nodeName != null) {
+                int start = compactGraph.indexOf(nodeName);
+                if (start < 0) {
+                    throw new IllegalArgumentException("graph must contain the start vertex"); //$NON-NLS-1$
+                }
+                recursiveComponents = StronglyConnectedComponents.findRecursiveComponents(compactGraph, session.getDeadline(), start);
+            } else {
+                recursiveComponents = StronglyConnectedComponents.findRecursiveComponents(compactGraph, session.getDeadline());
+            }
+        } finally {
+            metrics.phaseFinished(Deadline.Phase.CYCLE_DETECTION);
+        }
+        if (event.shouldCommit()) {
+            event.sourceRoot = session.getSourceRoot().toString();
+            event.startingMethod = nodeName;
+            event.vertices = compactGraph.vertexCount();
+            event.edges = compactGraph.edgeCount();
+            event.recursiveMethods = recursiveComponents.stream().mapToInt(component -> component.length).sum();
+            event.commit();
         }
+        return recursiveComponents.stream().flatMapToInt(Arrays::stream).sorted()
+                .mapToObj(compactGraph::vertexOf)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Get the identifier of the method as used for the vertices of the method call graph
+     *
+     * @param method Method
+     * @return Fully qualified name of the method followed by its parameters
+     */
+    public static String getIdentifierOfMethod(Method method) {
+        return Signatures.of(method);
     }
 
     /**
@@ -86,11 +213,17 @@ public class RecursionCheck {
      * @return String representation of the parameters
      */
     public static String getParametersOfMethod(Method method) {
-        return "(" + Arrays.stream(method.getParameters()).map(Parameter::getType).map(Class::getName).collect(Collectors.joining(", ")) + ")";
+        return Signatures.getParameterTypes(method);
     }
 
     /**
-     * Create a method call graph from the source root
+     * Create a method call graph from the source root.
+     * <p>
+     * Every file is added to the graph as soon as it is parsed and released right after, and the symbol solver keeps
+     * at most {@code astRecursion.streaming.cachedFiles} files of the source root, so the memory needed grows with the
+     * graph and not with the size of the sources. The vertices are numbered in the order in which the files are
+     * parsed. {@link AnalysisSession#getMethodCallGraph(Method...)} streams the files it summarizes in the same way and
+     * returns an equal graph.
      *
      * @param pathToSrcRoot Path to the source root
      * @param level         JavaParser Language Level
@@ -98,14 +231,71 @@ public class RecursionCheck {
      */
     public static MethodCallGraph createMethodCallGraph(Path pathToSrcRoot, ParserConfiguration.LanguageLevel level, Method... excludedMethods) {
         MethodCallGraph methodCallGraph = new MethodCallGraph(excludedMethods);
-        List<Optional<CompilationUnit>> asts = parseFromSourceRoot(pathToSrcRoot, level);
-        for (Optional<CompilationUnit> ast : asts) {
-            ast.ifPresent(methodCallGraph::createGraph);
+        try {
+            SourceLoader.parseEach(JavaFile.findJavaFilesBelow(pathToSrcRoot), streamingParserConfigurationFactory(pathToSrcRoot, level),
+                    (path, parseResult) -> parseResult.getResult().ifPresent(methodCallGraph::createGraph));
+        } catch (IOException e) {
+            LOG.error("Error reading Java file", e); //$NON-NLS-1$
+            throw new AssertionError(String.format("The file %s could not be read:", e));
         }
-
         return methodCallGraph;
     }
 
+    /**
+     * Find a cycle while the method call graph is built, adding every file as soon as it is parsed, and stop parsing
+     * and resolving the remaining files as soon as one is found. The time it takes depends on where the first
+     * recursion is and not on the size of the source root.
+     * <p>
+     * Cycles through virtual calls can only be found once the overriding methods have been added, so they may be
+     * found a few files later than cycles of direct calls. Unlike {@link #hasNoCycle(Path, ParserConfiguration.LanguageLevel, Method, Method...)},
+     * only the methods of a single cycle are reported, and which cycle is found first depends on the order in which
+     * the files are parsed.
+     *
+     * @param pathToSrcRoot Path to the source root
+     * @param level         JavaParser Language Level
+     * @param startingNode  Method from which the cycle must be reachable, which may be {@code null}
+     * @return Methods of the first detected cycle in the order in which they call each other, or an empty list if no
+     * recursive call is detected
+     * @throws IllegalArgumentException If the starting method is not part of the method call graph
+     */
+    public static List<String> findFirstCycle(Path pathToSrcRoot, ParserConfiguration.LanguageLevel level, Method startingNode, Method... excludedMethods) {
+        return findFirstCycle(pathToSrcRoot, level, Deadline.none(), startingNode, excludedMethods);
+    }
+
+    /**
+     * Find a cycle while the method call graph is built, see
+     * {@link #findFirstCycle(Path, ParserConfiguration.LanguageLevel, Method, Method...)}, and stop once the given
+     * deadline has expired
+     *
+     * @param pathToSrcRoot Path to the source root
+     * @param level         JavaParser Language Level
+     * @param deadline      Deadline of the analysis
+     * @param startingNode  Method from which the cycle must be reachable, which may be {@code null}
+     * @return Methods of the first detected cycle in the order in which they call each other, or an empty list if no
+     * recursive call is detected
+     * @throws IllegalArgumentException If the starting method is not part of the method call graph
+     * @throws analysis.AnalysisTimeoutException If the deadline expires before the check is done
+     */
+    public static List<String> findFirstCycle(Path pathToSrcRoot, ParserConfiguration.LanguageLevel level, Deadline deadline,
+                                              Method startingNode, Method... excludedMethods) {
+        MethodCallGraph methodCallGraph = new MethodCallGraph(excludedMethods);
+        methodCallGraph.detectCyclesWhileBuilding(startingNode != null ? getIdentifierOfMethod(startingNode) : null);
+        try {
+            boolean complete = SourceLoader.parseWhile(JavaFile.findJavaFilesBelow(pathToSrcRoot), parserConfigurationFactory(pathToSrcRoot, level),
+                    deadline, (path, parseResult) -> {
+                        parseResult.getResult().ifPresent(methodCallGraph::createGraph);
+                        return methodCallGraph.getFirstCycle().isEmpty();
+                    });
+            if (complete) {
+                methodCallGraph.completeCycleDetection();
+            }
+        } catch (IOException e) {
+            LOG.error("Error reading Java file", e); //$NON-NLS-1$
+            throw new AssertionError(String.format("The file %s could not be read:", e));
+        }
+        return methodCallGraph.getFirstCycle();
+    }
+
     /**
      * Parse all Java files in the source root
      *
@@ -114,24 +304,71 @@ public class RecursionCheck {
      * @return List of CompilationUnit
      */
     public static List<Optional<CompilationUnit>> parseFromSourceRoot(Path pathToSourceRoot, ParserConfiguration.LanguageLevel level) {
-        CombinedTypeSolver combinedTypeSolver = new CombinedTypeSolver();
-        combinedTypeSolver.add(new ReflectionTypeSolver());
-        combinedTypeSolver.add(new JavaParserTypeSolver(new File(pathToSourceRoot.toString())));
-        combinedTypeSolver.add(new ClassLoaderTypeSolver(MethodCallGraph.class.getClassLoader()));
-
-        // Configure JavaParser to use type resolution
-        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(combinedTypeSolver);
-
-        SourceRoot sourceRoot = new SourceRoot(pathToSourceRoot, new ParserConfiguration().setSymbolResolver(symbolSolver).setLanguageLevel(level));
+        return tryToParseFromSourceRoot(pathToSourceRoot, level).stream().map(ParseResult::getResult).toList();
+    }
 
-        List<ParseResult<CompilationUnit>> parseResults;
+    /**
+     * Parse all Java files in the source root, keeping the problems of files that could not be parsed
+     *
+     * @param pathToSourceRoot Path to the source root
+     * @param level            JavaParser Language Level
+     * @return List of ParseResult
+     */
+    public static List<ParseResult<CompilationUnit>> tryToParseFromSourceRoot(Path pathToSourceRoot, ParserConfiguration.LanguageLevel level) {
         try {
-            parseResults = sourceRoot.tryToParse();
+            return SourceLoader.parseAll(JavaFile.findJavaFilesBelow(pathToSourceRoot), parserConfigurationFactory(pathToSourceRoot, level));
         } catch (IOException e) {
             LOG.error("Error reading Java file", e); //$NON-NLS-1$
             throw new AssertionError(String.format("The file %s could not be read:", e));
         }
+    }
+
+    /**
+     * Create the parser configurations for the Java files in the source root, which all share one symbol solver
+     *
+     * @param pathToSourceRoot Path to the source root
+     * @param level            JavaParser Language Level
+     * @return Factory for one ParserConfiguration per parser thread
+     */
+    public static Supplier<ParserConfiguration> parserConfigurationFactory(Path pathToSourceRoot, ParserConfiguration.LanguageLevel level) {
+        return parserConfigurationFactory(new SourceRootTypeSolver(pathToSourceRoot), level);
+    }
+
+    /**
+     * Create the parser configurations for Java files in the source root whose syntax trees are released right after
+     * they have been analyzed. The symbol solver keeps at most {@code astRecursion.streaming.cachedFiles} files of the
+     * source root and does not cache the solved types, which would keep the declarations of released trees.
+     *
+     * @param pathToSourceRoot Path to the source root
+     * @param level            JavaParser Language Level
+     * @return Factory for one ParserConfiguration per parser thread
+     */
+    public static Supplier<ParserConfiguration> streamingParserConfigurationFactory(Path pathToSourceRoot, ParserConfiguration.LanguageLevel level) {
+        return parserConfigurationFactory(new SourceRootTypeSolver(pathToSourceRoot, STREAMING_CACHED_FILES), level, NoCache.create());
+    }
+
+    /**
+     * Create the parser configurations for Java files whose own types are solved by the given type solver
+     *
+     * @param sourceTypeSolver Type solver for the types of the source root
+     * @param level            JavaParser Language Level
+     * @return Factory for one ParserConfiguration per parser thread
+     */
+    public static Supplier<ParserConfiguration> parserConfigurationFactory(TypeSolver sourceTypeSolver, ParserConfiguration.LanguageLevel level) {
+        return parserConfigurationFactory(sourceTypeSolver, level, InMemoryCache.create());
+    }
+
+    /**
+     * @param typeCache Cache of all types solved by the combined type solver
+     */
+    private static Supplier<ParserConfiguration> parserConfigurationFactory(TypeSolver sourceTypeSolver, ParserConfiguration.LanguageLevel level,
+                                                                            Cache<String, SymbolReference<ResolvedReferenceTypeDeclaration>> typeCache) {
+        CombinedTypeSolver combinedTypeSolver = new CombinedTypeSolver(CombinedTypeSolver.ExceptionHandlers.IGNORE_NONE,
+                List.of(SharedTypeSolver.jdk(), sourceTypeSolver, SharedTypeSolver.classPath()), typeCache);
+
+        // Configure JavaParser to use type resolution
+        JavaSymbolSolver symbolSolver = new JavaSymbolSolver(combinedTypeSolver);
 
-        return parseResults.stream().map(ParseResult::getResult).toList();
+        return () -> new ParserConfiguration().setSymbolResolver(symbolSolver).setLanguageLevel(level);
     }
 }
@@ -1,5 +1,8 @@
 package recursionCheck;
 
+import analysis.AnalysisSession;
+import analysis.AnalysisTimeoutException;
+import analysis.Deadline;
 import com.github.javaparser.ParserConfiguration.LanguageLevel;
 import de.tum.in.test.api.AresConfiguration;
 import de.tum.in.test.api.util.ProjectSourcesFinder;
@@ -10,6 +13,7 @@ import org.assertj.core.api.AbstractAssert;
 import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -35,10 +39,23 @@ public class RecursionCheckAssert extends AbstractAssert<RecursionCheckAssert, P
 
     private final Method[] excludedMethods;
 
-    private RecursionCheckAssert(Path path, LanguageLevel level, Method startingMethod, Method... excludedMethods) {
+    /**
+     * Whether to stop at the first cycle instead of reporting all recursive methods
+     */
+    private final boolean failFast;
+
+    /**
+     * Time the check may take, null if it is not limited
+     */
+    private final Duration timeout;
+
+    private RecursionCheckAssert(Path path, LanguageLevel level, Method startingMethod, boolean failFast, Duration timeout,
+                                 Method... excludedMethods) {
         super(requireNonNull(path), RecursionCheckAssert.class);
         this.level = level;
         this.startingMethod = startingMethod;
+        this.failFast = failFast;
+        this.timeout = timeout;
         this.excludedMethods = excludedMethods;
         if (!Files.isDirectory(path)) {
             fail("The source directory %s does not exist", path); //$NON-NLS-1$
@@ -46,7 +63,7 @@ public class RecursionCheckAssert extends AbstractAssert<RecursionCheckAssert, P
     }
 
     private RecursionCheckAssert(Path path, LanguageLevel level) {
-        this(path, level, null);
+        this(path, level, null, false, null);
     }
 
     /**
@@ -97,7 +114,7 @@ public class RecursionCheckAssert extends AbstractAssert<RecursionCheckAssert, P
     public RecursionCheckAssert withinPackage(String packageName) {
         Objects.requireNonNull(packageName, "The package name must not be null."); //$NON-NLS-1$
         var newPath = actual.resolve(Path.of("", packageName.split("\\."))); //$NON-NLS-1$ //$NON-NLS-2$
-        return new RecursionCheckAssert(newPath, level, startingMethod, excludedMethods);
+        return new RecursionCheckAssert(newPath, level, startingMethod, failFast, timeout, excludedMethods);
     }
 
     /**
@@ -107,7 +124,7 @@ public class RecursionCheckAssert extends AbstractAssert<RecursionCheckAssert, P
      * @return An unwanted simple recursion assertion object (for chaining)
      */
     public RecursionCheckAssert withLanguageLevel(LanguageLevel level) {
-        return new RecursionCheckAssert(actual, level, startingMethod, excludedMethods);
+        return new RecursionCheckAssert(actual, level, startingMethod, failFast, timeout, excludedMethods);
     }
 
     /**
@@ -116,11 +133,34 @@ public class RecursionCheckAssert extends AbstractAssert<RecursionCheckAssert, P
      * @return An unwanted simple recursion assertion object (for chaining)
      */
     public RecursionCheckAssert startingWithMethod(Method node) {
-        return new RecursionCheckAssert(actual, level, node, excludedMethods);
+        return new RecursionCheckAssert(actual, level, node, failFast, timeout, excludedMethods);
     }
 
     public RecursionCheckAssert excludeMethods(Method... methods) {
-        return new RecursionCheckAssert(actual, level, startingMethod, methods);
+        return new RecursionCheckAssert(actual, level, startingMethod, failFast, timeout, methods);
+    }
+
+    /**
+     * Stops the check at the first cycle, so the files after it are neither parsed nor resolved and the failure
+     * message only lists the methods of that cycle
+     *
+     * @return An unwanted simple recursion assertion object (for chaining)
+     */
+    public RecursionCheckAssert failFast() {
+        return new RecursionCheckAssert(actual, level, startingMethod, true, timeout, excludedMethods);
+    }
+
+    /**
+     * Limits the time the check may take. Once it is used up, the check stops at its next file, method or batch of
+     * vertices and fails with a message naming the phase of the analysis and the number of files completed in it. The
+     * sources are analyzed in a session of their own, which is not shared with other assertions.
+     *
+     * @param timeout Time the check may take
+     * @return An unwanted simple recursion assertion object (for chaining)
+     */
+    public RecursionCheckAssert withTimeout(Duration timeout) {
+        Objects.requireNonNull(timeout, "The timeout must not be null."); //$NON-NLS-1$
+        return new RecursionCheckAssert(actual, level, startingMethod, failFast, timeout, excludedMethods);
     }
 
     /**
@@ -132,7 +172,16 @@ public class RecursionCheckAssert extends AbstractAssert<RecursionCheckAssert, P
         if (level == null) {
             failWithMessage("The 'level' is not set. Please use UnwantedNodesAssert.withLanguageLevel(LanguageLevel)."); //$NON-NLS-1$
         }
-        Optional<String> errorMessage = RecursionCheck.hasNoCycle(actual, level, startingMethod, excludedMethods);
+        Deadline deadline = newDeadline();
+        Optional<String> errorMessage;
+        try {
+            errorMessage = failFast
+                    ? RecursionCheck.findFirstCycle(actual, level, deadline, startingMethod, excludedMethods).stream().reduce((s1, s2) -> String.join(", ", s1, s2))
+                    : RecursionCheck.hasNoCycle(getSession(deadline), startingMethod, excludedMethods);
+        } catch (AnalysisTimeoutException e) {
+            failWithMessage(e.getMessage());
+            return this;
+        }
         errorMessage.ifPresent(unwantedSimpleRecursionMessageForAllJavaFiles -> failWithMessage(
                 "Unwanted recursion found in methods:" + System.lineSeparator() + unwantedSimpleRecursionMessageForAllJavaFiles)); //$NON-NLS-1$
         return this;
@@ -147,11 +196,32 @@ public class RecursionCheckAssert extends AbstractAssert<RecursionCheckAssert, P
         if (level == null) {
             failWithMessage("The 'level' is not set. Please use UnwantedNodesAssert.withLanguageLevel(LanguageLevel)."); //$NON-NLS-1$
         }
-        Optional<String> errorMessage = RecursionCheck.hasCycle(actual, level, startingMethod, excludedMethods);
+        Deadline deadline = newDeadline();
+        Optional<String> errorMessage;
+        try {
+            if (failFast) {
+                boolean recursive = !RecursionCheck.findFirstCycle(actual, level, deadline, startingMethod, excludedMethods).isEmpty();
+                errorMessage = recursive ? Optional.empty() : Optional.of("No recursive call detected"); //$NON-NLS-1$
+            } else {
+                errorMessage = RecursionCheck.hasCycle(getSession(deadline), startingMethod, excludedMethods);
+            }
+        } catch (AnalysisTimeoutException e) {
+            failWithMessage(e.getMessage());
+            return this;
+        }
         errorMessage.ifPresent(unwantedSimpleRecursionMessageForAllJavaFiles -> failWithMessage(
                 "Wanted recursion not found:" + System.lineSeparator() + unwantedSimpleRecursionMessageForAllJavaFiles)); //$NON-NLS-1$
         return this;
     }
-}
 
+    private Deadline newDeadline() {
+        return timeout != null ? Deadline.after(timeout) : Deadline.none();
+    }
 
+    /**
+     * Shared sessions have no deadline, since an expired deadline would stop every later assertion
+     */
+    private AnalysisSession getSession(Deadline deadline) {
+        return timeout != null ? AnalysisSession.open(actual, level, deadline) : AnalysisSession.of(actual, level);
+    }
+}
@@ -0,0 +1,222 @@
+package recursionCheck;
+
+import analysis.AnalysisSession;
+import analysis.Deadline;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RecursionCheckTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testFailFastFindsACycleIfAndOnlyIfTheFullCheckDoes() throws IOException {
+        for (Path example : StronglyConnectedComponentsTest.examples()) {
+            AnalysisSession session = AnalysisSession.of(example, LanguageLevel.JAVA_17);
+            Set<String> recursiveMethods = RecursionCheck.getRecursiveMethods(session, null);
+
+            List<String> firstCycle = RecursionCheck.findFirstCycle(example, LanguageLevel.JAVA_17, null);
+
+            assertThat(firstCycle.isEmpty()).as(example.toString()).isEqualTo(recursiveMethods.isEmpty());
+            assertThat(recursiveMethods).as(example.toString()).containsAll(firstCycle);
+            assertIsCycle(session.getMethodCallGraph().getGraph(), firstCycle);
+        }
+    }
+
+    @Test
+    void testFailFastFromEveryMethodOfTheExamples() throws IOException {
+        int startingMethods = 0;
+        for (Path example : StronglyConnectedComponentsTest.examples()) {
+            AnalysisSession session = AnalysisSession.of(example, LanguageLevel.JAVA_17);
+            for (Method method : findMethods(session.getMethodCallGraph().getGraph().vertexSet())) {
+                Set<String> recursiveMethods = RecursionCheck.getRecursiveMethods(session, method);
+
+                List<String> firstCycle = RecursionCheck.findFirstCycle(example, LanguageLevel.JAVA_17, method);
+
+                assertThat(firstCycle.isEmpty()).as("%s from %s", example, method).isEqualTo(recursiveMethods.isEmpty());
+                assertThat(recursiveMethods).as("%s from %s", example, method).containsAll(firstCycle);
+                startingMethods++;
+            }
+        }
+        assertThat(startingMethods).isPositive();
+    }
+
+    @Test
+    void testStreamedGraphEqualsTheGraphOfTheSession() throws IOException {
+        for (Path example : StronglyConnectedComponentsTest.examples()) {
+            Graph<String, DefaultEdge> streamedGraph = RecursionCheck.createMethodCallGraph(example, LanguageLevel.JAVA_17).getGraph();
+
+            Graph<String, DefaultEdge> sessionGraph = AnalysisSession.open(example, LanguageLevel.JAVA_17, Deadline.none())
+                    .getMethodCallGraph().getGraph();
+
+            assertThat(sessionGraph.vertexSet()).as(example.toString()).isEqualTo(streamedGraph.vertexSet());
+            assertThat(edges(sessionGraph)).as(example.toString()).isEqualTo(edges(streamedGraph));
+        }
+    }
+
+    @Test
+    void testReachableGraphEqualsTheSubgraphOfTheFullGraph() throws IOException {
+        int startingMethods = 0;
+        for (Path example : StronglyConnectedComponentsTest.examples()) {
+            MethodCallGraph fullGraph = AnalysisSession.open(example, LanguageLevel.JAVA_17, Deadline.none()).getMethodCallGraph();
+            for (Method method : findMethods(fullGraph.getGraph().vertexSet())) {
+                String startingVertex = RecursionCheck.getIdentifierOfMethod(method);
+                Graph<String, DefaultEdge> subgraph = fullGraph.extractSubgraph(startingVertex);
+
+                // A new session builds the graph on demand, since it has not summarized every file yet
+                Graph<String, DefaultEdge> reachableGraph = AnalysisSession.open(example, LanguageLevel.JAVA_17, Deadline.none())
+                        .getReachableCallGraph(method).extractSubgraph(startingVertex);
+
+                assertThat(reachableGraph.vertexSet()).as("%s from %s", example, method).isEqualTo(subgraph.vertexSet());
+                assertThat(edges(reachableGraph)).as("%s from %s", example, method).isEqualTo(edges(subgraph));
+                startingMethods++;
+            }
+        }
+        assertThat(startingMethods).isPositive();
+    }
+
+    @Test
+    void testCycleThroughVirtualCallIsFoundWhenTheDetectionIsCompleted() throws IOException {
+        write("Base.java", """
+                package p;
+
+                public abstract class Base {
+                    public abstract void step();
+
+                    public void run() {
+                        step();
+                    }
+                }
+                """);
+        write("Helper.java", """
+                package p;
+
+                public class Helper {
+                    public void help() {
+                    }
+                }
+                """);
+        // The third file is not followed by an update of the virtual calls, which are only added after the 1st,
+        // 2nd, 4th, ... file
+        write("Step.java", """
+                package p;
+
+                public class Step extends Base {
+                    @Override
+                    public void step() {
+                        new Helper().help();
+                        run();
+                    }
+                }
+                """);
+
+        List<String> firstCycle = RecursionCheck.findFirstCycle(directory, LanguageLevel.JAVA_17, null);
+
+        assertThat(firstCycle).containsExactlyInAnyOrder("p.Base.run()", "p.Step.step()");
+        assertThat(RecursionCheck.getRecursiveMethods(AnalysisSession.of(directory, LanguageLevel.JAVA_17), null))
+                .containsExactlyInAnyOrderElementsOf(firstCycle);
+    }
+
+    @Test
+    void testFailFastRequiresTheStartingMethodInTheGraph() throws NoSuchMethodException {
+        Method startingMethod = RecursionCheckTest.class.getDeclaredMethod("notAnalyzed");
+
+        assertThatThrownBy(() -> RecursionCheck.findFirstCycle(Path.of("src/main/java/org/example/SimpleRecursion"),
+                LanguageLevel.JAVA_17, startingMethod))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("graph must contain the start vertex");
+    }
+
+    @Test
+    void testTimeoutFailsTheAssertion() {
+        Path example = Path.of("src/main/java/org/example/SimpleRecursion");
+
+        assertThatThrownBy(() -> RecursionCheckAssert.assertThatSourcesIn(example).withLanguageLevel(LanguageLevel.JAVA_17)
+                .withTimeout(Duration.ZERO).hasNoRecursion())
+                .isInstanceOf(AssertionError.class)
+                .hasMessageStartingWith("The analysis timed out in phase parsing after 0 files");
+        assertThatThrownBy(() -> RecursionCheckAssert.assertThatSourcesIn(example).withLanguageLevel(LanguageLevel.JAVA_17)
+                .withTimeout(Duration.ZERO).failFast().hasRecursion())
+                .isInstanceOf(AssertionError.class)
+                .hasMessageStartingWith("The analysis timed out in phase parsing after 0 files");
+        RecursionCheckAssert.assertThatSourcesIn(example).withLanguageLevel(LanguageLevel.JAVA_17)
+                .withTimeout(Duration.ofMinutes(1)).hasRecursion();
+    }
+
+    private static void assertIsCycle(Graph<String, DefaultEdge> graph, List<String> cycle) {
+        for (int i = 0; i < cycle.size(); i++) {
+            assertThat(graph.containsEdge(cycle.get(i), cycle.get((i + 1) % cycle.size())))
+                    .as("%s calls %s", cycle.get(i), cycle.get((i + 1) % cycle.size())).isTrue();
+        }
+    }
+
+    private static Set<List<String>> edges(Graph<String, DefaultEdge> graph) {
+        return graph.edgeSet().stream().map(edge -> List.of(graph.getEdgeSource(edge), graph.getEdgeTarget(edge)))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Finds the methods of the vertices whose declaring classes can be loaded, leaving out lambdas, anonymous classes
+     * and methods of the JDK
+     */
+    private static List<Method> findMethods(Set<String> vertices) {
+        List<Method> methods = new ArrayList<>();
+        for (String vertex : vertices) {
+            String qualifiedName = vertex.substring(0, vertex.indexOf('('));
+            if (!qualifiedName.startsWith("org.example.")) {
+                continue;
+            }
+            findClass(qualifiedName.substring(0, qualifiedName.lastIndexOf('.'))).ifPresent(type -> {
+                for (Method method : type.getDeclaredMethods()) {
+                    if (RecursionCheck.getIdentifierOfMethod(method).equals(vertex)) {
+                        methods.add(method);
+                    }
+                }
+            });
+        }
+        return methods;
+    }
+
+    /**
+     * Nested classes are loaded by their binary name, so the dots are replaced by {@code $} from the right
+     */
+    private static Optional<Class<?>> findClass(String name) {
+        for (String binaryName = name; binaryName.lastIndexOf('.') >= 0;
+             binaryName = binaryName.substring(0, binaryName.lastIndexOf('.')) + '$' + binaryName.substring(binaryName.lastIndexOf('.') + 1)) {
+            try {
+                return Optional.of(Class.forName(binaryName, false, RecursionCheckTest.class.getClassLoader()));
+            } catch (ClassNotFoundException e) {
+                // Try the next enclosing class
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void write(String fileName, String content) throws IOException {
+        Path file = directory.resolve("p").resolve(fileName);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    @SuppressWarnings("unused")
+    private static void notAnalyzed() {
+    }
+}
@@ -0,0 +1,57 @@
+package recursionCheck;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for resolving one call site. JFR adds the thread and the duration.
+ * <p>
+ * The call site is only printed if the event is recorded.
+ */
+@Name("astRecursion.ResolveCall") //$NON-NLS-1$
+@Label("Resolve Call Site") //$NON-NLS-1$
+@Category({"astRecursion", "Resolution"}) //$NON-NLS-1$ //$NON-NLS-2$
+@Description("Resolution of one method call to the vertex of the called method") //$NON-NLS-1$
+@StackTrace(false)
+final class ResolveCallEvent extends Event {
+
+    @Label("Path") //$NON-NLS-1$
+    String path;
+
+    @Label("Line") //$NON-NLS-1$
+    int line;
+
+    @Label("Call Site") //$NON-NLS-1$
+    String callSite;
+
+    @Label("Outcome") //$NON-NLS-1$
+    @Description("Vertex of the called method, or the exception if the call could not be resolved") //$NON-NLS-1$
+    String outcome;
+
+    @Label("Memoized") //$NON-NLS-1$
+    @Description("Whether the call was resolved by the memo of its call-site shape") //$NON-NLS-1$
+    boolean memoized;
+
+    /**
+     * Commits the event if it is recorded
+     *
+     * @param methodCall Resolved method call
+     * @param outcome    Vertex of the called method or the exception
+     */
+    void complete(MethodCallExpr methodCall, String outcome) {
+        if (shouldCommit()) {
+            this.path = methodCall.findCompilationUnit().flatMap(CompilationUnit::getStorage)
+                    .map(storage -> storage.getPath().toString()).orElse(null);
+            this.line = methodCall.getBegin().map(position -> position.line).orElse(-1);
+            this.callSite = methodCall.toString();
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
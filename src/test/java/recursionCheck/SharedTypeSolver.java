@@ -0,0 +1,120 @@
+package recursionCheck;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ClassLoaderTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import org.apiguardian.api.API;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets the type solvers of many source roots share the types which do not depend on the source root, i.e. the
+ * types of the JDK and of the class path.
+ * <p>
+ * A type solver can only be part of one {@link com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver},
+ * so every source root gets its own instance of this class, which delegates to a type solver shared by all of
+ * them. The shared solvers are created once per JVM and memoize every lookup, including the ones that fail, in a
+ * concurrent cache of at most {@code astRecursion.typeSolver.cacheSize} entries. They are their own roots, since
+ * the types they resolve never refer to types of a source root.
+ */
+@API(status = API.Status.INTERNAL)
+public class SharedTypeSolver implements TypeSolver {
+
+    private static final int CACHE_SIZE = Integer.getInteger("astRecursion.typeSolver.cacheSize", 50_000); //$NON-NLS-1$
+
+    private static final TypeSolver JDK = new MemoizingTypeSolver(new ReflectionTypeSolver());
+
+    private static final TypeSolver CLASS_PATH = new MemoizingTypeSolver(new ClassLoaderTypeSolver(SharedTypeSolver.class.getClassLoader()));
+
+    private final TypeSolver delegate;
+
+    private TypeSolver parent;
+
+    private SharedTypeSolver(TypeSolver delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return Type solver for the types of the JDK
+     */
+    public static SharedTypeSolver jdk() {
+        return new SharedTypeSolver(JDK);
+    }
+
+    /**
+     * @return Type solver for the types of the class path of the tests
+     */
+    public static SharedTypeSolver classPath() {
+        return new SharedTypeSolver(CLASS_PATH);
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        if (this.parent != null) {
+            throw new IllegalStateException("This TypeSolver already has a parent."); //$NON-NLS-1$
+        }
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        return delegate.tryToSolveType(name);
+    }
+
+    /**
+     * Root of a shared type solver, through which the declarations it creates also resolve the types they refer to
+     */
+    private static final class MemoizingTypeSolver implements TypeSolver {
+
+        private final TypeSolver typeSolver;
+
+        private final Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> solvedTypes = new ConcurrentHashMap<>();
+
+        MemoizingTypeSolver(TypeSolver typeSolver) {
+            this.typeSolver = typeSolver;
+            typeSolver.setParent(this);
+        }
+
+        @Override
+        public TypeSolver getParent() {
+            return null;
+        }
+
+        @Override
+        public void setParent(TypeSolver parent) {
+            throw new UnsupportedOperationException("A shared TypeSolver cannot have a parent."); //$NON-NLS-1$
+        }
+
+        @Override
+        public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+            SymbolReference<ResolvedReferenceTypeDeclaration> solvedType = solvedTypes.get(name);
+            if (solvedType == null) {
+                // Solved outside of computeIfAbsent, since solving a type may recursively solve other types
+                solvedType = typeSolver.tryToSolveType(name);
+                if (solvedTypes.size() >= CACHE_SIZE) {
+                    evict();
+                }
+                solvedTypes.putIfAbsent(name, solvedType);
+            }
+            return solvedType;
+        }
+
+        private void evict() {
+            // Drops arbitrary entries, which is cheaper than tracking the usage of every lookup
+            Iterator<String> names = solvedTypes.keySet().iterator();
+            for (int i = 0; i < CACHE_SIZE / 4 && names.hasNext(); i++) {
+                names.next();
+                names.remove();
+            }
+        }
+    }
+}
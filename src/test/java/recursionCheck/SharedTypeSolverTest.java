@@ -0,0 +1,52 @@
+package recursionCheck;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SharedTypeSolverTest {
+
+    @Test
+    void testLookupsAreSharedByAllSourceRoots() {
+        TypeSolver first = new CombinedTypeSolver(SharedTypeSolver.jdk());
+        TypeSolver second = new CombinedTypeSolver(SharedTypeSolver.jdk());
+
+        SymbolReference<ResolvedReferenceTypeDeclaration> list = first.tryToSolveType("java.util.List");
+
+        assertThat(list.isSolved()).isTrue();
+        assertThat(list.getCorrespondingDeclaration().getQualifiedName()).isEqualTo("java.util.List");
+        assertThat(second.tryToSolveType("java.util.List")).isSameAs(list);
+        assertThat(SharedTypeSolver.jdk().tryToSolveType("java.util.List")).isSameAs(list);
+    }
+
+    @Test
+    void testFailedLookupsAreMemoized() {
+        SymbolReference<ResolvedReferenceTypeDeclaration> missing = SharedTypeSolver.jdk().tryToSolveType("java.util.DoesNotExist");
+
+        assertThat(missing.isSolved()).isFalse();
+        assertThat(SharedTypeSolver.jdk().tryToSolveType("java.util.DoesNotExist")).isSameAs(missing);
+    }
+
+    @Test
+    void testTypesOfTheClassPathAreSolved() {
+        SymbolReference<ResolvedReferenceTypeDeclaration> type = SharedTypeSolver.classPath().tryToSolveType(RecursionCheck.class.getName());
+
+        assertThat(type.isSolved()).isTrue();
+        assertThat(SharedTypeSolver.classPath().tryToSolveType(RecursionCheck.class.getName())).isSameAs(type);
+    }
+
+    @Test
+    void testEveryInstanceHasItsOwnParent() {
+        SharedTypeSolver jdk = SharedTypeSolver.jdk();
+        CombinedTypeSolver combinedTypeSolver = new CombinedTypeSolver(jdk);
+
+        assertThat(jdk.getParent()).isSameAs(combinedTypeSolver);
+        assertThatThrownBy(() -> new CombinedTypeSolver(jdk)).isInstanceOf(IllegalStateException.class);
+        assertThat(SharedTypeSolver.jdk().getParent()).isNull();
+    }
+}
@@ -0,0 +1,188 @@
+package recursionCheck;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.LambdaExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.types.ResolvedType;
+import org.apiguardian.api.API;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the vertices of the method call graph, which identify a method by its fully qualified name and its erased
+ * parameter types, e.g. {@code org.example.Outer.Inner.sum(int, java.util.List)}.
+ * <p>
+ * Calling and called methods are both identified by their resolved declaration, so a call and the declaration it
+ * calls always map to the same vertex, regardless of boxing, subtyping or generics at the call site. Reflective
+ * {@link Method methods} map to the same vertex as their source declaration.
+ * <p>
+ * Anonymous classes and lambda bodies are named after their position in their enclosing class, similar to the
+ * classes and methods generated for them by javac, so their vertices are the same every time a file is analyzed.
+ */
+@API(status = API.Status.INTERNAL)
+public final class Signatures {
+
+    private Signatures() {
+    }
+
+    /**
+     * Get the vertex of a resolved method
+     *
+     * @param method Resolved declaration of the method
+     * @return Fully qualified name of the method followed by its erased parameter types
+     */
+    public static String of(ResolvedMethodDeclaration method) {
+        Optional<ObjectCreationExpr> anonymousClass = method.toAst().flatMap(Node::getParentNode)
+                .filter(ObjectCreationExpr.class::isInstance).map(ObjectCreationExpr.class::cast);
+        if (anonymousClass.isPresent()) {
+            return ofAnonymousClass(anonymousClass.get()) + "." + method.getName() + getErasedParameterTypes(method); //$NON-NLS-1$
+        }
+        return method.getQualifiedName() + getErasedParameterTypes(method);
+    }
+
+    /**
+     * Get the name of an anonymous class, which is the name of its enclosing class followed by {@code $} and the
+     * position of the anonymous class among the anonymous classes of the enclosing class, starting at 1
+     *
+     * @param anonymousClass Creation of the anonymous class
+     * @return Synthetic name of the anonymous class, e.g. {@code org.example.Outer$1}
+     */
+    public static String ofAnonymousClass(ObjectCreationExpr anonymousClass) {
+        Node enclosingClass = getEnclosingClass(anonymousClass);
+        return getClassName(enclosingClass) + "$" + (indexInClass(enclosingClass, anonymousClass, //$NON-NLS-1$
+                node -> node instanceof ObjectCreationExpr objectCreation && objectCreation.getAnonymousClassBody().isPresent()) + 1);
+    }
+
+    /**
+     * Get the vertex of the body of a lambda expression, which is named after its enclosing class and callable like
+     * the synthetic method generated by javac and takes the parameters of the implemented method
+     *
+     * @param lambda           Lambda expression
+     * @param functionalMethod Method of the functional interface which the lambda implements
+     * @return Vertex of the lambda body, e.g. {@code org.example.Outer.lambda$main$0(java.lang.Object)}
+     */
+    public static String ofLambda(LambdaExpr lambda, ResolvedMethodDeclaration functionalMethod) {
+        Node enclosingClass = getEnclosingClass(lambda);
+        String enclosingCallable = lambda.findAncestor(CallableDeclaration.class)
+                .filter(callable -> callable instanceof MethodDeclaration && getEnclosingClass(callable) == enclosingClass)
+                .map(CallableDeclaration::getNameAsString)
+                .orElse("new"); //$NON-NLS-1$
+        return getClassName(enclosingClass) + ".lambda$" + enclosingCallable + "$" //$NON-NLS-1$ //$NON-NLS-2$
+                + indexInClass(enclosingClass, lambda, LambdaExpr.class::isInstance) + getErasedParameterTypes(functionalMethod);
+    }
+
+    /**
+     * Get the vertex of a method loaded by reflection
+     *
+     * @param method Method
+     * @return Fully qualified name of the method followed by its parameter types
+     */
+    public static String of(Method method) {
+        return getTypeName(method.getDeclaringClass()) + "." + method.getName() + getParameterTypes(method); //$NON-NLS-1$
+    }
+
+    /**
+     * Get the parameter types of a method loaded by reflection
+     *
+     * @param method Method
+     * @return Parameter types in the format of the vertices
+     */
+    public static String getParameterTypes(Method method) {
+        return Arrays.stream(method.getParameterTypes()).map(Signatures::getTypeName)
+                .collect(Collectors.joining(", ", "(", ")")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    }
+
+    /**
+     * Get the innermost named type declaration or anonymous class body which contains the given node
+     */
+    private static Node getEnclosingClass(Node node) {
+        Node child = node;
+        Optional<Node> parent = node.getParentNode();
+        while (parent.isPresent()) {
+            if (parent.get() instanceof TypeDeclaration<?>) {
+                return parent.get();
+            }
+            Node currentChild = child;
+            if (parent.get() instanceof ObjectCreationExpr objectCreation && objectCreation.getAnonymousClassBody()
+                    .filter(body -> body.stream().anyMatch(member -> member == currentChild)).isPresent()) {
+                return objectCreation;
+            }
+            child = parent.get();
+            parent = child.getParentNode();
+        }
+        return child;
+    }
+
+    private static String getClassName(Node enclosingClass) {
+        if (enclosingClass instanceof ObjectCreationExpr anonymousClass) {
+            return ofAnonymousClass(anonymousClass);
+        }
+        if (enclosingClass instanceof TypeDeclaration<?> type) {
+            return type.getFullyQualifiedName().orElseGet(type::getNameAsString);
+        }
+        return ""; //$NON-NLS-1$
+    }
+
+    /**
+     * Number the nodes of a kind in the order in which they appear in their enclosing class
+     */
+    private static int indexInClass(Node enclosingClass, Node node, Predicate<Node> kind) {
+        int index = 0;
+        for (Node candidate : enclosingClass.findAll(Node.class, Node.TreeTraversal.PREORDER)) {
+            if (candidate == node) {
+                return index;
+            }
+            if (candidate != enclosingClass && kind.test(candidate) && getEnclosingClass(candidate) == enclosingClass) {
+                index++;
+            }
+        }
+        throw new IllegalArgumentException("Node is not part of its enclosing class"); //$NON-NLS-1$
+    }
+
+    private static String getErasedParameterTypes(ResolvedMethodDeclaration method) {
+        StringJoiner parameterTypes = new StringJoiner(", ", "(", ")"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        for (int i = 0; i < method.getNumberOfParams(); i++) {
+            parameterTypes.add(getErasedParameterType(method, i));
+        }
+        return parameterTypes.toString();
+    }
+
+    private static String getTypeName(Class<?> type) {
+        // Nested types are separated by '.' in the source, local and anonymous classes have no canonical name
+        return Optional.ofNullable(type.getCanonicalName()).orElseGet(type::getTypeName);
+    }
+
+    private static String describeErasure(ResolvedType type) {
+        // The erasure of a type variable is its bound, which may itself be parameterized, e.g. Comparable<T>
+        ResolvedType erasure = type.erasure();
+        if (erasure.isArray()) {
+            return describeErasure(erasure.asArrayType().getComponentType()) + "[]"; //$NON-NLS-1$
+        }
+        if (erasure.isReferenceType()) {
+            return erasure.asReferenceType().getQualifiedName();
+        }
+        return erasure.describe();
+    }
+
+    private static String getErasedParameterType(ResolvedMethodDeclaration method, int index) {
+        try {
+            return describeErasure(method.getParam(index).getType());
+        } catch (UnsolvedSymbolException e) {
+            // Types missing from the class path still get a stable vertex as long as the declaration is in the sources
+            return method.toAst()
+                    .filter(CallableDeclaration.class::isInstance)
+                    .map(declaration -> ((CallableDeclaration<?>) declaration).getParameter(index).getTypeAsString())
+                    .orElseThrow(() -> e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package recursionCheck;
+
+import ast.model.JavaFile;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
+import org.apiguardian.api.API;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Solves the types of a source root like a {@link JavaParserTypeSolver}, but only asks it for names of types which
+ * may be declared in the source root.
+ * <p>
+ * Names which are looked up in the package of a file before the imports, like {@code org.example.String}, are not
+ * found in a file of their own, so the {@link JavaParserTypeSolver} parses every file of the package to look for
+ * them. Instead, the names of all top level types are collected once from the file names and a plain text scan for
+ * type declarations, and every other name is unsolved right away.
+ * <p>
+ * The {@link JavaParserTypeSolver} keeps every file it parses and every type it solves, unless the number of cached
+ * files is bounded.
+ */
+@API(status = API.Status.INTERNAL)
+public class SourceRootTypeSolver implements TypeSolver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SourceRootTypeSolver.class);
+
+    /**
+     * Cache size which lets the {@link JavaParserTypeSolver} keep everything
+     */
+    public static final long UNBOUNDED = -1;
+
+    private static final Pattern TYPE_DECLARATION = Pattern.compile("\\b(?:class|interface|enum|record)\\s+([A-Za-z_$][\\w$]*)"); //$NON-NLS-1$
+
+    private final TypeSolver typeSolver;
+
+    /**
+     * Qualified names of the types which may be declared at the top level of a file, derived from its directory
+     */
+    private final Set<String> topLevelTypes = new HashSet<>();
+
+    private TypeSolver parent;
+
+    /**
+     * @param sourceRoot Path to the source root
+     */
+    public SourceRootTypeSolver(Path sourceRoot) {
+        this(sourceRoot, UNBOUNDED);
+    }
+
+    /**
+     * @param sourceRoot  Path to the source root
+     * @param cachedFiles Number of parsed files and of solved types which are kept at most, or {@link #UNBOUNDED}
+     */
+    public SourceRootTypeSolver(Path sourceRoot, long cachedFiles) {
+        this.typeSolver = new JavaParserTypeSolver(sourceRoot,
+                new ParserConfiguration().setLanguageLevel(ParserConfiguration.LanguageLevel.BLEEDING_EDGE), cachedFiles);
+        typeSolver.setParent(this);
+        for (Path javaFile : JavaFile.findJavaFilesBelow(sourceRoot)) {
+            String packagePrefix = getPackagePrefix(sourceRoot.relativize(javaFile));
+            String fileName = javaFile.getFileName().toString();
+            topLevelTypes.add(packagePrefix + fileName.substring(0, fileName.length() - ".java".length())); //$NON-NLS-1$
+            // Files may declare further types with other names, which are only found by the text scan
+            Matcher typeDeclaration = TYPE_DECLARATION.matcher(readContent(javaFile));
+            while (typeDeclaration.find()) {
+                topLevelTypes.add(packagePrefix + typeDeclaration.group(1));
+            }
+        }
+    }
+
+    private static String getPackagePrefix(Path relativeFile) {
+        StringBuilder packagePrefix = new StringBuilder();
+        for (int i = 0; i < relativeFile.getNameCount() - 1; i++) {
+            packagePrefix.append(relativeFile.getName(i)).append('.');
+        }
+        return packagePrefix.toString();
+    }
+
+    private static String readContent(Path javaFile) {
+        try {
+            return new String(Files.readAllBytes(javaFile), StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            LOG.error("Error reading Java file '{}'", javaFile, e); //$NON-NLS-1$
+            throw new AssertionError(String.format("The file %s could not be read: %s", javaFile, e));
+        }
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        if (this.parent != null) {
+            throw new IllegalStateException("This TypeSolver already has a parent."); //$NON-NLS-1$
+        }
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        return mayBeDeclared(name) ? typeSolver.tryToSolveType(name) : SymbolReference.unsolved();
+    }
+
+    /**
+     * A name may refer to a top level type or to a type nested in it, so every prefix of the name is checked
+     */
+    private boolean mayBeDeclared(String name) {
+        for (int end = name.indexOf('.'); ; end = name.indexOf('.', end + 1)) {
+            if (topLevelTypes.contains(end < 0 ? name : name.substring(0, end))) {
+                return true;
+            }
+            if (end < 0) {
+                return false;
+            }
+        }
+    }
+}
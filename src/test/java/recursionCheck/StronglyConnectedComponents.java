@@ -0,0 +1,173 @@
+package recursionCheck;
+
+import analysis.Deadline;
+import org.apiguardian.api.API;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Finds recursive methods with Tarjan's algorithm, which visits every vertex and edge reachable from the roots once.
+ * <p>
+ * A strongly connected component is recursive if it contains more than one method, i.e. the methods call each
+ * other, or if its only method calls itself. The search is iterative, so deep call chains cannot overflow the stack.
+ * The deadline of the analysis is checked once per {@value #CHECK_INTERVAL} visited methods.
+ */
+@API(status = API.Status.INTERNAL)
+public final class StronglyConnectedComponents {
+
+    private static final int CHECK_INTERVAL = 4096;
+
+    private final CompactCallGraph graph;
+
+    private final Deadline deadline;
+
+    private final int[] index;
+
+    private final int[] lowLink;
+
+    private final BitSet onStack;
+
+    private final int[] componentStack;
+
+    private int componentStackSize;
+
+    private final int[] callStack;
+
+    private final int[] nextEdge;
+
+    private int nextIndex;
+
+    private final List<int[]> recursiveComponents = new ArrayList<>();
+
+    private StronglyConnectedComponents(CompactCallGraph graph, Deadline deadline) {
+        int vertexCount = graph.vertexCount();
+        this.graph = graph;
+        this.deadline = deadline;
+        this.index = new int[vertexCount];
+        this.lowLink = new int[vertexCount];
+        this.onStack = new BitSet(vertexCount);
+        this.componentStack = new int[vertexCount];
+        this.callStack = new int[vertexCount];
+        this.nextEdge = new int[vertexCount];
+        Arrays.fill(index, -1);
+    }
+
+    /**
+     * Find all recursive components of the graph
+     *
+     * @param graph Method call graph
+     * @return Ids of the methods of every recursive component
+     */
+    public static List<int[]> findRecursiveComponents(CompactCallGraph graph) {
+        return findRecursiveComponents(graph, Deadline.none());
+    }
+
+    /**
+     * Find all recursive components of the graph within the given deadline
+     *
+     * @param graph    Method call graph
+     * @param deadline Deadline of the analysis
+     * @return Ids of the methods of every recursive component
+     * @throws analysis.AnalysisTimeoutException If the deadline expires before all methods are visited
+     */
+    public static List<int[]> findRecursiveComponents(CompactCallGraph graph, Deadline deadline) {
+        StronglyConnectedComponents components = new StronglyConnectedComponents(graph, deadline);
+        for (int vertex = 0; vertex < graph.vertexCount(); vertex++) {
+            components.visit(vertex);
+        }
+        return components.recursiveComponents;
+    }
+
+    /**
+     * Find all recursive components which can be reached from the given methods
+     *
+     * @param graph Method call graph
+     * @param roots Ids of the methods to start from
+     * @return Ids of the methods of every reachable recursive component
+     */
+    public static List<int[]> findRecursiveComponents(CompactCallGraph graph, int... roots) {
+        return findRecursiveComponents(graph, Deadline.none(), roots);
+    }
+
+    /**
+     * Find all recursive components which can be reached from the given methods within the given deadline
+     *
+     * @param graph    Method call graph
+     * @param deadline Deadline of the analysis
+     * @param roots    Ids of the methods to start from
+     * @return Ids of the methods of every reachable recursive component
+     * @throws analysis.AnalysisTimeoutException If the deadline expires before all reachable methods are visited
+     */
+    public static List<int[]> findRecursiveComponents(CompactCallGraph graph, Deadline deadline, int... roots) {
+        StronglyConnectedComponents components = new StronglyConnectedComponents(graph, deadline);
+        for (int root : roots) {
+            components.visit(root);
+        }
+        return components.recursiveComponents;
+    }
+
+    private void visit(int root) {
+        if (index[root] != -1) {
+            return;
+        }
+        int depth = 0;
+        enter(root, depth++);
+        while (depth > 0) {
+            int vertex = callStack[depth - 1];
+            if (nextEdge[depth - 1] < graph.outDegree(vertex)) {
+                int callee = graph.successor(vertex, nextEdge[depth - 1]++);
+                if (index[callee] == -1) {
+                    enter(callee, depth++);
+                } else if (onStack.get(callee)) {
+                    lowLink[vertex] = Math.min(lowLink[vertex], index[callee]);
+                }
+            } else {
+                depth--;
+                if (depth > 0) {
+                    int caller = callStack[depth - 1];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[vertex]);
+                }
+                if (lowLink[vertex] == index[vertex]) {
+                    closeComponent(vertex);
+                }
+            }
+        }
+    }
+
+    private void enter(int vertex, int depth) {
+        if (nextIndex % CHECK_INTERVAL == 0) {
+            deadline.check(Deadline.Phase.CYCLE_DETECTION);
+        }
+        index[vertex] = nextIndex;
+        lowLink[vertex] = nextIndex;
+        nextIndex++;
+        componentStack[componentStackSize++] = vertex;
+        onStack.set(vertex);
+        callStack[depth] = vertex;
+        nextEdge[depth] = 0;
+    }
+
+    private void closeComponent(int root) {
+        int start = componentStackSize;
+        do {
+            onStack.clear(componentStack[--start]);
+        } while (componentStack[start] != root);
+        int[] component = Arrays.copyOfRange(componentStack, start, componentStackSize);
+        componentStackSize = start;
+        if (component.length > 1 || callsItself(root)) {
+            recursiveComponents.add(component);
+        }
+    }
+
+    private boolean callsItself(int vertex) {
+        for (int i = 0; i < graph.outDegree(vertex); i++) {
+            if (graph.successor(vertex, i) == vertex) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
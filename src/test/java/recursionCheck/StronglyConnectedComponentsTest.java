@@ -0,0 +1,135 @@
+package recursionCheck;
+
+import analysis.AnalysisSession;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import org.jgrapht.alg.cycle.CycleDetector;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StronglyConnectedComponentsTest {
+
+    private static final Path EXAMPLES = Path.of("src/main/java/org/example");
+
+    @Test
+    void testSelfLoop() {
+        MethodCallGraph graph = new MethodCallGraph();
+        graph.addMethodCalls("a", List.of("a", "b"));
+        graph.addMethodCalls("b", List.of("c"));
+
+        assertThat(recursiveMethods(graph.getCompactGraph())).containsExactly("a");
+    }
+
+    @Test
+    void testMutualRecursion() {
+        MethodCallGraph graph = new MethodCallGraph();
+        graph.addMethodCalls("c", List.of("a"));
+        graph.addMethodCalls("a", List.of("b"));
+        graph.addMethodCalls("b", List.of("a", "d"));
+
+        List<int[]> components = StronglyConnectedComponents.findRecursiveComponents(graph.getCompactGraph());
+
+        assertThat(components).hasSize(1);
+        assertThat(namesOf(graph.getCompactGraph(), components.get(0))).containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    void testSeparateComponents() {
+        MethodCallGraph graph = new MethodCallGraph();
+        graph.addMethodCalls("a", List.of("b"));
+        graph.addMethodCalls("b", List.of("a", "c"));
+        graph.addMethodCalls("c", List.of("d"));
+        graph.addMethodCalls("d", List.of("c"));
+
+        assertThat(StronglyConnectedComponents.findRecursiveComponents(graph.getCompactGraph())).hasSize(2);
+        assertThat(recursiveMethods(graph.getCompactGraph())).containsExactlyInAnyOrder("a", "b", "c", "d");
+    }
+
+    @Test
+    void testCycleOnlyThroughExcludedMethod() throws NoSuchMethodException {
+        Method excludedMethod = StronglyConnectedComponentsTest.class.getDeclaredMethod("excluded");
+        String excluded = RecursionCheck.getIdentifierOfMethod(excludedMethod);
+        MethodCallGraph graph = new MethodCallGraph(excludedMethod);
+        graph.addMethodCalls("a", List.of(excluded));
+        graph.addMethodCalls(excluded, List.of("a"));
+
+        assertThat(recursiveMethods(graph.getCompactGraph())).isEmpty();
+    }
+
+    @Test
+    void testCycleUnreachableFromStart() {
+        MethodCallGraph graph = new MethodCallGraph();
+        graph.addMethodCalls("start", List.of("a"));
+        graph.addMethodCalls("a", List.of("b"));
+        graph.addMethodCalls("c", List.of("d", "a"));
+        graph.addMethodCalls("d", List.of("c"));
+        CompactCallGraph compactGraph = graph.getCompactGraph();
+
+        assertThat(recursiveMethods(compactGraph, compactGraph.indexOf("start"))).isEmpty();
+        assertThat(recursiveMethods(compactGraph, compactGraph.indexOf("d"))).containsExactlyInAnyOrder("c", "d");
+        assertThat(recursiveMethods(compactGraph)).containsExactlyInAnyOrder("c", "d");
+    }
+
+    @Test
+    void testLongCallChain() {
+        MethodCallGraph graph = new MethodCallGraph();
+        int length = 200_000;
+        for (int i = 0; i < length; i++) {
+            graph.addMethodCalls("m" + i, List.of("m" + (i + 1)));
+        }
+        graph.addMethodCalls("m" + length, List.of("m0"));
+
+        List<int[]> components = StronglyConnectedComponents.findRecursiveComponents(graph.getCompactGraph());
+
+        assertThat(components).hasSize(1);
+        assertThat(components.get(0)).hasSize(length + 1);
+    }
+
+    @Test
+    void testSameVerdictsAsCycleDetectorOnExamples() throws IOException {
+        for (Path example : examples()) {
+            CompactCallGraph compactGraph = AnalysisSession.of(example, LanguageLevel.JAVA_17).getMethodCallGraph().getCompactGraph();
+
+            assertThat(recursiveMethods(compactGraph)).as(example.toString())
+                    .isEqualTo(new TreeSet<>(new CycleDetector<>(compactGraph.asGraph()).findCycles()));
+            for (int start = 0; start < compactGraph.vertexCount(); start++) {
+                CycleDetector<String, ?> detector = new CycleDetector<>(compactGraph.toGraph(compactGraph.reachableFrom(start)));
+                assertThat(recursiveMethods(compactGraph, start)).as("%s from %s", example, compactGraph.vertexOf(start))
+                        .isEqualTo(new TreeSet<>(detector.findCycles()));
+            }
+        }
+    }
+
+    static List<Path> examples() throws IOException {
+        try (Stream<Path> paths = Files.list(EXAMPLES)) {
+            return paths.filter(Files::isDirectory).sorted().collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    static Set<String> recursiveMethods(CompactCallGraph graph, int... roots) {
+        List<int[]> components = roots.length == 0 ? StronglyConnectedComponents.findRecursiveComponents(graph)
+                : StronglyConnectedComponents.findRecursiveComponents(graph, roots);
+        return components.stream().flatMap(component -> namesOf(graph, component).stream())
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static List<String> namesOf(CompactCallGraph graph, int[] component) {
+        return Arrays.stream(component).mapToObj(graph::vertexOf).toList();
+    }
+
+    @SuppressWarnings("unused")
+    private static void excluded() {
+    }
+}
@@ -0,0 +1,67 @@
+package recursionCheck;
+
+import org.apiguardian.api.API;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns the vertices of the method call graph and numbers them densely in the order in which they are added
+ */
+@API(status = API.Status.INTERNAL)
+public class SymbolTable {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    private final List<String> symbols = new ArrayList<>();
+
+    /**
+     * Get the id of a symbol, adding the symbol if it is not interned yet
+     *
+     * @param symbol Symbol to intern
+     * @return Id of the symbol
+     */
+    public int intern(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id == null) {
+            id = symbols.size();
+            ids.put(symbol, id);
+            symbols.add(symbol);
+        }
+        return id;
+    }
+
+    /**
+     * Get the id of a symbol
+     *
+     * @param symbol Symbol to look up
+     * @return Id of the symbol, or -1 if it is not interned
+     */
+    public int indexOf(String symbol) {
+        return ids.getOrDefault(symbol, -1);
+    }
+
+    public String symbolOf(int id) {
+        return symbols.get(id);
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+
+    /**
+     * @return All symbols, indexed by their id
+     */
+    public String[] toArray() {
+        return symbols.toArray(String[]::new);
+    }
+
+    /**
+     * @return Immutable copy of the mapping from symbols to ids
+     */
+    Map<String, Integer> copyOfIds() {
+        return Map.copyOf(ids);
+    }
+}
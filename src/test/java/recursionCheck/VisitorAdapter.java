@@ -1,49 +1,206 @@
 package recursionCheck;
 
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.ConstructorDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.AssignExpr;
+import com.github.javaparser.ast.expr.CastExpr;
+import com.github.javaparser.ast.expr.EnclosedExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.LambdaExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.MethodReferenceExpr;
+import com.github.javaparser.ast.stmt.ReturnStmt;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
-import org.jgrapht.Graph;
-import org.jgrapht.graph.DefaultEdge;
+import com.github.javaparser.resolution.MethodUsage;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.logic.FunctionalInterfaceLogic;
+import com.github.javaparser.resolution.types.ResolvedType;
+import recursionCheck.CallSiteResolver.Callee;
 
-import static recursionCheck.MethodCallGraph.getArgumentTypes;
-import static recursionCheck.MethodCallGraph.getParameterTypes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
 
+/**
+ * Walks every node exactly once and attributes each method call to its innermost enclosing callable, so calls in
+ * methods of anonymous and local classes belong to those methods only and not to the methods around them.
+ * <p>
+ * The body of a lambda is a callable of its own, which is reported as an implementation of the functional interface
+ * method it implements, just like a method reference. If the functional interface is not part of the sources, the
+ * calls of its method cannot be seen, so the enclosing callable is assumed to call the implementation. Lambdas whose
+ * type cannot be inferred belong to their enclosing callable.
+ */
 public class VisitorAdapter extends VoidVisitorAdapter<Void> {
-    private final Graph<String, DefaultEdge> graph;
+    private final CallSiteResolver callSiteResolver;
 
-    private final String[] excludedMethodIdentifiers;
+    private final MethodCallsConsumer methodCallsConsumer;
 
-    public VisitorAdapter(Graph<String, DefaultEdge> graph, String... excludedMethodIdentifiers) {
-        this.graph = graph;
-        this.excludedMethodIdentifiers = excludedMethodIdentifiers;
+    private final BiConsumer<String, String> implementationConsumer;
+
+    /**
+     * Callees of the enclosing callables, the innermost first
+     */
+    private final Deque<List<Callee>> enclosingCallees = new ArrayDeque<>();
+
+    /**
+     * Receives the method calls of every visited method
+     */
+    @FunctionalInterface
+    public interface MethodCallsConsumer {
+
+        /**
+         * @param method         Vertex of the method
+         * @param callees        Vertices of the called methods
+         * @param virtualCallees Vertices of the methods which are called virtually, a subset of the callees
+         */
+        void accept(String method, List<String> callees, List<String> virtualCallees);
+    }
+
+    /**
+     * @param callSiteResolver    Resolves the called methods
+     * @param methodCallsConsumer Receives every visited method together with the methods it calls
+     */
+    public VisitorAdapter(CallSiteResolver callSiteResolver, MethodCallsConsumer methodCallsConsumer) {
+        this(callSiteResolver, methodCallsConsumer, (functionalMethod, implementation) -> {
+        });
+    }
+
+    /**
+     * @param callSiteResolver       Resolves the called methods
+     * @param methodCallsConsumer    Receives every visited method and lambda body together with the methods it calls
+     * @param implementationConsumer Receives the vertex of every implemented functional interface method together
+     *                               with the vertex of the lambda body or referenced method implementing it
+     */
+    public VisitorAdapter(CallSiteResolver callSiteResolver, MethodCallsConsumer methodCallsConsumer,
+                          BiConsumer<String, String> implementationConsumer) {
+        this.callSiteResolver = callSiteResolver;
+        this.methodCallsConsumer = methodCallsConsumer;
+        this.implementationConsumer = implementationConsumer;
     }
 
     @Override
     public void visit(MethodDeclaration md, Void arg) {
-        super.visit(md, arg);
-        String vertexName = md.resolve().getQualifiedName() + getParameterTypes(md);
-        if (isExcluded(vertexName)) {
+        String vertexName = Signatures.of(md.resolve());
+        List<Callee> callees = visitCallable(() -> super.visit(md, arg));
+        accept(vertexName, callees);
+    }
+
+    @Override
+    public void visit(LambdaExpr le, Void arg) {
+        Optional<ResolvedMethodDeclaration> functionalMethod = findFunctionalMethod(le);
+        if (functionalMethod.isEmpty()) {
+            super.visit(le, arg);
             return;
         }
-        graph.addVertex(vertexName);
-        md.findAll(MethodCallExpr.class).forEach(mce -> {
-            String calleeVertexName = mce.resolve().getQualifiedName() + getArgumentTypes(mce);
-            graph.addVertex(calleeVertexName);
-            graph.addEdge(vertexName, calleeVertexName);
-        });
+        String vertexName = Signatures.ofLambda(le, functionalMethod.get());
+        List<Callee> callees = visitCallable(() -> super.visit(le, arg));
+        accept(vertexName, callees);
+        implement(functionalMethod.get(), vertexName);
+    }
+
+    @Override
+    public void visit(MethodReferenceExpr mre, Void arg) {
+        // Constructor references create objects, whose constructors are no vertices
+        if (!"new".equals(mre.getIdentifier())) { //$NON-NLS-1$
+            findFunctionalMethod(mre).ifPresent(functionalMethod -> {
+                try {
+                    implement(functionalMethod, Signatures.of(mre.resolve()));
+                } catch (RuntimeException e) {
+                    // The reference cannot be followed, like any unresolvable call in a lambda of unknown type
+                }
+            });
+        }
+        super.visit(mre, arg);
     }
+
+    @Override
+    public void visit(ConstructorDeclaration cd, Void arg) {
+        // Constructors are no vertices of the graph, but their calls must not be attributed to an enclosing method
+        visitCallable(() -> super.visit(cd, arg));
+    }
+
+    @Override
+    public void visit(MethodCallExpr mce, Void arg) {
+        List<Callee> callees = enclosingCallees.peek();
+        if (callees != null) {
+            callees.add(callSiteResolver.resolve(mce));
+        }
+        super.visit(mce, arg);
+    }
+
+    private void accept(String vertexName, List<Callee> callees) {
+        methodCallsConsumer.accept(vertexName, callees.stream().map(Callee::vertex).toList(),
+                callees.stream().filter(Callee::virtual).map(Callee::vertex).distinct().toList());
+    }
+
+    private void implement(ResolvedMethodDeclaration functionalMethod, String implementation) {
+        implementationConsumer.accept(Signatures.of(functionalMethod), implementation);
+        List<Callee> callees = enclosingCallees.peek();
+        if (functionalMethod.toAst().isEmpty() && callees != null) {
+            callees.add(new Callee(implementation, false));
+        }
+    }
+
     /**
-     * Check if the given vertex is excluded from the cycle check
-     * @param vertex Vertex to check
-     * @return True if the vertex is excluded, false otherwise
+     * Find the method of the functional interface which is implemented by a lambda or method reference
      */
-    private boolean isExcluded(String vertex) {
-        for (String excludedIdentifier : excludedMethodIdentifiers) {
-            if (vertex.equals(excludedIdentifier)) {
-                return true;
+    private static Optional<ResolvedMethodDeclaration> findFunctionalMethod(Expression functionalExpression) {
+        try {
+            ResolvedType type = functionalExpression instanceof MethodReferenceExpr
+                    ? findTargetType(functionalExpression).orElseGet(functionalExpression::calculateResolvedType)
+                    : functionalExpression.calculateResolvedType();
+            return FunctionalInterfaceLogic.getFunctionalMethod(type).map(MethodUsage::getDeclaration);
+        } catch (RuntimeException e) {
+            // Inferring the type of a lambda fails in many ways, e.g. for arguments of unresolvable calls
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The type of a method reference is only calculated for arguments of calls, so the type of the other positions
+     * is taken from the variable, cast or method the reference is assigned to
+     */
+    private static Optional<ResolvedType> findTargetType(Expression expression) {
+        Node parent = expression.getParentNode().orElse(null);
+        if (parent instanceof EnclosedExpr enclosed) {
+            return findTargetType(enclosed);
+        }
+        if (parent instanceof VariableDeclarator variable) {
+            return Optional.of(variable.getType().resolve());
+        }
+        if (parent instanceof AssignExpr assign && assign.getValue() == expression) {
+            return Optional.of(assign.getTarget().calculateResolvedType());
+        }
+        if (parent instanceof CastExpr cast) {
+            return Optional.of(cast.getType().resolve());
+        }
+        if (parent instanceof ReturnStmt) {
+            // A return of a lambda body returns from the lambda, whose type is unknown here
+            for (Node node = parent; node != null; node = node.getParentNode().orElse(null)) {
+                if (node instanceof LambdaExpr) {
+                    return Optional.empty();
+                }
+                if (node instanceof MethodDeclaration method) {
+                    return Optional.of(method.getType().resolve());
+                }
             }
         }
-        return false;
+        return Optional.empty();
+    }
+
+    private List<Callee> visitCallable(Runnable visitBody) {
+        List<Callee> callees = new ArrayList<>();
+        enclosingCallees.push(callees);
+        try {
+            visitBody.run();
+        } finally {
+            enclosingCallees.pop();
+        }
+        return callees;
     }
 }
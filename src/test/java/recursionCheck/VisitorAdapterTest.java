@@ -0,0 +1,87 @@
+package recursionCheck;
+
+import analysis.AnalysisMetrics;
+import analysis.Deadline;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration.LanguageLevel;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VisitorAdapterTest {
+
+    private static final String NESTED = """
+            package p;
+
+            public class Outer {
+                void outer() {
+                    helper();
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            inner();
+                            new Runnable() {
+                                @Override
+                                public void run() {
+                                    innermost();
+                                }
+                            }.run();
+                        }
+                    }.run();
+                }
+
+                void helper() {
+                }
+
+                void inner() {
+                }
+
+                void innermost() {
+                }
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEveryCallBelongsToItsInnermostMethodAndIsResolvedOnce() throws IOException {
+        CompilationUnit compilationUnit = parse("Outer.java", NESTED);
+        AtomicLong resolvedCalls = new AtomicLong();
+        CallSiteResolver resolver = new CallSiteResolver(Deadline.none(), new AnalysisMetrics() {
+            @Override
+            public void increment(Counter counter, long amount) {
+                if (counter == Counter.RESOLVE_CALLS) {
+                    resolvedCalls.addAndGet(amount);
+                }
+            }
+        });
+        Map<String, List<String>> calls = new LinkedHashMap<>();
+
+        compilationUnit.accept(new VisitorAdapter(resolver, (method, callees, virtualCallees) -> calls.put(method, callees)), null);
+
+        assertThat(calls).containsEntry("p.Outer.outer()", List.of("p.Outer.helper()", "java.lang.Runnable.run()"))
+                .containsEntry("p.Outer$1.run()", List.of("p.Outer.inner()", "java.lang.Runnable.run()"))
+                .containsEntry("p.Outer$1$1.run()", List.of("p.Outer.innermost()"));
+        assertThat(resolvedCalls).hasValue(compilationUnit.findAll(MethodCallExpr.class).size());
+    }
+
+    private CompilationUnit parse(String fileName, String content) throws IOException {
+        Path file = directory.resolve("p").resolve(fileName);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        JavaParser parser = new JavaParser(RecursionCheck.parserConfigurationFactory(directory, LanguageLevel.JAVA_17).get());
+        return parser.parse(file).getResult().orElseThrow();
+    }
+}